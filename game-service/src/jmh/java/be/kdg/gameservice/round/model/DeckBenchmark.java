@@ -0,0 +1,35 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.card.CardType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of dealing the cards of a round and of dealing a complete deck.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class DeckBenchmark {
+    /**
+     * The cards of a round at a full table: 2 for each of the 6 players and 5 for the board.
+     */
+    private static final int CARDS_PER_ROUND = 2 * 6 + 5;
+
+    @Benchmark
+    public void dealRound(Blackhole blackhole) {
+        Deck deck = Deck.forThread();
+        for (int i = 0; i < CARDS_PER_ROUND; i++) blackhole.consume(deck.getCard());
+    }
+
+    @Benchmark
+    public void dealDeck(Blackhole blackhole) {
+        Deck deck = Deck.forThread();
+        while (deck.getNumberOfCards() > 0) {
+            CardType card = deck.getCard();
+            blackhole.consume(card);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.room.model.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of a round, which deals the hole cards and the board.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class RoundBenchmark {
+    @Param({"2", "6"})
+    private int playerCount;
+
+    private List<Player> players;
+
+    @Setup
+    public void setup() {
+        players = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) players.add(new Player(2000, String.valueOf(i), i));
+    }
+
+    @Benchmark
+    public Round createRound() {
+        return new Round(new ArrayList<>(players), 0);
+    }
+}
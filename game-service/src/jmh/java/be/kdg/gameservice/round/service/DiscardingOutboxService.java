@@ -0,0 +1,35 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.model.Round;
+
+import java.util.List;
+
+/**
+ * An outbox that drops the side effects of a round. They are delivered in the background,
+ * so they are not part of the act path a benchmark measures.
+ */
+class DiscardingOutboxService implements OutboxService {
+    @Override
+    public void addWin(Round round, List<Player> winners) {
+    }
+
+    @Override
+    public void addGamesPlayed(Round round) {
+    }
+
+    @Override
+    public void addReplays(Round round) {
+    }
+
+    @Override
+    public int dispatch() {
+        return 0;
+    }
+
+    @Override
+    public long getPendingMessages() {
+        return 0;
+    }
+}
@@ -0,0 +1,65 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.model.Hand;
+import be.kdg.gameservice.round.service.impl.HandServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scoring of 7-card hands and the comparison of scored hands.
+ * A fixed set of random hands is cycled through, so the branches of the evaluator are not always the same.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class HandBenchmark {
+    private static final int HAND_COUNT = 1024;
+
+    private final HandServiceImpl handService = new HandServiceImpl();
+    private List<List<Card>> cardLists;
+    private long[] cardSets;
+    private Hand[] hands;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        CardType[] types = CardType.values();
+        cardLists = new ArrayList<>();
+        cardSets = new long[HAND_COUNT];
+        hands = new Hand[HAND_COUNT];
+
+        for (int i = 0; i < HAND_COUNT; i++) {
+            long set = CardSet.EMPTY;
+            while (CardSet.size(set) < 7) set = CardSet.with(set, types[random.nextInt(types.length)]);
+            cardSets[i] = set;
+            cardLists.add(CardSet.toCards(set));
+            hands[i] = handService.determineBestPossibleHand(set);
+        }
+    }
+
+    @Benchmark
+    public Hand determineBestPossibleHand() {
+        index = (index + 1) & (HAND_COUNT - 1);
+        return handService.determineBestPossibleHand(cardLists.get(index));
+    }
+
+    @Benchmark
+    public Hand determineBestPossibleHandFromSet() {
+        index = (index + 1) & (HAND_COUNT - 1);
+        return handService.determineBestPossibleHand(cardSets[index]);
+    }
+
+    @Benchmark
+    public int compareHands() {
+        index = (index + 1) & (HAND_COUNT - 1);
+        return hands[index].compareTo(hands[(index + 1) & (HAND_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,202 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import org.springframework.data.domain.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A round repository that keeps the rounds in a map, so a benchmark measures the game logic and not the database.
+ * A round keeps the id it has, like a round that was given one by the sequence.
+ * Sorting and queries by example are not supported, the round service never uses them.
+ */
+class InMemoryRoundRepository implements RoundRepository {
+    private final Map<Integer, Round> rounds = new HashMap<>();
+
+    @Override
+    public Optional<Integer> findRoomId(int roundId) {
+        return findById(roundId).map(Round::getRoomId);
+    }
+
+    @Override
+    public Page<Integer> findPastRoundIds(int roomId, Pageable pageable) {
+        List<Integer> ids = rounds.values().stream()
+                .filter(round -> Objects.equals(round.getRoomId(), roomId) && round.isFinished())
+                .map(Round::getId)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        return page(ids, pageable);
+    }
+
+    @Override
+    public List<Round> findByIdInOrderByIdDesc(Collection<Integer> ids) {
+        return byId(ids.stream()).sorted(Comparator.comparingInt(Round::getId).reversed()).collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Round> findFirstByRoomIdOrderByIdDesc(int roomId) {
+        return rounds.values().stream()
+                .filter(round -> Objects.equals(round.getRoomId(), roomId))
+                .max(Comparator.comparingInt(Round::getId));
+    }
+
+    /**
+     * Nothing is archived, the rooms and the outbox are not kept in memory.
+     */
+    @Override
+    public List<Integer> findArchivableIds(long startedBefore, Pageable pageable) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * The acts are kept in their round, they are removed with it.
+     */
+    @Override
+    public int deleteActs(Collection<Integer> roundIds) {
+        return 0;
+    }
+
+    @Override
+    public int deleteRounds(Collection<Integer> roundIds) {
+        int deleted = 0;
+        for (int roundId : roundIds) if (rounds.remove(roundId) != null) deleted++;
+        return deleted;
+    }
+
+    @Override
+    public <S extends Round> S save(S round) {
+        rounds.put(round.getId(), round);
+        return round;
+    }
+
+    @Override
+    public <S extends Round> List<S> saveAll(Iterable<S> rounds) {
+        List<S> saved = new ArrayList<>();
+        for (S round : rounds) saved.add(save(round));
+        return saved;
+    }
+
+    @Override
+    public <S extends Round> S saveAndFlush(S round) {
+        return save(round);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<Round> findById(Integer roundId) {
+        return Optional.ofNullable(rounds.get(roundId));
+    }
+
+    @Override
+    public Round getOne(Integer roundId) {
+        return findById(roundId).orElseThrow(() -> new NoSuchElementException("Round " + roundId + " does not exist."));
+    }
+
+    @Override
+    public boolean existsById(Integer roundId) {
+        return rounds.containsKey(roundId);
+    }
+
+    @Override
+    public List<Round> findAll() {
+        return byId(rounds.keySet().stream().sorted()).collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<Round> findAll(Pageable pageable) {
+        return page(findAll(), pageable);
+    }
+
+    @Override
+    public List<Round> findAllById(Iterable<Integer> ids) {
+        return byId(StreamSupport.stream(ids.spliterator(), false)).collect(Collectors.toList());
+    }
+
+    @Override
+    public long count() {
+        return rounds.size();
+    }
+
+    @Override
+    public void deleteById(Integer roundId) {
+        rounds.remove(roundId);
+    }
+
+    @Override
+    public void delete(Round round) {
+        rounds.remove(round.getId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Round> rounds) {
+        for (Round round : rounds) delete(round);
+    }
+
+    @Override
+    public void deleteInBatch(Iterable<Round> rounds) {
+        deleteAll(rounds);
+    }
+
+    @Override
+    public void deleteAll() {
+        rounds.clear();
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public List<Round> findAll(Sort sort) {
+        throw new UnsupportedOperationException("Sorting is not supported.");
+    }
+
+    @Override
+    public <S extends Round> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    @Override
+    public <S extends Round> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    @Override
+    public <S extends Round> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    @Override
+    public <S extends Round> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    @Override
+    public <S extends Round> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    @Override
+    public <S extends Round> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Queries by example are not supported.");
+    }
+
+    private Stream<Round> byId(Stream<Integer> ids) {
+        return ids.map(rounds::get).filter(Objects::nonNull);
+    }
+
+    private static <T> Page<T> page(List<T> content, Pageable pageable) {
+        if (pageable.isUnpaged()) return new PageImpl<>(content);
+        int from = (int) Math.min(pageable.getOffset(), content.size());
+        int to = Math.min(from + pageable.getPageSize(), content.size());
+        return new PageImpl<>(content.subList(from, to), pageable, content.size());
+    }
+}
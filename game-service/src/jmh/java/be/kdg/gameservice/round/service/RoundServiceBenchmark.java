@@ -0,0 +1,65 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActOutcome;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.impl.HandServiceImpl;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.round.service.impl.RoundServiceImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a complete 3-way round through the round service, from the blinds until the winner is paid,
+ * every act goes through the same pipeline as the act endpoint.
+ * The repository is replaced by an in-memory one, so only the game logic and the live round store are measured.
+ * Every operation creates the players, the round and an empty live round store as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class RoundServiceBenchmark {
+    private static final int ROUND_ID = 0;
+    private static final List<String> USER_IDS = Arrays.asList("1", "2", "3");
+
+    private RoundRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private HandServiceImpl handService;
+    private OutboxService outboxService;
+
+    @Setup
+    public void setup() {
+        repository = new InMemoryRoundRepository();
+        transactionManager = new NoTransactionManager();
+        handService = new HandServiceImpl();
+        outboxService = new DiscardingOutboxService();
+    }
+
+    @Benchmark
+    public Optional<Player> playRound() throws RoundException {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < USER_IDS.size(); i++) players.add(new Player(2000, USER_IDS.get(i), i + 1));
+        RoundServiceImpl roundService = new RoundServiceImpl(new LiveRoundStore(repository, transactionManager), handService, outboxService, event -> { }, new ModelMapper());
+        Round round = repository.save(roundService.startNewRound(players, 0));
+
+        roundService.playBlinds(round, 10, 20);
+        roundService.playAct(ROUND_ID, "3", ActType.CALL, Phase.PRE_FLOP, 20, false);
+        ActOutcome outcome = roundService.playAct(ROUND_ID, "1", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        for (Phase phase : Arrays.asList(Phase.FLOP, Phase.TURN, Phase.RIVER))
+            for (String userId : USER_IDS) outcome = roundService.playAct(ROUND_ID, userId, ActType.CHECK, phase, 0, false);
+
+        return outcome.getWinner();
+    }
+}
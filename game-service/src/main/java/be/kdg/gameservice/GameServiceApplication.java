@@ -2,8 +2,10 @@ package be.kdg.gameservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class GameServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(GameServiceApplication.class, args);
@@ -0,0 +1,26 @@
+package be.kdg.gameservice.archive.dto;
+
+import be.kdg.gameservice.archive.model.ArchivedAct;
+import be.kdg.gameservice.archive.model.ArchivedPlayer;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.model.Phase;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedHandDTO {
+    private int roundId;
+    private int roomId;
+    private long playedAt;
+    private int button;
+    private int pot;
+    private Phase phase;
+    private List<CardType> board;
+    private List<ArchivedPlayer> players;
+    private List<ArchivedAct> acts;
+}
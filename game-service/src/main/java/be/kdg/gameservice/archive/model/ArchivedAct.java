@@ -0,0 +1,25 @@
+package be.kdg.gameservice.archive.model;
+
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalTime;
+
+/**
+ * An act of an archived hand.
+ */
+@Getter
+@AllArgsConstructor
+public final class ArchivedAct {
+    /**
+     * The user that played the act, null if the act had no player.
+     */
+    private final String userId;
+
+    private final ActType type;
+    private final Phase phase;
+    private final int bet;
+    private final LocalTime timestamp;
+}
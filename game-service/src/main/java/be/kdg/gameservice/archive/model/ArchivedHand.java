@@ -0,0 +1,46 @@
+package be.kdg.gameservice.archive.model;
+
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.model.Phase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A hand that was read back from the archive.
+ */
+@Getter
+@AllArgsConstructor
+public final class ArchivedHand {
+    private final int roundId;
+    private final int roomId;
+
+    /**
+     * The time the round was started, in ms since the epoch.
+     */
+    private final long playedAt;
+
+    private final int button;
+    private final int pot;
+
+    /**
+     * The phase the round ended in.
+     */
+    private final Phase phase;
+
+    /**
+     * The five cards of the board, in the order they were dealt.
+     */
+    private final List<CardType> board;
+
+    /**
+     * The users that took part in the round, the players of the round first.
+     */
+    private final List<ArchivedPlayer> players;
+
+    /**
+     * The acts in the order they were played.
+     */
+    private final List<ArchivedAct> acts;
+}
@@ -0,0 +1,34 @@
+package be.kdg.gameservice.archive.model;
+
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.model.HandType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A user that took part in an archived hand.
+ * The seat, the hole cards and the hand type are the ones the player was dealt in the round.
+ * Of a round that was played before its dealt players were kept, the cards and the hand type are only known
+ * for the players that were still in the round when it was archived.
+ */
+@Getter
+@AllArgsConstructor
+public final class ArchivedPlayer {
+    private final String userId;
+    private final int seatNumber;
+
+    /**
+     * Null if the cards are not known.
+     */
+    private final CardType firstCard;
+
+    /**
+     * Null if the cards are not known.
+     */
+    private final CardType secondCard;
+
+    /**
+     * Null if the hand type is not known.
+     */
+    private final HandType handType;
+}
@@ -0,0 +1,61 @@
+package be.kdg.gameservice.archive.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Set;
+
+/**
+ * A finished round that was moved out of the tables that are played on.
+ * The whole hand is kept as one compact record, only the columns it is looked up by are kept apart:
+ * the room and the time it was played, and the users that took part in it.
+ *
+ * @see be.kdg.gameservice.archive.service.util.HandCodec
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "archived_round", indexes = @Index(name = "archived_round_room", columnList = "room_id, played_at"))
+public final class ArchivedRound {
+    /**
+     * The id the round had while it was played.
+     */
+    @Id
+    private int roundId;
+
+    /**
+     * The id of the room the round was played in.
+     */
+    @Column(name = "room_id", nullable = false)
+    private int roomId;
+
+    /**
+     * The time the round was started, in ms since the epoch.
+     */
+    @Column(name = "played_at", nullable = false)
+    private long playedAt;
+
+    /**
+     * The users that took part in the round.
+     */
+    @ElementCollection
+    @CollectionTable(name = "archived_round_user", joinColumns = @JoinColumn(name = "round_id"),
+            indexes = @Index(name = "archived_round_user_id", columnList = "user_id"))
+    @Column(name = "user_id", nullable = false)
+    private Set<String> userIds;
+
+    /**
+     * The encoded hand.
+     */
+    @Column(nullable = false, length = 65535)
+    private byte[] hand;
+
+    public ArchivedRound(int roundId, int roomId, long playedAt, Set<String> userIds, byte[] hand) {
+        this.roundId = roundId;
+        this.roomId = roomId;
+        this.playedAt = playedAt;
+        this.userIds = userIds;
+        this.hand = hand;
+    }
+}
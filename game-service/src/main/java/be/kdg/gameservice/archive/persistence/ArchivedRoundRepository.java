@@ -0,0 +1,18 @@
+package be.kdg.gameservice.archive.persistence;
+
+import be.kdg.gameservice.archive.model.ArchivedRound;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedRoundRepository extends JpaRepository<ArchivedRound, Integer> {
+    @Query("select a from ArchivedRound a where a.roomId = ?1 and a.playedAt >= ?2 and a.playedAt < ?3 order by a.playedAt desc, a.roundId desc")
+    List<ArchivedRound> findByRoom(int roomId, long from, long to, Pageable pageable);
+
+    @Query("select a from ArchivedRound a join a.userIds userId where userId = ?1 and a.playedAt >= ?2 and a.playedAt < ?3 order by a.playedAt desc, a.roundId desc")
+    List<ArchivedRound> findByUser(String userId, long from, long to, Pageable pageable);
+}
@@ -0,0 +1,13 @@
+package be.kdg.gameservice.archive.service.api;
+
+import be.kdg.gameservice.archive.model.ArchivedHand;
+
+import java.util.List;
+
+public interface ArchiveService {
+    int archiveRounds();
+
+    List<ArchivedHand> getHandsOfRoom(int roomId, long from, long to, int page, int size);
+
+    List<ArchivedHand> getHandsOfUser(String userId, long from, long to, int page, int size);
+}
@@ -0,0 +1,153 @@
+package be.kdg.gameservice.archive.service.impl;
+
+import be.kdg.gameservice.archive.model.ArchivedHand;
+import be.kdg.gameservice.archive.model.ArchivedRound;
+import be.kdg.gameservice.archive.persistence.ArchivedRoundRepository;
+import be.kdg.gameservice.archive.service.api.ArchiveService;
+import be.kdg.gameservice.archive.service.util.HandCodec;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Service that moves finished rounds out of the tables that are played on, into the archive.
+ * A round is archived once it is older than archive.min-age, is not the current round of its room
+ * and all its side effects were delivered. Every round becomes one {@link ArchivedRound} with the hand
+ * encoded by the {@link HandCodec}, its acts and row are deleted in the same transaction.
+ * <p>
+ * The archive is read a page at a time, by room or by user, within a time range.
+ * In a cluster only the leader archives.
+ */
+@Service
+public class ArchiveServiceImpl implements ArchiveService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveServiceImpl.class);
+
+    private final ArchivedRoundRepository archivedRoundRepository;
+    private final RoundRepository roundRepository;
+    private final LiveRoundStore liveRounds;
+    private final ClusterService clusterService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The time in ms after the start of a round before it can be archived.
+     */
+    @Value("${archive.min-age:3600000}")
+    private long minAge;
+
+    /**
+     * The maximum number of rounds that are archived in one transaction.
+     */
+    @Value("${archive.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    public ArchiveServiceImpl(ArchivedRoundRepository archivedRoundRepository, RoundRepository roundRepository,
+                              LiveRoundStore liveRounds, ClusterService clusterService,
+                              PlatformTransactionManager transactionManager) {
+        this.archivedRoundRepository = archivedRoundRepository;
+        this.roundRepository = roundRepository;
+        this.liveRounds = liveRounds;
+        this.clusterService = clusterService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archives the rounds that can be archived, one batch per transaction.
+     *
+     * @return The number of rounds that were archived.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${archive.interval:60000}", initialDelayString = "${archive.interval:60000}")
+    public synchronized int archiveRounds() {
+        if (clusterService.isClustered() && !clusterService.isLeader()) return 0;
+
+        long startedBefore = System.currentTimeMillis() - minAge;
+        int archived = 0;
+        while (true) {
+            List<Integer> roundIds = new ArrayList<>(roundRepository.findArchivableIds(startedBefore, PageRequest.of(0, batchSize)));
+            roundIds.removeIf(liveRounds::isLive);
+            if (roundIds.isEmpty()) break;
+
+            try {
+                archived += transactionTemplate.execute(status -> archive(roundIds));
+            } catch (RuntimeException e) {
+                LOGGER.error("Archiving " + roundIds.size() + " rounds failed, retrying on the next run", e);
+                break;
+            }
+            if (roundIds.size() < batchSize) break;
+        }
+        if (archived > 0) LOGGER.info("Archived " + archived + " rounds");
+        return archived;
+    }
+
+    /**
+     * Archives a batch of rounds. The players that still point to a round are let go first,
+     * the acts and rounds are deleted with bulk statements after that.
+     */
+    private int archive(List<Integer> roundIds) {
+        long now = System.currentTimeMillis();
+        List<Round> rounds = roundRepository.findAllById(roundIds);
+        for (Round round : rounds) {
+            long playedAt = round.getStartedAt() == 0 ? now : round.getStartedAt();
+            Set<String> userIds = new HashSet<>(HandCodec.getParticipants(round).keySet());
+            archivedRoundRepository.save(new ArchivedRound(round.getId(), round.getRoomId(), playedAt, userIds,
+                    HandCodec.encode(round)));
+
+            for (Player player : new ArrayList<>(round.getPlayersInRound())) round.removePlayer(player);
+        }
+        roundRepository.flush();
+
+        List<Integer> archivedIds = rounds.stream().map(Round::getId).collect(toList());
+        roundRepository.deleteActs(archivedIds);
+        roundRepository.deleteRounds(archivedIds);
+        return archivedIds.size();
+    }
+
+    /**
+     * @param roomId The id of the room.
+     * @param from   The start of the time range in ms since the epoch, inclusive.
+     * @param to     The end of the time range in ms since the epoch, exclusive.
+     * @param page   The number of the page, starting at 0.
+     * @param size   The number of hands of a page.
+     * @return The archived hands of the room that were played in the time range, the last hand first.
+     */
+    @Override
+    public List<ArchivedHand> getHandsOfRoom(int roomId, long from, long to, int page, int size) {
+        return decode(archivedRoundRepository.findByRoom(roomId, from, to, PageRequest.of(page, size)));
+    }
+
+    /**
+     * @param userId The id of the user.
+     * @param from   The start of the time range in ms since the epoch, inclusive.
+     * @param to     The end of the time range in ms since the epoch, exclusive.
+     * @param page   The number of the page, starting at 0.
+     * @param size   The number of hands of a page.
+     * @return The archived hands the user took part in that were played in the time range, the last hand first.
+     */
+    @Override
+    public List<ArchivedHand> getHandsOfUser(String userId, long from, long to, int page, int size) {
+        return decode(archivedRoundRepository.findByUser(userId, from, to, PageRequest.of(page, size)));
+    }
+
+    private static List<ArchivedHand> decode(List<ArchivedRound> archivedRounds) {
+        return archivedRounds.stream()
+                .map(a -> HandCodec.decode(a.getRoundId(), a.getRoomId(), a.getPlayedAt(), a.getHand()))
+                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+    }
+}
@@ -0,0 +1,242 @@
+package be.kdg.gameservice.archive.service.util;
+
+import be.kdg.gameservice.archive.model.ArchivedAct;
+import be.kdg.gameservice.archive.model.ArchivedHand;
+import be.kdg.gameservice.archive.model.ArchivedPlayer;
+import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.DealtPlayer;
+import be.kdg.gameservice.round.model.HandType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Encodes a finished round as a dense binary hand record, and decodes it again.
+ * <p>
+ * Numbers are written as varints: 7 bits per byte, with the high bit set on every byte but the last,
+ * so the seats, bets and pots of a hand mostly take one or two bytes. An enum is written as its ordinal
+ * plus one, 0 standing for null, a card as the ordinal of its card type. A user id that is a UUID takes 16 bytes.
+ * <p>
+ * A record holds, in this order: the format version, the button, the pot, the last phase, the board,
+ * the users that took part and the acts. An act refers to its user by index and holds the time since the act
+ * before it, as a zigzag varint since the time of day wraps around at midnight.
+ */
+public final class HandCodec {
+    private static final int VERSION = 1;
+    private static final int TEXT_ID = 0;
+    private static final int UUID_ID = 1;
+
+    private static final CardType[] CARD_TYPES = CardType.values();
+    private static final ActType[] ACT_TYPES = ActType.values();
+    private static final Phase[] PHASES = Phase.values();
+    private static final HandType[] HAND_TYPES = HandType.values();
+
+    private HandCodec() {
+    }
+
+    /**
+     * The users that took part in a round: the players as they were dealt into the round, followed by the users
+     * of acts that were not dealt in. A round that was dealt before its dealt players were kept falls back
+     * to the players that are still in the round, only their cards are known.
+     *
+     * @param round The round.
+     * @return The players by user id, in the order they are written.
+     */
+    public static Map<String, ArchivedPlayer> getParticipants(Round round) {
+        Map<String, ArchivedPlayer> participants = new LinkedHashMap<>();
+        for (DealtPlayer player : round.getDealtPlayers()) {
+            participants.put(player.getUserId(), new ArchivedPlayer(player.getUserId(), player.getSeatNumber(),
+                    player.getFirstCard(), player.getSecondCard(), player.getHandType()));
+        }
+        if (participants.isEmpty()) {
+            for (Player player : round.getPlayersInRound()) {
+                participants.put(player.getUserId(), new ArchivedPlayer(player.getUserId(), player.getSeatNumber(),
+                        player.getFirstCard() == null ? null : player.getFirstCard().type,
+                        player.getSecondCard() == null ? null : player.getSecondCard().type, player.getHandType()));
+            }
+        }
+        for (Act act : round.getActs()) {
+            Player player = act.getPlayer();
+            if (player != null && !participants.containsKey(player.getUserId())) {
+                participants.put(player.getUserId(), new ArchivedPlayer(player.getUserId(), player.getSeatNumber(),
+                        null, null, null));
+            }
+        }
+        return participants;
+    }
+
+    /**
+     * @param round A finished round, with its cards, acts and dealt players.
+     * @return The encoded hand.
+     */
+    public static byte[] encode(Round round) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        writeVarint(out, VERSION);
+        writeVarint(out, round.getButton());
+        writeVarint(out, round.getPot());
+        writeOrdinal(out, round.getCurrentPhase());
+
+        writeVarint(out, round.getCards().size());
+        for (Card card : round.getCards()) out.write(card.type.ordinal());
+
+        Map<String, ArchivedPlayer> participants = getParticipants(round);
+        Map<String, Integer> indexes = new HashMap<>();
+        writeVarint(out, participants.size());
+        for (ArchivedPlayer player : participants.values()) {
+            indexes.put(player.getUserId(), indexes.size());
+            writeUserId(out, player.getUserId());
+            writeVarint(out, player.getSeatNumber());
+            writeOrdinal(out, player.getFirstCard());
+            writeOrdinal(out, player.getSecondCard());
+            writeOrdinal(out, player.getHandType());
+        }
+
+        writeVarint(out, round.getActs().size());
+        int previousTime = 0;
+        for (Act act : round.getActs()) {
+            writeVarint(out, act.getPlayer() == null ? 0 : indexes.get(act.getPlayer().getUserId()) + 1);
+            writeOrdinal(out, act.getType());
+            writeOrdinal(out, act.getPhase());
+            writeVarint(out, act.getBet());
+            int time = act.getTimestamp() == null ? previousTime : (int) (act.getTimestamp().toNanoOfDay() / 1_000_000);
+            int delta = time - previousTime;
+            writeVarint(out, (delta << 1) ^ (delta >> 31));
+            previousTime = time;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param roundId  The id of the archived round.
+     * @param roomId   The id of the room of the round.
+     * @param playedAt The time the round was started.
+     * @param hand     The encoded hand.
+     * @return The decoded hand.
+     */
+    public static ArchivedHand decode(int roundId, int roomId, long playedAt, byte[] hand) {
+        Reader in = new Reader(hand);
+        int version = in.readVarint();
+        if (version != VERSION) throw new IllegalArgumentException("Hand record version " + version + " is not supported.");
+        int button = in.readVarint();
+        int pot = in.readVarint();
+        Phase phase = in.readOrdinal(PHASES);
+
+        List<CardType> board = new ArrayList<>();
+        for (int i = in.readVarint(); i > 0; i--) board.add(CARD_TYPES[in.readByte()]);
+
+        List<ArchivedPlayer> players = new ArrayList<>();
+        for (int i = in.readVarint(); i > 0; i--) {
+            players.add(new ArchivedPlayer(in.readUserId(), in.readVarint(),
+                    in.readOrdinal(CARD_TYPES), in.readOrdinal(CARD_TYPES), in.readOrdinal(HAND_TYPES)));
+        }
+
+        List<ArchivedAct> acts = new ArrayList<>();
+        int time = 0;
+        for (int i = in.readVarint(); i > 0; i--) {
+            int player = in.readVarint();
+            ActType type = in.readOrdinal(ACT_TYPES);
+            Phase actPhase = in.readOrdinal(PHASES);
+            int bet = in.readVarint();
+            int zigzag = in.readVarint();
+            time += (zigzag >>> 1) ^ -(zigzag & 1);
+            acts.add(new ArchivedAct(player == 0 ? null : players.get(player - 1).getUserId(), type, actPhase, bet,
+                    LocalTime.ofNanoOfDay(Math.floorMod(time, 86_400_000) * 1_000_000L)));
+        }
+        return new ArchivedHand(roundId, roomId, playedAt, button, pot, phase, board, players, acts);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeOrdinal(ByteArrayOutputStream out, Enum<?> value) {
+        writeVarint(out, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static void writeUserId(ByteArrayOutputStream out, String userId) {
+        UUID uuid = asUuid(userId);
+        if (uuid != null) {
+            out.write(UUID_ID);
+            writeLong(out, uuid.getMostSignificantBits());
+            writeLong(out, uuid.getLeastSignificantBits());
+        } else {
+            byte[] text = userId.getBytes(StandardCharsets.UTF_8);
+            out.write(TEXT_ID);
+            writeVarint(out, text.length);
+            out.write(text, 0, text.length);
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (value >>> shift));
+    }
+
+    /**
+     * @return The user id as a UUID, null if it is not one in its canonical form.
+     */
+    private static UUID asUuid(String userId) {
+        if (userId.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(userId);
+            return uuid.toString().equals(userId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the values of a record in the order they were written.
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+        }
+
+        private <E extends Enum<E>> E readOrdinal(E[] values) {
+            int ordinal = readVarint();
+            return ordinal == 0 ? null : values[ordinal - 1];
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) value = (value << 8) | readByte();
+            return value;
+        }
+
+        private String readUserId() {
+            if (readByte() == UUID_ID) return new UUID(readLong(), readLong()).toString();
+            int length = readVarint();
+            String userId = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return userId;
+        }
+    }
+}
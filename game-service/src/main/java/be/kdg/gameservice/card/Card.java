@@ -1,31 +1,23 @@
 package be.kdg.gameservice.card;
 
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-
-import javax.persistence.*;
+import lombok.EqualsAndHashCode;
 
 /**
  * Wrapper class used to store information about a card.
+ * A card is a value: it is stored as the ordinal of its type in a column of the entity that holds it,
+ * it can not be changed, so the entity replaces the card instead.
+ *
+ * @see CardConverter
+ * @see PackedCards
  */
-@Entity
-@Table(name = "card")
-@NoArgsConstructor
+@EqualsAndHashCode
 public final class Card {
-    /**
-     * The id of the card. Used for persistence.
-     */
-    @Getter
-    @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private int id;
-
     /**
      * The type of card.
      *
      * @see CardType
      */
-    public CardType type;
+    public final CardType type;
 
     public Card(CardType type) {
         this.type = type;
@@ -0,0 +1,22 @@
+package be.kdg.gameservice.card;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a card as the ordinal of its type, a column that is null holds no card.
+ */
+@Converter
+public final class CardConverter implements AttributeConverter<Card, Integer> {
+    private static final CardType[] CARD_TYPES = CardType.values();
+
+    @Override
+    public Integer convertToDatabaseColumn(Card card) {
+        return card == null ? null : card.type.ordinal();
+    }
+
+    @Override
+    public Card convertToEntityAttribute(Integer ordinal) {
+        return ordinal == null ? null : new Card(CARD_TYPES[ordinal]);
+    }
+}
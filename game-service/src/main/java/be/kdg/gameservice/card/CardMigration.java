@@ -0,0 +1,113 @@
+package be.kdg.gameservice.card;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the cards that were stored as rows of the card table to the columns that hold them now:
+ * the board of a round to its packed board column, the hole cards of a player to their type columns.
+ * <p>
+ * The migration runs at startup, before the rooms link their current round, and only fills the columns
+ * that are still empty, so it can run on every start. A database that never had a card table has nothing
+ * to move. The card table and the old join columns are left in place and can be dropped once every node runs this version.
+ * The card rows of a board that was moved are let go of their round, the round_id column still references
+ * the round table, so they would keep the round from being deleted by the archiver.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardMigration.class);
+    private static final CardType[] CARD_TYPES = CardType.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The schema of the tables, empty for the default schema.
+     */
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrate() {
+        try {
+            jdbcTemplate.queryForObject("select count(*) from " + table("card"), Integer.class);
+        } catch (DataAccessException e) {
+            return;
+        }
+
+        migrateBoards();
+        releaseBoards();
+        migrateHoleCards("first_card");
+        migrateHoleCards("second_card");
+    }
+
+    /**
+     * Packs the card rows of every round with an empty board in the order they were dealt.
+     */
+    private void migrateBoards() {
+        Map<Integer, List<Card>> boards = new LinkedHashMap<>();
+        try {
+            jdbcTemplate.query("select c.round_id, c.type from " + table("card") + " c join " + table("round") + " r on r.id = c.round_id"
+                            + " where r.board = 0 order by c.round_id, c.id",
+                    row -> {
+                        boards.computeIfAbsent(row.getInt(1), roundId -> new ArrayList<>()).add(new Card(CARD_TYPES[row.getInt(2)]));
+                    });
+        } catch (DataAccessException e) {
+            LOGGER.warn("The boards of the rounds could not be read from the card table: " + e.getMessage());
+            return;
+        }
+        if (boards.isEmpty()) return;
+
+        List<Object[]> updates = new ArrayList<>(boards.size());
+        boards.forEach((roundId, cards) -> updates.add(new Object[]{PackedCards.pack(cards), roundId}));
+        jdbcTemplate.batchUpdate("update " + table("round") + " set board = ? where id = ? and board = 0", updates);
+        LOGGER.info("Moved the boards of " + boards.size() + " rounds out of the card table");
+    }
+
+    /**
+     * Clears the round of the card rows whose board is stored in the packed board column of the round.
+     */
+    private void releaseBoards() {
+        try {
+            int cards = jdbcTemplate.update("update " + table("card") + " set round_id = null where round_id in (select r.id from "
+                    + table("round") + " r where r.board <> 0)");
+            if (cards > 0) LOGGER.info("Let go of the rounds of " + cards + " cards in the card table");
+        } catch (DataAccessException e) {
+            LOGGER.warn("The cards in the card table could not be let go of their rounds: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the type of the card a player pointed to into the type column of that card.
+     *
+     * @param column The old join column of the player.
+     */
+    private void migrateHoleCards(String column) {
+        try {
+            int players = jdbcTemplate.update("update " + table("player") + " set " + column + "_type = (select c.type from "
+                    + table("card") + " c where c.id = " + column + ") where " + column + " is not null and " + column + "_type is null");
+            if (players > 0) LOGGER.info("Moved the " + column.replace('_', ' ') + " of " + players + " players out of the card table");
+        } catch (DataAccessException e) {
+            LOGGER.warn("The " + column.replace('_', ' ') + " of the players could not be moved: " + e.getMessage());
+        }
+    }
+
+    private String table(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+}
@@ -0,0 +1,158 @@
+package be.kdg.gameservice.card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Primitive representation of a set of cards. A card set is a long that holds one bit for every
+ * card, the bit index is the ordinal of the {@link CardType}.
+ * <p>
+ * Card types are declared per suit and within a suit from deuce to ace, so the cards of one suit
+ * form a block of 13 bits and the rank of a card is its offset in that block.
+ * This class only holds static helpers, the sets themselves are plain longs that can be combined
+ * with bit operations without creating any objects.
+ */
+public final class CardSet {
+    /**
+     * A set without any cards.
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * The number of ranks in a suit.
+     */
+    public static final int RANK_COUNT = Rank.values().length;
+
+    /**
+     * A set that holds every card of a deck.
+     */
+    public static final long FULL_DECK = (1L << CardType.values().length) - 1;
+
+    /**
+     * Mask of all the ranks of one suit.
+     */
+    private static final int ALL_RANKS = (1 << RANK_COUNT) - 1;
+
+    /**
+     * All card types indexed by their ordinal.
+     */
+    private static final CardType[] CARD_TYPES = CardType.values();
+
+    private CardSet() {
+    }
+
+    /**
+     * @param type The type of card.
+     * @return A set that only holds the given card.
+     */
+    public static long of(CardType type) {
+        return 1L << type.ordinal();
+    }
+
+    /**
+     * @param types The types of card.
+     * @return A set that holds all the given cards.
+     */
+    public static long of(CardType... types) {
+        long set = EMPTY;
+        for (CardType type : types) set |= of(type);
+        return set;
+    }
+
+    /**
+     * @param card A card, can be null.
+     * @return A set that holds the card, or an empty set if there is no card.
+     */
+    public static long of(Card card) {
+        return card == null ? EMPTY : of(card.type);
+    }
+
+    /**
+     * @param cards The cards that need to be converted.
+     * @return A set that holds all the given cards.
+     */
+    public static long of(List<Card> cards) {
+        long set = EMPTY;
+        for (int i = 0; i < cards.size(); i++) set |= of(cards.get(i));
+        return set;
+    }
+
+    /**
+     * @return A set that holds the cards of both sets.
+     */
+    public static long union(long first, long second) {
+        return first | second;
+    }
+
+    /**
+     * @return The set with the given card added to it.
+     */
+    public static long with(long set, CardType type) {
+        return set | of(type);
+    }
+
+    /**
+     * @return True if the card is part of the set.
+     */
+    public static boolean contains(long set, CardType type) {
+        return (set & of(type)) != 0;
+    }
+
+    /**
+     * @return The number of cards in the set.
+     */
+    public static int size(long set) {
+        return Long.bitCount(set);
+    }
+
+    /**
+     * @param set  A set of cards.
+     * @param suit The suit.
+     * @return A 13-bit mask with the ranks of all the cards of that suit (deuce is bit 0).
+     */
+    public static int suitMask(long set, Suit suit) {
+        return (int) (set >>> suit.ordinal() * RANK_COUNT) & ALL_RANKS;
+    }
+
+    /**
+     * @param set A set of cards.
+     * @return A 13-bit mask with the ranks that are present in the set, regardless of suit.
+     */
+    public static int rankMask(long set) {
+        return suitMask(set, Suit.CLUBS) | suitMask(set, Suit.DIAMONDS)
+                | suitMask(set, Suit.HEARTS) | suitMask(set, Suit.SPADES);
+    }
+
+    /**
+     * @param ordinal The ordinal of a card type.
+     * @return The corresponding card type.
+     */
+    public static CardType getCardType(int ordinal) {
+        return CARD_TYPES[ordinal];
+    }
+
+    /**
+     * Converts the set back to card types. Only meant for the edges of the application.
+     *
+     * @param set A set of cards.
+     * @return An unmodifiable list of the card types in the set, ordered on ordinal.
+     */
+    public static List<CardType> toCardTypes(long set) {
+        List<CardType> types = new ArrayList<>(size(set));
+        for (long rest = set; rest != 0; rest &= rest - 1) types.add(CARD_TYPES[Long.numberOfTrailingZeros(rest)]);
+        return Collections.unmodifiableList(types);
+    }
+
+    /**
+     * Converts the set back to cards. Only meant for the edges of the application.
+     *
+     * @param set A set of cards.
+     * @return A list of new cards, ordered on ordinal.
+     */
+    public static List<Card> toCards(long set) {
+        List<Card> cards = new ArrayList<>(size(set));
+        for (long rest = set; rest != 0; rest &= rest - 1) cards.add(new Card(CARD_TYPES[Long.numberOfTrailingZeros(rest)]));
+        return cards;
+    }
+}
@@ -0,0 +1,59 @@
+package be.kdg.gameservice.card;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primitive representation of a short row of cards that keeps their order, like the board of a round.
+ * Every card takes 6 bits of a long, the first card the lowest ones. A slot holds the ordinal
+ * of the {@link CardType} plus one, an empty slot ends the row. Up to 10 cards fit in one long.
+ * <p>
+ * Unlike a {@link CardSet}, the order the cards were dealt in can be read back.
+ */
+public final class PackedCards {
+    /**
+     * A row without any cards.
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * The maximum number of cards in a row.
+     */
+    public static final int CAPACITY = Long.SIZE / 6;
+
+    private static final int BITS_PER_CARD = 6;
+    private static final long SLOT_MASK = (1L << BITS_PER_CARD) - 1;
+    private static final CardType[] CARD_TYPES = CardType.values();
+
+    private PackedCards() {
+    }
+
+    /**
+     * @param cards The cards in their order, at most {@link #CAPACITY}.
+     * @return The packed row of the cards.
+     */
+    public static long pack(List<Card> cards) {
+        if (cards.size() > CAPACITY)
+            throw new IllegalArgumentException(cards.size() + " cards do not fit in a packed row of " + CAPACITY + ".");
+
+        long packed = EMPTY;
+        for (int i = 0; i < cards.size(); i++) {
+            packed |= (cards.get(i).type.ordinal() + 1L) << (i * BITS_PER_CARD);
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed A packed row of cards.
+     * @return The cards of the row, in their order.
+     */
+    public static List<Card> unpack(long packed) {
+        List<Card> cards = new ArrayList<>(CAPACITY);
+        for (long rest = packed; rest != 0; rest >>>= BITS_PER_CARD) {
+            int slot = (int) (rest & SLOT_MASK);
+            if (slot == 0) break;
+            cards.add(new Card(CARD_TYPES[slot - 1]));
+        }
+        return cards;
+    }
+}
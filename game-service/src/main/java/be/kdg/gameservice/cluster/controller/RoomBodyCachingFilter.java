@@ -0,0 +1,33 @@
+package be.kdg.gameservice.cluster.controller;
+
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Keeps the body of the rest calls of a clustered node, so the {@link RoomProxy} can still forward it
+ * after a controller read it and found out the room is owned by another node.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomBodyCachingFilter extends OncePerRequestFilter {
+    private final ClusterService clusterService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clusterService.isClustered() || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        chain.doFilter(new ContentCachingRequestWrapper(request), response);
+    }
+}
@@ -0,0 +1,54 @@
+package be.kdg.gameservice.cluster.controller;
+
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.model.ClusterNode;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the socket traffic of a room on the node that owns the room, since every node has its own broker.
+ * A subscription to a room topic or a chat message for a room of another node is refused,
+ * the client receives an error frame that names the owner, see {@link RoomErrorHandler}, and connects to that node instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomChannelInterceptor implements ChannelInterceptor {
+    /**
+     * The topics of a room and the chat endpoint, with the room id as first number.
+     */
+    private static final Pattern ROOM_DESTINATION = Pattern.compile("^/(?:room/receive-[a-z]+|chatroom/receive|chatrooms)/(\\d+)(?:/.*)?$");
+
+    private final ClusterService clusterService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getDestination() == null) return message;
+        if (accessor.getCommand() != StompCommand.SUBSCRIBE && accessor.getCommand() != StompCommand.SEND) return message;
+
+        Matcher matcher = ROOM_DESTINATION.matcher(accessor.getDestination());
+        if (!matcher.matches()) return message;
+        int roomId;
+        try {
+            roomId = Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return message;
+        }
+        if (clusterService.isLocal(roomId)) return message;
+
+        ClusterNode owner = clusterService.getOwner(roomId);
+        throw new MessageDeliveryException(message, "Room " + roomId + " is served by " + owner.getId() + " at " + owner.getUrl() + ".",
+                new RoomNotOwnedException(getClass(), roomId, owner));
+    }
+}
@@ -0,0 +1,39 @@
+package be.kdg.gameservice.cluster.controller;
+
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
+
+/**
+ * Names the owner of the room in the error frame of a subscription or chat message that is refused
+ * by the {@link RoomChannelInterceptor}, so the client can connect to the owner without parsing the message.
+ */
+@Component
+public class RoomErrorHandler extends StompSubProtocolErrorHandler {
+    /**
+     * The header with the id of the node that owns the room.
+     */
+    public static final String OWNER_HEADER = "room-owner";
+
+    /**
+     * The header with the base url of the node that owns the room, like http://localhost:5002.
+     */
+    public static final String OWNER_URL_HEADER = "room-owner-url";
+
+    @Override
+    protected Message<byte[]> handleInternal(StompHeaderAccessor errorHeaderAccessor, byte[] errorPayload,
+                                             Throwable cause, StompHeaderAccessor clientHeaderAccessor) {
+        for (Throwable ex = cause; ex != null; ex = ex.getCause()) {
+            if (ex instanceof RoomNotOwnedException) {
+                RoomNotOwnedException notOwned = (RoomNotOwnedException) ex;
+                errorHeaderAccessor.setNativeHeader(OWNER_HEADER, notOwned.getOwner().getId());
+                errorHeaderAccessor.setNativeHeader(OWNER_URL_HEADER, notOwned.getOwner().getUrl());
+                break;
+            }
+        }
+        return MessageBuilder.createMessage(errorPayload, errorHeaderAccessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,115 @@
+package be.kdg.gameservice.cluster.controller;
+
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.shared.dto.ErrorDTO;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Forwards a rest call for a room to the node that owns the room and answers with the response of the owner.
+ * Clients keep calling the node they reached, so they never have to follow a redirect to another origin.
+ * <p>
+ * The body is taken from the {@link RoomBodyCachingFilter}, since a controller may have read it already.
+ * A call is forwarded once: a node that receives a forwarded call for a room it does not own
+ * answers that the room is unavailable, the ring of the nodes disagrees until the next probe.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomProxy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomProxy.class);
+
+    /**
+     * The request header that marks a call that was forwarded by another node.
+     */
+    private static final String FORWARDED_HEADER = "X-Room-Forwarded-By";
+
+    private final ClusterService clusterService;
+
+    /**
+     * The connect and read timeout in ms of a forwarded call.
+     */
+    @Value("${cluster.forward-timeout:10000}")
+    private int forwardTimeout;
+    private RestTemplate forwardTemplate;
+
+    /**
+     * The status and body of the owner are passed on as they are, errors included.
+     * The http components factory is used because the default one can not send a PATCH.
+     */
+    @PostConstruct
+    public void init() {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(forwardTimeout);
+        requestFactory.setReadTimeout(forwardTimeout);
+        forwardTemplate = new RestTemplate(requestFactory);
+        forwardTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @param ex      The exception that names the owner of the room.
+     * @param request The call that reached this node.
+     * @return The response of the owner, with the owner in the {@link ClusterService#OWNER_HEADER} header.
+     */
+    public ResponseEntity<?> forward(RoomNotOwnedException ex, HttpServletRequest request) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(ClusterService.OWNER_HEADER, ex.getOwner().getId());
+        if (request.getHeader(FORWARDED_HEADER) != null) {
+            return new ResponseEntity<>(new ErrorDTO("room_not_owned", ex.getMessage()), responseHeaders, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        String query = request.getQueryString() == null ? "" : "?" + request.getQueryString();
+        URI uri = URI.create(ex.getOwner().getUrl() + request.getRequestURI() + query);
+        HttpHeaders requestHeaders = new HttpHeaders();
+        copyHeader(request, requestHeaders, HttpHeaders.AUTHORIZATION);
+        copyHeader(request, requestHeaders, HttpHeaders.CONTENT_TYPE);
+        copyHeader(request, requestHeaders, HttpHeaders.ACCEPT);
+        requestHeaders.set(FORWARDED_HEADER, clusterService.getLocalNode().getId());
+
+        try {
+            HttpEntity<byte[]> entity = new HttpEntity<>(readBody(request), requestHeaders);
+            ResponseEntity<byte[]> response = forwardTemplate.exchange(uri, HttpMethod.resolve(request.getMethod()), entity, byte[].class);
+            if (response.getHeaders().getContentType() != null) responseHeaders.setContentType(response.getHeaders().getContentType());
+            return new ResponseEntity<>(response.getBody(), responseHeaders, response.getStatusCode());
+        } catch (IOException | RestClientException e) {
+            LOGGER.warn("Could not forward " + request.getMethod() + " " + uri + ": " + e.getMessage());
+            return new ResponseEntity<>(new ErrorDTO("room_not_owned", ex.getMessage()), responseHeaders, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static void copyHeader(HttpServletRequest request, HttpHeaders headers, String name) {
+        if (request.getHeader(name) != null) headers.set(name, request.getHeader(name));
+    }
+
+    /**
+     * The part of the body the controller did not read is read first, so the cached body is complete.
+     */
+    private static byte[] readBody(HttpServletRequest request) throws IOException {
+        ContentCachingRequestWrapper cached = WebUtils.getNativeRequest(request, ContentCachingRequestWrapper.class);
+        if (cached == null) return StreamUtils.copyToByteArray(request.getInputStream());
+        StreamUtils.copyToByteArray(cached.getInputStream());
+        return cached.getContentAsByteArray();
+    }
+}
@@ -0,0 +1,55 @@
+package be.kdg.gameservice.cluster.controller;
+
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sends the rest calls for a room to the node that owns the room.
+ * The room is taken from the roomId path variable, or looked up by the roundId path variable.
+ * A call for a room of another node is forwarded to that node by the {@link RoomProxy}.
+ * A CORS preflight is answered by the node that receives it, it carries no call to forward.
+ * <p>
+ * Calls that carry the room in their body check the owner themselves, with {@link ClusterService#checkLocal(int)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomRoutingInterceptor implements HandlerInterceptor {
+    private final ClusterService clusterService;
+    private final RoundRepository roundRepository;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!clusterService.isClustered() || CorsUtils.isPreFlightRequest(request)) return true;
+
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) return true;
+
+        Optional<Integer> roomId = Optional.empty();
+        if (variables.containsKey("roomId")) roomId = parse(variables.get("roomId"));
+        else if (variables.containsKey("roundId")) roomId = parse(variables.get("roundId")).flatMap(roundRepository::findRoomId);
+        if (roomId.isPresent()) clusterService.checkLocal(roomId.get());
+        return true;
+    }
+
+    /**
+     * @return The id, empty if it is not a number, the controller answers that one.
+     */
+    private static Optional<Integer> parse(String id) {
+        try {
+            return Optional.of(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package be.kdg.gameservice.cluster.exception;
+
+import be.kdg.gameservice.cluster.model.ClusterNode;
+import lombok.Getter;
+
+/**
+ * Thrown when a request for a room reaches a node that does not own the room.
+ * The handler forwards the request to the owner.
+ */
+@Getter
+public class RoomNotOwnedException extends Exception {
+    private final String source;
+    private final int roomId;
+    private final ClusterNode owner;
+
+    public RoomNotOwnedException(Class source, int roomId, ClusterNode owner) {
+        super("Room " + roomId + " is served by " + owner.getId() + " at " + owner.getUrl() + ".");
+        this.source = source.getSimpleName();
+        this.roomId = roomId;
+        this.owner = owner;
+    }
+
+    @Override
+    public String getMessage() {
+        return source + ": " + super.getMessage();
+    }
+}
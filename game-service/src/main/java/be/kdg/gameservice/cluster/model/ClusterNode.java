@@ -0,0 +1,25 @@
+package be.kdg.gameservice.cluster.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An instance of the game service that is part of the cluster.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public final class ClusterNode {
+    /**
+     * The id of the node, the same on every node of the cluster.
+     */
+    private final String id;
+
+    /**
+     * The base url other nodes and clients reach the node on, like http://localhost:5002.
+     */
+    private final String url;
+}
@@ -0,0 +1,110 @@
+package be.kdg.gameservice.cluster.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Assigns keys to nodes by consistent hashing. Every node is put on a ring of 64 bit hashes a number of times,
+ * as virtual nodes, and a key belongs to the first virtual node at or after the hash of the key.
+ * When a node joins or leaves only the keys of its own virtual nodes move, about 1/n of all keys,
+ * the other keys keep their node.
+ * <p>
+ * A ring is immutable, a change of the nodes builds a new ring. The virtual nodes are kept as sorted arrays,
+ * so a lookup is a binary search without boxing.
+ */
+public final class ConsistentHashRing {
+    /**
+     * The ids of the nodes on the ring.
+     */
+    private final Set<String> nodes;
+
+    /**
+     * The hashes of the virtual nodes, sorted.
+     */
+    private final long[] points;
+
+    /**
+     * The node of every virtual node, in the same order as the points.
+     */
+    private final String[] owners;
+
+    /**
+     * @param nodes        The ids of the nodes.
+     * @param virtualNodes The number of times every node is put on the ring, more spreads the keys more evenly.
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) throw new IllegalArgumentException("The number of virtual nodes needs to be positive.");
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+
+        List<VirtualNode> ring = new ArrayList<>(this.nodes.size() * virtualNodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) ring.add(new VirtualNode(hash(node + "#" + i), node));
+        }
+        //Ties are broken on the node id, so every node builds the same ring from the same nodes
+        ring.sort(Comparator.comparingLong((VirtualNode v) -> v.point).thenComparing(v -> v.node));
+
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            points[i] = ring.get(i).point;
+            owners[i] = ring.get(i).node;
+        }
+    }
+
+    /**
+     * @param key The key, like the id of a room.
+     * @return The id of the node the key belongs to.
+     * @throws IllegalStateException If the ring has no nodes.
+     */
+    public String getOwner(int key) {
+        if (points.length == 0) throw new IllegalStateException("The ring has no nodes.");
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) index = -index - 1;
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return The ids of the nodes on the ring.
+     */
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Spreads consecutive keys over the whole ring, with the finalizer of MurmurHash3.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * The first 8 bytes of the MD5 of the name of a virtual node, only used when a ring is built.
+     */
+    private static long hash(String virtualNode) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(virtualNode.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) hash = hash << 8 | (digest[i] & 0xff);
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available.", e);
+        }
+    }
+
+    private static final class VirtualNode {
+        private final long point;
+        private final String node;
+
+        private VirtualNode(long point, String node) {
+            this.point = point;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package be.kdg.gameservice.cluster.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when this node no longer owns a room, after the live round of the room was written to the database.
+ */
+@Getter
+@AllArgsConstructor
+public final class RoomReleased {
+    /**
+     * The room that moved.
+     */
+    private final int roomId;
+
+    /**
+     * The node that owns the room now.
+     */
+    private final ClusterNode owner;
+}
@@ -0,0 +1,31 @@
+package be.kdg.gameservice.cluster.service.api;
+
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.model.ClusterNode;
+
+import java.util.List;
+
+public interface ClusterService {
+    /**
+     * The response header that names the node that owns the room of a forwarded request.
+     */
+    String OWNER_HEADER = "X-Room-Owner";
+
+    ClusterNode getLocalNode();
+
+    ClusterNode getOwner(int roomId);
+
+    boolean isLocal(int roomId);
+
+    void checkLocal(int roomId) throws RoomNotOwnedException;
+
+    boolean isClustered();
+
+    boolean isLeader();
+
+    List<ClusterNode> getLiveNodes();
+
+    void nodeJoined(String nodeId);
+
+    void nodeLeft(String nodeId);
+}
@@ -0,0 +1,248 @@
+package be.kdg.gameservice.cluster.service.impl;
+
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.model.ClusterNode;
+import be.kdg.gameservice.cluster.model.ConsistentHashRing;
+import be.kdg.gameservice.cluster.model.RoomReleased;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Service that decides which node of the cluster owns a room. A room is owned by exactly one node:
+ * its rounds are played, its turns are timed and its messages are broadcast there.
+ * The rooms are spread over the nodes that are up with a {@link ConsistentHashRing}.
+ * <p>
+ * The nodes are configured with cluster.nodes, every node probes the health endpoint of the others.
+ * A node that failed a number of probes in a row leaves the ring, a node that answers again joins it.
+ * When the ring changes, the rooms this node no longer owns are released: their live round is written
+ * to the database and a {@link RoomReleased} is published, so the new owner loads them from the database.
+ * <p>
+ * Without cluster.nodes the service runs as a single node that owns every room.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClusterServiceImpl implements ClusterService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterServiceImpl.class);
+
+    private final LiveRoundStore liveRounds;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The id of this node.
+     */
+    @Value("${cluster.node-id:node-1}")
+    private String nodeId;
+
+    /**
+     * All the nodes of the cluster as id=url pairs separated by commas, empty for a single node.
+     */
+    @Value("${cluster.nodes:}")
+    private String nodeList;
+
+    /**
+     * The number of virtual nodes of every node on the ring.
+     */
+    @Value("${cluster.virtual-nodes:160}")
+    private int virtualNodes;
+
+    /**
+     * The number of probes in a row a node has to fail to leave the ring.
+     */
+    @Value("${cluster.failure-threshold:3}")
+    private int failureThreshold;
+
+    /**
+     * The connect and read timeout in ms of a probe.
+     */
+    @Value("${cluster.health-timeout:500}")
+    private int healthTimeout;
+
+    /**
+     * The configured nodes by id.
+     */
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+
+    /**
+     * The number of failed probes in a row of every other node, by id. Only used by the probe.
+     */
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    private final Set<String> liveNodes = new TreeSet<>();
+    private volatile ConsistentHashRing ring;
+    private RestTemplate healthTemplate;
+
+    @PostConstruct
+    public void start() {
+        for (String node : nodeList.split(",")) {
+            if (node.trim().isEmpty()) continue;
+            String[] idAndUrl = node.trim().split("=", 2);
+            if (idAndUrl.length != 2) throw new IllegalStateException("Cluster node " + node + " is not an id=url pair.");
+            nodes.put(idAndUrl[0].trim(), new ClusterNode(idAndUrl[0].trim(), idAndUrl[1].trim()));
+        }
+        if (nodes.isEmpty()) nodes.put(nodeId, new ClusterNode(nodeId, ""));
+        if (!nodes.containsKey(nodeId))
+            throw new IllegalStateException("Cluster node " + nodeId + " is not one of the nodes " + nodes.keySet() + ".");
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(healthTimeout);
+        requestFactory.setReadTimeout(healthTimeout);
+        healthTemplate = new RestTemplate(requestFactory);
+
+        //Every node starts out as up, so the nodes that start together agree on the ring from the start
+        synchronized (liveNodes) {
+            liveNodes.addAll(nodes.keySet());
+            ring = new ConsistentHashRing(liveNodes, virtualNodes);
+        }
+        LOGGER.info("Node " + nodeId + " started in a cluster of " + nodes.keySet());
+    }
+
+    /**
+     * @return This node.
+     */
+    @Override
+    public ClusterNode getLocalNode() {
+        return nodes.get(nodeId);
+    }
+
+    /**
+     * @param roomId The id of the room.
+     * @return The node that owns the room.
+     */
+    @Override
+    public ClusterNode getOwner(int roomId) {
+        return nodes.get(ring.getOwner(roomId));
+    }
+
+    /**
+     * @param roomId The id of the room.
+     * @return True if this node owns the room.
+     */
+    @Override
+    public boolean isLocal(int roomId) {
+        return nodes.size() == 1 || nodeId.equals(ring.getOwner(roomId));
+    }
+
+    /**
+     * @param roomId The id of the room.
+     * @throws RoomNotOwnedException Thrown if another node owns the room.
+     */
+    @Override
+    public void checkLocal(int roomId) throws RoomNotOwnedException {
+        if (!isLocal(roomId)) throw new RoomNotOwnedException(ClusterServiceImpl.class, roomId, getOwner(roomId));
+    }
+
+    /**
+     * @return True if more than one node is configured.
+     */
+    @Override
+    public boolean isClustered() {
+        return nodes.size() > 1;
+    }
+
+    /**
+     * The leader runs the work that only one node of the cluster should do, like delivering the outbox.
+     *
+     * @return True if this node is the leader: the node that is up with the lowest id.
+     */
+    @Override
+    public boolean isLeader() {
+        return nodeId.equals(ring.getNodes().iterator().next());
+    }
+
+    /**
+     * @return The nodes that are up, this node included.
+     */
+    @Override
+    public List<ClusterNode> getLiveNodes() {
+        return ring.getNodes().stream().map(nodes::get).collect(toList());
+    }
+
+    /**
+     * Puts a node that came up on the ring and releases the rooms it takes over.
+     *
+     * @param nodeId The id of the node.
+     */
+    @Override
+    public void nodeJoined(String nodeId) {
+        if (!nodes.containsKey(nodeId)) throw new IllegalArgumentException("Cluster node " + nodeId + " is not configured.");
+        synchronized (liveNodes) {
+            if (!liveNodes.add(nodeId)) return;
+            rebalance();
+        }
+        LOGGER.info("Node " + nodeId + " joined the cluster");
+    }
+
+    /**
+     * Takes a node that went down off the ring, its rooms are spread over the other nodes.
+     * This node can not leave its own ring.
+     *
+     * @param nodeId The id of the node.
+     */
+    @Override
+    public void nodeLeft(String nodeId) {
+        if (this.nodeId.equals(nodeId)) return;
+        synchronized (liveNodes) {
+            if (!liveNodes.remove(nodeId)) return;
+            rebalance();
+        }
+        LOGGER.info("Node " + nodeId + " left the cluster");
+    }
+
+    /**
+     * Probes the health endpoint of every other node.
+     */
+    @Scheduled(fixedDelayString = "${cluster.health-interval:1000}", initialDelayString = "${cluster.health-interval:1000}")
+    public void checkNodes() {
+        for (ClusterNode node : nodes.values()) {
+            if (node.getId().equals(nodeId)) continue;
+            if (isHealthy(node)) {
+                failures.remove(node.getId());
+                nodeJoined(node.getId());
+            } else if (failures.merge(node.getId(), 1, Integer::sum) >= failureThreshold) {
+                nodeLeft(node.getId());
+            }
+        }
+    }
+
+    private boolean isHealthy(ClusterNode node) {
+        try {
+            return healthTemplate.getForEntity(node.getUrl() + "/actuator/health", String.class)
+                    .getStatusCode().is2xxSuccessful();
+        } catch (RestClientException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Builds the ring of the live nodes and releases the live rounds of the rooms that moved to another node.
+     * Called while the lock on the live nodes is held.
+     */
+    private void rebalance() {
+        ring = new ConsistentHashRing(liveNodes, virtualNodes);
+        for (int roomId : liveRounds.getLiveRooms()) {
+            if (isLocal(roomId)) continue;
+            try {
+                liveRounds.flushRoom(roomId);
+                eventPublisher.publishEvent(new RoomReleased(roomId, getOwner(roomId)));
+                LOGGER.info("Released room " + roomId + " to " + getOwner(roomId).getId());
+            } catch (RuntimeException e) {
+                LOGGER.error("Room " + roomId + " could not be released", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package be.kdg.gameservice.outbox.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A side effect of a round that still has to be delivered.
+ * The message is written in the same transaction as the round that caused it and deleted once it is delivered,
+ * so a side effect is never lost and never happens for a round that was not written.
+ */
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_message")
+public class OutboxMessage {
+    /**
+     * The id of the message, messages are delivered in the order of their id.
+     * Every node takes its ids from its own block of the sequence, so the order only holds for the messages of one node.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_message_seq")
+    @SequenceGenerator(name = "outbox_message_seq", sequenceName = "outbox_message_seq", allocationSize = 50)
+    @Getter
+    private int id;
+
+    /**
+     * The key that identifies the side effect, the receiver skips a key it already handled.
+     */
+    @Column(unique = true, nullable = false)
+    @Getter
+    private String idempotencyKey;
+
+    @Getter
+    private OutboxType type;
+
+    /**
+     * The id of the round that caused the side effect.
+     */
+    @Getter
+    private int roundId;
+
+    /**
+     * The ids of the users the side effect is about, separated by commas.
+     */
+    @Column(length = 2048)
+    private String userIds;
+
+    /**
+     * Extra information for the side effect, like the hand of a winner.
+     */
+    @Getter
+    private String detail;
+
+    /**
+     * The number of times the delivery failed.
+     */
+    @Getter
+    private int attempts;
+
+    /**
+     * The time in milliseconds since the epoch from which the message can be delivered.
+     */
+    @Getter
+    private long nextAttempt;
+
+    public OutboxMessage(OutboxType type, int roundId, List<String> userIds, String detail) {
+        this.idempotencyKey = type.name().toLowerCase().replace('_', '-') + "-round-" + roundId;
+        this.type = type;
+        this.roundId = roundId;
+        this.userIds = String.join(",", userIds);
+        this.detail = detail;
+        this.nextAttempt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return An unmodifiable list of the ids of the users the side effect is about.
+     */
+    public List<String> getUserIds() {
+        if (userIds == null || userIds.isEmpty()) return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(userIds.split(",")));
+    }
+}
@@ -0,0 +1,26 @@
+package be.kdg.gameservice.outbox.model;
+
+/**
+ * The side effects of a round that are delivered by the outbox.
+ */
+public enum OutboxType {
+    /**
+     * The winner of a round gets a win in the user service.
+     */
+    WIN,
+
+    /**
+     * The players of a round get a game played in the user service.
+     */
+    GAMES_PLAYED,
+
+    /**
+     * A replay of a finished round is generated for every player of the round.
+     */
+    REPLAY,
+
+    /**
+     * The winner of a round is announced in the chat of the room.
+     */
+    WINNER_ANNOUNCEMENT
+}
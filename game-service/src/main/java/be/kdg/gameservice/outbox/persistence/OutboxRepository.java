@@ -0,0 +1,22 @@
+package be.kdg.gameservice.outbox.persistence;
+
+import be.kdg.gameservice.outbox.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Integer> {
+    @Query("select m from OutboxMessage m where m.nextAttempt <= ?1 order by m.id")
+    List<OutboxMessage> findDue(long now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.attempts = m.attempts + 1, m.nextAttempt = ?2 where m.id = ?1")
+    int retryAt(int id, long nextAttempt);
+}
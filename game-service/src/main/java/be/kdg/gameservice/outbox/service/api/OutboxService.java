@@ -0,0 +1,18 @@
+package be.kdg.gameservice.outbox.service.api;
+
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.model.Round;
+
+import java.util.List;
+
+public interface OutboxService {
+    void addWin(Round round, List<Player> winners);
+
+    void addGamesPlayed(Round round);
+
+    void addReplays(Round round);
+
+    int dispatch();
+
+    long getPendingMessages();
+}
@@ -0,0 +1,287 @@
+package be.kdg.gameservice.outbox.service.impl;
+
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.outbox.model.OutboxMessage;
+import be.kdg.gameservice.outbox.model.OutboxType;
+import be.kdg.gameservice.outbox.persistence.OutboxRepository;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.replay.service.api.ReplayService;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserApiGateway;
+import be.kdg.gameservice.shared.dto.GameEventDTO;
+import be.kdg.gameservice.shared.dto.GameEventResultDTO;
+import be.kdg.gameservice.shared.dto.MessageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Service responsible for the side effects of rounds: the wins and games played in the user service,
+ * the replays and the announcement of the winner.
+ * A side effect is recorded as an {@link OutboxMessage} that is written in the same transaction as the round
+ * that caused it, a background dispatcher delivers the messages and deletes them once they are delivered.
+ * So the act path never waits for the user service. Once its round is written, a side effect is neither lost
+ * nor applied twice when the user service is slow or down: a failed delivery is retried with an exponential backoff,
+ * and the user service skips the idempotency keys it already handled.
+ * The exceptions are a message that still fails after {@code outbox.max-attempts} deliveries, which is given up,
+ * and a message of a round that is only in memory, which goes down with the node like the acts of that round
+ * (see {@link LiveRoundStore}).
+ * <p>
+ * The wins and games played of a run of the dispatcher go to the user service in one request,
+ * which answers with the result of every event, so an event that fails does not hold back the others.
+ * <p>
+ * In a cluster every node runs the dispatcher, but only the leader delivers the messages. The announcement
+ * of a winner is the exception: it is broadcast by the node that owns the room, where its players are connected.
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxServiceImpl.class);
+
+    private final OutboxRepository outboxRepository;
+    private final RoundRepository roundRepository;
+    private final LiveRoundStore liveRounds;
+    private final ReplayService replayService;
+    private final UserApiGateway userApiGateway;
+    private final SimpMessagingTemplate template;
+    private final ClusterService clusterService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The maximum number of messages that are delivered by one run of the dispatcher.
+     */
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * The delay in milliseconds before the first retry of a failed delivery, it doubles with every failure.
+     */
+    @Value("${outbox.retry-delay:1000}")
+    private long retryDelay;
+
+    /**
+     * The maximum delay in milliseconds between two retries.
+     */
+    @Value("${outbox.max-retry-delay:60000}")
+    private long maxRetryDelay;
+
+    /**
+     * The number of failed deliveries after which a message is given up.
+     */
+    @Value("${outbox.max-attempts:50}")
+    private int maxAttempts;
+
+    @Autowired
+    public OutboxServiceImpl(OutboxRepository outboxRepository, RoundRepository roundRepository, LiveRoundStore liveRounds,
+                             ReplayService replayService, UserApiGateway userApiGateway, SimpMessagingTemplate template,
+                             ClusterService clusterService, PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.roundRepository = roundRepository;
+        this.liveRounds = liveRounds;
+        this.replayService = replayService;
+        this.userApiGateway = userApiGateway;
+        this.template = template;
+        this.clusterService = clusterService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Records the win of the winners of a round and the announcement of the winners in the chat of the room.
+     * Players that split the pot all get a win.
+     *
+     * @param round   The round that was won.
+     * @param winners The players that share the best hand of the round, they all have the same hand type.
+     */
+    @Override
+    public void addWin(Round round, List<Player> winners) {
+        List<String> userIds = winners.stream().map(Player::getUserId).collect(toList());
+        liveRounds.insertWith(round, new OutboxMessage(OutboxType.WIN, round.getId(), userIds, null));
+        liveRounds.insertWith(round, new OutboxMessage(OutboxType.WINNER_ANNOUNCEMENT, round.getId(), userIds,
+                String.valueOf(winners.get(0).getHandType())));
+    }
+
+    /**
+     * Records a game played for every player of a round that was started.
+     *
+     * @param round The new round.
+     */
+    @Override
+    public void addGamesPlayed(Round round) {
+        List<String> userIds = round.getPlayersInRound().stream().map(Player::getUserId).collect(toList());
+        liveRounds.insertWith(round, new OutboxMessage(OutboxType.GAMES_PLAYED, round.getId(), userIds, null));
+    }
+
+    /**
+     * Records the replays of a round that is finished. The players are kept in the message,
+     * by the time it is delivered they play in the next round.
+     *
+     * @param round The finished round.
+     */
+    @Override
+    public void addReplays(Round round) {
+        List<String> userIds = round.getPlayersInRound().stream().map(Player::getUserId).collect(toList());
+        liveRounds.insertWith(round, new OutboxMessage(OutboxType.REPLAY, round.getId(), userIds, null));
+    }
+
+    /**
+     * Delivers the messages that are due, the oldest first.
+     *
+     * @return The number of messages that were delivered.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval:200}", initialDelayString = "${outbox.dispatch-interval:200}")
+    public synchronized int dispatch() {
+        long now = System.currentTimeMillis();
+        List<OutboxMessage> due = outboxRepository.findDue(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) return 0;
+
+        List<OutboxMessage> gameEvents = new ArrayList<>();
+        int delivered = 0;
+        for (OutboxMessage message : due) {
+            if (!isDeliveredHere(message)) continue;
+            if (message.getType() == OutboxType.WIN || message.getType() == OutboxType.GAMES_PLAYED) {
+                gameEvents.add(message);
+                continue;
+            }
+            try {
+                deliver(message);
+                delivered++;
+            } catch (RuntimeException | RoundException e) {
+                retry(Collections.singletonList(message), now, e.getMessage());
+            }
+        }
+
+        if (!gameEvents.isEmpty()) delivered += deliverGameEvents(gameEvents, now);
+        return delivered;
+    }
+
+    /**
+     * Sends the wins and games played to the user service in one request. The user service applies every event
+     * on its own, only the events it could not apply are retried. An event without a result was not applied either.
+     *
+     * @return The number of events that were applied.
+     */
+    private int deliverGameEvents(List<OutboxMessage> gameEvents, long now) {
+        List<GameEventResultDTO> results;
+        try {
+            results = userApiGateway.sendGameEvents(gameEvents.stream()
+                    .map(m -> new GameEventDTO(m.getIdempotencyKey(), m.getType().name(), m.getUserIds()))
+                    .collect(toList()));
+        } catch (RuntimeException e) {
+            retry(gameEvents, now, e.getMessage());
+            return 0;
+        }
+
+        Map<String, GameEventResultDTO> resultsByKey = results.stream()
+                .collect(toMap(GameEventResultDTO::getIdempotencyKey, Function.identity(), (first, second) -> first));
+        List<OutboxMessage> handled = new ArrayList<>();
+        for (OutboxMessage message : gameEvents) {
+            GameEventResultDTO result = resultsByKey.get(message.getIdempotencyKey());
+            if (result != null && result.isHandled()) handled.add(message);
+            else retry(Collections.singletonList(message), now, result == null ? "no result" : result.getError());
+        }
+        if (!handled.isEmpty()) outboxRepository.deleteInBatch(handled);
+        return handled.size();
+    }
+
+    /**
+     * @return The number of messages that are not delivered yet.
+     */
+    @Override
+    public long getPendingMessages() {
+        return outboxRepository.count();
+    }
+
+    /**
+     * @return True if this node delivers the message.
+     */
+    private boolean isDeliveredHere(OutboxMessage message) {
+        if (!clusterService.isClustered()) return true;
+        if (message.getType() != OutboxType.WINNER_ANNOUNCEMENT) return clusterService.isLeader();
+        return roundRepository.findRoomId(message.getRoundId())
+                .map(clusterService::isLocal)
+                .orElse(clusterService.isLeader());
+    }
+
+    /**
+     * Delivers a message that is handled inside the game service. A replay is generated in the same transaction
+     * that deletes the message, so it is generated once.
+     */
+    private void deliver(OutboxMessage message) throws RoundException {
+        switch (message.getType()) {
+            case REPLAY:
+                RoundException failure = transactionTemplate.execute(status -> {
+                    try {
+                        replayService.createReplays(message.getRoundId(), message.getUserIds());
+                    } catch (RoundException e) {
+                        status.setRollbackOnly();
+                        return e;
+                    }
+                    outboxRepository.deleteInBatch(Collections.singletonList(message));
+                    return null;
+                });
+                if (failure != null) throw failure;
+                break;
+            case WINNER_ANNOUNCEMENT:
+                announceWinner(message);
+                outboxRepository.deleteInBatch(Collections.singletonList(message));
+                break;
+            default:
+                throw new IllegalStateException("Outbox messages of type " + message.getType() + " are delivered in a batch.");
+        }
+    }
+
+    /**
+     * Sends a message to the chat of the room that the winners of the round have won.
+     */
+    private void announceWinner(OutboxMessage message) {
+        Optional<Integer> roomId = roundRepository.findRoomId(message.getRoundId());
+        if (!roomId.isPresent()) return;
+
+        String usernames = message.getUserIds().stream()
+                .map(userId -> userApiGateway.getUser(userId).getUsername())
+                .collect(joining(" and "));
+        String winnerString = String.format(message.getUserIds().size() == 1 ? "Winner is: %s with %s" : "Winners are: %s with %s",
+                usernames, message.getDetail());
+        this.template.convertAndSend("/chatroom/receive/" + roomId.get(), new MessageDTO("system", winnerString));
+    }
+
+    /**
+     * Schedules the next delivery of messages that failed, the delay doubles with every failure.
+     * A message that failed too often is given up, so it does not keep a slot of every batch.
+     * The messages are changed with bulk statements, a message that was delivered by another instance
+     * in the meantime is simply not found.
+     */
+    private void retry(List<OutboxMessage> messages, long now, String reason) {
+        LOGGER.warn("Delivering " + messages.size() + " outbox messages failed, retrying later: " + reason);
+        List<OutboxMessage> givenUp = new ArrayList<>();
+        for (OutboxMessage message : messages) {
+            int attempts = message.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                LOGGER.error("Giving up outbox message " + message.getIdempotencyKey() + " after " + attempts + " attempts");
+                givenUp.add(message);
+            } else {
+                long delay = retryDelay << Math.min(message.getAttempts(), 16);
+                outboxRepository.retryAt(message.getId(), now + Math.min(delay, maxRetryDelay));
+            }
+        }
+        if (!givenUp.isEmpty()) outboxRepository.deleteInBatch(givenUp);
+    }
+}
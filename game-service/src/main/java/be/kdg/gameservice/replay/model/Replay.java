@@ -21,7 +21,8 @@ public class Replay {
      * The id of the replay.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "replay_seq")
+    @SequenceGenerator(name = "replay_seq", sequenceName = "replay_seq", allocationSize = 50)
     @Getter
     private int id;
 
@@ -45,11 +46,13 @@ public class Replay {
 
     /**
      * All the replay lines that are present in this replay.
+     * A line never moves to another replay, so it is inserted with the id of its replay
+     * instead of being linked by an update after the insert.
      *
      * @see ReplayLine
      */
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "replay_id")
+    @JoinColumn(name = "replay_id", nullable = false, updatable = false)
     @Fetch(value = FetchMode.SUBSELECT)
     private List<ReplayLine> lines;
 
@@ -17,7 +17,8 @@ public class ReplayLine {
      * The id of the replay line
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "replay_line_seq")
+    @SequenceGenerator(name = "replay_line_seq", sequenceName = "replay_line_seq", allocationSize = 50)
     private int id;
 
     /**
@@ -1,9 +1,12 @@
 package be.kdg.gameservice.replay.service.api;
 
 import be.kdg.gameservice.replay.model.Replay;
+import be.kdg.gameservice.round.exception.RoundException;
 
 import java.util.List;
 
 public interface ReplayService {
+    void createReplays(int roundId, List<String> ownerIds) throws RoundException;
+
     List<Replay> getReplays(String ownerId);
 }
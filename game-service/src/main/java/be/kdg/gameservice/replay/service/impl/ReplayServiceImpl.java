@@ -3,9 +3,11 @@ package be.kdg.gameservice.replay.service.impl;
 import be.kdg.gameservice.replay.model.Replay;
 import be.kdg.gameservice.replay.persistence.ReplayRepository;
 import be.kdg.gameservice.replay.service.api.ReplayService;
-import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.persistence.RoomRepository;
+import be.kdg.gameservice.round.exception.RoundException;
 import be.kdg.gameservice.round.model.Act;
 import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
 import be.kdg.gameservice.shared.UserApiGateway;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -29,17 +31,27 @@ public class ReplayServiceImpl implements ReplayService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReplayServiceImpl.class);
     private final UserApiGateway userApiGateway;
     private final ReplayRepository replayRepository;
+    private final RoundRepository roundRepository;
+    private final RoomRepository roomRepository;
 
     /**
-     * Creates a replay for every player in that round of the room.
+     * Creates a replay for every player in a finished round.
+     * The usernames are looked up once for all the replays of the round.
      *
-     * @param room The room that the replay needs to be created for.
+     * @param roundId  The id of the round that the replays need to be created for.
+     * @param ownerIds The players of the round, they may have moved on to the next round already.
+     * @throws RoundException Thrown if the round or its room does not exist.
      */
-    public void createReplays(Room room) {
-        Round round = room.getCurrentRound();
-        round.getPlayersInRound().forEach(player -> {
-            createReplay(player.getUserId(), room.getName(), round.getId(), round.getActs());
-        });
+    @Override
+    public void createReplays(int roundId, List<String> ownerIds) throws RoundException {
+        Round round = roundRepository.findById(roundId)
+                .orElseThrow(() -> new RoundException(ReplayServiceImpl.class, "The round was not found in the database."));
+        String roomName = roundRepository.findRoomId(roundId)
+                .flatMap(roomRepository::findName)
+                .orElseThrow(() -> new RoundException(ReplayServiceImpl.class, "The room of the round was not found in the database."));
+
+        Map<String, String> usernames = new HashMap<>();
+        ownerIds.forEach(ownerId -> createReplay(ownerId, roomName, round.getId(), round.getActs(), usernames));
     }
 
     /**
@@ -49,13 +61,13 @@ public class ReplayServiceImpl implements ReplayService {
      * @param roomName    The name of the room.
      * @param roundNumber The round number of the current round.
      * @param acts        All the acts that were played in that round.
+     * @param usernames   The usernames that were already looked up, by user id.
      */
-    private void createReplay(String ownerId, String roomName, int roundNumber, List<Act> acts) {
+    private void createReplay(String ownerId, String roomName, int roundNumber, List<Act> acts, Map<String, String> usernames) {
         //Make replay
         Replay replay = new Replay(roomName, ownerId, roundNumber);
 
         //Construct replay
-        Map<String, String> usernames = new HashMap<>();
         acts.stream().sorted(Act::compareTo)
                 .forEach(act -> {
                     //Get usernames
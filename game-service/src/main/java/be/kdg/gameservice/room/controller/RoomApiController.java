@@ -1,22 +1,28 @@
 package be.kdg.gameservice.room.controller;
 
+import be.kdg.gameservice.archive.dto.ArchivedHandDTO;
+import be.kdg.gameservice.archive.model.ArchivedHand;
+import be.kdg.gameservice.archive.service.api.ArchiveService;
 import be.kdg.gameservice.replay.dto.ReplayDTO;
 import be.kdg.gameservice.replay.model.Replay;
 import be.kdg.gameservice.replay.service.api.ReplayService;
+import be.kdg.gameservice.room.controller.dto.LobbyRoomDTO;
 import be.kdg.gameservice.room.controller.dto.PlayerDTO;
 import be.kdg.gameservice.room.controller.dto.PrivateRoomDTO;
 import be.kdg.gameservice.room.controller.dto.RoomDTO;
 import be.kdg.gameservice.room.controller.dto.UserDTO;
 import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.LobbyRoom;
 import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.room.model.PrivateRoom;
 import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.model.RoomType;
+import be.kdg.gameservice.room.service.api.LobbyService;
 import be.kdg.gameservice.room.service.api.PlayerService;
 import be.kdg.gameservice.room.service.api.PrivateRoomService;
 import be.kdg.gameservice.room.service.api.RoomService;
 import be.kdg.gameservice.round.controller.dto.RoundDTO;
 import be.kdg.gameservice.round.exception.RoundException;
-import be.kdg.gameservice.round.model.Phase;
 import be.kdg.gameservice.round.model.Round;
 import be.kdg.gameservice.shared.BaseController;
 import be.kdg.gameservice.shared.UserApiGateway;
@@ -30,12 +36,8 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.Collections;
 import java.util.List;
 
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
-
 /**
  * This API is used for managing all the rooms.
  */
@@ -46,20 +48,24 @@ public class RoomApiController extends BaseController {
     private final UserApiGateway userApiGateway;
     private final ModelMapper modelMapper;
     private final RoomService roomService;
+    private final LobbyService lobbyService;
     private final PlayerService playerService;
     private final ReplayService replayService;
+    private final ArchiveService archiveService;
     private final PrivateRoomService privateRoomService;
     private final SimpMessagingTemplate template;
 
     /**
-     * @return Status code 200 with all the rooms from the database.
+     * The rooms are served from the lobby, without their players and rounds.
+     *
+     * @return Status code 200 with all the public rooms.
      */
     @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
     @GetMapping("/rooms")
-    public ResponseEntity<RoomDTO[]> getRooms() {
+    public ResponseEntity<LobbyRoomDTO[]> getRooms() {
         logIncomingCall("getRooms");
-        List<Room> roomsIn = roomService.getRooms(Room.class);
-        RoomDTO[] roomsOut = modelMapper.map(roomsIn, RoomDTO[].class);
+        List<LobbyRoom> roomsIn = lobbyService.getRooms(RoomType.PUBLIC);
+        LobbyRoomDTO[] roomsOut = modelMapper.map(roomsIn, LobbyRoomDTO[].class);
         return new ResponseEntity<>(roomsOut, HttpStatus.OK);
     }
 
@@ -109,32 +115,34 @@ public class RoomApiController extends BaseController {
 
     /**
      * Gives back all private rooms that the user is authenticated for.
+     * The rooms are served from the lobby, without their players and rounds.
      *
      * @param authentication The token used for retrieving the userId.
      * @return Status code 200 with all the private rooms.
      */
     @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
     @GetMapping("/rooms/private")
-    public ResponseEntity<PrivateRoomDTO[]> getPrivateRooms(OAuth2Authentication authentication) {
+    public ResponseEntity<LobbyRoomDTO[]> getPrivateRooms(OAuth2Authentication authentication) {
         logIncomingCall("getPrivateRooms");
-        List<PrivateRoom> privateRooms = privateRoomService.getPrivateRooms(getUserId(authentication));
-        PrivateRoomDTO[] privateRoomOut = modelMapper.map(privateRooms, PrivateRoomDTO[].class);
-        return new ResponseEntity<>(privateRoomOut, HttpStatus.OK);
+        List<LobbyRoom> roomsIn = lobbyService.getPrivateRooms(getUserId(authentication));
+        LobbyRoomDTO[] roomsOut = modelMapper.map(roomsIn, LobbyRoomDTO[].class);
+        return new ResponseEntity<>(roomsOut, HttpStatus.OK);
     }
 
     /**
      * Gives back all private rooms that a specific user owns.
+     * The rooms are served from the lobby, with the whitelist the owner manages.
      *
      * @param authentication The token used for retrieving the userId.
      * @return Status code 200 with all the private rooms.
      */
     @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
     @GetMapping("/rooms/private/owner")
-    public ResponseEntity<PrivateRoomDTO[]> getPrivateRoomsFromOwner(OAuth2Authentication authentication) {
+    public ResponseEntity<LobbyRoomDTO[]> getPrivateRoomsFromOwner(OAuth2Authentication authentication) {
         logIncomingCall("getPrivateRoomsFromOwner");
-        List<PrivateRoom> privateRooms = privateRoomService.getPrivateRoomsFromOwner(getUserId(authentication));
-        PrivateRoomDTO[] privateRoomOut = modelMapper.map(privateRooms, PrivateRoomDTO[].class);
-        return new ResponseEntity<>(privateRoomOut, HttpStatus.OK);
+        List<LobbyRoom> roomsIn = lobbyService.getPrivateRoomsOfOwner(getUserId(authentication));
+        LobbyRoomDTO[] roomsOut = modelMapper.map(roomsIn, LobbyRoomDTO[].class);
+        return new ResponseEntity<>(roomsOut, HttpStatus.OK);
     }
 
     /**
@@ -160,18 +168,19 @@ public class RoomApiController extends BaseController {
      * The user service will be used to check if the user has enough chips.
      * If that is the case then the chips will be transferred to the player.
      * All players in the same room will be notified.
+     * Joins of the same room and changes of the same user are checked on their versions instead of being serialized.
      */
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/rooms/{roomId}/join")
-    public synchronized ResponseEntity<PlayerDTO> joinRoom(@PathVariable int roomId, OAuth2Authentication authentication) throws RoomException {
+    public ResponseEntity<PlayerDTO> joinRoom(@PathVariable int roomId, OAuth2Authentication authentication) throws RoomException {
         logIncomingCall("joinRoom");
 
         String token = userApiGateway.getTokenFromAuthentication(authentication);
         UserDTO userDto = userApiGateway.getUser(token, "");
-        userDto.setChips(userDto.getChips() - roomService.checkChips(roomId, userDto.getChips()));
+        int buyIn = roomService.checkChips(roomId, userDto.getChips());
         Player playerIn = playerService.joinRoom(roomId, getUserId(authentication));
 
-        if (userApiGateway.updateUser(token, userDto) != null && playerIn != null) {
+        if (userApiGateway.withdrawChips(token, userDto, buyIn) != null && playerIn != null) {
             PlayerDTO playerOut = modelMapper.map(playerIn, PlayerDTO.class);
             Room roomIn = roomService.getRoom(roomId);
             RoomDTO roomOut = modelMapper.map(roomIn, RoomDTO.class);
@@ -192,17 +201,76 @@ public class RoomApiController extends BaseController {
         logIncomingCall("getCurrentRound");
         Round round = roomService.getCurrentRound(roomId);
 
-        if (round.getCurrentPhase() == Phase.PRE_FLOP) {
-            List<String> userIds = round.getPlayersInRound().stream().map(Player::getUserId).collect(collectingAndThen(toList(), Collections::unmodifiableList));
-            userApiGateway.addGamesPlayed(userIds);
-        }
-
         RoundDTO roundOut = modelMapper.map(round, RoundDTO.class);
         roundOut.setSmallBlind(round.getSmallBlindPosition());
         roundOut.setBigBlind(round.getBigBlindPosition());
         this.template.convertAndSend("/room/receive-round/" + roomId, roundOut);
     }
 
+    /**
+     * Gives back the rounds that were played in a room, one page at a time.
+     * Rounds that were moved to the archive are served by the hands of the room.
+     *
+     * @param roomId The id of the room.
+     * @param page   The number of the page, starting at 0.
+     * @param size   The number of rounds of a page, capped at the maximum page size.
+     * @return Status code 200 with the finished rounds of the page, the last round first.
+     */
+    @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
+    @GetMapping("/rooms/{roomId}/rounds")
+    public ResponseEntity<RoundDTO[]> getPastRounds(@PathVariable int roomId,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        logIncomingCall("getPastRounds");
+        List<Round> rounds = roomService.getPastRounds(roomId, page, getPageSize(page, size));
+        return new ResponseEntity<>(modelMapper.map(rounds, RoundDTO[].class), HttpStatus.OK);
+    }
+
+    /**
+     * Gives back the hands of a room that were moved to the archive, one page at a time.
+     * The rounds endpoint only has the rounds that are not archived yet.
+     *
+     * @param roomId The id of the room.
+     * @param from   The start of the time range in ms since the epoch, inclusive.
+     * @param to     The end of the time range in ms since the epoch, exclusive.
+     * @param page   The number of the page, starting at 0.
+     * @param size   The number of hands of a page, capped at the maximum page size.
+     * @return Status code 200 with the archived hands of the page, the last hand first.
+     */
+    @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
+    @GetMapping("/rooms/{roomId}/hands")
+    public ResponseEntity<ArchivedHandDTO[]> getArchivedHandsOfRoom(@PathVariable int roomId,
+                                                                   @RequestParam(defaultValue = "0") long from,
+                                                                   @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        logIncomingCall("getArchivedHandsOfRoom");
+        List<ArchivedHand> hands = archiveService.getHandsOfRoom(roomId, from, to, page, getPageSize(page, size));
+        return new ResponseEntity<>(modelMapper.map(hands, ArchivedHandDTO[].class), HttpStatus.OK);
+    }
+
+    /**
+     * Gives back the archived hands the user took part in, one page at a time.
+     *
+     * @param authentication The token used for retrieving the userId.
+     * @param from           The start of the time range in ms since the epoch, inclusive.
+     * @param to             The end of the time range in ms since the epoch, exclusive.
+     * @param page           The number of the page, starting at 0.
+     * @param size           The number of hands of a page, capped at the maximum page size.
+     * @return Status code 200 with the archived hands of the page, the last hand first.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/rooms/hands")
+    public ResponseEntity<ArchivedHandDTO[]> getArchivedHands(OAuth2Authentication authentication,
+                                                              @RequestParam(defaultValue = "0") long from,
+                                                              @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                              @RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        logIncomingCall("getArchivedHands");
+        List<ArchivedHand> hands = archiveService.getHandsOfUser(getUserId(authentication), from, to, page, getPageSize(page, size));
+        return new ResponseEntity<>(modelMapper.map(hands, ArchivedHandDTO[].class), HttpStatus.OK);
+    }
+
     /**
      * @param roomDTO The request body that contains the name and the rules fot the room.
      * @return Status code 201 with the newly created room.
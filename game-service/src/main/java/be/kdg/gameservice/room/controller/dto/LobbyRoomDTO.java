@@ -0,0 +1,24 @@
+package be.kdg.gameservice.room.controller.dto;
+
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.RoomType;
+import be.kdg.gameservice.round.model.Phase;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyRoomDTO {
+    private int id;
+    private String name;
+    private RoomType type;
+    private GameRules gameRules;
+    private int playerCount;
+    private Phase currentPhase;
+    private String ownerId;
+    private List<String> whiteListedUserIds;
+}
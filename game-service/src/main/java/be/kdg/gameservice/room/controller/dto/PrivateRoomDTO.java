@@ -21,6 +21,7 @@ public class PrivateRoomDTO {
     private GameRules gameRules;
     @NotNull
     private List<Player> playersInRoom;
+    private int playerCount;
     @NotNull
     private List<WhiteListedUser> whiteListedUsers;
 }
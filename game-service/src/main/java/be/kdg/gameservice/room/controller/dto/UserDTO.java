@@ -18,4 +18,5 @@ public class UserDTO {
     private int wins;
     private int gamesPlayed;
     private String bestHand;
+    private Integer version;
 }
@@ -19,7 +19,8 @@ public final class GameRules {
      * The id of the gamerule. Used for persistence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_rules_seq")
+    @SequenceGenerator(name = "game_rules_seq", sequenceName = "game_rules_seq", allocationSize = 50)
     private int id;
 
     /**
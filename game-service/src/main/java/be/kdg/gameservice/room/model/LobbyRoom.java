@@ -0,0 +1,123 @@
+package be.kdg.gameservice.room.model;
+
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * What the lobby shows of a room: the room without its players and rounds.
+ * A private room also keeps its owner and the ids of its whitelisted users, so the private lists can be filtered on them.
+ * A lobby room is a snapshot, a change of the room replaces it with a new one.
+ *
+ * @see be.kdg.gameservice.room.service.api.LobbyService
+ */
+@Getter
+@AllArgsConstructor
+public final class LobbyRoom {
+    /**
+     * The id of the room.
+     */
+    private final int id;
+
+    /**
+     * The version of the room the snapshot was taken of, an older snapshot never replaces a newer one.
+     */
+    private final int version;
+
+    /**
+     * The name of the room.
+     */
+    private final String name;
+
+    /**
+     * The type of the room.
+     */
+    private final RoomType type;
+
+    /**
+     * The rules of the room.
+     */
+    private final GameRules gameRules;
+
+    /**
+     * The number of players that are seated in the room.
+     */
+    private final int playerCount;
+
+    /**
+     * The phase of the round that is being played in the room, null if no round is being played.
+     */
+    private final Phase currentPhase;
+
+    /**
+     * The user id of the owner of a private room, null for a public room.
+     */
+    private final String ownerId;
+
+    /**
+     * The ids of the users that are whitelisted on a private room, empty for a public room.
+     */
+    private final Set<String> whiteListedUserIds;
+
+    /**
+     * Used by the lobby query of the room repository, the rules are read as columns so they are not loaded as entities.
+     * The owner and the whitelist of a private room are read apart, see {@link #withAccess(String, Set)}.
+     */
+    public LobbyRoom(int id, Integer version, String name, Class<?> roomClass, int smallBlind, int bigBlind, int playDelay,
+                     int startingChips, int maxPlayerCount, int minLevel, int maxLevel, long playerCount,
+                     Phase currentPhase, Boolean finished) {
+        this(id, version == null ? 0 : version, name, roomClass == PrivateRoom.class ? RoomType.PRIVATE : RoomType.PUBLIC,
+                new GameRules(smallBlind, bigBlind, playDelay, startingChips, maxPlayerCount, minLevel, maxLevel),
+                (int) playerCount, Boolean.FALSE.equals(finished) ? currentPhase : null, null, Collections.emptySet());
+    }
+
+    /**
+     * @param room A room with its players and its current round.
+     * @return The lobby room of the room.
+     */
+    public static LobbyRoom of(Room room) {
+        Round round = room.getCurrentRound();
+        LobbyRoom lobbyRoom = new LobbyRoom(room.getId(), room.getVersion() == null ? 0 : room.getVersion(), room.getName(),
+                RoomType.of(room), room.getGameRules(), room.getPlayersInRoom().size(),
+                round == null || round.isFinished() ? null : round.getCurrentPhase(), null, Collections.emptySet());
+        if (!(room instanceof PrivateRoom)) return lobbyRoom;
+
+        PrivateRoom privateRoom = (PrivateRoom) room;
+        return lobbyRoom.withAccess(privateRoom.getOwnerId(), privateRoom.getWhiteListedUsers().stream()
+                .map(WhiteListedUser::getUserId)
+                .collect(toSet()));
+    }
+
+    /**
+     * @param phase The phase the round of the room moved to.
+     * @return This lobby room with the new phase.
+     */
+    public LobbyRoom withPhase(Phase phase) {
+        return new LobbyRoom(id, version, name, type, gameRules, playerCount, phase, ownerId, whiteListedUserIds);
+    }
+
+    /**
+     * @param ownerId            The user id of the owner of the private room.
+     * @param whiteListedUserIds The ids of the users that are whitelisted on the private room.
+     * @return This lobby room with the owner and the whitelist.
+     */
+    public LobbyRoom withAccess(String ownerId, Set<String> whiteListedUserIds) {
+        return new LobbyRoom(id, version, name, type, gameRules, playerCount, currentPhase, ownerId,
+                whiteListedUserIds.stream().collect(collectingAndThen(toSet(), Collections::unmodifiableSet)));
+    }
+
+    /**
+     * @param userId The id of the user.
+     * @return True if the user is on the whitelist of the room.
+     */
+    public boolean isWhiteListed(String userId) {
+        return whiteListedUserIds.contains(userId);
+    }
+}
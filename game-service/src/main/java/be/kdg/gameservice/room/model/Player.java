@@ -1,6 +1,8 @@
 package be.kdg.gameservice.room.model;
 
 import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardConverter;
+import be.kdg.gameservice.card.CardSet;
 import be.kdg.gameservice.round.model.ActType;
 import be.kdg.gameservice.round.model.HandType;
 import lombok.Getter;
@@ -22,9 +24,18 @@ public final class Player {
      * The id of the player. Used for persistence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+    @SequenceGenerator(name = "player_seq", sequenceName = "player_seq", allocationSize = 50)
     private int id;
 
+    /**
+     * The version of the player, raised by every write. A write of an older version fails,
+     * so concurrent writers can not overwrite each other's changes.
+     */
+    @Version
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
+
     /**
      * The name of the player. The name is the same as the one used
      * in the account of the user.
@@ -32,19 +43,19 @@ public final class Player {
     private String userId;
 
     /**
-     * The first card in the hand of the player.
+     * The first card in the hand of the player, stored as the ordinal of its type.
      */
     @Setter
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "first_card")
+    @Convert(converter = CardConverter.class)
+    @Column(name = "first_card_type")
     private Card firstCard;
 
     /**
-     * The second card in the hand of the player.
+     * The second card in the hand of the player, stored as the ordinal of its type.
      */
     @Setter
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "second_card")
+    @Convert(converter = CardConverter.class)
+    @Column(name = "second_card_type")
     private Card secondCard;
 
     /**
@@ -102,6 +113,41 @@ public final class Player {
         this.seatNumber = seatNumber;
     }
 
+    /**
+     * @return A copy of the player that keeps its current state, the acts that follow do not change it.
+     */
+    public Player copy() {
+        Player copy = new Player(chipCount, userId, seatNumber);
+        copy.id = id;
+        copy.version = version;
+        copy.firstCard = firstCard;
+        copy.secondCard = secondCard;
+        copy.lastAct = lastAct;
+        copy.inRound = inRound;
+        copy.inRoom = inRoom;
+        copy.handType = handType;
+        copy.allIn = allIn;
+        return copy;
+    }
+
+    /**
+     * @return The two cards in the hand of the player as a card set.
+     * @see CardSet
+     */
+    public long getHoleCards() {
+        return CardSet.union(CardSet.of(firstCard), CardSet.of(secondCard));
+    }
+
+    /**
+     * Puts back the version of the player after a write that raised it was rolled back,
+     * the database still has the previous version.
+     *
+     * @param version The version before the write.
+     */
+    public void resetVersion(Integer version) {
+        this.version = version;
+    }
+
     /**
      * Resets a player to its default values.
      * This method will be called on if the current round ends and a new round is started.
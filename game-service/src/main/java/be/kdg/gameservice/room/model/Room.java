@@ -9,8 +9,6 @@ import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -29,9 +27,19 @@ public class Room {
      */
     @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
     private int id;
 
+    /**
+     * The version of the room, raised by every write. A write of an older version fails,
+     * so concurrent writers can not overwrite each other's changes.
+     */
+    @Getter
+    @Version
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
+
     /**
      * The name of the room.
      */
@@ -49,13 +57,32 @@ public class Room {
 
 
     /**
-     * An history of all the round that were played in the past.
+     * The round that is being played, or the last round that was played. Loaded with the room on its own,
+     * so loading a room does not depend on the number of rounds that were played in it.
      */
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "room_id")
-    @Fetch(value = FetchMode.SUBSELECT)
+    @OneToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @JoinColumn(name = "current_round_id")
+    private Round currentRound;
+
+    /**
+     * An history of all the round that were played in the past. Never loaded to play,
+     * the rounds write their room themselves and the history is read page by page from the round repository.
+     * The history is only loaded to delete the rounds with the room.
+     *
+     * @see be.kdg.gameservice.round.persistence.RoundRepository#findPastRoundIds
+     */
+    @OneToMany(cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", insertable = false, updatable = false)
     private List<Round> rounds;
 
+    /**
+     * The seats of the players in the room, built from the players when it is first needed.
+     *
+     * @see SeatRing
+     */
+    @Transient
+    private SeatRing seats;
+
     /**
      * The gameRules for this room.
      *
@@ -92,10 +119,10 @@ public class Room {
     }
 
     /**
-     * @return An unmodifiable list of all the played rounds.
+     * @return The number of players inside of the room.
      */
-    public List<Round> getRounds() {
-        return Collections.unmodifiableList(rounds);
+    public int getPlayerCount() {
+        return playersInRoom.size();
     }
 
     /**
@@ -105,6 +132,7 @@ public class Room {
      */
     public void addPlayer(Player player) {
         playersInRoom.add(player);
+        if (seats != null) seats.add(player);
     }
 
     /**
@@ -114,65 +142,44 @@ public class Room {
      */
     public void removePlayer(Player player) {
         playersInRoom.remove(player);
-        if (rounds.size() > 0) getCurrentRound().removePlayer(player);
+        if (seats != null) seats.remove(player);
+        if (currentRound != null) currentRound.removePlayer(player);
     }
 
     /**
-     * Adds a round to this class.
+     * Makes a new round the current round of this room. The history is not touched,
+     * the round is added to it when it is written with the id of this room.
      *
      * @param round The round we need to add.
      */
     public void addRound(Round round) {
-        rounds.add(round);
+        round.setRoomId(id);
+        currentRound = round;
     }
 
     /**
-     * @return The current round that is being played.
+     * @return The current round that is being played, null if no round was played in this room yet.
      */
     public Round getCurrentRound() {
-        return rounds.get(rounds.size() - 1);
+        return currentRound;
     }
 
     /**
-     * Return number between 0 and maxRoomSize.
-     *
-     * @return available seatNumber
+     * Lets go of the current round, so the rounds can be deleted before the room.
      */
-    public int getFirstEmptySeat() {
-        playersInRoom.sort(Comparator.comparingInt(Player::getSeatNumber));
-        int[] occupiedSeats = playersInRoom.stream().mapToInt(Player::getSeatNumber).toArray();
-        return findFirstPositiveMissingOccurrence(occupiedSeats);
+    public void clearCurrentRound() {
+        currentRound = null;
     }
 
     /**
-     * Finds the first missing positive number in an array of ints
+     * Return number between 0 and maxRoomSize.
+     * The seats are kept as a bitmask, so the players do not need to be sorted.
      *
-     * @param occupiedSeats The seats that are occupied.
-     * @return The first positive number.
+     * @return available seatNumber
+     * @see SeatRing#getFirstEmptySeat()
      */
-    private int findFirstPositiveMissingOccurrence(int[] occupiedSeats) {
-        int size = occupiedSeats.length;
-
-        for (int i = 0; i < size; i++) {
-            while (occupiedSeats[i] != i + 1) {
-                if (occupiedSeats[i] <= 0 || occupiedSeats[i] >= size)
-                    break;
-
-                if (occupiedSeats[i] == occupiedSeats[occupiedSeats[i] - 1])
-                    break;
-
-                int temp = occupiedSeats[i];
-                occupiedSeats[i] = occupiedSeats[temp - 1];
-                occupiedSeats[temp - 1] = temp;
-            }
-        }
-
-        for (int i = 0; i < size; i++) {
-            if (occupiedSeats[i] != i + 1) {
-                return i + 1;
-            }
-        }
-
-        return size + 1;
+    public int getFirstEmptySeat() {
+        if (seats == null) seats = new SeatRing(playersInRoom);
+        return seats.getFirstEmptySeat();
     }
 }
@@ -0,0 +1,21 @@
+package be.kdg.gameservice.room.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a room is saved or deleted, the lobby takes the change over once the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public final class RoomChanged {
+    /**
+     * The id of the room.
+     */
+    private final int roomId;
+
+    /**
+     * The room as it was saved, null if the room was deleted.
+     */
+    private final Room room;
+}
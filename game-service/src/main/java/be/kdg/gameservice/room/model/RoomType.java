@@ -0,0 +1,37 @@
+package be.kdg.gameservice.room.model;
+
+/**
+ * The kinds of rooms, each stored with its own discriminator value in the room table.
+ */
+public enum RoomType {
+    /**
+     * A room that every player can join.
+     */
+    PUBLIC(Room.class),
+
+    /**
+     * A room that only the whitelisted users of its owner can join.
+     */
+    PRIVATE(PrivateRoom.class);
+
+    private final Class<? extends Room> roomClass;
+
+    RoomType(Class<? extends Room> roomClass) {
+        this.roomClass = roomClass;
+    }
+
+    /**
+     * @return The entity class of the rooms of this type, used to filter on the discriminator of the room table.
+     */
+    public Class<? extends Room> getRoomClass() {
+        return roomClass;
+    }
+
+    /**
+     * @param room A room.
+     * @return The type of the room.
+     */
+    public static RoomType of(Room room) {
+        return room instanceof PrivateRoom ? PRIVATE : PUBLIC;
+    }
+}
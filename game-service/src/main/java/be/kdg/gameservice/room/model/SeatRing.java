@@ -0,0 +1,127 @@
+package be.kdg.gameservice.room.model;
+
+import be.kdg.gameservice.round.model.ActType;
+
+import java.util.List;
+
+/**
+ * The seats around a table as bitmasks: one bit for every occupied seat and one for every seat of a player that folded.
+ * Bit n is seat number n. Finding the next player, the blinds or an empty seat takes a couple of bit operations,
+ * instead of filtering and sorting the players.
+ * <p>
+ * The ring follows the table clockwise: after the highest occupied seat comes the lowest one again.
+ */
+public final class SeatRing {
+    /**
+     * The number of seats a ring can hold, seat numbers go from 0 up to 63.
+     */
+    public static final int CAPACITY = Long.SIZE;
+
+    /**
+     * The player on every seat, null for an empty seat.
+     */
+    private final Player[] players = new Player[CAPACITY];
+
+    /**
+     * Bit n is set if seat n is occupied.
+     */
+    private long occupied;
+
+    /**
+     * Bit n is set if the player on seat n folded.
+     */
+    private long folded;
+
+    /**
+     * @param players The players at the table. Players whose last act is FOLD are marked as folded.
+     * @throws IllegalStateException If two players have the same seat.
+     */
+    public SeatRing(List<Player> players) {
+        for (Player player : players) {
+            add(player);
+            setFolded(player, player.getLastAct() == ActType.FOLD);
+        }
+    }
+
+    /**
+     * Seats a player on the seat number of the player.
+     *
+     * @throws IllegalStateException If the seat is already taken by another player.
+     */
+    public void add(Player player) {
+        int seat = checkSeat(player.getSeatNumber());
+        if (players[seat] != null && players[seat] != player)
+            throw new IllegalStateException("Seat " + seat + " is already taken.");
+        players[seat] = player;
+        occupied |= 1L << seat;
+    }
+
+    /**
+     * Frees the seat of a player, nothing happens if the player is not seated.
+     */
+    public void remove(Player player) {
+        int seat = checkSeat(player.getSeatNumber());
+        if (players[seat] != player) return;
+        players[seat] = null;
+        occupied &= ~(1L << seat);
+        folded &= ~(1L << seat);
+    }
+
+    /**
+     * @param player The seated player.
+     * @param fold   True if the player folded, false if the player is back in the round.
+     */
+    public void setFolded(Player player, boolean fold) {
+        long bit = 1L << checkSeat(player.getSeatNumber());
+        folded = fold ? folded | bit : folded & ~bit;
+    }
+
+    /**
+     * @param seat A seat number, it does not have to be occupied.
+     * @return The first player after the seat that did not fold, wrapping around the table.
+     * Null if every player folded.
+     */
+    public Player getNextActive(int seat) {
+        int next = nextSeat(occupied & ~folded, seat);
+        return next == -1 ? null : players[next];
+    }
+
+    /**
+     * @return The number of seated players that did not fold.
+     */
+    public int getActiveCount() {
+        return Long.bitCount(occupied & ~folded);
+    }
+
+    /**
+     * @return The number of seated players.
+     */
+    public int getOccupiedCount() {
+        return Long.bitCount(occupied);
+    }
+
+    /**
+     * @return The lowest seat number from 1 on that is not occupied.
+     */
+    public int getFirstEmptySeat() {
+        return Long.numberOfTrailingZeros(~(occupied | 1L));
+    }
+
+    /**
+     * @return The first occupied seat in the mask after the seat, the lowest one if there is none after it,
+     * -1 if the mask is empty.
+     */
+    private static int nextSeat(long mask, int seat) {
+        if (mask == 0) return -1;
+        long after;
+        if (seat < 0) after = mask;
+        else after = seat >= CAPACITY - 1 ? 0 : mask & (-1L << (seat + 1));
+        return Long.numberOfTrailingZeros(after != 0 ? after : mask);
+    }
+
+    private static int checkSeat(int seat) {
+        if (seat < 0 || seat >= CAPACITY)
+            throw new IllegalArgumentException("Seat number " + seat + " is not between 0 and " + (CAPACITY - 1) + ".");
+        return seat;
+    }
+}
@@ -18,7 +18,8 @@ public final class WhiteListedUser {
      * The id of the whitelisted user.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "white_listed_player_seq")
+    @SequenceGenerator(name = "white_listed_player_seq", sequenceName = "white_listed_player_seq", allocationSize = 50)
     private int id;
 
     /**
@@ -1,9 +1,49 @@
 package be.kdg.gameservice.room.persistence;
 
+import be.kdg.gameservice.room.model.LobbyRoom;
+import be.kdg.gameservice.room.model.PrivateRoom;
 import be.kdg.gameservice.room.model.Room;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Integer> {
+    @Query("select r.gameRules.playDelay from Room r where r.id = ?1")
+    Optional<Integer> findPlayDelay(int roomId);
+
+    @Query("select r.name from Room r where r.id = ?1")
+    Optional<String> findName(int roomId);
+
+    @Query("select r.id from Room r where r.currentRound is null")
+    List<Integer> findIdsWithoutCurrentRound();
+
+    @Query("select r from Room r where type(r) = ?1")
+    List<Room> findByType(Class<? extends Room> type);
+
+    @Query("select distinct r from PrivateRoom r join r.whiteListedUsers w where w.userId = ?1")
+    List<PrivateRoom> findPrivateRoomsOfUser(String userId);
+
+    @Query("select r from PrivateRoom r where r.ownerId = ?1")
+    List<PrivateRoom> findPrivateRoomsOfOwner(String ownerId);
+
+    /**
+     * Reads the lobby rooms of one type without loading the rooms, their players, rounds or acts.
+     * The type is filtered on the discriminator column, the players are counted by the database.
+     */
+    @Query("select new be.kdg.gameservice.room.model.LobbyRoom(r.id, r.version, r.name, type(r),"
+            + " rules.smallBlind, rules.bigBlind, rules.playDelay, rules.startingChips, rules.maxPlayerCount, rules.minLevel, rules.maxLevel,"
+            + " (select count(p) from Room seated join seated.playersInRoom p where seated.id = r.id), round.currentPhase, round.isFinished)"
+            + " from Room r left join r.gameRules rules left join r.currentRound round where type(r) = ?1")
+    List<LobbyRoom> findLobbyRooms(Class<? extends Room> type);
+
+    /**
+     * Reads the owner and the whitelisted users of the private rooms for the lobby, as rows of room id, owner id
+     * and whitelisted user id. A room without whitelisted users has one row without a user id.
+     */
+    @Query("select r.id, r.ownerId, w.userId from PrivateRoom r left join r.whiteListedUsers w")
+    List<Object[]> findLobbyAccess();
 }
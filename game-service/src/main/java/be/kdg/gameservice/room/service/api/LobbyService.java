@@ -0,0 +1,16 @@
+package be.kdg.gameservice.room.service.api;
+
+import be.kdg.gameservice.room.model.LobbyRoom;
+import be.kdg.gameservice.room.model.RoomType;
+
+import java.util.List;
+
+public interface LobbyService {
+    List<LobbyRoom> getRooms(RoomType type);
+
+    List<LobbyRoom> getPrivateRooms(String userId);
+
+    List<LobbyRoom> getPrivateRoomsOfOwner(String ownerId);
+
+    void refresh();
+}
@@ -23,6 +23,8 @@ public interface RoomService {
 
     void deleteRoom(int id) throws RoomException;
 
+    List<Round> getPastRounds(int roomId, int page, int size);
+
     int checkChips(int roomId, int userChips) throws RoomException;
 
     void enoughRoundPlayers(int roomId) throws RoomException, RoundException;
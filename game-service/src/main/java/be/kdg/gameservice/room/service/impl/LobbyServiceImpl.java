@@ -0,0 +1,118 @@
+package be.kdg.gameservice.room.service.impl;
+
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.room.model.LobbyRoom;
+import be.kdg.gameservice.room.model.RoomChanged;
+import be.kdg.gameservice.room.model.RoomType;
+import be.kdg.gameservice.room.persistence.RoomRepository;
+import be.kdg.gameservice.room.service.api.LobbyService;
+import be.kdg.gameservice.round.model.RoundPhaseChanged;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Service that keeps the lobby in memory, so listing the rooms does not load any room, player or round.
+ * <p>
+ * A room that is saved or deleted on this node replaces its lobby room once the transaction commits,
+ * a round that moves to its next phase updates the phase. The lobby is read again from the database
+ * at a fixed interval, with one query per room type, for the rooms that are played on other nodes.
+ * The owners and whitelists of the private rooms are read with one more query, the private lists are filtered on them.
+ */
+@RequiredArgsConstructor
+@Service
+public class LobbyServiceImpl implements LobbyService {
+    private final RoomRepository roomRepository;
+    private final ClusterService clusterService;
+    private final Map<Integer, LobbyRoom> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * @param type The type of the rooms.
+     * @return An unmodifiable list of the lobby rooms of the type, ordered by id.
+     */
+    @Override
+    public List<LobbyRoom> getRooms(RoomType type) {
+        return getRooms(room -> room.getType() == type);
+    }
+
+    /**
+     * @param userId The id of the user.
+     * @return An unmodifiable list of the private lobby rooms the user is whitelisted on, ordered by id.
+     */
+    @Override
+    public List<LobbyRoom> getPrivateRooms(String userId) {
+        return getRooms(room -> room.getType() == RoomType.PRIVATE && room.isWhiteListed(userId));
+    }
+
+    /**
+     * @param ownerId The user id of the owner.
+     * @return An unmodifiable list of the private lobby rooms of the owner, ordered by id.
+     */
+    @Override
+    public List<LobbyRoom> getPrivateRoomsOfOwner(String ownerId) {
+        return getRooms(room -> room.getType() == RoomType.PRIVATE && ownerId.equals(room.getOwnerId()));
+    }
+
+    private List<LobbyRoom> getRooms(Predicate<LobbyRoom> filter) {
+        return rooms.values().stream()
+                .filter(filter)
+                .sorted(Comparator.comparingInt(LobbyRoom::getId))
+                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+    }
+
+    /**
+     * Reads the lobby rooms from the database. A lobby room is only replaced by a newer version of the room,
+     * or by the same version if the room is played on another node: the phase of a local round is only
+     * written to the database in the background, the phase events of this node are more recent.
+     * Only the rooms that were in the lobby before the rooms were read can be missing because they were deleted.
+     */
+    @Override
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${lobby.refresh-interval:5000}", initialDelayString = "${lobby.refresh-interval:5000}")
+    public void refresh() {
+        Set<Integer> deletedIds = new HashSet<>(rooms.keySet());
+        Map<Integer, String> ownerIds = new HashMap<>();
+        Map<Integer, Set<String>> whiteListedUserIds = new HashMap<>();
+        for (Object[] row : roomRepository.findLobbyAccess()) {
+            ownerIds.put((Integer) row[0], (String) row[1]);
+            Set<String> userIds = whiteListedUserIds.computeIfAbsent((Integer) row[0], roomId -> new HashSet<>());
+            if (row[2] != null) userIds.add((String) row[2]);
+        }
+
+        for (RoomType type : RoomType.values()) {
+            for (LobbyRoom read : roomRepository.findLobbyRooms(type.getRoomClass())) {
+                LobbyRoom room = type == RoomType.PRIVATE
+                        ? read.withAccess(ownerIds.get(read.getId()), whiteListedUserIds.getOrDefault(read.getId(), Collections.emptySet()))
+                        : read;
+                deletedIds.remove(room.getId());
+                rooms.merge(room.getId(), room, (current, latest) -> latest.getVersion() > current.getVersion()
+                        || latest.getVersion() == current.getVersion() && !clusterService.isLocal(latest.getId()) ? latest : current);
+            }
+        }
+        rooms.keySet().removeAll(deletedIds);
+    }
+
+    /**
+     * The room is read after the commit, so the lobby room has the version the room was written with.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomChanged(RoomChanged event) {
+        if (event.getRoom() == null) rooms.remove(event.getRoomId());
+        else rooms.put(event.getRoomId(), LobbyRoom.of(event.getRoom()));
+    }
+
+    @EventListener
+    public void onRoundPhaseChanged(RoundPhaseChanged event) {
+        rooms.computeIfPresent(event.getRoomId(), (roomId, room) -> room.withPhase(event.getPhase()));
+    }
+}
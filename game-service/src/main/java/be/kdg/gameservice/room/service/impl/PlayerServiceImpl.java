@@ -5,6 +5,7 @@ import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.room.model.Room;
 import be.kdg.gameservice.room.persistence.PlayerRepository;
 import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.shared.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +16,12 @@ import java.util.Optional;
 
 /**
  * This service is used for everything that has something to do with players.
+ * Players that join or leave the same room at the same time conflict on the version of the room,
+ * the losing call is run again on the new state of the room, so it gets a seat that is still free.
  */
 @Service
 @Transactional
+@RetryOnConflict
 @RequiredArgsConstructor
 public class PlayerServiceImpl implements PlayerService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PlayerServiceImpl.class);
@@ -77,7 +81,7 @@ public class PlayerServiceImpl implements PlayerService {
             throw new RoomException(PlayerServiceImpl.class, "Player was not in the room.");
 
         //Removes player from current round
-        if (room.getRounds().size() > 0) {
+        if (room.getCurrentRound() != null) {
             if (!room.getCurrentRound().isFinished() && room.getCurrentRound().getPlayersInRound().contains(playerOpt.get())) {
                 room.getCurrentRound().removePlayer(playerOpt.get());
             }
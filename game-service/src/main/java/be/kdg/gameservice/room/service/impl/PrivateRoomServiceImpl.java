@@ -4,8 +4,10 @@ import be.kdg.gameservice.room.exception.RoomException;
 import be.kdg.gameservice.room.model.GameRules;
 import be.kdg.gameservice.room.model.PrivateRoom;
 import be.kdg.gameservice.room.model.WhiteListedUser;
+import be.kdg.gameservice.room.persistence.RoomRepository;
 import be.kdg.gameservice.room.persistence.WhiteListedPlayerRepository;
 import be.kdg.gameservice.room.service.api.PrivateRoomService;
+import be.kdg.gameservice.shared.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,18 +18,18 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
-
 /**
  * This class is used for the management of private rooms
+ * A method that conflicts with a concurrent change of the same room is run again.
  */
 @RequiredArgsConstructor
 @Transactional
+@RetryOnConflict
 @Service
 public class PrivateRoomServiceImpl implements PrivateRoomService{
     private static final Logger LOGGER = LoggerFactory.getLogger(PrivateRoomServiceImpl.class);
     private final WhiteListedPlayerRepository whiteListedPlayerRepository;
+    private final RoomRepository roomRepository;
     private final RoomServiceImpl roomService;
 
     /**
@@ -100,7 +102,7 @@ public class PrivateRoomServiceImpl implements PrivateRoomService{
     }
 
     /**
-     * Removes a user from the whitelist.
+     * Removes a user from the whitelist. The room is saved, so the lobby drops the user from the whitelist as well.
      *
      * @param roomId The id of the room
      * @param userId The user that needs to be removed from the whitelist.
@@ -120,23 +122,19 @@ public class PrivateRoomServiceImpl implements PrivateRoomService{
             room.deleteWhiteListedPlayer(userOpt.get());
         });
         LOGGER.info("Removing user" + userId + " to the whitelist of room " + roomId);
-        return room;
+        return (PrivateRoom) roomService.saveRoom(room);
     }
 
     /**
      * Gets all the private rooms that are from the specified user and
-     * that the user is whitelisted on.
+     * that the user is whitelisted on. The whitelist is checked by the database.
      *
      * @param userId The id of the user.
      * @return All the authenticated private rooms.
      */
     @Override
     public List<PrivateRoom> getPrivateRooms(String userId) {
-        return roomService.getRooms(PrivateRoom.class).stream()
-                .map(PrivateRoom.class::cast)
-                .filter(room -> room.getWhiteListedUsers().stream()
-                        .anyMatch(p -> p.getUserId().equals(userId)))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+        return Collections.unmodifiableList(roomRepository.findPrivateRoomsOfUser(userId));
     }
 
     /**
@@ -148,9 +146,6 @@ public class PrivateRoomServiceImpl implements PrivateRoomService{
      */
     @Override
     public List<PrivateRoom> getPrivateRoomsFromOwner(String userId) {
-       return roomService.getRooms(PrivateRoom.class).stream()
-               .map(PrivateRoom.class::cast)
-               .filter(room -> room.getOwnerId().equals(userId))
-               .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+        return Collections.unmodifiableList(roomRepository.findPrivateRoomsOfOwner(userId));
     }
 }
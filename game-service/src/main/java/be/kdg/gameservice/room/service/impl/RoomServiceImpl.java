@@ -1,40 +1,53 @@
 package be.kdg.gameservice.room.service.impl;
 
-import be.kdg.gameservice.replay.service.impl.ReplayServiceImpl;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
 import be.kdg.gameservice.room.exception.RoomException;
 import be.kdg.gameservice.room.model.GameRules;
 import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.model.RoomChanged;
 import be.kdg.gameservice.room.persistence.RoomRepository;
 import be.kdg.gameservice.room.service.api.RoomService;
 import be.kdg.gameservice.round.exception.RoundException;
 import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
 import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.api.TurnTimerService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 import java.util.Collections;
 import java.util.List;
-
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
+import java.util.Optional;
 
 /**
  * This service will be used to manage the ongoing activity of a specific room.
  * It will also take care of the CRUD operations with its persistence dependency.
+ * A method that conflicts with a concurrent change of the same room is run again.
  */
 @RequiredArgsConstructor
 @Transactional
+@RetryOnConflict
 @Service
 public class RoomServiceImpl implements RoomService {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoomServiceImpl.class);
     private final RoomRepository roomRepository;
+    private final RoundRepository roundRepository;
     private final RoundService roundService;
-    private final ReplayServiceImpl replayService;
+    private final OutboxService outboxService;
+    private final LiveRoundStore liveRounds;
+    private final TurnTimerService turnTimerService;
+    private final ApplicationEventPublisher eventPublisher;
 
 //    @PostConstruct
 //    public void defaultRoom() {
@@ -43,6 +56,21 @@ public class RoomServiceImpl implements RoomService {
 //        roomRepository.save(new Room(new GameRules(), "test room3"));
 //    }
 
+    /**
+     * Rooms that were played in before the room kept a pointer to its current round
+     * get their last round as current round, so a round that was being played is continued.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void linkCurrentRounds() {
+        for (int roomId : roomRepository.findIdsWithoutCurrentRound()) {
+            roundRepository.findFirstByRoomIdOrderByIdDesc(roomId).ifPresent(round -> roomRepository.findById(roomId)
+                    .ifPresent(room -> {
+                        room.addRound(round);
+                        LOGGER.info("Linked room " + roomId + " to its current round " + round.getId());
+                    }));
+        }
+    }
+
     /**
      * @param roomId The room the new round needs to be created for.
      * @return The updated room with the new round.
@@ -54,58 +82,69 @@ public class RoomServiceImpl implements RoomService {
         Room room = getRoom(roomId);
 
         //Generate replays
-        if (room.getRounds().size() != 0) replayService.createReplays(room);
+        if (room.getCurrentRound() != null) outboxService.addReplays(room.getCurrentRound());
 
         //Determine if round can be created
         List<Player> players = room.getPlayersInRoom();
         players.forEach(player -> player.setAllIn(false));
         if (players.size() < 2)
             throw new RoomException(RoomServiceImpl.class, "There must be at least 2 players int room to start a round.");
-        int button = room.getRounds().size() == 0 ? 0 : room.getCurrentRound().getButton();
+        int button = room.getCurrentRound() == null ? 0 : room.getCurrentRound().getButton();
 
         //Create new round
         Round round = roundService.startNewRound(room.getPlayersInRoom(), button);
         LOGGER.info("Starting new round for room " + roomId);
-        if (room.getRounds().size() > 0) room.getCurrentRound().setFinished(true);
+        if (room.getCurrentRound() != null) room.getCurrentRound().setFinished(true);
         room.addRound(round);
         saveRoom(room);
 
         //Generate blinds
         Round roundFromDB = getCurrentRound(roomId);
         roundService.playBlinds(roundFromDB, room.getGameRules().getSmallBlind(), room.getGameRules().getBigBlind());
+        outboxService.addGamesPlayed(roundFromDB);
+
+        //Start the clock of the first player after the blinds
+        turnTimerService.startTurn(roomId, roundFromDB.getId(), roundService.getPlayerToAct(roundFromDB.getId()));
         return roundFromDB;
     }
 
     /**
      * The rooms returned by this method are cached locally.
+     * The rooms are filtered on their type by the database.
      *
-     * @return An unmodifiable collection of all the rooms from the database.
+     * @return An unmodifiable collection of all the rooms of the type from the database.
+     * @see be.kdg.gameservice.room.service.api.LobbyService For the rooms without their players and rounds.
      */
     @Override
     public <T extends Room> List<Room> getRooms(Class<T> aClass) {
-        return roomRepository.findAll().stream()
-                .filter(room -> room.getClass().getSimpleName().equals(aClass.getSimpleName()))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+        return Collections.unmodifiableList(roomRepository.findByType(aClass));
     }
 
     /**
      * Gets the current round of a specific room, if the round does not exist,
      * than a new round will be created.
+     * A round that is being played is returned from memory without loading the room.
      *
      * @return The current round of the room.
      */
     @Override
     public Round getCurrentRound(int roomId) throws RoomException, RoundException {
+        //Get live round
+        Optional<Round> liveRound = liveRounds.getCurrentRound(roomId);
+        if (liveRound.isPresent() && !liveRound.get().isFinished()) return liveRound.get();
+
         //Get data
         Room room = getRoom(roomId);
 
         //Determine which round to give back
-        if (room.getRounds().size() <= 0 || room.getCurrentRound().isFinished()) return startNewRoundForRoom(roomId);
-        else return room.getCurrentRound();
+        if (room.getCurrentRound() == null || room.getCurrentRound().isFinished()) return startNewRoundForRoom(roomId);
+        else return liveRounds.register(roomId, room.getCurrentRound());
     }
 
     /**
      * The room returned by this method is cached locally.
+     * Only the current round of the room is loaded with it, see {@link #getPastRounds} for the rounds before it.
+     * The live round of the room is written to the database first, so the room holds the latest state of the round.
      *
      * @param roomId The id of the room.
      * @return The corresponding room.
@@ -113,6 +152,7 @@ public class RoomServiceImpl implements RoomService {
      */
     @Override
     public Room getRoom(int roomId) throws RoomException {
+        liveRounds.flushRoom(roomId);
         return roomRepository.findById(roomId)
                 .orElseThrow(() -> new RoomException(RoomServiceImpl.class, "The room was not found in the database."));
     }
@@ -145,24 +185,52 @@ public class RoomServiceImpl implements RoomService {
         roomToUpdate.setName(room.getName());
         roomToUpdate.setGameRules(room.getGameRules());
         LOGGER.info("Updating room with id " + roomId);
+        turnTimerService.forgetRoom(roomId);
         return saveRoom(roomToUpdate);
     }
 
     /**
-     * Deletes a room from database.
+     * Deletes a room from database, together with all the rounds that were played in it.
+     * The room lets go of its current round first, the rounds are deleted before the room.
      *
      * @param id The id of the room that needs to be deleted.
+     * @throws RoomException Thrown if the room does not exists in the database.
      */
     @Override
-    public void deleteRoom(int id) {
-        roomRepository.deleteById(id);
+    public void deleteRoom(int id) throws RoomException {
+        turnTimerService.forgetRoom(id);
+        Room room = getRoom(id);
+        room.clearCurrentRound();
+        roomRepository.flush();
+        roomRepository.delete(room);
+        eventPublisher.publishEvent(new RoomChanged(id, null));
     }
 
     /**
+     * Reads the history of a room one page at a time, the cost of a page does not depend on the length of the history.
+     * Rounds that were moved to the archive are not part of it anymore, they are read from the archive service.
+     *
+     * @param roomId The id of the room.
+     * @param page   The number of the page, starting at 0.
+     * @param size   The number of rounds of a page.
+     * @return The finished rounds of the page, the last round first.
+     */
+    @Override
+    public List<Round> getPastRounds(int roomId, int page, int size) {
+        List<Integer> roundIds = roundRepository.findPastRoundIds(roomId, PageRequest.of(page, size)).getContent();
+        if (roundIds.isEmpty()) return Collections.emptyList();
+        return Collections.unmodifiableList(roundRepository.findByIdInOrderByIdDesc(roundIds));
+    }
+
+    /**
+     * The lobby takes the saved room over once the transaction commits.
+     *
      * @param room The room that needs to be updated or saved.
      */
     public Room saveRoom(Room room) {
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        eventPublisher.publishEvent(new RoomChanged(savedRoom.getId(), savedRoom));
+        return savedRoom;
     }
 
     /**
@@ -188,7 +256,7 @@ public class RoomServiceImpl implements RoomService {
     public void enoughRoundPlayers(int roomId) throws RoomException, RoundException {
         Room room = getRoom(roomId);
 
-        if (room.getRounds().size() > 0) {
+        if (room.getCurrentRound() != null) {
             if (!room.getCurrentRound().isFinished() && room.getCurrentRound().getPlayersInRound().size() < 2) {
                 LOGGER.info("Finishing round in room " + roomId +  " because of a lack of players.");
                 room.getCurrentRound().setFinished(true);
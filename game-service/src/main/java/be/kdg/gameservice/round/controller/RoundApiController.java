@@ -1,36 +1,41 @@
 package be.kdg.gameservice.round.controller;
 
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
 import be.kdg.gameservice.replay.service.api.ReplayService;
 import be.kdg.gameservice.shared.BaseController;
-import be.kdg.gameservice.shared.dto.MessageDTO;
 import be.kdg.gameservice.room.controller.dto.PlayerDTO;
-import be.kdg.gameservice.room.controller.dto.UserDTO;
 import be.kdg.gameservice.room.exception.RoomException;
 import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.room.service.api.RoomService;
 import be.kdg.gameservice.round.controller.dto.ActDTO;
+import be.kdg.gameservice.round.controller.dto.EquityDTO;
+import be.kdg.gameservice.round.controller.dto.PreflopEquityDTO;
 import be.kdg.gameservice.round.controller.dto.RoundDTO;
 import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.ActOutcome;
 import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Equity;
 import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.model.TurnTimeout;
+import be.kdg.gameservice.round.service.api.EquityService;
+import be.kdg.gameservice.round.service.api.PreflopService;
 import be.kdg.gameservice.round.service.api.RoundService;
-import be.kdg.gameservice.shared.UserApiGateway;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.*;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
-
 /**
  * This API is used for API connections that have somthing to do
  * with the games of poker
@@ -42,9 +47,11 @@ import static java.util.stream.Collectors.toList;
 public class RoundApiController extends BaseController {
     private final ModelMapper modelMapper;
     private final RoundService roundService;
+    private final EquityService equityService;
+    private final PreflopService preflopService;
     private final RoomService roomService;
-    private final UserApiGateway userApiGateway;
     private final SimpMessagingTemplate template;
+    private final ClusterService clusterService;
 
     /**
      * Gets all the possible acts that can be played for a specific player
@@ -62,62 +69,114 @@ public class RoundApiController extends BaseController {
         return new ResponseEntity<>(modelMapper.map(actTypes, ActType[].class), HttpStatus.OK);
     }
 
+    /**
+     * Gets the chances of the active players in a round to win the pot.
+     * Only the hole cards and the part of the board that is already visible are used.
+     * The hole cards of the opponents are secret until the hands are shown, so the equity is only
+     * available at the showdown, after the round, or when the players are all in.
+     *
+     * @param roundId The id of the round
+     * @return Status code 200 with the equity of every active player.
+     * @throws RoundException Rerouted to handler.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/rounds/{roundId}/equity")
+    public ResponseEntity<EquityDTO> getEquity(@PathVariable int roundId) throws RoundException {
+        logIncomingCall("getEquity");
+        Equity equity = equityService.calculateEquity(roundId);
+        return new ResponseEntity<>(modelMapper.map(equity, EquityDTO.class), HttpStatus.OK);
+    }
+
+    /**
+     * Looks up the equity and the rank of a starting hand against a number of random opponents.
+     *
+     * @param firstCard  The first hole card.
+     * @param secondCard The second hole card.
+     * @param opponents  The number of opponents, 1 up to 8.
+     * @return Status code 200 with the equity and the rank of the starting hand.
+     * @throws RoundException Rerouted to handler.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/preflop-equity")
+    public ResponseEntity<PreflopEquityDTO> getPreflopEquity(@RequestParam CardType firstCard,
+                                                             @RequestParam CardType secondCard,
+                                                             @RequestParam int opponents) throws RoundException {
+        logIncomingCall("getPreflopEquity");
+        long holeCards = CardSet.of(firstCard, secondCard);
+        PreflopEquityDTO preflopEquity = new PreflopEquityDTO(preflopService.getHandClass(holeCards), opponents,
+                preflopService.getEquity(holeCards, opponents), preflopService.getRank(holeCards, opponents));
+        return new ResponseEntity<>(preflopEquity, HttpStatus.OK);
+    }
+
     /**
      * Saves an act that is played by a player in the back end.
-     * The act is validated in the round service for a last time.
+     * The act is validated and played in the round service in one go, the outcome is broadcast from here.
      * The players act will than be sent to the rest of the room.
-     * If the round has ended then a winner will be broad-casted.
+     * If the round has ended then a winner will be broad-casted, the win itself is recorded by the round service.
      * The current round will be broad-casted.
+     * If no more bets can be made then the round comes with a preview of the equity at showdown.
      * If the round has ended then a new round will be broad-casted.
+     * An act for a room of another node of the cluster is forwarded to that node.
      */
     @PreAuthorize("hasRole('ROLE_USER')")
     @PostMapping("/rounds/act")
-    public ResponseEntity<ActDTO> addAct(@RequestBody @Valid ActDTO actDTO, OAuth2Authentication authentication) throws RoundException, RoomException, InterruptedException {
+    public ResponseEntity<ActDTO> addAct(@RequestBody @Valid ActDTO actDTO) throws RoundException, RoomException, RoomNotOwnedException {
         logIncomingCall("addAct");
-        this.roundService.saveAct(actDTO.getRoundId(), actDTO.getUserId(),
+        clusterService.checkLocal(actDTO.getRoomId());
+        ActOutcome outcome = this.roundService.playAct(actDTO.getRoundId(), actDTO.getUserId(),
                 actDTO.getType(), actDTO.getPhase(), actDTO.getBet(), actDTO.isAllIn());
 
-        Optional<Player> winnerOptional = roundService.checkEndOfRound(actDTO.getRoundId());
-        Optional<Player> playerOptional = roundService.checkFolds(actDTO.getRoundId());
-        Round round;
-        RoundDTO roundOut;
-        if (winnerOptional.isPresent() || playerOptional.isPresent()) {
-            Player winner = winnerOptional.orElseGet(playerOptional::get);
-            userApiGateway.addWin(winner.getUserId());
-            sendWinMessages(authentication, winner, actDTO);
-            this.template.convertAndSend("/room/receive-winner/" + actDTO.getRoomId(), modelMapper.map(winner, PlayerDTO.class));
-            round = roomService.getCurrentRound(actDTO.getRoomId());
-            roundOut = modelMapper.map(round, RoundDTO.class);
-            this.template.convertAndSend("/room/receive-round/" + actDTO.getRoomId(), roundOut);
-            round = roomService.startNewRoundForRoom(actDTO.getRoomId());
-            roundOut = modelMapper.map(round, RoundDTO.class);
+        broadcastOutcome(actDTO, outcome);
+        return new ResponseEntity<>(actDTO, HttpStatus.CREATED);
+    }
 
-            List<String> userIds = round.getPlayersInRound().stream().map(Player::getUserId).collect(collectingAndThen(toList(), Collections::unmodifiableList));
-            userApiGateway.addGamesPlayed(userIds);
-        } else {
-            actDTO.setNextUserId(roundService.determineNextUserId(actDTO.getRoundId(), actDTO.getUserId()));
-            this.template.convertAndSend("/room/receive-act/" + actDTO.getRoomId(), actDTO);
-            round = roomService.getCurrentRound(actDTO.getRoomId());
-            roundOut = modelMapper.map(round, RoundDTO.class);
-        }
+    /**
+     * Broadcasts the act that was played for a player whose time ran out on the timeout topic of the room,
+     * followed by the same messages as an act that was played by the player.
+     *
+     * @param timeout The timeout that was published by the turn clock.
+     * @throws RoundException Thrown if the next round could not be started.
+     * @throws RoomException  Thrown if the next round could not be started.
+     */
+    @EventListener
+    public void onTurnTimeout(TurnTimeout timeout) throws RoundException, RoomException {
+        ActOutcome outcome = timeout.getOutcome();
+        Act act = outcome.getAct();
+        Player player = act.getPlayer();
+        ActDTO actDTO = new ActDTO(player.getUserId(), outcome.getRoundId(), player.getId(), timeout.getRoomId(),
+                act.getType(), act.getPhase(), act.getBet(), 0, null, false, player.getSeatNumber());
 
-        this.template.convertAndSend("/room/receive-round/" + actDTO.getRoomId(), roundOut);
-        return new ResponseEntity<>(actDTO, HttpStatus.CREATED);
+        this.template.convertAndSend("/room/receive-timeout/" + timeout.getRoomId(), actDTO);
+        broadcastOutcome(actDTO, outcome);
     }
 
     /**
-     * Sends a message to the user that he has won the round.
+     * Broadcasts everything that follows from an act, the turn of the next player was started by the round service.
+     * The round is broadcast as it was copied right after the act, the live round is not read again.
+     *
+     * The wins, games played, replays and the announcement of the winner are delivered by the outbox.
      *
-     * @param authentication The authentication of the user.
-     * @param winner The player who has won the round
-     * @param actDTO The act that was played.
+     * @param actDTO  The act that was played, the next user id is filled in.
+     * @param outcome The outcome of the act.
      */
-    private void sendWinMessages(OAuth2Authentication authentication, Player winner, ActDTO actDTO) {
-        String token = userApiGateway.getTokenFromAuthentication(authentication);
-        UserDTO user = userApiGateway.getUser(token, winner.getUserId());
-        String username = user.getUsername();
-        String winnerString = String.format("Winner is: %s with %s", username, winner.getHandType().name());
-        MessageDTO winnerMsg = new MessageDTO("system", winnerString);
-        this.template.convertAndSend("/chatroom/receive/" + actDTO.getRoomId(), winnerMsg);
+    private void broadcastOutcome(ActDTO actDTO, ActOutcome outcome) throws RoundException, RoomException {
+        RoundDTO roundOut = outcome.getRound();
+        if (outcome.getWinner().isPresent()) {
+            Player winner = outcome.getWinner().get();
+            this.template.convertAndSend("/room/receive-winner/" + actDTO.getRoomId(), modelMapper.map(winner, PlayerDTO.class));
+            this.template.convertAndSend("/room/receive-round/" + actDTO.getRoomId(), roundOut);
+            Round round = roomService.startNewRoundForRoom(actDTO.getRoomId());
+            roundOut = roundService.getSnapshot(round.getId());
+        } else {
+            actDTO.setNextUserId(outcome.getNextUserId());
+            this.template.convertAndSend("/room/receive-act/" + actDTO.getRoomId(), actDTO);
+            if (outcome.getShowdown().isPresent()) {
+                Optional<Equity> showdownPreview = equityService.previewShowdown(outcome.getShowdown().get());
+                if (showdownPreview.isPresent())
+                    roundOut.setShowdownPreview(modelMapper.map(showdownPreview.get(), EquityDTO.class));
+            }
+        }
+
+        this.template.convertAndSend("/room/receive-round/" + actDTO.getRoomId(), roundOut);
     }
 }
@@ -0,0 +1,21 @@
+package be.kdg.gameservice.round.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquityDTO {
+    private List<String> userIds;
+    private double[] win;
+    private double[] tie;
+    private double[] equity;
+    private long samples;
+    private double standardError;
+    private boolean exact;
+    private long handsPerSecond;
+}
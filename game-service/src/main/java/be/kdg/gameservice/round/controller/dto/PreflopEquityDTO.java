@@ -0,0 +1,15 @@
+package be.kdg.gameservice.round.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreflopEquityDTO {
+    private String handClass;
+    private int opponents;
+    private double equity;
+    private int rank;
+}
@@ -26,4 +26,5 @@ public class RoundDTO {
     private int bigBlind;
     private boolean isFinished;
     private int pot;
+    private EquityDTO showdownPreview;
 }
@@ -3,25 +3,49 @@ package be.kdg.gameservice.round.model;
 import be.kdg.gameservice.room.model.Player;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
 import java.time.LocalTime;
 
 /**
  * This class represents a single act from a player on a specific round.
+ * <p>
+ * The acts of a round form an append-only journal: an act is inserted once, with its position in the round,
+ * and never updated after that. The state of a round can be rebuilt by going over its acts in that order.
  */
 @NoArgsConstructor
 @Getter
 @Entity
+@Immutable
 @Table(name = "act")
 public final class Act implements Comparable<Act> {
     /**
      * The id of the act. Used for persistence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "act_seq")
+    @SequenceGenerator(name = "act_seq", sequenceName = "act_seq", allocationSize = 50)
     private int id;
 
+    /**
+     * The id of the round the act was played in.
+     */
+    @Column(name = "round_id")
+    private int roundId;
+
+    /**
+     * The position of the act in the journal of its round, counting from 0.
+     */
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int sequenceNumber;
+
+    /**
+     * False until the act is written to the journal. Acts that are loaded from the database are written already.
+     */
+    @Transient
+    private boolean journaled = true;
+
     /**
      * The player that was associated with the act.
      */
@@ -66,12 +90,44 @@ public final class Act implements Comparable<Act> {
         this.phase = phase;
         this.bet = bet;
         this.timestamp = LocalTime.now();
+        this.journaled = false;
+    }
+
+    /**
+     * Gives the act its place in the journal of a round.
+     *
+     * @param roundId        The id of the round.
+     * @param sequenceNumber The position of the act in the round.
+     */
+    void setPosition(int roundId, int sequenceNumber) {
+        this.roundId = roundId;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * @param player The same player in another copy of the round.
+     * @return A copy of this act that is played by that player and that is not written to the journal yet.
+     */
+    Act playedBy(Player player) {
+        Act act = new Act(player, type, phase, bet);
+        act.timestamp = timestamp;
+        return act;
     }
 
+    /**
+     * Marks the act as written to the journal, after the transaction that inserted it committed.
+     */
+    public void markJournaled() {
+        this.journaled = true;
+    }
+
+    /**
+     * Acts are ordered on their round and their position in that round.
+     * The timestamp is only informative, it does not survive midnight and two acts can share it.
+     */
     @Override
     public int compareTo(Act other) {
-        boolean before = other.getTimestamp().isBefore(this.getTimestamp());
-        if (before) return 1;
-        else return -1;
+        int byRound = Integer.compare(roundId, other.roundId);
+        return byRound != 0 ? byRound : Integer.compare(sequenceNumber, other.sequenceNumber);
     }
 }
@@ -0,0 +1,66 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.controller.dto.RoundDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Optional;
+
+/**
+ * Everything that follows from one act, determined while the round was locked for that act.
+ * The controller broadcasts the outcome without asking the round service again.
+ * The outcome only holds copies of the round and its players, the acts that follow do not change them.
+ */
+@Getter
+@AllArgsConstructor
+public final class ActOutcome {
+    /**
+     * The id of the round the act was played in.
+     */
+    private final int roundId;
+
+    /**
+     * The round right after the act.
+     */
+    private final RoundDTO round;
+
+    /**
+     * The act that was played.
+     */
+    private final Act act;
+
+    /**
+     * The phase of the round after the act, the next phase if the act finished the betting.
+     */
+    private final Phase phase;
+
+    /**
+     * The player that won the round with this act, null if the round goes on.
+     */
+    private final Player winner;
+
+    /**
+     * The user id of the player that has to act next, null if the round is finished.
+     */
+    private final String nextUserId;
+
+    /**
+     * The cards of the round if no more bets can be made, null otherwise.
+     */
+    private final ShowdownSnapshot showdown;
+
+    /**
+     * @return The winner of the round, empty if the round goes on.
+     */
+    public Optional<Player> getWinner() {
+        return Optional.ofNullable(winner);
+    }
+
+    /**
+     * @return The cards of the round if it is heading to a showdown, empty otherwise.
+     */
+    public Optional<ShowdownSnapshot> getShowdown() {
+        return Optional.ofNullable(showdown);
+    }
+}
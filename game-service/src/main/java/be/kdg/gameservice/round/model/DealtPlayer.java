@@ -0,0 +1,110 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.room.model.Player;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A player as it was dealt into a round: the seat, the hole cards and the last hand type of the player in that round.
+ * The player rows move on to the next round when it is started, the dealt players stay with the round they were
+ * dealt in, packed in one column of the round.
+ * <p>
+ * A packed row holds the number of players, followed by the user id, the seat, both cards and the hand type
+ * of every player. An enum is written as its ordinal plus one, 0 standing for null.
+ */
+@Getter
+@AllArgsConstructor
+public final class DealtPlayer {
+    private static final CardType[] CARD_TYPES = CardType.values();
+    private static final HandType[] HAND_TYPES = HandType.values();
+
+    private final String userId;
+    private final int seatNumber;
+
+    /**
+     * Null if the player was dealt without cards.
+     */
+    private final CardType firstCard;
+
+    /**
+     * Null if the player was dealt without cards.
+     */
+    private final CardType secondCard;
+
+    /**
+     * Null until the hand of the player is known.
+     */
+    private final HandType handType;
+
+    /**
+     * @param player A player that was just dealt into a round.
+     * @return The player with its seat and hole cards, the hand type is not known yet.
+     */
+    static DealtPlayer of(Player player) {
+        return new DealtPlayer(player.getUserId(), player.getSeatNumber(),
+                player.getFirstCard() == null ? null : player.getFirstCard().type,
+                player.getSecondCard() == null ? null : player.getSecondCard().type, null);
+    }
+
+    /**
+     * @param handType The hand type of the player in the round.
+     * @return A copy of this player with the hand type.
+     */
+    DealtPlayer withHandType(HandType handType) {
+        return new DealtPlayer(userId, seatNumber, firstCard, secondCard, handType);
+    }
+
+    /**
+     * @param players The dealt players of a round.
+     * @return The packed row of the players.
+     */
+    static byte[] pack(List<DealtPlayer> players) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * players.size() + 1);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(players.size());
+            for (DealtPlayer player : players) {
+                out.writeUTF(player.userId);
+                out.writeShort(player.seatNumber);
+                out.writeByte(ordinal(player.firstCard));
+                out.writeByte(ordinal(player.secondCard));
+                out.writeByte(ordinal(player.handType));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param packed A packed row of players, null for a round that was dealt before they were kept.
+     * @return The dealt players of the row, in the order they were dealt.
+     */
+    static List<DealtPlayer> unpack(byte[] packed) {
+        if (packed == null) return new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(packed))) {
+            int count = in.readUnsignedByte();
+            List<DealtPlayer> players = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                players.add(new DealtPlayer(in.readUTF(), in.readShort(),
+                        valueOf(CARD_TYPES, in.readUnsignedByte()), valueOf(CARD_TYPES, in.readUnsignedByte()),
+                        valueOf(HAND_TYPES, in.readUnsignedByte())));
+            }
+            return players;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, int ordinal) {
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+}
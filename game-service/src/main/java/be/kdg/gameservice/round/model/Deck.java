@@ -1,47 +1,92 @@
 package be.kdg.gameservice.round.model;
 
-import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardSet;
 import be.kdg.gameservice.card.CardType;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Stack;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
 
 /**
  * Holds all the cards that are not used on the board,
  * or for any of the players.
+ * The cards are kept as card type ordinals, they only become card entities when they are dealt.
+ * <p>
+ * Every thread reuses its own deck for all the rounds it deals, see {@link #forThread()}.
+ * The deck is shuffled while it is dealt: every card that is taken is one step of a Fisher-Yates shuffle,
+ * so only the cards that are actually needed are shuffled.
  */
 final class Deck {
     /**
-     * All cards in the deck, cannot be higher than 52.
+     * The number of cards in a full deck.
      */
-    private final Stack<Card> cards;
+    private static final int DECK_SIZE = CardType.values().length;
 
     /**
-     * Instantiates a list of cards and fills this list with all
-     * the cards from the enum CardType.
-     * All the cards will be shuffled when the list is created.
+     * Source of the seeds for the generators of the decks.
+     */
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    /**
+     * The deck of every thread.
+     */
+    private static final ThreadLocal<Deck> DECKS = ThreadLocal.withInitial(Deck::new);
+
+    /**
+     * The ordinals of all cards in the deck, cannot be higher than 52.
+     * The cards in front of {@link #dealt} are already taken from the deck.
+     */
+    private final int[] cards;
+
+    /**
+     * Generator used to shuffle this deck, seeded with a cryptographically strong seed.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The number of cards that are already taken from the deck.
+     */
+    private int dealt;
+
+    /**
+     * Fills the deck with the ordinals of all the card types.
      *
      * @see CardType
-     * @see Card
      */
     Deck() {
-        this.cards = new Stack<>();
-        Arrays.stream(CardType.values()).forEach(c -> cards.add(new Card(c)));
-        Collections.shuffle(cards);
+        this.cards = new int[DECK_SIZE];
+        for (int i = 0; i < DECK_SIZE; i++) cards[i] = i;
+        this.random = new SplittableRandom(SEEDS.nextLong());
+    }
+
+    /**
+     * Collects all the cards of the deck of the current thread again.
+     * The returned deck may only be used until the next call on the same thread.
+     *
+     * @return The deck of the current thread with all the cards in it.
+     */
+    static Deck forThread() {
+        Deck deck = DECKS.get();
+        deck.dealt = 0;
+        return deck;
     }
 
     /**
-     * @return removes the first card from the stack.
+     * Swaps a random card of the remaining cards to the front and takes it.
+     *
+     * @return removes a random card from the deck.
      */
-    public Card getCard() {
-        return this.cards.pop();
+    public CardType getCard() {
+        int index = dealt + random.nextInt(DECK_SIZE - dealt);
+        int card = cards[index];
+        cards[index] = cards[dealt];
+        cards[dealt++] = card;
+        return CardSet.getCardType(card);
     }
 
     /**
      * @return the number of cards still available in the deck.
      */
     int getNumberOfCards() {
-        return cards.size();
+        return DECK_SIZE - dealt;
     }
 }
@@ -0,0 +1,54 @@
+package be.kdg.gameservice.round.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The chances of every player in a pot to win it, calculated over possible runouts of the board.
+ * All the arrays are indexed in the same order as the players that were passed to the calculation.
+ */
+@Getter
+@AllArgsConstructor
+public final class Equity {
+    /**
+     * The user ids of the players, empty if the equity was not calculated for a round.
+     */
+    private final List<String> userIds;
+
+    /**
+     * The chance that a player wins the pot alone.
+     */
+    private final double[] win;
+
+    /**
+     * The chance that a player splits the pot with one or more other players.
+     */
+    private final double[] tie;
+
+    /**
+     * The share of the pot a player gets on average, split pots count for their part.
+     */
+    private final double[] equity;
+
+    /**
+     * The number of runouts the equity is based on.
+     */
+    private final long samples;
+
+    /**
+     * The largest standard error on the equity of a player. Always 0 for an exact calculation.
+     */
+    private final double standardError;
+
+    /**
+     * True if every runout was enumerated, false if the runouts were sampled.
+     */
+    private final boolean exact;
+
+    /**
+     * The number of runouts that were simulated per second.
+     */
+    private final long handsPerSecond;
+}
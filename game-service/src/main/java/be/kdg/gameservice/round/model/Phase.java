@@ -10,32 +10,48 @@ public enum Phase {
     /**
      * Phase before flop, first betting round.
      */
-    PRE_FLOP,
+    PRE_FLOP(0),
 
     /**
      * First three cards are shown, second betting round.
      */
-    FLOP,
+    FLOP(3),
 
     /**
      * Fourth card is shown, third betting round.
      */
-    TURN,
+    TURN(4),
 
     /**
      * Fifth and final card is shown, fourth betting round.
      */
-    RIVER,
+    RIVER(5),
 
     /**
      * Last betting round is done and player show cards.
      * No wrap around for this enum, SHOWDOWN is the last phase of a round
      */
-    SHOWDOWN {
+    SHOWDOWN(5) {
         @Override
         public Phase next() { return null; }
     };
 
+    /**
+     * The number of board cards that are visible to the players during this phase.
+     */
+    private final int visibleCards;
+
+    Phase(int visibleCards) {
+        this.visibleCards = visibleCards;
+    }
+
+    /**
+     * @return The number of board cards that are visible to the players during this phase.
+     */
+    public int getVisibleCards() {
+        return visibleCards;
+    }
+
     /**
      * Get next enum, next phase
      *
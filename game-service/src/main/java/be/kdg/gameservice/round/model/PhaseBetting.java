@@ -0,0 +1,151 @@
+package be.kdg.gameservice.round.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The running betting state of the current phase of a round.
+ * Every act of the phase is added once, after that all questions about the phase are answered
+ * without going over the acts again. A new instance is started for every phase.
+ */
+public final class PhaseBetting {
+    /**
+     * True if a player has made a BET in this phase.
+     */
+    private boolean betPlaced;
+
+    /**
+     * The number of CHECK and FOLD acts in this phase.
+     */
+    private int checksAndFolds;
+
+    /**
+     * The index in the acts of the round of the last BET or RAISE in this phase, -1 if there is none.
+     */
+    private int lastAggressorIndex = -1;
+
+    /**
+     * The number of CALL acts since the last BET or RAISE.
+     */
+    private int callsSinceAggression;
+
+    /**
+     * The highest amount a single player has put in the pot in this phase.
+     */
+    private int currentBet;
+
+    /**
+     * The chips every player has put in the pot in this phase, by user id.
+     */
+    private final Map<String, Integer> contributions = new HashMap<>();
+
+    /**
+     * Adds an act that was played in this phase.
+     *
+     * @param act   The act.
+     * @param index The index of the act in the acts of the round.
+     */
+    void add(Act act, int index) {
+        switch (act.getType()) {
+            case BET:
+                betPlaced = true;
+                lastAggressorIndex = index;
+                callsSinceAggression = 0;
+                break;
+            case RAISE:
+                lastAggressorIndex = index;
+                callsSinceAggression = 0;
+                break;
+            case CALL:
+                if (lastAggressorIndex != -1) callsSinceAggression++;
+                break;
+            case CHECK:
+            case FOLD:
+                checksAndFolds++;
+                break;
+            default:
+                break;
+        }
+
+        if (act.getBet() > 0) {
+            int contribution = contributions.merge(act.getPlayer().getUserId(), act.getBet(), Integer::sum);
+            currentBet = Math.max(currentBet, contribution);
+        }
+    }
+
+    /**
+     * @return True if a player has made a BET in this phase.
+     */
+    public boolean isBetPlaced() {
+        return betPlaced;
+    }
+
+    /**
+     * @return The number of CHECK and FOLD acts in this phase.
+     */
+    public int getChecksAndFolds() {
+        return checksAndFolds;
+    }
+
+    /**
+     * @return The index in the acts of the round of the last BET or RAISE in this phase, -1 if there is none.
+     */
+    public int getLastAggressorIndex() {
+        return lastAggressorIndex;
+    }
+
+    /**
+     * @return The number of CALL acts since the last BET or RAISE.
+     */
+    public int getCallsSinceAggression() {
+        return callsSinceAggression;
+    }
+
+    /**
+     * @return The highest amount a single player has put in the pot in this phase.
+     */
+    public int getCurrentBet() {
+        return currentBet;
+    }
+
+    /**
+     * @param userId The user id of the player.
+     * @return The chips the player has put in the pot in this phase.
+     */
+    public int getContribution(String userId) {
+        return contributions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * @return An unmodifiable view of the chips every player has put in the pot in this phase, by user id.
+     */
+    public Map<String, Integer> getContributions() {
+        return Collections.unmodifiableMap(contributions);
+    }
+
+    /**
+     * The players that still have to act before the phase can end. After a BET or RAISE every other active player
+     * has to CALL, without one every active player has to CHECK or FOLD.
+     *
+     * @param activePlayers The number of players in the round that did not fold.
+     * @return The number of players that still have to act, 0 if the phase is finished.
+     */
+    public int getPlayersToAct(int activePlayers) {
+        if (isFinished(activePlayers)) return 0;
+        int toAct = lastAggressorIndex == -1 ? activePlayers - checksAndFolds : activePlayers - 1 - callsSinceAggression;
+        return Math.max(toAct, 1);
+    }
+
+    /**
+     * Without a BET the phase ends when every active player checked or folded.
+     * Otherwise it ends when the last BET or RAISE was called by all the other active players.
+     *
+     * @param activePlayers The number of players in the round that did not fold.
+     * @return True if the betting of this phase is finished.
+     */
+    public boolean isFinished(int activePlayers) {
+        if (!betPlaced && checksAndFolds == activePlayers) return true;
+        return lastAggressorIndex != -1 && callsSinceAggression == activePlayers - 1;
+    }
+}
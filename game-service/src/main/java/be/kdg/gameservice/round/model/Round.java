@@ -1,9 +1,13 @@
 package be.kdg.gameservice.round.model;
 
 import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.PackedCards;
 import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.model.SeatRing;
 import be.kdg.gameservice.round.exception.RoundException;
 import be.kdg.gameservice.round.service.impl.RoundServiceImpl;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -35,27 +39,71 @@ public final class Round {
      */
     @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "round_seq")
+    @SequenceGenerator(name = "round_seq", sequenceName = "round_seq", allocationSize = 50)
     private int id;
 
     /**
-     * Current cards that are on the board.
+     * The version of the round, raised by every write. A write of an older version fails,
+     * so concurrent writers can not overwrite each other's changes.
      */
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "round_id")
-    @Fetch(value = FetchMode.SUBSELECT)
-    private List<Card> cards;
+    @Getter
+    @Version
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
+
+    /**
+     * The id of the room the round is played in. Written once, the room itself does not write its rounds.
+     */
+    @Getter
+    @Setter
+    @Column(name = "room_id", updatable = false)
+    private Integer roomId;
 
+    /**
+     * The cards that are on the board, packed in one column in the order they were dealt.
+     *
+     * @see PackedCards
+     */
+    @Column(name = "board", columnDefinition = "bigint default 0")
+    private long packedBoard;
 
     /**
-     * All acts that are bounded to a specific round.
+     * Current cards that are on the board, unpacked when they are first needed.
+     */
+    @Transient
+    private List<Card> cards;
+
+    /**
+     * All acts that are bounded to a specific round, in the order they were played.
      * This attribute is mostly going to be used for watching the replay.
+     * <p>
+     * The acts are a journal that is only appended to: the collection does not write them,
+     * every new act is inserted on its own by the live round store.
+     *
+     * @see be.kdg.gameservice.round.service.impl.LiveRoundStore
      */
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "round_id")
+    @OneToMany(cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
+    @JoinColumn(name = "round_id", insertable = false, updatable = false)
     @Fetch(value = FetchMode.SUBSELECT)
+    @OrderBy("sequenceNumber ASC, id ASC")
     private List<Act> acts;
 
+    /**
+     * The players as they were dealt into the round, packed in one column. Null for the rounds that were dealt
+     * before they were kept.
+     *
+     * @see DealtPlayer
+     */
+    @Column(name = "dealt_players", length = 4096)
+    private byte[] packedDealtPlayers;
+
+    /**
+     * The players as they were dealt into the round, unpacked when they are first needed.
+     */
+    @Transient
+    private List<DealtPlayer> dealtPlayers;
+
     /**
      * All the players that are participating in the round.
      */
@@ -90,6 +138,13 @@ public final class Round {
     @Getter
     private boolean isFinished;
 
+    /**
+     * The time the round was started, in ms since the epoch. 0 for the rounds that were started before it was kept.
+     */
+    @Getter
+    @Column(columnDefinition = "bigint default 0")
+    private long startedAt;
+
     /**
      * The pot of chips. This will gradually go up as the round progresses.
      */
@@ -97,6 +152,29 @@ public final class Round {
     @Getter
     private int pot;
 
+    /**
+     * The running betting state of the current phase, built from the acts when it is first needed.
+     *
+     * @see PhaseBetting
+     */
+    @Transient
+    private PhaseBetting betting;
+
+    /**
+     * The seats of the players in the round, built from the players when it is first needed.
+     *
+     * @see SeatRing
+     */
+    @Transient
+    private SeatRing seats;
+
+    /**
+     * The hands of the active players that are extended with the board cards of every phase, by user id.
+     * Built from the hole cards and the visible board when a player is first updated.
+     */
+    @Transient
+    private Map<String, HandEvaluator.PartialHand> partialHands = new HashMap<>();
+
     /**
      * The round is created with default values for all parameters.
      */
@@ -108,30 +186,57 @@ public final class Round {
         this.button = button;
         this.isFinished = false;
         this.pot = 0;
+        this.startedAt = System.currentTimeMillis();
         dealCards();
     }
 
     /**
      * Deals all the cards from that round to all the players that are
      * participating and the 5 cards on the board.
+     * Only these cards are drawn from the deck of the current thread.
      */
     private void dealCards() {
-        Deck deck = new Deck();
-        playersInRound.forEach(player -> player.setFirstCard(deck.getCard()));
-        playersInRound.forEach(player -> player.setSecondCard(deck.getCard()));
+        Deck deck = Deck.forThread();
+        playersInRound.forEach(player -> player.setFirstCard(new Card(deck.getCard())));
+        playersInRound.forEach(player -> player.setSecondCard(new Card(deck.getCard())));
 
         for (int i = 0; i < NUMBER_OF_CARDS_ON_BOARD; i++) {
-            cards.add(deck.getCard());
+            cards.add(new Card(deck.getCard()));
         }
+        packedBoard = PackedCards.pack(cards);
+
+        dealtPlayers = playersInRound.stream().map(DealtPlayer::of).collect(toList());
+        packedDealtPlayers = DealtPlayer.pack(dealtPlayers);
     }
 
     /**
      * @return An unmodifiable list of cards that are on the board.
      */
     public List<Card> getCards() {
+        if (cards == null) cards = PackedCards.unpack(packedBoard);
         return Collections.unmodifiableList(cards);
     }
 
+    /**
+     * @return The cards that are on the board as a card set.
+     * @see CardSet
+     */
+    public long getBoard() {
+        return CardSet.of(getCards());
+    }
+
+    /**
+     * Only the cards that are already turned over in the current phase are part of the visible board.
+     * The remaining cards are dealt, but they are not known to the players yet.
+     *
+     * @return The visible cards of the board as a card set.
+     * @see Phase#getVisibleCards()
+     */
+    public long getVisibleBoard() {
+        List<Card> cards = getCards();
+        return CardSet.of(cards.subList(0, Math.min(cards.size(), currentPhase.getVisibleCards())));
+    }
+
     /**
      * @return An unmodifiable list of all the participating players.
      */
@@ -139,6 +244,45 @@ public final class Round {
         return Collections.unmodifiableList(playersInRound);
     }
 
+    /**
+     * The players move on to the next round once it is started, with the cards of that round.
+     * The dealt players keep the seats, the hole cards and the hand types of this round,
+     * also of the players that left the round before it was finished.
+     *
+     * @return An unmodifiable list of the players as they were dealt into this round,
+     * empty for a round that was dealt before they were kept.
+     */
+    public List<DealtPlayer> getDealtPlayers() {
+        if (dealtPlayers == null) dealtPlayers = DealtPlayer.unpack(packedDealtPlayers);
+        return Collections.unmodifiableList(dealtPlayers);
+    }
+
+    /**
+     * Sets the hand type of a player in the round, it is kept with the dealt player as well.
+     *
+     * @param player   A player of the round.
+     * @param handType The hand type of the player.
+     */
+    public void setHandType(Player player, HandType handType) {
+        player.setHandType(handType);
+        if (setDealtHandType(player.getUserId(), handType)) packedDealtPlayers = DealtPlayer.pack(dealtPlayers);
+    }
+
+    /**
+     * @return True if the dealt player was changed.
+     */
+    private boolean setDealtHandType(String userId, HandType handType) {
+        getDealtPlayers();
+        for (int i = 0; i < dealtPlayers.size(); i++) {
+            if (dealtPlayers.get(i).getUserId().equals(userId)) {
+                if (dealtPlayers.get(i).getHandType() == handType) return false;
+                dealtPlayers.set(i, dealtPlayers.get(i).withHandType(handType));
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns all active players
      * An active player is defined as a player where his last act is not FOLD
@@ -159,10 +303,94 @@ public final class Round {
     }
 
     /**
-     * Adds a newly created act to this round.
+     * Adds a newly created act to the end of this round.
+     * Acts of the current phase are added to the betting state of the phase as well.
      */
     public void addAct(Act act) {
+        act.setPosition(id, acts.size());
         acts.add(act);
+        if (betting != null && act.getPhase() == currentPhase) betting.add(act, acts.size() - 1);
+        if (seats != null) seats.setFolded(act.getPlayer(), act.getType() == ActType.FOLD);
+    }
+
+    /**
+     * The acts that are not written yet are always the last ones, acts are written in the order they were played.
+     *
+     * @return The acts that still need to be appended to the journal, with the id of this round.
+     */
+    public List<Act> getUnjournaledActs() {
+        int first = acts.size();
+        while (first > 0 && !acts.get(first - 1).isJournaled()) first--;
+
+        List<Act> unjournaled = new ArrayList<>(acts.subList(first, acts.size()));
+        for (int i = 0; i < unjournaled.size(); i++) unjournaled.get(i).setPosition(id, first + i);
+        return unjournaled;
+    }
+
+    /**
+     * Puts back the version of the round after a write that raised it was rolled back,
+     * the database still has the previous version.
+     *
+     * @param version The version before the write.
+     */
+    public void resetVersion(Integer version) {
+        this.version = version;
+    }
+
+    /**
+     * The betting state is kept up to date by every act, so it is only built from the acts
+     * the first time it is needed after the round was created or loaded.
+     *
+     * @return The running betting state of the current phase.
+     */
+    public PhaseBetting getBetting() {
+        if (betting == null) {
+            betting = new PhaseBetting();
+            for (int i = 0; i < acts.size(); i++) {
+                if (acts.get(i).getPhase() == currentPhase) betting.add(acts.get(i), i);
+            }
+        }
+        return betting;
+    }
+
+    /**
+     * Takes over the hand of a copy of this round whose write lost against another writer, like a room operation
+     * that changed the round in the meantime. This round holds the version that is in the database.
+     * The acts of the copy that are not written yet are appended to the journal, and the state that the acts decide
+     * is taken from the copy: the pot, the phase and the chips, the last act and the hand of every player,
+     * and the hand types of the dealt players.
+     * The other changes of the other writer are kept.
+     *
+     * @param stale The copy that holds the acts that are not written yet.
+     * @return False if nothing was changed, because the journal in the database moved on as well
+     * or a player of the acts is not part of this round anymore.
+     */
+    public boolean mergeUnwritten(Round stale) {
+        List<Act> unwritten = stale.getUnjournaledActs();
+        if (acts.size() != stale.acts.size() - unwritten.size()) return false;
+
+        Map<String, Player> players = new HashMap<>();
+        playersInRound.forEach(player -> players.put(player.getUserId(), player));
+        if (!unwritten.stream().allMatch(act -> players.containsKey(act.getPlayer().getUserId()))) return false;
+
+        betting = null;
+        seats = null;
+        partialHands = new HashMap<>();
+        for (Act act : unwritten) addAct(act.playedBy(players.get(act.getPlayer().getUserId())));
+        for (Player player : stale.playersInRound) {
+            Player newer = players.get(player.getUserId());
+            if (newer == null) continue;
+            newer.setChipCount(player.getChipCount());
+            newer.setLastAct(player.getLastAct());
+            newer.setAllIn(player.isAllIn());
+            newer.setHandType(player.getHandType());
+        }
+        packedDealtPlayers = stale.packedDealtPlayers;
+        dealtPlayers = null;
+        pot = stale.pot;
+        currentPhase = stale.currentPhase;
+        isFinished = isFinished || stale.isFinished;
+        return true;
     }
 
     /**
@@ -172,33 +400,73 @@ public final class Round {
      */
     public void removePlayer(Player player) {
         playersInRound.remove(player);
+        if (seats != null) seats.remove(player);
     }
 
     /**
-     * Moves the round to the next phase.
+     * The seats follow the acts: a player that folds is marked as folded, a player that is removed frees the seat.
+     *
+     * @return The seats of the players in the round.
+     */
+    public SeatRing getSeats() {
+        if (seats == null) seats = new SeatRing(playersInRound);
+        return seats;
+    }
+
+    /**
+     * @param seat A seat number, the seat does not have to be occupied.
+     * @return The first player after the seat that did not fold, in the order of the seats around the table.
+     * @throws RoundException If every player folded.
+     */
+    public Player getNextActivePlayer(int seat) throws RoundException {
+        Player player = getSeats().getNextActive(seat);
+        if (player == null) throw new RoundException(Round.class, "No suitable players found");
+        return player;
+    }
+
+    /**
+     * Moves the round to the next phase and starts the betting state of that phase.
+     * The hand types of the active players are updated with the board cards that are revealed.
      */
     public void nextPhase() {
+        long previousBoard = getVisibleBoard();
         this.currentPhase = this.currentPhase.next();
+        this.betting = new PhaseBetting();
+        if (currentPhase != null) updateHandTypes(previousBoard, getVisibleBoard() & ~previousBoard);
     }
 
     /**
-     * Return the seat number of the player that should post the smallBlind
-     * @return seat number of small blind player
+     * Extends the hand of every active player with the cards that were revealed.
+     * A hand is only built from the hole cards and the board once, every next phase only adds the new cards to it.
+     *
+     * @param previousBoard The board cards that were already visible.
+     * @param revealed      The board cards that were revealed in the new phase.
      */
-    public int getSmallBlindPosition() throws RoundException {
-        List<Player> sortedActivePlayers = this.getActivePlayers().stream()
-                .sorted(Comparator.comparingInt(Player::getSeatNumber))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+    private void updateHandTypes(long previousBoard, long revealed) {
+        if (revealed == CardSet.EMPTY) return;
 
-        for (Player activePlayer : sortedActivePlayers) {
-            if (activePlayer.getSeatNumber() > this.getButton()) {
-                return activePlayer.getSeatNumber();
+        boolean changed = false;
+        for (Player player : playersInRound) {
+            if (player.getLastAct() == ActType.FOLD) continue;
+            HandEvaluator.PartialHand hand = partialHands.get(player.getUserId());
+            if (hand == null) {
+                hand = new HandEvaluator.PartialHand();
+                hand.add(player.getHoleCards() | previousBoard);
+                partialHands.put(player.getUserId(), hand);
             }
+            hand.add(revealed);
+            player.setHandType(HandEvaluator.getHandType(hand.evaluate()));
+            changed |= setDealtHandType(player.getUserId(), player.getHandType());
         }
+        if (changed) packedDealtPlayers = DealtPlayer.pack(dealtPlayers);
+    }
 
-        Optional<Player> optionalPlayer = this.getActivePlayers().stream().min(Comparator.comparing(Player::getSeatNumber));
-        optionalPlayer.orElseThrow(() -> new RoundException(Round.class, "No suitable players found"));
-        return optionalPlayer.get().getSeatNumber();
+    /**
+     * Return the seat number of the player that should post the smallBlind
+     * @return seat number of small blind player
+     */
+    public int getSmallBlindPosition() throws RoundException {
+        return getNextActivePlayer(button).getSeatNumber();
     }
 
     /**
@@ -206,19 +474,6 @@ public final class Round {
      * @return seat number of big blind player
      */
     public int getBigBlindPosition() throws RoundException {
-        List<Player> sortedActivePlayers = this.getActivePlayers().stream()
-                .sorted(Comparator.comparingInt(Player::getSeatNumber))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
-
-
-        for (Player activePlayer : sortedActivePlayers) {
-            if (activePlayer.getSeatNumber() > this.getSmallBlindPosition()) {
-                return activePlayer.getSeatNumber();
-            }
-        }
-
-        Optional<Player> optionalPlayer = this.getActivePlayers().stream().min(Comparator.comparing(Player::getSeatNumber));
-        optionalPlayer.orElseThrow(() -> new RoundException(Round.class, "No suitable players found"));
-        return optionalPlayer.get().getSeatNumber();
+        return getNextActivePlayer(getSmallBlindPosition()).getSeatNumber();
     }
 }
@@ -0,0 +1,22 @@
+package be.kdg.gameservice.round.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the betting of a phase is finished and a round moves to its next phase.
+ * The live round is only written afterwards, so the new phase is part of the event.
+ */
+@Getter
+@AllArgsConstructor
+public final class RoundPhaseChanged {
+    /**
+     * The room the round is played in.
+     */
+    private final int roomId;
+
+    /**
+     * The phase the round moved to, null if the round is over.
+     */
+    private final Phase phase;
+}
@@ -0,0 +1,150 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The outcome of a showdown between the remaining players of a round.
+ * The players are ranked in tie groups: every group holds the players with an equally strong hand,
+ * the first group holds the winners. A split pot is a first group with more than one player.
+ * <p>
+ * A player that is all-in can only win the chips it could match, so the pot is split in side pots.
+ * A side pot goes to the best tie group among the players that put in enough chips for it.
+ */
+public final class Showdown {
+    /**
+     * The players in the order they were passed to the showdown.
+     */
+    private final List<Player> players;
+
+    /**
+     * The strength of the best hand of every player, in the same order as the players.
+     *
+     * @see HandEvaluator
+     */
+    private final int[] strengths;
+
+    /**
+     * The tie groups, ordered from the best to the worst hand.
+     */
+    private final List<List<Player>> ranking;
+
+    /**
+     * @param players   The players that take part in the showdown.
+     * @param strengths The strength of the best hand of every player.
+     */
+    public Showdown(List<Player> players, int[] strengths) {
+        this.players = Collections.unmodifiableList(new ArrayList<>(players));
+        this.strengths = strengths.clone();
+
+        //Sorting is stable, so equally strong players keep the order they were passed in
+        List<Integer> order = IntStream.range(0, strengths.length).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> strengths[i]).reversed())
+                .collect(toList());
+
+        List<List<Player>> groups = new ArrayList<>();
+        List<Player> group = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            if (i > 0 && strengths[order.get(i)] != strengths[order.get(i - 1)]) {
+                groups.add(Collections.unmodifiableList(group));
+                group = new ArrayList<>();
+            }
+            group.add(players.get(order.get(i)));
+        }
+        if (!group.isEmpty()) groups.add(Collections.unmodifiableList(group));
+        this.ranking = Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * @return An unmodifiable list of the players in the order they were passed to the showdown.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return An unmodifiable list of tie groups, ordered from the best to the worst hand.
+     */
+    public List<List<Player>> getRanking() {
+        return ranking;
+    }
+
+    /**
+     * @return The players that share the best hand, empty if nobody took part in the showdown.
+     */
+    public List<Player> getWinners() {
+        return ranking.isEmpty() ? Collections.emptyList() : ranking.get(0);
+    }
+
+    /**
+     * Splits the pot over the tie groups. Every amount that a player of the showdown put in closes a side pot:
+     * it holds the chips every player put in up to that amount, except the chips of the previous side pots.
+     * The side pot is divided equally over the best tie group of the players that put in at least that amount,
+     * the odd chips go to the first players of that group.
+     * Chips of the pot that are not part of any side pot, like the bets of a player that folded after
+     * betting more than everyone else, go to the winners of the last side pot.
+     *
+     * @param pot           The chips in the pot.
+     * @param contributions The chips every player put in during the round by user id, players that folded included.
+     * @return The chips every player wins, only the players that win chips are included.
+     */
+    public Map<Player, Integer> splitPot(int pot, Map<String, Integer> contributions) {
+        int[] levels = players.stream().mapToInt(player -> contributions.getOrDefault(player.getUserId(), 0))
+                .distinct().sorted().toArray();
+
+        Map<Player, Integer> winnings = new LinkedHashMap<>();
+        int previousLevel = 0, remaining = pot;
+        for (int i = 0; i < levels.length; i++) {
+            int level = levels[i];
+            int sidePot = 0;
+            for (int contribution : contributions.values())
+                sidePot += Math.max(0, Math.min(contribution, level) - previousLevel);
+            if (i == levels.length - 1) sidePot = remaining;
+
+            List<Player> winners = getWinners(level, contributions);
+            for (int j = 0; j < winners.size(); j++) {
+                int share = sidePot / winners.size() + (j < sidePot % winners.size() ? 1 : 0);
+                if (share > 0) winnings.merge(winners.get(j), share, Integer::sum);
+            }
+            remaining -= sidePot;
+            previousLevel = level;
+        }
+        return winnings;
+    }
+
+    /**
+     * @param level         The amount of chips that needs to be put in.
+     * @param contributions The chips every player put in during the round by user id.
+     * @return The players of the best tie group that put in at least the given amount.
+     */
+    private List<Player> getWinners(int level, Map<String, Integer> contributions) {
+        for (List<Player> group : ranking) {
+            List<Player> winners = group.stream()
+                    .filter(player -> contributions.getOrDefault(player.getUserId(), 0) >= level)
+                    .collect(toList());
+            if (!winners.isEmpty()) return winners;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param index The index of the player in the showdown.
+     * @return The strength of the best hand of that player.
+     */
+    public int getStrength(int index) {
+        return strengths[index];
+    }
+
+    /**
+     * @param index The index of the player in the showdown.
+     * @return The hand type of the best hand of that player.
+     */
+    public HandType getHandType(int index) {
+        return HandEvaluator.getHandType(strengths[index]);
+    }
+}
@@ -0,0 +1,48 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.room.model.Player;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The cards of a round in which no more bets can be made, because all the active players, or all but one, are all in.
+ * The snapshot is taken while the round is locked, so the equity at showdown can be previewed after the lock
+ * is released without reading the round again.
+ */
+@Getter
+@AllArgsConstructor
+public final class ShowdownSnapshot {
+    /**
+     * The user ids of the active players.
+     */
+    private final List<String> userIds;
+
+    /**
+     * The two hole cards of every active player as a card set, in the same order as the user ids.
+     */
+    private final long[] holeCards;
+
+    /**
+     * The visible cards of the board as a card set.
+     */
+    private final long board;
+
+    /**
+     * @param round The round, locked by the caller.
+     * @return The cards of the round, empty if the round is not heading to a showdown.
+     */
+    public static Optional<ShowdownSnapshot> of(Round round) {
+        List<Player> players = round.getActivePlayers();
+        if (round.isFinished() || players.size() < 2 || players.stream().filter(p -> !p.isAllIn()).count() > 1)
+            return Optional.empty();
+
+        List<String> userIds = players.stream().map(Player::getUserId).collect(toList());
+        long[] holeCards = players.stream().mapToLong(Player::getHoleCards).toArray();
+        return Optional.of(new ShowdownSnapshot(userIds, holeCards, round.getVisibleBoard()));
+    }
+}
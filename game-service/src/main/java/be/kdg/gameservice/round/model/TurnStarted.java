@@ -0,0 +1,27 @@
+package be.kdg.gameservice.round.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published while a round is locked for an act, when the round goes on and the next player has to act.
+ * The turn is armed before the next act can be played, so the turn of an older act never replaces a newer one.
+ */
+@Getter
+@AllArgsConstructor
+public final class TurnStarted {
+    /**
+     * The room the round is played in.
+     */
+    private final int roomId;
+
+    /**
+     * The id of the round.
+     */
+    private final int roundId;
+
+    /**
+     * The id of the user that has to act.
+     */
+    private final String userId;
+}
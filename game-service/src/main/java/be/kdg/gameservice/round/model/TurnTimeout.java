@@ -0,0 +1,21 @@
+package be.kdg.gameservice.round.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the time of a player to act ran out and the act was played for the player.
+ */
+@Getter
+@AllArgsConstructor
+public final class TurnTimeout {
+    /**
+     * The room the round is played in.
+     */
+    private final int roomId;
+
+    /**
+     * The outcome of the act that was played for the player.
+     */
+    private final ActOutcome outcome;
+}
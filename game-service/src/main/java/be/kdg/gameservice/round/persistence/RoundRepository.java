@@ -1,9 +1,56 @@
 package be.kdg.gameservice.round.persistence;
 
 import be.kdg.gameservice.round.model.Round;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RoundRepository extends JpaRepository<Round, Integer> {
+    @Query("select round.roomId from Round round where round.id = ?1")
+    Optional<Integer> findRoomId(int roundId);
+
+    /**
+     * Only the ids are paged, the rounds of a page are loaded with {@link #findByIdInOrderByIdDesc}.
+     * The collections of a round are fetched with a subselect, that would repeat the query without its limit.
+     *
+     * @return The ids of the finished rounds of a room, the last round first.
+     */
+    @Query("select round.id from Round round where round.roomId = ?1 and round.isFinished = true order by round.id desc")
+    Page<Integer> findPastRoundIds(int roomId, Pageable pageable);
+
+    List<Round> findByIdInOrderByIdDesc(Collection<Integer> ids);
+
+    Optional<Round> findFirstByRoomIdOrderByIdDesc(int roomId);
+
+    /**
+     * A finished round can be archived once it is not the current round of its room anymore
+     * and all its side effects in the outbox were delivered.
+     *
+     * @return The ids of the rounds that were started before a time and can be archived, the oldest first.
+     */
+    @Query("select round.id from Round round where round.isFinished = true and round.roomId is not null and round.startedAt < ?1" +
+            " and not exists (select room.id from Room room where room.currentRound = round)" +
+            " and not exists (select message.id from OutboxMessage message where message.roundId = round.id)" +
+            " order by round.id")
+    List<Integer> findArchivableIds(long startedBefore, Pageable pageable);
+
+    /**
+     * The rounds and their acts are removed with bulk statements, since removing them as entities
+     * would cascade to the players of the acts, who may still be playing in the room.
+     */
+    @Modifying
+    @Query("delete from Act act where act.roundId in ?1")
+    int deleteActs(Collection<Integer> roundIds);
+
+    @Modifying
+    @Query("delete from Round round where round.id in ?1")
+    int deleteRounds(Collection<Integer> roundIds);
 }
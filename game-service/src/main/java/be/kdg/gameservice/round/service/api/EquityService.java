@@ -0,0 +1,17 @@
+package be.kdg.gameservice.round.service.api;
+
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Equity;
+import be.kdg.gameservice.round.model.ShowdownSnapshot;
+
+import java.util.Optional;
+
+public interface EquityService {
+    Equity calculateEquity(long[] holeCards, long board) throws RoundException;
+
+    Equity calculateExactEquity(long[] holeCards, long board) throws RoundException;
+
+    Equity calculateEquity(int roundId) throws RoundException;
+
+    Optional<Equity> previewShowdown(ShowdownSnapshot showdown) throws RoundException;
+}
@@ -2,10 +2,16 @@ package be.kdg.gameservice.round.service.api;
 
 
 import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.round.model.Hand;
+import be.kdg.gameservice.round.model.Showdown;
 
 import java.util.List;
 
 public interface HandService {
     Hand determineBestPossibleHand(List<Card> cards);
+
+    Hand determineBestPossibleHand(long cards);
+
+    Showdown determineShowdown(long board, List<Player> players);
 }
@@ -0,0 +1,11 @@
+package be.kdg.gameservice.round.service.api;
+
+import be.kdg.gameservice.round.exception.RoundException;
+
+public interface PreflopService {
+    double getEquity(long holeCards, int opponents) throws RoundException;
+
+    int getRank(long holeCards, int opponents) throws RoundException;
+
+    String getHandClass(long holeCards) throws RoundException;
+}
@@ -1,7 +1,9 @@
 package be.kdg.gameservice.round.service.api;
 
 import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.controller.dto.RoundDTO;
 import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActOutcome;
 import be.kdg.gameservice.round.model.ActType;
 import be.kdg.gameservice.round.model.Phase;
 import be.kdg.gameservice.round.model.Round;
@@ -12,6 +14,14 @@ import java.util.Optional;
 public interface RoundService {
     void saveAct(int roundId, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException;
 
+    ActOutcome playAct(int roundId, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException;
+
+    Optional<ActOutcome> playTimeout(int roundId, String userId) throws RoundException;
+
+    String getPlayerToAct(int roundId) throws RoundException;
+
+    RoundDTO getSnapshot(int roundId) throws RoundException;
+
     List<ActType> getPossibleActs(int roundId) throws RoundException;
 
     Round startNewRound(List<Player> playersForRound, int button);
@@ -0,0 +1,11 @@
+package be.kdg.gameservice.round.service.api;
+
+public interface TurnTimerService {
+    void startTurn(int roomId, int roundId, String userId);
+
+    void cancelTurn(int roomId);
+
+    void forgetRoom(int roomId);
+
+    int getPendingTurns();
+}
@@ -0,0 +1,490 @@
+package be.kdg.gameservice.round.service.impl;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.Suit;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Equity;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.ShowdownSnapshot;
+import be.kdg.gameservice.round.service.api.EquityService;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Service responsible for calculating the equity of the players in a pot.
+ * <p>
+ * When the number of possible runouts is small enough, every runout of the remaining deck is enumerated
+ * and the equity is exact. The enumeration is split over the common fork join pool by the first card of the runout.
+ * An enumeration that does not finish within the time limit is given up and the runouts are sampled instead,
+ * for what is left of the same time limit.
+ * <p>
+ * Otherwise the board is completed with random runouts that are spread over the workers of the common fork join pool.
+ * Every worker draws with the random generator of its own thread,
+ * the simulation stops when the sample limit or the time limit is reached.
+ */
+@Service
+@RequiredArgsConstructor
+public class EquityServiceImpl implements EquityService {
+    /**
+     * The number of cards on a complete board.
+     */
+    private static final int BOARD_SIZE = 5;
+
+    /**
+     * The number of runouts a worker simulates before it checks the time limit again.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * A task is split until it holds no more than this number of batches.
+     */
+    private static final int BATCHES_PER_TASK = 4;
+
+    private final LiveRoundStore liveRounds;
+
+    /**
+     * The maximum number of runouts that are simulated.
+     */
+    @Value("${equity.samples:1000000}")
+    private int maxSamples;
+
+    /**
+     * The maximum time a simulation may take in milliseconds.
+     */
+    @Value("${equity.time-limit:100}")
+    private long timeLimit;
+
+    /**
+     * The maximum number of hand evaluations (runouts times players) for which the equity is enumerated exactly.
+     * The default covers a heads-up pot before the flop, bigger pots are only enumerated from the flop on.
+     */
+    @Value("${equity.exact-limit:3500000}")
+    private long exactLimit;
+
+    /**
+     * The maximum time in milliseconds the showdown preview of a round broadcast may take.
+     */
+    @Value("${equity.preview-budget:5}")
+    private long previewBudget;
+
+    /**
+     * Calculates the equity of the active players in a round.
+     * Only the live cards are used: the hole cards of the players that did not fold and the part of the board
+     * that is visible in the current phase. The cards that are not turned over yet are simulated like any other card.
+     * <p>
+     * The equity gives away the strength of every hand, so it is only calculated once the hands are shown:
+     * at the showdown, after the round, or when no more bets can be made because the players are all in.
+     *
+     * @param roundId The id of the round.
+     * @return The equity of every active player.
+     * @throws RoundException If the round was not found, if the hands are not shown yet
+     *                        or if there are less than 2 active players.
+     */
+    @Override
+    public Equity calculateEquity(int roundId) throws RoundException {
+        //Only the cards are read under the lock of the round, the calculation does not hold up the acts
+        long[] board = new long[1];
+        List<Player> players = liveRounds.query(roundId, round -> {
+            if (!round.isFinished() && round.getCurrentPhase() != Phase.SHOWDOWN && !ShowdownSnapshot.of(round).isPresent())
+                throw new RoundException(EquityServiceImpl.class, "The equity of round " + roundId + " is only known once the hands are shown.");
+            board[0] = round.getVisibleBoard();
+            return round.getActivePlayers();
+        });
+
+        long[] holeCards = players.stream().mapToLong(Player::getHoleCards).toArray();
+        List<String> userIds = players.stream().map(Player::getUserId).collect(toList());
+        return calculate(userIds, holeCards, board[0]);
+    }
+
+    /**
+     * Enumerates the equity of a round in which no more bets can be made,
+     * because all the active players, or all but one, are all in.
+     * The preview is skipped if the enumeration does not fit in the preview budget.
+     *
+     * @param showdown The cards of the round, taken while the round was locked.
+     * @return The exact equity of every active player, or empty if the enumeration does not fit in the budget.
+     * @throws RoundException If the cards of the round do not form a valid pot.
+     */
+    @Override
+    public Optional<Equity> previewShowdown(ShowdownSnapshot showdown) throws RoundException {
+        long[] holeCards = showdown.getHoleCards();
+        long board = showdown.getBoard();
+        long deck = remainingDeck(holeCards, board);
+        int missing = BOARD_SIZE - CardSet.size(board);
+        if (runouts(CardSet.size(deck), missing) * holeCards.length > exactLimit) return Optional.empty();
+
+        long deadline = System.nanoTime() + previewBudget * 1_000_000L;
+        return Optional.ofNullable(enumerate(showdown.getUserIds(), holeCards, board, deck, missing, deadline));
+    }
+
+    /**
+     * Calculates the equity of hole cards against each other with a partial board.
+     *
+     * @param holeCards The two hole cards of every player as a card set.
+     * @param board     The 0 to 5 cards that are on the board as a card set.
+     * @return The equity of every player, in the same order as the hole cards.
+     * @throws RoundException If the cards do not form a valid pot.
+     * @see CardSet
+     */
+    @Override
+    public Equity calculateEquity(long[] holeCards, long board) throws RoundException {
+        return calculate(Collections.emptyList(), holeCards, board);
+    }
+
+    /**
+     * Enumerates every runout of the board, regardless of the exact limit.
+     *
+     * @param holeCards The two hole cards of every player as a card set.
+     * @param board     The 0 to 5 cards that are on the board as a card set.
+     * @return The exact equity of every player, in the same order as the hole cards.
+     * @throws RoundException If the cards do not form a valid pot.
+     */
+    @Override
+    public Equity calculateExactEquity(long[] holeCards, long board) throws RoundException {
+        long deck = remainingDeck(holeCards, board);
+        return enumerate(Collections.emptyList(), holeCards, board, deck, BOARD_SIZE - CardSet.size(board), Long.MAX_VALUE);
+    }
+
+    /**
+     * Enumerates the runouts if there are few enough of them, otherwise they are sampled.
+     * The enumeration and the sampling share one deadline, so together they take the time limit
+     * plus at most one batch of samples.
+     */
+    private Equity calculate(List<String> userIds, long[] holeCards, long board) throws RoundException {
+        long deadline = System.nanoTime() + timeLimit * 1_000_000L;
+        long deck = remainingDeck(holeCards, board);
+        int missing = BOARD_SIZE - CardSet.size(board);
+        if (runouts(CardSet.size(deck), missing) * holeCards.length <= exactLimit) {
+            Equity equity = enumerate(userIds, holeCards, board, deck, missing, deadline);
+            if (equity != null) return equity;
+        }
+        return simulate(userIds, holeCards, board, deck, missing, deadline);
+    }
+
+    /**
+     * Enumerates all the runouts on the common fork join pool.
+     *
+     * @return The exact equity, or null if the deadline passed before every runout was counted.
+     */
+    private Equity enumerate(List<String> userIds, long[] holeCards, long board, long deck, int missing, long deadline) {
+        long start = System.nanoTime();
+        Tally tally = ForkJoinPool.commonPool().invoke(
+                new EnumerationTask(holeCards, board, toOrdinals(deck), missing, deadline, -1));
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        return tally.complete ? tally.toEquity(userIds, true, tally.samples * 1_000_000_000L / elapsed) : null;
+    }
+
+    /**
+     * Simulates random runouts on the common fork join pool. The first batch is always simulated,
+     * also when the deadline already passed.
+     */
+    private Equity simulate(List<String> userIds, long[] holeCards, long board, long deck, int missing, long deadline) {
+        int batches = (maxSamples + BATCH_SIZE - 1) / BATCH_SIZE;
+
+        long start = System.nanoTime();
+        Tally tally = ForkJoinPool.commonPool().invoke(
+                new SimulationTask(holeCards, board, deck, missing, deadline, 0, batches));
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        return tally.toEquity(userIds, false, tally.samples * 1_000_000_000L / elapsed);
+    }
+
+    /**
+     * Validates the cards and determines which cards can still come on the board.
+     *
+     * @return The cards that are not used by any of the players or the board.
+     * @throws RoundException If the cards do not form a valid pot.
+     */
+    private long remainingDeck(long[] holeCards, long board) throws RoundException {
+        if (holeCards.length < 2)
+            throw new RoundException(EquityServiceImpl.class, "At least 2 players are needed to calculate equity.");
+        if (CardSet.size(board) > BOARD_SIZE)
+            throw new RoundException(EquityServiceImpl.class, "The board can not hold more than 5 cards.");
+
+        long used = board;
+        for (long cards : holeCards) {
+            if (CardSet.size(cards) != 2 || (used & cards) != 0)
+                throw new RoundException(EquityServiceImpl.class, "Every player needs 2 unique hole cards.");
+            used |= cards;
+        }
+        return CardSet.FULL_DECK & ~used;
+    }
+
+    /**
+     * @param cards   The number of cards left in the deck.
+     * @param missing The number of cards that still have to come on the board.
+     * @return The number of different runouts.
+     */
+    private static long runouts(int cards, int missing) {
+        long runouts = 1;
+        for (int i = 0; i < missing; i++) runouts = runouts * (cards - i) / (i + 1);
+        return runouts;
+    }
+
+    /**
+     * @return The ordinals of the cards in the set, in ascending order.
+     */
+    private static int[] toOrdinals(long set) {
+        int[] ordinals = new int[CardSet.size(set)];
+        int index = 0;
+        for (long rest = set; rest != 0; rest &= rest - 1) ordinals[index++] = Long.numberOfTrailingZeros(rest);
+        return ordinals;
+    }
+
+    /**
+     * Counts the runouts that start with a specific card. The root task forks one task for every first card.
+     * The suit masks of a runout are determined once and shared by all the players.
+     */
+    private static final class EnumerationTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] holeCards;
+        private final long board;
+        private final int[] cards;
+        private final int missing;
+        private final long deadline;
+        private final int first;
+        private final int[][] holeSuits;
+
+        private EnumerationTask(long[] holeCards, long board, int[] cards, int missing, long deadline, int first) {
+            this.holeCards = holeCards;
+            this.board = board;
+            this.cards = cards;
+            this.missing = missing;
+            this.deadline = deadline;
+            this.first = first;
+            this.holeSuits = new int[holeCards.length][];
+        }
+
+        @Override
+        protected Tally compute() {
+            if (first < 0 && missing > 0) {
+                List<EnumerationTask> tasks = new ArrayList<>();
+                for (int card = 0; card <= cards.length - missing; card++)
+                    tasks.add(new EnumerationTask(holeCards, board, cards, missing, deadline, card));
+
+                Tally tally = new Tally(holeCards.length);
+                for (EnumerationTask task : invokeAll(tasks)) tally.merge(task.join());
+                return tally;
+            }
+
+            for (int player = 0; player < holeCards.length; player++) holeSuits[player] = suitMasks(holeCards[player]);
+            Tally tally = new Tally(holeCards.length);
+            int[] strengths = new int[holeCards.length];
+
+            if (first < 0) score(board, tally, strengths);
+            else enumerate(board | 1L << cards[first], first + 1, missing - 1, tally, strengths);
+            return tally;
+        }
+
+        /**
+         * Adds the remaining cards to the runout in every possible way.
+         *
+         * @param runout The runout so far.
+         * @param from   The index of the first card that can still be added.
+         * @param left   The number of cards that still need to be added.
+         */
+        private void enumerate(long runout, int from, int left, Tally tally, int[] strengths) {
+            if (left == 0) {
+                score(runout, tally, strengths);
+                return;
+            }
+            if (left > 1 && System.nanoTime() > deadline) {
+                tally.complete = false;
+                return;
+            }
+            for (int card = from; card <= cards.length - left && tally.complete; card++)
+                enumerate(runout | 1L << cards[card], card + 1, left - 1, tally, strengths);
+        }
+
+        /**
+         * Scores every player on a complete board.
+         */
+        private void score(long runout, Tally tally, int[] strengths) {
+            int clubs = CardSet.suitMask(runout, Suit.CLUBS);
+            int diamonds = CardSet.suitMask(runout, Suit.DIAMONDS);
+            int hearts = CardSet.suitMask(runout, Suit.HEARTS);
+            int spades = CardSet.suitMask(runout, Suit.SPADES);
+
+            for (int player = 0; player < holeCards.length; player++) {
+                int[] hole = holeSuits[player];
+                strengths[player] = HandEvaluator.evaluate(
+                        clubs | hole[0], diamonds | hole[1], hearts | hole[2], spades | hole[3]);
+            }
+            tally.add(strengths);
+        }
+
+        private static int[] suitMasks(long cards) {
+            return new int[]{CardSet.suitMask(cards, Suit.CLUBS), CardSet.suitMask(cards, Suit.DIAMONDS),
+                    CardSet.suitMask(cards, Suit.HEARTS), CardSet.suitMask(cards, Suit.SPADES)};
+        }
+    }
+
+    /**
+     * Simulates a range of batches. Ranges are split in half until they are small enough to run on one worker.
+     */
+    private static final class SimulationTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] holeCards;
+        private final long board;
+        private final long deck;
+        private final int missing;
+        private final long deadline;
+        private final int from;
+        private final int to;
+
+        private SimulationTask(long[] holeCards, long board, long deck, int missing, long deadline, int from, int to) {
+            this.holeCards = holeCards;
+            this.board = board;
+            this.deck = deck;
+            this.missing = missing;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > BATCHES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                SimulationTask left = new SimulationTask(holeCards, board, deck, missing, deadline, from, middle);
+                left.fork();
+                Tally right = new SimulationTask(holeCards, board, deck, missing, deadline, middle, to).compute();
+                return right.merge(left.join());
+            }
+
+            Tally tally = new Tally(holeCards.length);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int[] cards = toOrdinals(deck);
+            int[] strengths = new int[holeCards.length];
+
+            for (int batch = from; batch < to && (batch == 0 || System.nanoTime() < deadline); batch++) {
+                for (int sample = 0; sample < BATCH_SIZE; sample++) {
+                    //Partial Fisher-Yates: the last missing cards of the array become the runout
+                    long runout = board;
+                    for (int i = cards.length - 1; i >= cards.length - missing; i--) {
+                        int j = random.nextInt(i + 1);
+                        int card = cards[j];
+                        cards[j] = cards[i];
+                        cards[i] = card;
+                        runout |= 1L << card;
+                    }
+
+                    for (int player = 0; player < holeCards.length; player++)
+                        strengths[player] = HandEvaluator.evaluate(runout | holeCards[player]);
+                    tally.add(strengths);
+                }
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * Running totals of a simulation. The share of a player is 1 for a win, 1/n for an n-way split and 0 for a loss.
+     */
+    static final class Tally {
+        private final long[] wins;
+        private final long[] ties;
+        private final double[] shares;
+        private final double[] squaredShares;
+        private long samples;
+
+        /**
+         * False if the counting was stopped before every runout was counted.
+         */
+        private boolean complete = true;
+
+        Tally(int players) {
+            this.wins = new long[players];
+            this.ties = new long[players];
+            this.shares = new double[players];
+            this.squaredShares = new double[players];
+        }
+
+        /**
+         * Adds the outcome of one runout.
+         *
+         * @param strengths The strength of every player on the runout.
+         */
+        void add(int[] strengths) {
+            add(strengths, 1);
+        }
+
+        /**
+         * Adds the outcome of a runout that occurs a number of times.
+         *
+         * @param strengths The strength of every player on the runout.
+         * @param weight    The number of times the runout occurs.
+         */
+        void add(int[] strengths, long weight) {
+            int best = 0;
+            int winners = 0;
+            for (int strength : strengths) {
+                if (strength > best) {
+                    best = strength;
+                    winners = 1;
+                } else if (strength == best) winners++;
+            }
+
+            double share = 1.0 / winners;
+            for (int player = 0; player < strengths.length; player++) {
+                if (strengths[player] != best) continue;
+                if (winners == 1) wins[player] += weight;
+                else ties[player] += weight;
+                shares[player] += share * weight;
+                squaredShares[player] += share * share * weight;
+            }
+            samples += weight;
+        }
+
+        Tally merge(Tally that) {
+            for (int player = 0; player < wins.length; player++) {
+                wins[player] += that.wins[player];
+                ties[player] += that.ties[player];
+                shares[player] += that.shares[player];
+                squaredShares[player] += that.squaredShares[player];
+            }
+            samples += that.samples;
+            complete &= that.complete;
+            return this;
+        }
+
+        /**
+         * @param exact True if every runout was counted.
+         * @return The equity of the tally, the standard error is left at 0 for an exact tally.
+         */
+        Equity toEquity(List<String> userIds, boolean exact, long handsPerSecond) {
+            int players = wins.length;
+            double[] win = new double[players];
+            double[] tie = new double[players];
+            double[] equity = new double[players];
+            double standardError = 0;
+
+            for (int player = 0; player < players && samples > 0; player++) {
+                win[player] = (double) wins[player] / samples;
+                tie[player] = (double) ties[player] / samples;
+                equity[player] = shares[player] / samples;
+                if (!exact) {
+                    double variance = squaredShares[player] / samples - equity[player] * equity[player];
+                    standardError = Math.max(standardError, Math.sqrt(Math.max(0, variance) / samples));
+                }
+            }
+            return new Equity(userIds, win, tie, equity, samples, standardError, exact, handsPerSecond);
+        }
+    }
+}
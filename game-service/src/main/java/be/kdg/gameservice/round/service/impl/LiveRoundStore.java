@@ -0,0 +1,630 @@
+package be.kdg.gameservice.round.service.impl;
+
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the rounds that are being played in memory, as the source of truth for the act path.
+ * A round is loaded from the database once, after that every act is applied to the same instance.
+ * Changed rounds are written to the database in the background, all rounds that changed since the last
+ * write are flushed in one transaction.
+ * <p>
+ * Every round is guarded by its own monitor: acts, reads and the background writer lock the round instance.
+ * Room operations first call {@link #flushRoom(int)}, so they work on the latest state in the database
+ * and the next act loads their changes again.
+ * <p>
+ * A round is loaded in a transaction of its own and detached right away, so no transaction of a caller
+ * manages it while it is shared with other threads. A round that a room registers while its transaction
+ * manages the round is written by that transaction, it is only marked for the background writer once it is detached.
+ * <p>
+ * The acts of a round are an append-only journal. A write only inserts the acts that were played since
+ * the last write, one row per act, instead of merging every act of the round again.
+ * <p>
+ * Other entities that follow from a change of a round, like its side effects in the outbox,
+ * are inserted with {@link #insertWith(Round, Object)} in the same transaction as the round.
+ * <p>
+ * Rounds and players are versioned. A live round whose write fails on a version conflict was changed
+ * by another writer in the meantime, like another node of the cluster or a room operation that raced an act.
+ * The newer version is loaded and the acts that were not written are merged into it, see
+ * {@link Round#mergeUnwritten(Round)}, so acts that the clients already received and the entities that wait
+ * for the write are not lost. Only if the journal in the database moved on as well the acts can not be merged,
+ * the waiting entities are still inserted then.
+ * <p>
+ * A round whose write fails for another reason is quarantined: it is written in its own transaction
+ * until a write succeeds, with a growing delay between the attempts, so it does not hold back the other rounds.
+ */
+@Component
+public class LiveRoundStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveRoundStore.class);
+
+    /**
+     * The live rounds by round id.
+     */
+    private final ConcurrentMap<Integer, Round> rounds = new ConcurrentHashMap<>();
+
+    /**
+     * The id of the live round of every room, by room id.
+     */
+    private final ConcurrentMap<Integer, Integer> roundsByRoom = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the live rounds that changed since they were last written.
+     */
+    private final Set<Integer> dirtyRounds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The ids of the live rounds that are written by a background write that did not complete yet.
+     */
+    private final Set<Integer> writingRounds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The entities that are inserted by the next write of a live round, by round id.
+     */
+    private final ConcurrentMap<Integer, Queue<Object>> pendingInserts = new ConcurrentHashMap<>();
+
+    /**
+     * The rounds whose last write failed, by round id.
+     */
+    private final ConcurrentMap<Integer, Quarantine> quarantined = new ConcurrentHashMap<>();
+
+    /**
+     * The delay in milliseconds before a quarantined round is written again, it doubles with every failed write.
+     */
+    @Value("${live-rounds.retry-delay:1000}")
+    private long retryDelay;
+
+    /**
+     * The maximum delay in milliseconds before a quarantined round is written again.
+     */
+    @Value("${live-rounds.max-retry-delay:60000}")
+    private long maxRetryDelay;
+
+    private final RoundRepository roundRepository;
+    private final TransactionTemplate writeTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public LiveRoundStore(RoundRepository roundRepository, PlatformTransactionManager transactionManager) {
+        this.roundRepository = roundRepository;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Work that is done on a live round while its lock is held.
+     */
+    @FunctionalInterface
+    public interface RoundFunction<T> {
+        T apply(Round round) throws RoundException;
+    }
+
+    /**
+     * Reads a live round while no act can change it.
+     *
+     * @param roundId The id of the round.
+     * @param reader  The work that reads the round.
+     * @return The result of the reader.
+     * @throws RoundException If the round was not found in the database, or rethrown from the reader.
+     */
+    public <T> T query(int roundId, RoundFunction<T> reader) throws RoundException {
+        return apply(roundId, reader, false);
+    }
+
+    /**
+     * Changes a live round. The round is written to the database by the background writer.
+     *
+     * @param roundId The id of the round.
+     * @param writer  The work that changes the round.
+     * @return The result of the writer.
+     * @throws RoundException If the round was not found in the database, or rethrown from the writer.
+     */
+    public <T> T update(int roundId, RoundFunction<T> writer) throws RoundException {
+        return apply(roundId, writer, true);
+    }
+
+    /**
+     * @param roomId The id of the room.
+     * @return The live round of the room, empty if the room has no round in memory.
+     */
+    public Optional<Round> getCurrentRound(int roomId) {
+        Integer roundId = roundsByRoom.get(roomId);
+        return roundId == null ? Optional.empty() : Optional.ofNullable(rounds.get(roundId));
+    }
+
+    /**
+     * @param roundId The id of the round.
+     * @return True if the round is in memory.
+     */
+    public boolean isLive(int roundId) {
+        return rounds.containsKey(roundId);
+    }
+
+    /**
+     * @param roundId The id of the round.
+     * @return True if the last write of the round failed, it is written on its own until a write succeeds.
+     */
+    public boolean isQuarantined(int roundId) {
+        return quarantined.containsKey(roundId);
+    }
+
+    /**
+     * @return The ids of the rooms that have a round in memory.
+     */
+    public Set<Integer> getLiveRooms() {
+        return new HashSet<>(roundsByRoom.keySet());
+    }
+
+    /**
+     * Makes a round that was loaded or created by a room the live round of that room.
+     * A round that is already live is kept, it holds the newest state.
+     *
+     * @param roomId The id of the room.
+     * @param round  The current round of the room.
+     * @return The live round.
+     */
+    public Round register(int roomId, Round round) {
+        Round live = rounds.computeIfAbsent(round.getId(), id -> {
+            evictOnRollback(id);
+            return round;
+        });
+        roundsByRoom.put(roomId, live.getId());
+        return live;
+    }
+
+    /**
+     * Inserts an entity in the same transaction as the current state of a round, so it is never written
+     * without the change of the round that caused it, nor lost once that change is written.
+     * A round that is managed by the running transaction takes the entity along right away,
+     * a live round takes it along with its next write. A round that is neither is not changed anymore,
+     * the entity is inserted on its own then.
+     *
+     * @param round  The round the entity follows from.
+     * @param entity The new entity.
+     */
+    public void insertWith(Round round, Object entity) {
+        if (isManaged(round)) {
+            entityManager.persist(entity);
+            return;
+        }
+
+        synchronized (round) {
+            if (rounds.get(round.getId()) == round) {
+                pendingInserts.computeIfAbsent(round.getId(), id -> new ConcurrentLinkedQueue<>()).add(entity);
+                dirtyRounds.add(round.getId());
+                return;
+            }
+        }
+        writeTemplate.execute(status -> {
+            entityManager.persist(entity);
+            return null;
+        });
+    }
+
+    /**
+     * Writes the live round of a room to the database and removes it from memory.
+     * Room operations call this before they load the room, so they do not overwrite acts that are not written yet,
+     * and the changes they make to the round are loaded again by the next act.
+     *
+     * @param roomId The id of the room.
+     */
+    public void flushRoom(int roomId) {
+        Integer roundId = roundsByRoom.remove(roomId);
+        if (roundId == null) return;
+
+        Round round = rounds.get(roundId);
+        if (round == null) return;
+        synchronized (round) {
+            awaitBackgroundWrite(round);
+            Round written = round;
+            if (dirtyRounds.remove(roundId)) {
+                try {
+                    written = writeAlone(round);
+                } catch (RuntimeException e) {
+                    roundsByRoom.putIfAbsent(roomId, roundId);
+                    throw e;
+                }
+            }
+            if (rounds.remove(roundId, written)) quarantined.remove(roundId);
+        }
+    }
+
+    /**
+     * Writes all the rounds that changed since the last write in one transaction.
+     * Any failure fails the transaction of every round in it, so the rounds are written one by one then,
+     * to find the round that failed, and the rounds the transaction did not reach are written together again.
+     * The quarantined rounds are written one by one after the others.
+     * Until the transaction completes the rounds count as being written, so a room operation does not take
+     * a round out of memory in the meantime.
+     */
+    @Scheduled(fixedDelayString = "${live-rounds.flush-interval:50}")
+    public void flush() {
+        if (dirtyRounds.isEmpty()) return;
+
+        List<Integer> retried = new ArrayList<>(quarantined.keySet());
+        if (!writeTogether()) writeTogether();
+
+        long now = System.currentTimeMillis();
+        for (Integer roundId : retried) {
+            Quarantine quarantine = quarantined.get(roundId);
+            if (quarantine != null && quarantine.retryAt <= now) writeAlone(roundId);
+        }
+    }
+
+    /**
+     * Writes the changed rounds that are not quarantined in one transaction.
+     *
+     * @return False if the transaction failed and the rounds were written one by one.
+     */
+    private boolean writeTogether() {
+        List<Integer> written = new ArrayList<>();
+        Map<Integer, Versions> versions = new HashMap<>();
+        try {
+            writeTemplate.execute(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        written.forEach(roundId -> completeBackgroundWrite(roundId, versions.get(roundId), status == STATUS_COMMITTED));
+                    }
+                });
+                for (Integer roundId : new ArrayList<>(dirtyRounds)) {
+                    Round round = rounds.get(roundId);
+                    if (round == null) {
+                        dirtyRounds.remove(roundId);
+                        continue;
+                    }
+                    if (isQuarantined(roundId)) continue;
+                    synchronized (round) {
+                        if (!dirtyRounds.remove(roundId)) continue;
+                        writingRounds.add(roundId);
+                        written.add(roundId);
+                        versions.put(roundId, new Versions(round));
+                        write(round);
+                    }
+                }
+                return null;
+            });
+            if (!written.isEmpty()) LOGGER.debug("Wrote " + written.size() + " live rounds");
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Writing " + written.size() + " live rounds failed, writing them one by one", e);
+            written.forEach(this::writeAlone);
+            return false;
+        }
+    }
+
+    /**
+     * Writes a changed round on its own, a failure is logged and the round is written again by a next run.
+     */
+    private void writeAlone(int roundId) {
+        Round round = rounds.get(roundId);
+        if (round == null) {
+            quarantined.remove(roundId);
+            return;
+        }
+        synchronized (round) {
+            try {
+                if (dirtyRounds.remove(roundId)) writeAlone(round);
+            } catch (RuntimeException failure) {
+                LOGGER.error("Writing live round " + roundId + " failed, it is quarantined until a write succeeds", failure);
+            }
+        }
+    }
+
+    /**
+     * Writes a round in its own transaction, while its lock is held. After any failure other than a version conflict
+     * the round is quarantined and marked as changed again.
+     * A round that conflicts with a newer version in the database is replaced by that version, with the acts
+     * that were not written merged into it, and the newer version is written instead.
+     *
+     * @return The round that holds the written state, the newer version if the acts were merged into it.
+     */
+    private Round writeAlone(Round round) {
+        Versions versions = new Versions(round);
+        try {
+            writeTemplate.execute(status -> write(round));
+            quarantined.remove(round.getId());
+            return round;
+        } catch (RuntimeException e) {
+            versions.reset();
+            if (!isConflict(e)) {
+                Quarantine quarantine = quarantined.computeIfAbsent(round.getId(), id -> new Quarantine());
+                long delay = retryDelay << Math.min(quarantine.failures++, 16);
+                quarantine.retryAt = System.currentTimeMillis() + Math.min(delay, maxRetryDelay);
+                dirtyRounds.add(round.getId());
+                throw e;
+            }
+
+            Optional<Round> newer = load(round.getId()).filter(loaded -> loaded.mergeUnwritten(round));
+            if (newer.isPresent() && rounds.replace(round.getId(), round, newer.get())) {
+                LOGGER.warn("Round " + round.getId() + " was changed by another writer, the acts that were not written are merged into it", e);
+                //The lock of the old round is held, threads that wait for it load the newer round afterwards
+                synchronized (newer.get()) {
+                    return writeAlone(newer.get());
+                }
+            }
+
+            LOGGER.error("Round " + round.getId() + " was changed by another writer and the acts that were not written could not be merged", e);
+            rounds.remove(round.getId(), round);
+            quarantined.remove(round.getId());
+            roundsByRoom.values().remove(round.getId());
+            insertAlone(pendingInserts.remove(round.getId()));
+            return round;
+        }
+    }
+
+    /**
+     * Inserts the entities that waited for the write of a round that could not be written, in their own transaction.
+     */
+    private void insertAlone(Queue<Object> pending) {
+        if (pending == null || pending.isEmpty()) return;
+        writeTemplate.execute(status -> {
+            pending.forEach(entityManager::persist);
+            return null;
+        });
+    }
+
+    /**
+     * The failed writes in a row of a quarantined round, only changed while the lock of the round is held.
+     */
+    private static final class Quarantine {
+        private int failures;
+        private volatile long retryAt;
+    }
+
+    /**
+     * @return True if the exception is caused by a write of an entity whose version in the database is newer.
+     */
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException
+                    || cause instanceof OptimisticLockingFailureException) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ends the background write of a round, a round that was not written is marked as changed again
+     * and gets back the versions it had before the write.
+     */
+    private void completeBackgroundWrite(int roundId, Versions versions, boolean committed) {
+        Round round = rounds.get(roundId);
+        if (round == null) {
+            writingRounds.remove(roundId);
+            return;
+        }
+        synchronized (round) {
+            if (!committed) {
+                versions.reset();
+                dirtyRounds.add(roundId);
+            }
+            writingRounds.remove(roundId);
+            round.notifyAll();
+        }
+    }
+
+    /**
+     * Waits, with the lock of the round held, until the background write of the round completed.
+     * Otherwise a round whose background write fails would look written and be taken out of memory.
+     */
+    private void awaitBackgroundWrite(Round round) {
+        while (writingRounds.contains(round.getId())) {
+            try {
+                round.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while the round was being written.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the rounds that are not written yet before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private <T> T apply(int roundId, RoundFunction<T> function, boolean changes) throws RoundException {
+        while (true) {
+            Round round = getRound(roundId);
+            synchronized (round) {
+                //The round was flushed out of memory by a room operation while this thread waited for the lock
+                if (rounds.get(roundId) != round) continue;
+
+                //A writer that fails may already have changed the round, the change is written like any other
+                try {
+                    return function.apply(round);
+                } finally {
+                    if (changes) {
+                        if (isManaged(round)) journal(round);
+                        else dirtyRounds.add(roundId);
+                    }
+                }
+            }
+        }
+    }
+
+    private Round getRound(int roundId) throws RoundException {
+        Round round = rounds.get(roundId);
+        if (round != null) return round;
+
+        round = load(roundId)
+                .orElseThrow(() -> new RoundException(LiveRoundStore.class, "The round was not found in the database."));
+        Round live = rounds.putIfAbsent(roundId, round);
+        if (live != null) return live;
+
+        if (round.getRoomId() != null) roundsByRoom.put(round.getRoomId(), roundId);
+        return round;
+    }
+
+    /**
+     * Loads a round in a transaction of its own and detaches it before it is returned,
+     * so the commit of a caller's transaction never reads a round that other threads change.
+     *
+     * @param roundId The id of the round.
+     * @return The detached round, empty if it is not in the database.
+     */
+    private Optional<Round> load(int roundId) {
+        return writeTemplate.execute(status -> {
+            Optional<Round> round = roundRepository.findById(roundId);
+            round.ifPresent(loaded -> {
+                Session session = entityManager.unwrap(Session.class);
+                loaded.getActs().forEach(session::evict);
+                session.evict(loaded);
+            });
+            return round;
+        });
+    }
+
+    /**
+     * Attaches the detached round to the session of the write transaction and writes it right away,
+     * together with the acts that were played since the last write.
+     * The round is detached again before the lock is released, so the commit does not read it while acts change it.
+     */
+    private Void write(Round round) {
+        Session session = entityManager.unwrap(Session.class);
+        session.update(round);
+        List<Act> journaled = journal(round);
+        List<Object> inserted = insertPending(round);
+        session.flush();
+        session.evict(round);
+        journaled.forEach(session::evict);
+        inserted.forEach(session::evict);
+        return null;
+    }
+
+    /**
+     * Inserts the entities that are waiting for the write of a round in the running transaction.
+     * If the transaction does not commit, they wait for the next write again.
+     *
+     * @return The entities that were inserted.
+     */
+    private List<Object> insertPending(Round round) {
+        Queue<Object> pending = pendingInserts.remove(round.getId());
+        if (pending == null || pending.isEmpty()) return Collections.emptyList();
+
+        Session session = entityManager.unwrap(Session.class);
+        List<Object> inserted = new ArrayList<>(pending);
+        inserted.forEach(session::save);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED || rounds.get(round.getId()) != round) return;
+                pendingInserts.computeIfAbsent(round.getId(), id -> new ConcurrentLinkedQueue<>()).addAll(inserted);
+            }
+        });
+        return inserted;
+    }
+
+    /**
+     * Appends the acts of a round that are not written yet to the journal of the running transaction.
+     * The acts are only marked as written once the transaction commits, so a failed write inserts them again.
+     *
+     * @return The acts that were appended.
+     */
+    private List<Act> journal(Round round) {
+        List<Act> unjournaled = round.getUnjournaledActs();
+        if (unjournaled.isEmpty()) return unjournaled;
+
+        Session session = entityManager.unwrap(Session.class);
+        for (Act act : unjournaled) {
+            if (!session.contains(act)) session.save(act);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                synchronized (round) {
+                    unjournaled.forEach(Act::markJournaled);
+                }
+            }
+        });
+        return unjournaled;
+    }
+
+    /**
+     * @return True if the round is still managed by the running transaction, which writes it when it commits.
+     */
+    private boolean isManaged(Round round) {
+        return TransactionSynchronizationManager.isActualTransactionActive() && entityManager.contains(round);
+    }
+
+    /**
+     * The versions of a round and its players before a write. A flush raises the versions of the instances,
+     * if the transaction is rolled back afterwards they have to be put back to match the database again.
+     */
+    private static final class Versions {
+        private final Round round;
+        private final Integer roundVersion;
+        private final Map<Player, Integer> playerVersions = new IdentityHashMap<>();
+
+        private Versions(Round round) {
+            this.round = round;
+            this.roundVersion = round.getVersion();
+            round.getPlayersInRound().forEach(player -> playerVersions.put(player, player.getVersion()));
+        }
+
+        private void reset() {
+            round.resetVersion(roundVersion);
+            playerVersions.forEach(Player::resetVersion);
+        }
+    }
+
+    /**
+     * A round that is loaded or created in a transaction that is rolled back does not exist in that state,
+     * so it is removed from memory again.
+     */
+    private void evictOnRollback(int roundId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                    rounds.remove(roundId);
+                    dirtyRounds.remove(roundId);
+                    pendingInserts.remove(roundId);
+                    quarantined.remove(roundId);
+                    roundsByRoom.values().remove(roundId);
+                }
+            }
+        });
+    }
+}
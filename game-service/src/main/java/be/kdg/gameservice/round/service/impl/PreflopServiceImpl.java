@@ -0,0 +1,87 @@
+package be.kdg.gameservice.round.service.impl;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.service.api.PreflopService;
+import be.kdg.gameservice.round.service.util.PreflopEquityGenerator;
+import be.kdg.gameservice.round.service.util.PreflopTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Service that answers preflop equity and hand rank queries with a table lookup.
+ * The table is generated offline and loaded from the classpath when the service starts.
+ *
+ * @see PreflopEquityGenerator
+ */
+@Service
+public class PreflopServiceImpl implements PreflopService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreflopServiceImpl.class);
+    private static final String TABLE_RESOURCE = "preflop-equity.bin";
+
+    private PreflopTable table;
+
+    /**
+     * Loads the preflop table.
+     *
+     * @throws IOException If the table is missing or corrupt.
+     */
+    @PostConstruct
+    public void loadTable() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new ClassPathResource(TABLE_RESOURCE).getInputStream()))) {
+            table = PreflopTable.read(in);
+        }
+        LOGGER.info("Loaded preflop equity table for " + PreflopTable.CLASS_COUNT + " starting hands");
+    }
+
+    /**
+     * @param holeCards The two hole cards as a card set.
+     * @param opponents The number of random opponents, 1 up to 8.
+     * @return The chance to win, split pots counted for their part.
+     * @throws RoundException If the hole cards or the number of opponents are invalid.
+     */
+    @Override
+    public double getEquity(long holeCards, int opponents) throws RoundException {
+        return table.getEquity(getClassIndex(holeCards), checkOpponents(opponents));
+    }
+
+    /**
+     * @param holeCards The two hole cards as a card set.
+     * @param opponents The number of random opponents, 1 up to 8.
+     * @return The rank of the hole cards among the 169 starting hands, 1 is the strongest.
+     * @throws RoundException If the hole cards or the number of opponents are invalid.
+     */
+    @Override
+    public int getRank(long holeCards, int opponents) throws RoundException {
+        return table.getRank(getClassIndex(holeCards), checkOpponents(opponents));
+    }
+
+    /**
+     * @param holeCards The two hole cards as a card set.
+     * @return The short name of the starting hand, for example AKs.
+     * @throws RoundException If the hole cards are invalid.
+     */
+    @Override
+    public String getHandClass(long holeCards) throws RoundException {
+        return PreflopTable.getName(getClassIndex(holeCards));
+    }
+
+    private int getClassIndex(long holeCards) throws RoundException {
+        if (CardSet.size(holeCards) != 2)
+            throw new RoundException(PreflopServiceImpl.class, "A starting hand needs 2 different hole cards.");
+        return PreflopTable.getHandClass(holeCards);
+    }
+
+    private int checkOpponents(int opponents) throws RoundException {
+        if (opponents < 1 || opponents > PreflopTable.MAX_OPPONENTS)
+            throw new RoundException(PreflopServiceImpl.class, "The number of opponents needs to be between 1 and " + PreflopTable.MAX_OPPONENTS + ".");
+        return opponents;
+    }
+}
@@ -1,34 +1,41 @@
 package be.kdg.gameservice.round.service.impl;
 
-import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
 import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.controller.dto.RoundDTO;
 import be.kdg.gameservice.round.exception.RoundException;
 import be.kdg.gameservice.round.model.*;
-import be.kdg.gameservice.round.persistence.RoundRepository;
 import be.kdg.gameservice.round.service.api.HandService;
 import be.kdg.gameservice.round.service.api.RoundService;
 import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.util.*;
 
-import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toList;
 
+
 /**
  * This service will be used to manage the ongoing activity of a specific round.
- * It will also take care of the CRUD operations with its persistence dependency.
+ * The rounds are played in memory, the live round store writes them to the database in the background.
+ *
+ * @see LiveRoundStore
  */
 @RequiredArgsConstructor
 @Service
 @Transactional
 public class RoundServiceImpl implements RoundService {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoundServiceImpl.class);
-    private final RoundRepository roundRepository;
+    private final LiveRoundStore liveRounds;
     private final HandService handService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ModelMapper modelMapper;
 
     /**
      * This method will check if the act done by the player is actually possible.
@@ -46,8 +53,114 @@ public class RoundServiceImpl implements RoundService {
      */
     @Override
     public void saveAct(int roundId, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException {
+        liveRounds.update(roundId, round -> {
+            saveAct(round, userId, type, phase, bet, allIn);
+            return null;
+        });
+    }
+
+    /**
+     * Plays an act and determines everything that follows from it while the round is locked:
+     * the end of the phase, the end of the round, a win because everybody else folded and the next player to act.
+     * The turn of the next player is started before the lock is released.
+     * The round is loaded at most once and written once.
+     *
+     * @param roundId The id of the round.
+     * @param userId  The id of the user that plays the act.
+     * @param type    The type of act.
+     * @param phase   The phase the act was played in.
+     * @param bet     The bet associated with the act.
+     * @param allIn   True if the player goes all in with the act.
+     * @return The outcome of the act.
+     * @throws RoundException Thrown if the act is invalid or if the player is not present.
+     */
+    @Override
+    public ActOutcome playAct(int roundId, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException {
+        return liveRounds.update(roundId, round -> playAct(round, userId, type, phase, bet, allIn));
+    }
+
+    /**
+     * Plays the act for a player whose time to act ran out: a CHECK if nothing was bet in this phase, a FOLD otherwise.
+     * Nothing is played if the player is not the one to act anymore, because the player acted just in time
+     * or the round ended in the meantime.
+     *
+     * @param roundId The id of the round.
+     * @param userId  The id of the user whose time ran out.
+     * @return The outcome of the act, empty if the turn was already over.
+     * @throws RoundException Thrown if the round does not exist.
+     */
+    @Override
+    public Optional<ActOutcome> playTimeout(int roundId, String userId) throws RoundException {
+        return liveRounds.update(roundId, round -> {
+            if (round.isFinished() || round.getCurrentPhase() == Phase.SHOWDOWN) return Optional.empty();
+            if (!userId.equals(getPlayerToAct(round).getUserId())) return Optional.empty();
+
+            ActType type = checkCheck(round) ? ActType.CHECK : ActType.FOLD;
+            LOGGER.info(String.format("Time ran out for %s in round %d, playing %s", userId, roundId, type));
+            return Optional.of(playAct(round, userId, type, round.getCurrentPhase(), 0, false));
+        });
+    }
+
+    private ActOutcome playAct(Round round, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException {
+        if (round.getCurrentPhase() == Phase.SHOWDOWN || checkFolds(round).isPresent())
+            throw new RoundException(RoundServiceImpl.class, "The round already has a winner.");
+        saveAct(round, userId, type, phase, bet, allIn);
+        Act act = round.getActs().get(round.getActs().size() - 1);
+
+        List<Player> winners = checkEndOfRound(round);
+        Optional<Player> lastPlayer = checkFolds(round);
+        if (winners.isEmpty() && lastPlayer.isPresent()) winners = Collections.singletonList(distributeCoins(round, lastPlayer.get()));
+        if (!winners.isEmpty()) {
+            outboxService.addWin(round, winners);
+            return new ActOutcome(round.getId(), snapshot(round), act, round.getCurrentPhase(), winners.get(0).copy(), null, null);
+        }
+        String nextUserId = determineNextUserId(round, userId);
+        if (round.getRoomId() != null) eventPublisher.publishEvent(new TurnStarted(round.getRoomId(), round.getId(), nextUserId));
+        return new ActOutcome(round.getId(), snapshot(round), act, round.getCurrentPhase(), null, nextUserId,
+                ShowdownSnapshot.of(round).orElse(null));
+    }
+
+    /**
+     * @param roundId The id of the round.
+     * @return A copy of the round and its players, taken while the round is locked.
+     * @throws RoundException Thrown if the round does not exist.
+     */
+    @Override
+    public RoundDTO getSnapshot(int roundId) throws RoundException {
+        return liveRounds.query(roundId, this::snapshot);
+    }
+
+    /**
+     * The mapper only copies the list of players, so the players themselves are copied as well.
+     * The cards of the board do not change anymore.
+     */
+    private RoundDTO snapshot(Round round) {
+        RoundDTO roundDTO = modelMapper.map(round, RoundDTO.class);
+        roundDTO.setPlayersInRound(round.getPlayersInRound().stream().map(Player::copy).collect(toList()));
+        return roundDTO;
+    }
+
+    /**
+     * The player to act is the first active player after the player of the last act,
+     * or after the button if nothing was played yet.
+     *
+     * @param roundId The id of the round.
+     * @return The user id of the player that has to act.
+     * @throws RoundException Thrown if the round does not exist or if every player folded.
+     */
+    @Override
+    public String getPlayerToAct(int roundId) throws RoundException {
+        return liveRounds.query(roundId, round -> getPlayerToAct(round).getUserId());
+    }
+
+    private Player getPlayerToAct(Round round) throws RoundException {
+        List<Act> acts = round.getActs();
+        int seat = acts.isEmpty() ? round.getButton() : acts.get(acts.size() - 1).getPlayer().getSeatNumber();
+        return round.getNextActivePlayer(seat);
+    }
+
+    private void saveAct(Round round, String userId, ActType type, Phase phase, int bet, boolean allIn) throws RoundException {
         //Get data
-        Round round = getRound(roundId);
         Optional<Player> playerOpt = round.getPlayersInRound().stream()
                 .filter(p -> p.getUserId().equals(userId))
                 .findAny();
@@ -66,30 +179,22 @@ public class RoundServiceImpl implements RoundService {
             player.setChipCount(player.getChipCount() - bet);
             player.setAllIn(allIn);
             checkEndOfPhase(round);
-
-            //update database
-            saveRound(round);
         } else throw new RoundException(RoundServiceImpl.class, "The act was not possible to make.");
     }
 
     /**
-     * Check if the current Phase of round is finished
+     * Check if the current Phase of round is finished.
+     * The betting state of the phase is kept up to date by every act, so this takes constant time.
+     * The lobby is told about the new phase, the live round is only written to the database later.
      *
      * @param round The round that needs to be checked on.
+     * @see PhaseBetting
      */
     private void checkEndOfPhase(Round round) {
-        if (round.getActs().stream().filter(a -> a.getPhase() == round.getCurrentPhase())
-                .anyMatch(a -> a.getType() == ActType.BET)) {
-            checkEndOfPhaseWithBetOrRaise(round);
-        } else {
-            long checkCount = round.getActs().stream()
-                    .filter(a -> a.getPhase() == round.getCurrentPhase())
-                    .filter(a -> a.getType() == ActType.CHECK || a.getType() == ActType.FOLD)
-                    .count();
-
-            // Check if enough Checks of Folds are made
-            if (checkCount == round.getActivePlayers().size()) round.nextPhase();
-            else checkEndOfPhaseWithBetOrRaise(round);
+        if (round.getBetting().isFinished(round.getActivePlayers().size())) {
+            LOGGER.info("Going to the next phase in round " + round.getId());
+            round.nextPhase();
+            if (round.getRoomId() != null) eventPublisher.publishEvent(new RoundPhaseChanged(round.getRoomId(), round.getCurrentPhase()));
         }
     }
 
@@ -112,61 +217,27 @@ public class RoundServiceImpl implements RoundService {
      * @throws RoundException throws exception if no suitable player is found
      */
     private Player firstPlayer(Round round) throws RoundException {
-        List<Player> sortedActivePlayers = round.getActivePlayers().stream()
-                .sorted(Comparator.comparingInt(Player::getSeatNumber))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
-
-        for (Player activePlayer : sortedActivePlayers) {
-            if (activePlayer.getSeatNumber() > round.getButton()) {
-                return activePlayer;
-            }
-        }
-
-        Optional<Player> optionalPlayer = round.getActivePlayers().stream().min(Comparator.comparing(Player::getSeatNumber));
-        optionalPlayer.orElseThrow(() -> new RoundException(RoundServiceImpl.class, "No suitable players found"));
-        return optionalPlayer.get();
-    }
-
-    /**
-     * Check if phase has ended when enough Call/Folds are followed by a Bet of Raise
-     *
-     * @param round The round that needs to be checked on.
-     */
-    private void checkEndOfPhaseWithBetOrRaise(Round round) {
-        Phase currentPhase = round.getCurrentPhase();
-        int lastAct = -1;
-        for (Act act : round.getActs()) {
-            if (act.getPhase() == currentPhase) {
-                if (act.getType() == ActType.BET || act.getType() == ActType.RAISE) {
-                    lastAct = round.getActs().indexOf(act);
-                }
-            }
-        }
-
-        if (lastAct != -1) {
-            List<Act> lastActs = round.getActs().subList(lastAct, round.getActs().size());
-            if (lastActs.stream().filter(a -> a.getType() == ActType.CALL).count() == round.getActivePlayers().size() - 1) {
-                LOGGER.info("Going to the next phase in round " + round.getId());
-                round.nextPhase();
-            }
-        }
+        return round.getNextActivePlayer(round.getButton());
     }
 
     /**
      * Checks the end of a round.
+     * If players share the best hand, the first of them is returned, the pot is split between all of them.
      */
     @Override
     public Optional<Player> checkEndOfRound(int roundId) throws RoundException {
-        Round round = getRound(roundId);
-        Phase currentPhase = round.getCurrentPhase();
+        return liveRounds.update(roundId, round -> checkEndOfRound(round).stream().findFirst());
+    }
 
-        if (currentPhase == Phase.SHOWDOWN) {
-            LOGGER.info("Round " + roundId + " is finished.");
-            Player winningPlayer = determineWinner(roundId);
-            return Optional.of(distributeCoins(roundId, winningPlayer));
-        }
+    /**
+     * @param round The round that needs to be checked.
+     * @return The players that share the best hand and split the pot, empty if the round has not reached the showdown.
+     */
+    private List<Player> checkEndOfRound(Round round) throws RoundException {
+        if (round.getCurrentPhase() != Phase.SHOWDOWN) return Collections.emptyList();
 
-        return Optional.empty();
+        LOGGER.info("Round " + round.getId() + " is finished.");
+        return distributePot(round, determineShowdown(round));
     }
 
     /**
@@ -220,9 +291,10 @@ public class RoundServiceImpl implements RoundService {
      */
     @Override
     public List<ActType> getPossibleActs(int roundId) throws RoundException {
-        //Get data
-        Round round = getRound(roundId);
+        return liveRounds.query(roundId, this::getPossibleActs);
+    }
 
+    private List<ActType> getPossibleActs(Round round) {
         //Get possible acts for player.
         List<ActType> types = new ArrayList<>(Collections.singletonList(ActType.FOLD));
 
@@ -257,12 +329,7 @@ public class RoundServiceImpl implements RoundService {
      * @see ActType To get insight in the types of acts that are possbile.
      */
     private boolean checkCall(Round round) {
-        Optional<Act> actOpt = round.getActs().stream()
-                .filter(a -> a.getPhase() == round.getCurrentPhase())
-                .filter(a -> a.getType() == ActType.BET)
-                .findAny();
-
-        return actOpt.isPresent();
+        return round.getBetting().isBetPlaced();
     }
 
     /**
@@ -274,12 +341,7 @@ public class RoundServiceImpl implements RoundService {
      * @see ActType To get insight in the types of acts that are possbile.
      */
     private boolean checkCheck(Round round) {
-        Optional<Act> actOpt = round.getActs().stream()
-                .filter(a -> a.getPhase() == round.getCurrentPhase())
-                .filter(a -> a.getType() == ActType.BET)
-                .findAny();
-
-        return !actOpt.isPresent();
+        return !round.getBetting().isBetPlaced();
     }
 
     /**
@@ -287,19 +349,14 @@ public class RoundServiceImpl implements RoundService {
      * <p>
      * Checks if the BET-act is possible at this point in the round.
      * You can BET if nothing has gone into the pot this round.
-     * If the optional receives a value, than a bet is not possible.
+     * If a BET was already placed in this phase, than a bet is not possible.
      *
      * @param round The round of the act
      * @return True if a BET is possible.
      * @see ActType To get insight in the types of acts that are possbile.
      */
     private boolean checkBet(Round round) {
-        Optional<Act> actOpt = round.getActs().stream()
-                .filter(a -> a.getPhase() == round.getCurrentPhase())
-                .filter(a -> a.getType() == ActType.BET)
-                .findAny();
-
-        return !actOpt.isPresent();
+        return !round.getBetting().isBetPlaced();
     }
 
     /**
@@ -310,33 +367,7 @@ public class RoundServiceImpl implements RoundService {
      * @see ActType To get insight in the types of acts that are possbile.
      */
     private boolean checkRaise(Round round) {
-        Optional<Act> actOpt = round.getActs().stream()
-                .filter(a -> a.getPhase().equals(round.getCurrentPhase()))
-                .filter(a -> a.getType().equals(ActType.BET))
-                .findAny();
-
-        return actOpt.isPresent();
-    }
-
-    /**
-     * @param roundId The id used to retrieve the round.
-     * @return The round that corresponds with the id.
-     * @throws RoundException If the round was not found in the database.
-     */
-    private Round getRound(int roundId) throws RoundException {
-        return roundRepository.findById(roundId)
-                .orElseThrow(() -> new RoundException(RoundServiceImpl.class, "The round was not found in the database."));
-    }
-
-    /**
-     * Saves or update a round in the database.
-     *
-     * @param round The round that needs to be updated or saved.
-     * @return The updated or saved round
-     * @see Round
-     */
-    private Round saveRound(Round round) {
-        return roundRepository.save(round);
+        return round.getBetting().isBetPlaced();
     }
 
     /**
@@ -347,25 +378,42 @@ public class RoundServiceImpl implements RoundService {
      */
     @Override
     public Player distributeCoins(int roundId, Player player) throws RoundException {
-        //Get data
-        Round round = getRound(roundId);
+        return liveRounds.update(roundId, round -> distributeCoins(round, player));
+    }
 
+    private Player distributeCoins(Round round, Player player) throws RoundException {
         //Determine winning player.
         Player winningPlayer = round.getPlayersInRound().stream().filter(player1 ->
                 player1.getUserId().equals(player.getUserId())).findFirst()
                 .orElseThrow(() -> new RoundException(RoundServiceImpl.class, "The winning player was not found in the round."));
         winningPlayer.setChipCount(player.getChipCount() + round.getPot());
-
-        //Update database
-        roundRepository.save(round);
         return winningPlayer;
     }
 
+    /**
+     * Splits the pot of a showdown over the tie groups, based on what every player put in during the round.
+     *
+     * @param round    The round that has reached the showdown.
+     * @param showdown The players ranked in tie groups.
+     * @return The players that share the best hand.
+     * @see Showdown#splitPot(int, Map)
+     */
+    private List<Player> distributePot(Round round, Showdown showdown) {
+        Map<String, Integer> contributions = new HashMap<>();
+        for (Act act : round.getActs()) contributions.merge(act.getPlayer().getUserId(), act.getBet(), Integer::sum);
+
+        showdown.splitPot(round.getPot(), contributions)
+                .forEach((player, chips) -> player.setChipCount(player.getChipCount() + chips));
+        return showdown.getWinners();
+    }
+
 
     @Override
     public Optional<Player> checkFolds(int roundId) throws RoundException {
-        Round round = getRound(roundId);
+        return liveRounds.query(roundId, this::checkFolds);
+    }
 
+    private Optional<Player> checkFolds(Round round) {
         if (round.getActivePlayers().size() == 1)
             return Optional.of(round.getActivePlayers().get(0));
         else
@@ -374,45 +422,29 @@ public class RoundServiceImpl implements RoundService {
 
     /**
      * Determines winning player based on all hand combinations of all the players
+     * If players share the best hand, the first of them is returned.
      */
     public Player determineWinner(int roundId) throws RoundException {
-        //Get data
-        Round round = getRound(roundId);
-        List<Player> participatingPlayers = round.getPlayersInRound()
-                .stream()
-                .filter(player -> player.getLastAct() != ActType.FOLD)
-                .collect(toList());
-
-        Hand bestHand = null;
-        Player winningPlayer = null;
-
-        for (Player player : participatingPlayers) {
-            Hand playerHand = this.bestHandForPlayer(player, round);
-            player.setHandType(playerHand.getHandType());
-            if (bestHand == null) {
-                winningPlayer = player;
-                bestHand = playerHand;
-            } else if (playerHand.compareTo(bestHand) > 0) {
-                winningPlayer = player;
-                bestHand = playerHand;
-            }
-        }
-        saveRound(round);
-        return winningPlayer;
+        return liveRounds.update(roundId, round -> determineShowdown(round).getWinners().get(0));
     }
 
     /**
-     * Returns best Hand based on all possibilities out of 7 cards for player.
+     * Scores all the players that did not fold against the board in one go,
+     * and updates the hand type of every one of them.
      *
-     * @param player The player we need to determine the hand for.
-     * @param round  The round it needs to be determined for.
-     * @return The best hand that can be played.
+     * @param round The round that has reached the showdown.
+     * @return The players ranked in tie groups.
+     * @throws RoundException If there are no players left in the round.
      */
-    private Hand bestHandForPlayer(Player player, Round round) {
-        // Array of 7  cards -> 5 (boardCards) + 1 (player FirstCard) + 1 (player SecondCard)
-        List<Card> playerCards = new ArrayList<>(round.getCards());
-        playerCards.addAll(Arrays.asList(player.getFirstCard(), player.getSecondCard()));
-        return handService.determineBestPossibleHand(playerCards);
+    private Showdown determineShowdown(Round round) throws RoundException {
+        List<Player> participatingPlayers = round.getActivePlayers();
+        if (participatingPlayers.isEmpty())
+            throw new RoundException(RoundServiceImpl.class, "No players left for the showdown.");
+
+        Showdown showdown = handService.determineShowdown(round.getBoard(), participatingPlayers);
+        for (int i = 0; i < participatingPlayers.size(); i++)
+            round.setHandType(participatingPlayers.get(i), showdown.getHandType(i));
+        return showdown;
     }
 
     /**
@@ -420,7 +452,10 @@ public class RoundServiceImpl implements RoundService {
      */
     @Override
     public String determineNextUserId(int roundId, String userId) throws RoundException {
-        Round round = getRound(roundId);
+        return liveRounds.query(roundId, round -> determineNextUserId(round, userId));
+    }
+
+    private String determineNextUserId(Round round, String userId) throws RoundException {
         Optional<Player> playerOpt = round.getPlayersInRound().stream()
                 .filter(p -> p.getUserId().equals(userId))
                 .findAny();
@@ -428,23 +463,6 @@ public class RoundServiceImpl implements RoundService {
         if (!playerOpt.isPresent())
             throw new RoundException(RoundServiceImpl.class, "playerId could not be associated with round.");
 
-        Player player = playerOpt.get();
-
-        List<Player> sortedActivePlayers = round.getActivePlayers().stream()
-                .sorted(Comparator.comparingInt(Player::getSeatNumber))
-                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
-
-        for (Player activePlayer : sortedActivePlayers) {
-            if (activePlayer.getSeatNumber() > player.getSeatNumber()) {
-                return activePlayer.getUserId();
-            }
-        }
-
-        Optional<Player> optionalPlayer = round.getActivePlayers().stream().min(Comparator.comparing(Player::getSeatNumber));
-        if (optionalPlayer.isPresent()) {
-            return optionalPlayer.get().getUserId();
-        } else {
-            throw new RoundException(RoundServiceImpl.class, "No suitable players found.");
-        }
+        return round.getNextActivePlayer(playerOpt.get().getSeatNumber()).getUserId();
     }
 }
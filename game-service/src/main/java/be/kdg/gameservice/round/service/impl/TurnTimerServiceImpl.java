@@ -0,0 +1,213 @@
+package be.kdg.gameservice.round.service.impl;
+
+import be.kdg.gameservice.cluster.model.RoomReleased;
+import be.kdg.gameservice.room.persistence.RoomRepository;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.TurnStarted;
+import be.kdg.gameservice.round.model.TurnTimeout;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.api.TurnTimerService;
+import be.kdg.gameservice.shared.timer.HashedTimingWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service responsible for the turn clock of every room.
+ * When a player has to act, a timeout of the play delay of the room is armed on a hashed timing wheel.
+ * The turn after an act is armed while the round is still locked for that act, see {@link TurnStarted}.
+ * If the player acts in time the turn of the next player replaces it, otherwise the round service plays
+ * a CHECK or a FOLD for the player and a {@link TurnTimeout} is published, so the outcome gets broadcast.
+ * <p>
+ * The wheel only hands expired turns to a small pool of threads, the act itself is played there.
+ * The lag between the deadline and the expiry of a turn is recorded as the turn.timer.lag timer,
+ * the number of armed turns as the turn.timer.pending gauge.
+ */
+@Service
+@RequiredArgsConstructor
+public class TurnTimerServiceImpl implements TurnTimerService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TurnTimerServiceImpl.class);
+
+    private final RoundService roundService;
+    private final RoomRepository roomRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The armed turn of every room, by room id.
+     */
+    private final ConcurrentMap<Integer, Turn> turns = new ConcurrentHashMap<>();
+
+    /**
+     * The play delay in seconds of every room that had a turn, by room id.
+     */
+    private final ConcurrentMap<Integer, Integer> playDelays = new ConcurrentHashMap<>();
+
+    /**
+     * The precision of the turn clock in milliseconds.
+     */
+    @Value("${turn-timer.tick:100}")
+    private long tick;
+
+    /**
+     * The number of buckets of the timing wheel.
+     */
+    @Value("${turn-timer.wheel-size:512}")
+    private int wheelSize;
+
+    /**
+     * The number of threads that play the acts of expired turns.
+     */
+    @Value("${turn-timer.threads:2}")
+    private int threads;
+
+    private HashedTimingWheel wheel;
+    private ExecutorService timeoutExecutor;
+
+    @PostConstruct
+    public void start() {
+        Timer lag = Timer.builder("turn.timer.lag")
+                .description("The time between the deadline of a turn and its expiry")
+                .register(meterRegistry);
+        wheel = new HashedTimingWheel("turn-timer", tick, TimeUnit.MILLISECONDS, wheelSize,
+                nanos -> lag.record(nanos, TimeUnit.NANOSECONDS));
+        Gauge.builder("turn.timer.pending", wheel, HashedTimingWheel::getPendingTimeouts)
+                .description("The number of turns that are armed")
+                .register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        timeoutExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "turn-timeout-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.close();
+        timeoutExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts the turn of a player, the previous turn in the room is cancelled.
+     * Rooms with a play delay of 0 or less have no turn clock.
+     *
+     * @param roomId  The id of the room.
+     * @param roundId The id of the round that is played in the room.
+     * @param userId  The id of the user that has to act.
+     */
+    @Override
+    public void startTurn(int roomId, int roundId, String userId) {
+        int playDelay = playDelays.computeIfAbsent(roomId, id -> roomRepository.findPlayDelay(id).orElse(0));
+        if (playDelay <= 0) {
+            cancelTurn(roomId);
+            return;
+        }
+
+        Turn turn = new Turn(roomId, roundId, userId);
+        turn.timeout = wheel.schedule(() -> expire(turn), playDelay, TimeUnit.SECONDS);
+        Turn previous = turns.put(roomId, turn);
+        if (previous != null) previous.timeout.cancel();
+    }
+
+    /**
+     * Cancels the turn that is armed in a room.
+     *
+     * @param roomId The id of the room.
+     */
+    @Override
+    public void cancelTurn(int roomId) {
+        Turn turn = turns.remove(roomId);
+        if (turn != null) turn.timeout.cancel();
+    }
+
+    /**
+     * Cancels the turn of a room and forgets its play delay, for a room that was changed or deleted.
+     *
+     * @param roomId The id of the room.
+     */
+    @Override
+    public void forgetRoom(int roomId) {
+        cancelTurn(roomId);
+        playDelays.remove(roomId);
+    }
+
+    /**
+     * Starts the turn of the next player after an act. The event is published while the round is locked,
+     * so the turns of a room are started in the order of the acts.
+     *
+     * @param started The turn that started.
+     */
+    @EventListener
+    public void onTurnStarted(TurnStarted started) {
+        startTurn(started.getRoomId(), started.getRoundId(), started.getUserId());
+    }
+
+    /**
+     * Stops the turn clock of a room that moved to another node of the cluster.
+     *
+     * @param released The room that was released.
+     */
+    @EventListener
+    public void onRoomReleased(RoomReleased released) {
+        forgetRoom(released.getRoomId());
+    }
+
+    /**
+     * @return The number of turns that are armed.
+     */
+    @Override
+    public int getPendingTurns() {
+        return wheel.getPendingTimeouts();
+    }
+
+    /**
+     * Runs on the thread of the wheel, so the act is handed to the timeout threads.
+     */
+    private void expire(Turn turn) {
+        if (!turns.remove(turn.roomId, turn)) return;
+        timeoutExecutor.execute(() -> {
+            try {
+                roundService.playTimeout(turn.roundId, turn.userId)
+                        .ifPresent(outcome -> eventPublisher.publishEvent(new TurnTimeout(turn.roomId, outcome)));
+            } catch (RoundException e) {
+                LOGGER.warn("The turn of " + turn.userId + " in round " + turn.roundId + " could not time out", e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Handling the timeout of " + turn.userId + " in round " + turn.roundId + " failed", e);
+            }
+        });
+    }
+
+    /**
+     * The turn of a player in a room.
+     */
+    private static final class Turn {
+        private final int roomId;
+        private final int roundId;
+        private final String userId;
+        private HashedTimingWheel.Timeout timeout;
+
+        private Turn(int roomId, int roundId, String userId) {
+            this.roomId = roomId;
+            this.roundId = roundId;
+            this.userId = userId;
+        }
+    }
+}
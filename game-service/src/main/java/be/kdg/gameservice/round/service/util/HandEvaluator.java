@@ -0,0 +1,360 @@
+package be.kdg.gameservice.round.service.util;
+
+import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.card.Suit;
+import be.kdg.gameservice.round.model.HandType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores a set of up to seven cards directly, without building the 21 five-card subsets.
+ * <p>
+ * Every rank is a bit in a 13-bit mask (deuce is bit 0, ace is bit 12). The cards are folded into
+ * four "layer" masks: the ranks that are present at least once, twice, three times and four times.
+ * Straights, flushes and kickers are then resolved with lookup tables that are indexed by such a mask
+ * and that are computed once when the class is loaded.
+ * <p>
+ * The outcome is a single strength value. The hand type sits in the bits above {@link #CATEGORY_SHIFT},
+ * underneath are five 4-bit rank slots (rank + 1, 0 means no card) ordered by importance.
+ * A higher strength is always a better hand, so two hands are compared by comparing their strengths.
+ */
+public final class HandEvaluator {
+    /**
+     * The number of different ranks in a deck of cards.
+     */
+    private static final int RANK_COUNT = CardSet.RANK_COUNT;
+
+    /**
+     * Mask that holds all the ranks.
+     */
+    private static final int ALL_RANKS = (1 << RANK_COUNT) - 1;
+
+    /**
+     * The number of bits the hand type is shifted in the strength value.
+     */
+    public static final int CATEGORY_SHIFT = 20;
+
+    /**
+     * Bits of the ace, deuce, three, four and five. Used to detect the wheel (A 2 3 4 5).
+     */
+    private static final int WHEEL = 0b1_0000_0000_1111;
+
+    /**
+     * The rank of the five, the highest card of the wheel.
+     */
+    private static final int WHEEL_HIGH = 3;
+
+    /**
+     * The rank of the ace.
+     */
+    private static final int ACE = 12;
+
+    /**
+     * All hand types indexed by their score.
+     */
+    private static final HandType[] HAND_TYPES = new HandType[HandType.values().length];
+
+    /**
+     * Highest rank of the straight in a rank mask, or -1 if the mask holds no straight.
+     */
+    private static final int[] STRAIGHT_HIGH = new int[1 << RANK_COUNT];
+
+    /**
+     * The five highest ranks of a rank mask, packed in the rank slots.
+     */
+    private static final int[] TOP_FIVE = new int[1 << RANK_COUNT];
+
+    /**
+     * Strength of a flush or straight flush for a mask of cards of one suit, or 0 if there are less than 5 cards.
+     */
+    private static final int[] FLUSH = new int[1 << RANK_COUNT];
+
+    static {
+        for (HandType handType : HandType.values()) HAND_TYPES[handType.getScore()] = handType;
+
+        for (int mask = 0; mask <= ALL_RANKS; mask++) {
+            STRAIGHT_HIGH[mask] = findStraight(mask);
+            TOP_FIVE[mask] = packTopRanks(mask, 5);
+        }
+
+        for (int mask = 0; mask <= ALL_RANKS; mask++) {
+            if (Integer.bitCount(mask) < 5) continue;
+
+            int straightHigh = STRAIGHT_HIGH[mask];
+            FLUSH[mask] = straightHigh >= 0
+                    ? category(HandType.STRAIGHT_FLUSH) | straightRanks(straightHigh)
+                    : category(HandType.FLUSH) | TOP_FIVE[mask];
+        }
+    }
+
+    private HandEvaluator() {
+    }
+
+    /**
+     * Determines the strength of the best hand that can be made with the given cards.
+     * Cards that occur more than once are counted as separate cards.
+     *
+     * @param cards Zero up to seven cards.
+     * @return The strength of the best possible hand.
+     */
+    public static int evaluate(List<Card> cards) {
+        int once = 0, twice = 0, thrice = 0, fourTimes = 0;
+        int clubs = 0, diamonds = 0, hearts = 0, spades = 0;
+
+        for (int i = 0; i < cards.size(); i++) {
+            CardType type = cards.get(i).type;
+            int bit = 1 << type.getRank().ordinal();
+
+            //Add the rank to the first layer that does not contain it yet
+            if ((once & bit) == 0) once |= bit;
+            else if ((twice & bit) == 0) twice |= bit;
+            else if ((thrice & bit) == 0) thrice |= bit;
+            else fourTimes |= bit;
+
+            switch (type.getSuit()) {
+                case CLUBS:
+                    clubs |= bit;
+                    break;
+                case DIAMONDS:
+                    diamonds |= bit;
+                    break;
+                case HEARTS:
+                    hearts |= bit;
+                    break;
+                default:
+                    spades |= bit;
+            }
+        }
+
+        int flush = Math.max(Math.max(FLUSH[clubs], FLUSH[diamonds]), Math.max(FLUSH[hearts], FLUSH[spades]));
+        return evaluate(once, twice, thrice, fourTimes, flush);
+    }
+
+    /**
+     * Determines the strength of the best hand in a set of cards.
+     *
+     * @param cards The set of cards.
+     * @return The strength of the best possible hand.
+     * @see CardSet
+     */
+    public static int evaluate(long cards) {
+        return evaluate(CardSet.suitMask(cards, Suit.CLUBS), CardSet.suitMask(cards, Suit.DIAMONDS),
+                CardSet.suitMask(cards, Suit.HEARTS), CardSet.suitMask(cards, Suit.SPADES));
+    }
+
+    /**
+     * Determines the strength of the best hand in a set of cards that is already split per suit.
+     * Useful when several hands share cards, the suit masks of the shared cards only need to be determined once.
+     *
+     * @param clubs    The rank mask of the clubs.
+     * @param diamonds The rank mask of the diamonds.
+     * @param hearts   The rank mask of the hearts.
+     * @param spades   The rank mask of the spades.
+     * @return The strength of the best possible hand.
+     * @see CardSet#suitMask(long, Suit)
+     */
+    public static int evaluate(int clubs, int diamonds, int hearts, int spades) {
+        int once = clubs | diamonds | hearts | spades;
+        int twice = (clubs & diamonds) | (clubs & hearts) | (clubs & spades)
+                | (diamonds & hearts) | (diamonds & spades) | (hearts & spades);
+        int thrice = (clubs & diamonds & (hearts | spades)) | (hearts & spades & (clubs | diamonds));
+        int fourTimes = clubs & diamonds & hearts & spades;
+
+        int flush = Math.max(Math.max(FLUSH[clubs], FLUSH[diamonds]), Math.max(FLUSH[hearts], FLUSH[spades]));
+        return evaluate(once, twice, thrice, fourTimes, flush);
+    }
+
+    /**
+     * The rank layers and suit masks of a hand that grows while the board is revealed.
+     * Adding a card only sets the bit of its rank in the next layer and in the mask of its suit,
+     * so extending the hand never goes over the cards that were added before.
+     */
+    public static final class PartialHand {
+        private int once, twice, thrice, fourTimes;
+        private final int[] suits = new int[Suit.values().length];
+
+        /**
+         * @param cards The cards that need to be added, as a card set. They may not be part of the hand yet.
+         * @see CardSet
+         */
+        public void add(long cards) {
+            while (cards != CardSet.EMPTY) {
+                int index = Long.numberOfTrailingZeros(cards);
+                cards &= cards - 1;
+                int bit = 1 << index % RANK_COUNT;
+
+                if ((once & bit) == 0) once |= bit;
+                else if ((twice & bit) == 0) twice |= bit;
+                else if ((thrice & bit) == 0) thrice |= bit;
+                else fourTimes |= bit;
+                suits[index / RANK_COUNT] |= bit;
+            }
+        }
+
+        /**
+         * @return The strength of the best hand that can be made with the cards that were added.
+         */
+        public int evaluate() {
+            int flush = Math.max(Math.max(FLUSH[suits[0]], FLUSH[suits[1]]), Math.max(FLUSH[suits[2]], FLUSH[suits[3]]));
+            return HandEvaluator.evaluate(once, twice, thrice, fourTimes, flush);
+        }
+    }
+
+    /**
+     * Resolves the strength based on the rank layers.
+     *
+     * @param once      Ranks that are present at least once.
+     * @param twice     Ranks that are present at least twice.
+     * @param thrice    Ranks that are present at least three times.
+     * @param fourTimes Ranks that are present four times.
+     * @param flush     The strength of the best flush, 0 if there is none.
+     * @return The strength of the best hand.
+     */
+    private static int evaluate(int once, int twice, int thrice, int fourTimes, int flush) {
+        if (once == 0) return 0;
+        if (flush >= category(HandType.STRAIGHT_FLUSH)) return flush;
+
+        if (fourTimes != 0) {
+            int quads = highest(fourTimes);
+            return category(HandType.FOUR_OF_A_KIND) | repeat(quads, 4) << 4
+                    | TOP_FIVE[once & ~(1 << quads)] >>> 16;
+        }
+
+        if (thrice != 0) {
+            int trips = highest(thrice);
+            int pairs = twice & ~(1 << trips);
+            if (pairs != 0)
+                return category(HandType.FULL_HOUSE) | repeat(trips, 3) << 8 | repeat(highest(pairs), 2);
+        }
+
+        if (flush != 0) return flush;
+
+        int straightHigh = STRAIGHT_HIGH[once];
+        if (straightHigh >= 0) return category(HandType.STRAIGHT) | straightRanks(straightHigh);
+
+        if (thrice != 0) {
+            int trips = highest(thrice);
+            return category(HandType.THREE_OF_A_KIND) | repeat(trips, 3) << 8
+                    | TOP_FIVE[once & ~(1 << trips)] >>> 12;
+        }
+
+        if (twice != 0) {
+            int highPair = highest(twice);
+            int lowPairs = twice & ~(1 << highPair);
+            if (lowPairs != 0) {
+                int lowPair = highest(lowPairs);
+                return category(HandType.TWO_PAIR) | repeat(highPair, 2) << 12 | repeat(lowPair, 2) << 4
+                        | TOP_FIVE[once & ~(1 << highPair) & ~(1 << lowPair)] >>> 16;
+            }
+            return category(HandType.PAIR) | repeat(highPair, 2) << 12 | TOP_FIVE[once & ~(1 << highPair)] >>> 8;
+        }
+
+        return category(HandType.HIGH_CARD) | TOP_FIVE[once];
+    }
+
+    /**
+     * @param strength A strength calculated by this evaluator.
+     * @return The hand type that is encoded in the strength.
+     */
+    public static HandType getHandType(int strength) {
+        return HAND_TYPES[strength >>> CATEGORY_SHIFT];
+    }
+
+    /**
+     * Decodes the ranks of the five cards that make up the hand, ordered on frequency and then on value.
+     * The ranks use the same numbering as the rank slots (deuce is 0, ace is 12).
+     * For example: a full house K A K K A will give K K K A A
+     * The wheel (A 2 3 4 5) gives A 5 4 3 2.
+     *
+     * @param strength A strength calculated by this evaluator.
+     * @return The ranks of the cards in the hand.
+     */
+    public static List<Integer> getRanks(int strength) {
+        List<Integer> ranks = new ArrayList<>(5);
+        for (int shift = 16; shift >= 0; shift -= 4) {
+            int slot = (strength >>> shift) & 0xF;
+            if (slot != 0) ranks.add(slot - 1);
+        }
+
+        HandType handType = getHandType(strength);
+        boolean isStraight = handType == HandType.STRAIGHT || handType == HandType.STRAIGHT_FLUSH;
+        if (isStraight && ranks.get(0) == WHEEL_HIGH) ranks.add(0, ranks.remove(ranks.size() - 1));
+        return ranks;
+    }
+
+    /**
+     * @param mask A rank mask.
+     * @return The highest rank of the straight in the mask, or -1 if there is no straight.
+     */
+    private static int findStraight(int mask) {
+        for (int high = ACE; high >= 4; high--) {
+            int straight = 0b11111 << (high - 4);
+            if ((mask & straight) == straight) return high;
+        }
+        return (mask & WHEEL) == WHEEL ? WHEEL_HIGH : -1;
+    }
+
+    /**
+     * @param high The highest rank of the straight.
+     * @return The five ranks of the straight in the rank slots. The ace of the wheel counts as the lowest card.
+     */
+    private static int straightRanks(int high) {
+        if (high == WHEEL_HIGH) return repeatSequence(WHEEL_HIGH) << 4 | (ACE + 1);
+        return repeatSequence(high) << 4 | (high - 4 + 1);
+    }
+
+    /**
+     * @param high The highest rank.
+     * @return The ranks high down to high - 3 packed in four slots.
+     */
+    private static int repeatSequence(int high) {
+        int packed = 0;
+        for (int rank = high; rank > high - 4; rank--) packed = packed << 4 | (rank + 1);
+        return packed;
+    }
+
+    /**
+     * @param mask  A rank mask.
+     * @param count The maximum number of ranks to pack.
+     * @return The highest ranks of the mask packed in the rank slots, starting at the first slot.
+     */
+    private static int packTopRanks(int mask, int count) {
+        int packed = 0;
+        for (int i = 0; i < count; i++) {
+            int rank = mask == 0 ? -1 : highest(mask);
+            packed = packed << 4 | (rank + 1);
+            if (rank >= 0) mask &= ~(1 << rank);
+        }
+        return packed;
+    }
+
+    /**
+     * @param rank  The rank that needs to be repeated.
+     * @param times The number of slots.
+     * @return The rank packed in the given number of slots.
+     */
+    private static int repeat(int rank, int times) {
+        int packed = 0;
+        for (int i = 0; i < times; i++) packed = packed << 4 | (rank + 1);
+        return packed;
+    }
+
+    /**
+     * @param mask A non-empty rank mask.
+     * @return The highest rank in the mask.
+     */
+    private static int highest(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * @param handType The hand type.
+     * @return The hand type shifted into the category bits.
+     */
+    private static int category(HandType handType) {
+        return handType.getScore() << CATEGORY_SHIFT;
+    }
+}
@@ -0,0 +1,103 @@
+package be.kdg.gameservice.round.service.util;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.round.service.api.HandService;
+import be.kdg.gameservice.round.service.impl.HandServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static be.kdg.gameservice.round.service.util.PreflopTable.CLASS_COUNT;
+import static be.kdg.gameservice.round.service.util.PreflopTable.MAX_OPPONENTS;
+
+/**
+ * Offline generator of the preflop equity table that game-service loads at boot.
+ * Every class is played against random opponents on random boards and scored by the hand service.
+ * Run it with the generatePreflopEquity task in Gradle.
+ * <p>
+ * Arguments: the output file (default src/main/resources/preflop-equity.bin)
+ * and the number of samples per class and number of opponents (default 200000).
+ */
+public final class PreflopEquityGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreflopEquityGenerator.class);
+    private static final int BOARD_SIZE = 5;
+
+    private PreflopEquityGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : "src/main/resources/preflop-equity.bin");
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        PreflopTable table = generate(new HandServiceImpl(), samples);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            table.write(out);
+        }
+        LOGGER.info("Wrote preflop equity table to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Simulates every class against every number of opponents. The classes are spread over the available cores,
+     * every class uses its own generator with a fixed seed so the table can be reproduced.
+     *
+     * @param handService The service that scores the hands.
+     * @param samples     The number of boards per class and number of opponents.
+     * @return The generated table.
+     */
+    static PreflopTable generate(HandService handService, int samples) {
+        double[] equities = new double[CLASS_COUNT * MAX_OPPONENTS];
+        IntStream.range(0, CLASS_COUNT).parallel().forEach(handClass -> {
+            SplittableRandom random = new SplittableRandom(handClass);
+            long holeCards = PreflopTable.getHoleCards(handClass);
+            for (int opponents = 1; opponents <= MAX_OPPONENTS; opponents++)
+                equities[handClass * MAX_OPPONENTS + opponents - 1] = simulate(handService, holeCards, opponents, samples, random);
+            LOGGER.info("Simulated " + PreflopTable.getName(handClass));
+        });
+        return PreflopTable.fromEquities(equities);
+    }
+
+    /**
+     * @return The average share of the pot the hole cards win against random opponents.
+     */
+    private static double simulate(HandService handService, long holeCards, int opponents, int samples, SplittableRandom random) {
+        int[] cards = new int[CardSet.size(CardSet.FULL_DECK & ~holeCards)];
+        int size = 0;
+        for (long rest = CardSet.FULL_DECK & ~holeCards; rest != 0; rest &= rest - 1)
+            cards[size++] = Long.numberOfTrailingZeros(rest);
+
+        int needed = BOARD_SIZE + 2 * opponents;
+        double share = 0;
+        for (int sample = 0; sample < samples; sample++) {
+            //Partial Fisher-Yates: the first needed cards become the board and the hole cards of the opponents
+            for (int i = 0; i < needed; i++) {
+                int j = i + random.nextInt(cards.length - i);
+                int card = cards[j];
+                cards[j] = cards[i];
+                cards[i] = card;
+            }
+
+            long board = 0;
+            for (int i = 0; i < BOARD_SIZE; i++) board |= 1L << cards[i];
+
+            int strength = handService.determineBestPossibleHand(board | holeCards).getStrength();
+            int ties = 0;
+            boolean lost = false;
+            for (int opponent = 0; opponent < opponents && !lost; opponent++) {
+                long opponentCards = 1L << cards[BOARD_SIZE + 2 * opponent] | 1L << cards[BOARD_SIZE + 2 * opponent + 1];
+                int opponentStrength = handService.determineBestPossibleHand(board | opponentCards).getStrength();
+                if (opponentStrength > strength) lost = true;
+                else if (opponentStrength == strength) ties++;
+            }
+            if (!lost) share += 1.0 / (ties + 1);
+        }
+        return share / samples;
+    }
+}
@@ -0,0 +1,182 @@
+package be.kdg.gameservice.round.service.util;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.card.Rank;
+import be.kdg.gameservice.card.Suit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * The equity of every starting hand class before the flop, against 1 up to 8 random opponents.
+ * <p>
+ * Two hole cards belong to one of 169 classes: 13 pairs, 78 suited and 78 offsuit combinations.
+ * A class is an index in a 13 by 13 grid of the high rank and the low rank (deuce is 0, ace is 12).
+ * Pairs are on the diagonal, suited hands have the high rank as row and offsuit hands have the low rank as row.
+ * <p>
+ * The binary format is a header (magic number, version, number of classes and maximum number of opponents)
+ * followed by the equities as unsigned shorts, ordered by class and then by number of opponents.
+ */
+public final class PreflopTable {
+    /**
+     * The number of starting hand classes.
+     */
+    public static final int CLASS_COUNT = CardSet.RANK_COUNT * CardSet.RANK_COUNT;
+
+    /**
+     * The maximum number of opponents at a table.
+     */
+    public static final int MAX_OPPONENTS = 8;
+
+    /**
+     * Marks the start of a table file, "PFEQ" in ASCII.
+     */
+    private static final int MAGIC = 0x50464551;
+
+    /**
+     * The version of the binary format.
+     */
+    private static final short VERSION = 1;
+
+    /**
+     * An equity of 1 is stored as this value.
+     */
+    private static final int SCALE = 0xFFFF;
+
+    /**
+     * The scaled equities, indexed by class and then by number of opponents.
+     */
+    private final char[] equities;
+
+    /**
+     * The rank of every class for every number of opponents, 1 is the strongest hand. Same index as the equities.
+     */
+    private final short[] ranks;
+
+    private PreflopTable(char[] equities) {
+        this.equities = equities;
+        this.ranks = new short[equities.length];
+
+        for (int opponents = 1; opponents <= MAX_OPPONENTS; opponents++) {
+            int column = opponents;
+            int[] order = IntStream.range(0, CLASS_COUNT).boxed()
+                    .sorted(Comparator.comparingInt((Integer handClass) -> equities[index(handClass, column)]).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int rank = 0; rank < order.length; rank++) ranks[index(order[rank], column)] = (short) (rank + 1);
+        }
+    }
+
+    /**
+     * @param equities The equity of every class against every number of opponents, indexed like the table.
+     * @return A table that holds the equities.
+     */
+    public static PreflopTable fromEquities(double[] equities) {
+        if (equities.length != CLASS_COUNT * MAX_OPPONENTS)
+            throw new IllegalArgumentException("Expected " + CLASS_COUNT * MAX_OPPONENTS + " equities.");
+
+        char[] scaled = new char[equities.length];
+        for (int i = 0; i < equities.length; i++) scaled[i] = (char) Math.round(equities[i] * SCALE);
+        return new PreflopTable(scaled);
+    }
+
+    /**
+     * @param in The stream that holds a table in the binary format.
+     * @return The table that was read.
+     * @throws IOException If the stream could not be read or does not hold a table.
+     */
+    public static PreflopTable read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION)
+            throw new IOException("The stream does not hold a preflop table of version " + VERSION + ".");
+        if (in.readShort() != CLASS_COUNT || in.readByte() != MAX_OPPONENTS)
+            throw new IOException("The preflop table does not have the expected size.");
+
+        char[] equities = new char[CLASS_COUNT * MAX_OPPONENTS];
+        for (int i = 0; i < equities.length; i++) equities[i] = in.readChar();
+        return new PreflopTable(equities);
+    }
+
+    /**
+     * Writes the table in the binary format.
+     *
+     * @param out The stream the table is written to.
+     * @throws IOException If the stream could not be written.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(CLASS_COUNT);
+        out.writeByte(MAX_OPPONENTS);
+        for (char equity : equities) out.writeChar(equity);
+    }
+
+    /**
+     * @return The chance to win, split pots counted for their part, of a class against a number of random opponents.
+     */
+    public double getEquity(int handClass, int opponents) {
+        return (double) equities[index(handClass, opponents)] / SCALE;
+    }
+
+    /**
+     * @return The rank of a class against a number of random opponents, 1 is the strongest class.
+     */
+    public int getRank(int handClass, int opponents) {
+        return ranks[index(handClass, opponents)];
+    }
+
+    /**
+     * @param holeCards Two hole cards as a card set.
+     * @return The class the hole cards belong to.
+     */
+    public static int getHandClass(long holeCards) {
+        int first = Long.numberOfTrailingZeros(holeCards);
+        int second = 63 - Long.numberOfLeadingZeros(holeCards);
+        int firstRank = first % CardSet.RANK_COUNT;
+        int secondRank = second % CardSet.RANK_COUNT;
+        int high = Math.max(firstRank, secondRank);
+        int low = Math.min(firstRank, secondRank);
+
+        boolean suited = first / CardSet.RANK_COUNT == second / CardSet.RANK_COUNT;
+        return suited ? high * CardSet.RANK_COUNT + low : low * CardSet.RANK_COUNT + high;
+    }
+
+    /**
+     * @param handClass A class.
+     * @return Two hole cards that belong to the class.
+     */
+    public static long getHoleCards(int handClass) {
+        int row = handClass / CardSet.RANK_COUNT;
+        int column = handClass % CardSet.RANK_COUNT;
+        if (row >= column) {
+            //Pairs use two suits, suited hands use one suit
+            Suit secondSuit = row == column ? Suit.DIAMONDS : Suit.CLUBS;
+            return CardSet.of(cardType(row, Suit.CLUBS), cardType(column, secondSuit));
+        }
+        return CardSet.of(cardType(column, Suit.CLUBS), cardType(row, Suit.DIAMONDS));
+    }
+
+    /**
+     * @param handClass A class.
+     * @return The short name of the class, for example AA, AKs or T9o.
+     */
+    public static String getName(int handClass) {
+        int row = handClass / CardSet.RANK_COUNT;
+        int column = handClass % CardSet.RANK_COUNT;
+        Rank[] ranks = Rank.values();
+        if (row == column) return ranks[row].getName() + ranks[column].getName();
+        if (row > column) return ranks[row].getName() + ranks[column].getName() + "s";
+        return ranks[column].getName() + ranks[row].getName() + "o";
+    }
+
+    private static CardType cardType(int rank, Suit suit) {
+        return CardSet.getCardType(suit.ordinal() * CardSet.RANK_COUNT + rank);
+    }
+
+    private static int index(int handClass, int opponents) {
+        return handClass * MAX_OPPONENTS + opponents - 1;
+    }
+}
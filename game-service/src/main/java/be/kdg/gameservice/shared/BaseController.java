@@ -3,9 +3,12 @@ package be.kdg.gameservice.shared;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
 import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Base controller that every controller can extend from to get extra functionality.
@@ -16,6 +19,12 @@ public abstract class BaseController {
     @Autowired
     private ResourceServerTokenServices resourceTokenServices;
 
+    /**
+     * The maximum number of items of a page, so one call can not load an unbounded part of the history.
+     */
+    @Value("${history.max-page-size:100}")
+    private int maxPageSize;
+
     /**
      * @param authentication Needed as authentication.
      * @return Gives back the details of a specific user.
@@ -34,4 +43,18 @@ public abstract class BaseController {
     protected void logIncomingCall(String source) {
         LOGGER.info("Beginning api call of " + source);
     }
+
+    /**
+     * Validates the page of a paged call.
+     *
+     * @param page The number of the page, starting at 0.
+     * @param size The number of items of a page that was asked for.
+     * @return The number of items of a page, at most the maximum page size.
+     * @throws ResponseStatusException With status code 400 if the page is negative or the size is not positive.
+     */
+    protected int getPageSize(int page, int size) {
+        if (page < 0 || size < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The page can not be negative and the size needs to be positive.");
+        return Math.min(size, maxPageSize);
+    }
 }
@@ -1,23 +1,48 @@
 package be.kdg.gameservice.shared;
 
 
+import be.kdg.gameservice.cluster.controller.RoomProxy;
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
 import be.kdg.gameservice.room.exception.RoomException;
 import be.kdg.gameservice.round.exception.RoundException;
 import be.kdg.gameservice.shared.dto.ErrorDTO;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.servlet.http.HttpServletRequest;
+
 @ControllerAdvice
+@RequiredArgsConstructor
 public class ExceptionHandler extends ResponseEntityExceptionHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExceptionHandler.class);
+    private final RoomProxy roomProxy;
 
     @org.springframework.web.bind.annotation.ExceptionHandler(value = {RoomException.class, RoundException.class})
     public ResponseEntity<ErrorDTO> handleControllerExceptions(Exception ex) {
         LOGGER.error(ex.getMessage());
         return new ResponseEntity<>(new ErrorDTO(ex.getCause().toString(), ex.getMessage()), HttpStatus.NOT_FOUND);
     }
+
+    /**
+     * A change that still conflicted with concurrent changes of the same rows after it was retried.
+     */
+    @org.springframework.web.bind.annotation.ExceptionHandler(value = ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorDTO> handleConflictExceptions(ConcurrencyFailureException ex) {
+        LOGGER.warn(ex.getMessage());
+        return new ResponseEntity<>(new ErrorDTO("conflict", ex.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * A call for a room that is owned by another node is forwarded to the same path on that node.
+     */
+    @org.springframework.web.bind.annotation.ExceptionHandler(value = RoomNotOwnedException.class)
+    public ResponseEntity<?> handleNotOwnedExceptions(RoomNotOwnedException ex, HttpServletRequest request) {
+        return roomProxy.forward(ex, request);
+    }
 }
@@ -3,15 +3,20 @@ package be.kdg.gameservice.shared;
 import be.kdg.gameservice.room.controller.dto.UserDTO;
 import be.kdg.gameservice.shared.config.WebConfig;
 import be.kdg.gameservice.shared.dto.AuthDTO;
+import be.kdg.gameservice.shared.dto.GameEventDTO;
+import be.kdg.gameservice.shared.dto.GameEventResultDTO;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -20,6 +25,11 @@ import java.util.List;
  */
 @Component
 public class UserApiGateway {
+    /**
+     * The number of times the chips of a user are taken before a conflict is given up.
+     */
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
     private final String TOKEN_URL;
     private final String USER_SERVICE_URL;
     private final RestTemplate restTemplate;
@@ -31,25 +41,18 @@ public class UserApiGateway {
     }
 
     /**
-     * Sends a rest template request to the user-service to increase the user his wins.
-     */
-    public void addWin(String userId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        HttpEntity<String> entity = new HttpEntity<>(userId, headers);
-
-        restTemplate.exchange(USER_SERVICE_URL + "/win", HttpMethod.POST, entity, void.class);
-    }
-
-    /**
-     * Sends a rest template request to the user-service to increase the user his gamesPlayed.
+     * Sends a batch of round results to the user-service in one request.
+     * Every event carries an idempotency key, so the batch can be sent again if no answer came back.
+     *
+     * @return The result of every event, the user service applies every event on its own.
      */
-    public void addGamesPlayed(List<String> userIds) {
-        RestTemplate restTemplate = new RestTemplate();
+    public List<GameEventResultDTO> sendGameEvents(List<GameEventDTO> gameEvents) {
         HttpHeaders headers = new HttpHeaders();
         headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        HttpEntity<List<String>> entity = new HttpEntity<>(userIds, headers);
-        restTemplate.exchange(USER_SERVICE_URL + "/gamesplayed", HttpMethod.POST, entity, void.class);
+        HttpEntity<List<GameEventDTO>> entity = new HttpEntity<>(gameEvents, headers);
+        GameEventResultDTO[] results = restTemplate.exchange(USER_SERVICE_URL + "/game-events", HttpMethod.POST, entity,
+                GameEventResultDTO[].class).getBody();
+        return results == null ? Collections.emptyList() : Arrays.asList(results);
     }
 
     /**
@@ -120,4 +123,26 @@ public class UserApiGateway {
 
         return restTemplate.exchange(USER_SERVICE_URL, HttpMethod.PUT, entity, UserDTO.class).getBody();
     }
+
+    /**
+     * Takes chips from a user. The user is sent back with the version it was read with,
+     * so the user service refuses the update if the user was changed in the meantime.
+     * The user is then read again and the chips are taken from the new state, a bounded number of times.
+     *
+     * @param token The token used for making the request. (bearer)
+     * @param user  The user as it was last read.
+     * @param chips The number of chips that are taken.
+     * @return The updated user DTO.
+     */
+    public UserDTO withdrawChips(String token, UserDTO user, int chips) {
+        for (int attempt = 1; ; attempt++) {
+            user.setChips(user.getChips() - chips);
+            try {
+                return updateUser(token, user);
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode() != HttpStatus.CONFLICT || attempt >= MAX_UPDATE_ATTEMPTS) throw e;
+                user = getUser(token, "");
+            }
+        }
+    }
 }
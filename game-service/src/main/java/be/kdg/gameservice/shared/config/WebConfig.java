@@ -1,20 +1,27 @@
 package be.kdg.gameservice.shared.config;
 
+import be.kdg.gameservice.cluster.controller.RoomRoutingInterceptor;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import javax.validation.Valid;
 
 /**
  * A simple configuration class that is used to create a bean of the modelmapper.
+ * The rest calls for a room are routed to the node of the cluster that owns the room.
  */
 @Configuration
 @Getter
-public class WebConfig {
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    private final RoomRoutingInterceptor roomRoutingInterceptor;
     @Value("${userservice.url}")
     private String userServiceUrl;
     @Value("${token.url}")
@@ -27,4 +34,9 @@ public class WebConfig {
 
     @Bean
     public RestTemplate restTemplate() { return new RestTemplate(); }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(roomRoutingInterceptor).addPathPatterns("/api/**");
+    }
 }
@@ -1,7 +1,11 @@
 package be.kdg.gameservice.shared.config;
 
+import be.kdg.gameservice.cluster.controller.RoomChannelInterceptor;
+import be.kdg.gameservice.cluster.controller.RoomErrorHandler;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
@@ -11,15 +15,21 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final RoomChannelInterceptor roomChannelInterceptor;
+    private final RoomErrorHandler roomErrorHandler;
+
     /**
      * Setup the endpoint players where players can connect to join a room.
+     * A refused room is answered with an error frame that names the owner of the room.
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/connect")
                 .setAllowedOrigins("*")
                 .withSockJS();
+        registry.setErrorHandler(roomErrorHandler);
     }
 
     /**
@@ -27,11 +37,19 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/chatroom/receive/", "/room/receive-act/", "/room/receive-room/", "/room/receive-round/", "/room/receive-winner/")
+        registry.enableSimpleBroker("/chatroom/receive/", "/room/receive-act/", "/room/receive-room/", "/room/receive-round/", "/room/receive-winner/", "/room/receive-timeout/")
                 .setHeartbeatValue(new long[]{10000, 10000})
                 .setTaskScheduler(heartBeatScheduler());
     }
 
+    /**
+     * Refuse subscriptions and messages for rooms that are owned by another node of the cluster.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(roomChannelInterceptor);
+    }
+
     @Bean
     public TaskScheduler heartBeatScheduler() {
         return new ThreadPoolTaskScheduler();
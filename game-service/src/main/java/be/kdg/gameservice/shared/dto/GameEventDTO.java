@@ -0,0 +1,16 @@
+package be.kdg.gameservice.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public final class GameEventDTO {
+    private String idempotencyKey;
+    private String type;
+    private List<String> userIds;
+}
@@ -0,0 +1,14 @@
+package be.kdg.gameservice.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public final class GameEventResultDTO {
+    private String idempotencyKey;
+    private boolean handled;
+    private String error;
+}
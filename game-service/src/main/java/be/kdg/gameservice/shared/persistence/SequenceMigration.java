@@ -0,0 +1,105 @@
+package be.kdg.gameservice.shared.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves the id sequences of the entities past the ids that are already in their tables.
+ * <p>
+ * Every entity takes its ids from its own sequence, a block of ids at a time. The rows that were inserted before
+ * took their ids from one shared sequence, so a new sequence would hand out ids that are taken already.
+ * A sequence that is behind the largest id of its table is restarted one block past it.
+ * <p>
+ * The migration runs while the application starts, after the schema is updated and before any entity is inserted.
+ * A sequence that is ahead of its table is left alone, so it can run on every start. The current value of a sequence
+ * is read without taking a block of ids from it, on the databases that allow it: PostgreSQL and H2.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceMigration.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+
+        //Entities of one hierarchy share their sequence and, with a single table, their table as well
+        Map<String, Set<String>> largestIdQueries = new HashMap<>();
+        Map<String, Integer> incrementSizes = new HashMap<>();
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator)) continue;
+            if (!(persister instanceof AbstractEntityPersister)) continue;
+
+            DatabaseStructure sequence = ((SequenceStyleGenerator) persister.getIdentifierGenerator()).getDatabaseStructure();
+            AbstractEntityPersister table = (AbstractEntityPersister) persister;
+            largestIdQueries.computeIfAbsent(sequence.getName(), name -> new HashSet<>())
+                    .add("select max(" + table.getIdentifierColumnNames()[0] + ") from " + table.getTableName());
+            incrementSizes.put(sequence.getName(), sequence.getIncrementSize());
+        }
+
+        largestIdQueries.forEach((sequence, queries) -> {
+            long largestId = 0;
+            for (String query : queries) {
+                Long max = jdbcTemplate.queryForObject(query, Long.class);
+                if (max != null) largestId = Math.max(largestId, max);
+            }
+            if (largestId == 0) return;
+
+            try {
+                long current = currentValue(dialect, sequence);
+                int incrementSize = incrementSizes.get(sequence);
+                //The optimizer hands out the block of ids up to the value of the sequence, the next block starts after this value
+                if (current >= largestId) return;
+
+                jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (largestId + incrementSize));
+                LOGGER.info("Moved sequence " + sequence + " past id " + largestId);
+            } catch (DataAccessException e) {
+                LOGGER.warn("Sequence " + sequence + " could not be moved past id " + largestId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @param sequence The name of the sequence, with its schema if it has one.
+     * @return The last value the sequence handed out. On a database that can not read it, the next value is taken.
+     */
+    private long currentValue(Dialect dialect, String sequence) {
+        if (dialect instanceof PostgreSQL81Dialect)
+            return jdbcTemplate.queryForObject("select last_value from " + sequence, Long.class);
+
+        if (dialect instanceof H2Dialect) {
+            int dot = sequence.lastIndexOf('.');
+            String name = sequence.substring(dot + 1).toUpperCase();
+            if (dot < 0) {
+                return jdbcTemplate.queryForObject("select current_value from information_schema.sequences"
+                        + " where sequence_schema = schema() and sequence_name = ?", Long.class, name);
+            }
+            return jdbcTemplate.queryForObject("select current_value from information_schema.sequences"
+                    + " where sequence_schema = ? and sequence_name = ?", Long.class, sequence.substring(0, dot).toUpperCase(), name);
+        }
+        return jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class);
+    }
+}
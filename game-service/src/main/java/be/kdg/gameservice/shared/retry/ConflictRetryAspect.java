@@ -0,0 +1,77 @@
+package be.kdg.gameservice.shared.retry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries the methods that are annotated with {@link RetryOnConflict} a bounded number of times.
+ * The aspect runs before the transaction of the method is started, so every attempt gets its own transaction.
+ * A call that is made inside a running transaction is not retried: the data it read is part of that transaction,
+ * the outermost retried call starts over instead.
+ * <p>
+ * Between two attempts the thread waits a random time that doubles with every attempt,
+ * so the transactions that conflicted do not meet again right away.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConflictRetryAspect.class);
+
+    /**
+     * The maximum number of times a method is run.
+     */
+    @Value("${conflict-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * The maximum wait in ms before the second attempt, it doubles for every next attempt.
+     */
+    @Value("${conflict-retry.backoff:20}")
+    private long backoff;
+
+    @Around("@within(be.kdg.gameservice.shared.retry.RetryOnConflict) || @annotation(be.kdg.gameservice.shared.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return joinPoint.proceed();
+
+        RetryOnConflict retryOnConflict = getAnnotation(joinPoint);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isConflict(e, retryOnConflict)) throw e;
+                LOGGER.info("Conflict in " + joinPoint.getSignature().toShortString() + ", attempt " + attempt + " of " + maxAttempts);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoff << (attempt - 1)) + 1);
+            }
+        }
+    }
+
+    private static boolean isConflict(RuntimeException e, RetryOnConflict retryOnConflict) {
+        for (Class<? extends RuntimeException> conflict : retryOnConflict.value()) {
+            if (conflict.isInstance(e)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The annotation of the method, or else the one of its class.
+     */
+    private static RetryOnConflict getAnnotation(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        RetryOnConflict annotation = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), RetryOnConflict.class);
+        if (annotation != null) return annotation;
+        return AnnotatedElementUtils.findMergedAnnotation(joinPoint.getTarget().getClass(), RetryOnConflict.class);
+    }
+}
@@ -0,0 +1,22 @@
+package be.kdg.gameservice.shared.retry;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs a service method again when its transaction lost a race with another transaction on the same rows,
+ * like a version conflict on an entity. Every attempt runs in a new transaction on fresh data.
+ * On a class, every public method of the service is retried.
+ *
+ * @see ConflictRetryAspect
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+    /**
+     * @return The exceptions that mean another transaction changed the same rows first.
+     */
+    Class<? extends RuntimeException>[] value() default ConcurrencyFailureException.class;
+}
@@ -0,0 +1,273 @@
+package be.kdg.gameservice.shared.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * A timer for a large number of short deadlines, as a wheel of buckets that is turned one bucket every tick.
+ * A timeout is hashed into the bucket of its deadline, so arming and cancelling it costs constant time
+ * no matter how many timeouts are pending. The price is precision: a timeout expires up to one tick late.
+ * <p>
+ * One worker thread turns the wheel and runs the tasks of the expired timeouts, so the tasks should hand off
+ * anything that takes longer than a tick. Timeouts are armed and cancelled through lock-free queues
+ * that the worker drains every tick.
+ */
+public final class HashedTimingWheel implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /**
+     * The maximum number of new timeouts that are put in the wheel per tick, so a burst does not stall expiry.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> armed = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Receives the lag of every expired timeout in nanoseconds: the time between its deadline and its expiry.
+     */
+    private final LongConsumer lagListener;
+
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+
+    /**
+     * The number of ticks the wheel has turned, only used by the worker.
+     */
+    private long tick;
+
+    /**
+     * @param name        The name of the worker thread.
+     * @param tick        The duration of a tick, the precision of the timer.
+     * @param unit        The unit of the tick.
+     * @param wheelSize   The number of buckets, rounded up to a power of two.
+     * @param lagListener Receives the lag of every expired timeout in nanoseconds.
+     */
+    public HashedTimingWheel(String name, long tick, TimeUnit unit, int wheelSize, LongConsumer lagListener) {
+        if (tick <= 0) throw new IllegalArgumentException("The tick needs to be positive.");
+        if (wheelSize <= 0 || wheelSize > 1 << 30) throw new IllegalArgumentException("The wheel size needs to be between 1 and 2^30.");
+
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new Bucket();
+        this.mask = wheel.length - 1;
+        this.lagListener = lagListener;
+
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Arms a timeout.
+     *
+     * @param task  The task that is run by the worker thread when the timeout expires.
+     * @param delay The time until the timeout expires.
+     * @param unit  The unit of the delay.
+     * @return The timeout, that can be cancelled until it expires.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("The timing wheel is closed.");
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        pending.incrementAndGet();
+        armed.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return The number of timeouts that are armed and did not expire or get cancelled yet.
+     */
+    public int getPendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the worker thread, pending timeouts do not expire anymore.
+     */
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (now < 0) continue;
+
+            removeCancelled();
+            transferArmed();
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+    }
+
+    /**
+     * @return The time since the start of the wheel, or -1 if the worker was interrupted.
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - now + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) return now;
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!running) return -1;
+            }
+        }
+    }
+
+    private void transferArmed() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = armed.poll();
+            if (timeout == null) return;
+            if (timeout.state.get() != Timeout.ARMED) continue;
+
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            //A timeout that is already due goes in the current bucket
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    /**
+     * A timeout that is armed in the wheel.
+     */
+    public final class Timeout {
+        private static final int ARMED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        /**
+         * The deadline in nanoseconds since the start of the wheel.
+         */
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(ARMED);
+
+        /**
+         * The number of turns of the wheel until the timeout expires, only used by the worker.
+         */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout, it is removed from the wheel by the worker on the next tick.
+         *
+         * @return True if the timeout was cancelled, false if it already expired or was cancelled before.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ARMED, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * @return True if the timeout was cancelled.
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * @return True if the timeout expired and its task was run.
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire(long now) {
+            if (!state.compareAndSet(ARMED, EXPIRED)) return;
+            pending.decrementAndGet();
+            lagListener.accept(Math.max(now - deadline, 0));
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.warn("A timeout task failed", t);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of the timeouts that hash to the same slot of the wheel.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire(now);
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) return;
+            if (timeout.previous != null) timeout.previous.next = timeout.next;
+            if (timeout.next != null) timeout.next.previous = timeout.previous;
+            if (timeout == head) head = timeout.next;
+            if (timeout == tail) tail = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
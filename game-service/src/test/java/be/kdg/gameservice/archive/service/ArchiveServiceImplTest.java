@@ -0,0 +1,171 @@
+package be.kdg.gameservice.archive.service;
+
+import be.kdg.gameservice.archive.model.ArchivedAct;
+import be.kdg.gameservice.archive.model.ArchivedHand;
+import be.kdg.gameservice.archive.model.ArchivedPlayer;
+import be.kdg.gameservice.archive.persistence.ArchivedRoundRepository;
+import be.kdg.gameservice.archive.service.api.ArchiveService;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+/**
+ * Rounds can be archived right after they finished, the archiver only runs when the test calls it.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(UserServiceStubConfig.class)
+@TestPropertySource(properties = {"archive.min-age=0", "archive.interval=3600000"})
+public class ArchiveServiceImplTest {
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private ArchivedRoundRepository archivedRoundRepository;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private RoundService roundService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private RoundRepository roundRepository;
+    @Autowired
+    private LiveRoundStore liveRounds;
+
+    private int roomId;
+
+    @Before
+    public void setup() throws RoomException {
+        roomId = roomService.addRoom("Archive room", new GameRules()).getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        playerService.joinRoom(roomId, "Dirk");
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        outboxService.dispatch();
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void finishedRoundsAreMovedToTheArchive() throws RoomException, RoundException {
+        Round first = roomService.startNewRoundForRoom(roomId);
+        Map<String, ArchivedPlayer> dealt = dealtPlayers(first);
+        roundService.saveAct(first.getId(), roundService.getPlayerToAct(first.getId()), ActType.CALL, Phase.PRE_FLOP, 20, false);
+        Round second = roomService.startNewRoundForRoom(roomId);
+        Map<String, ArchivedPlayer> dealtSecond = dealtPlayers(second);
+        Round current = roomService.startNewRoundForRoom(roomId);
+        liveRounds.flush();
+        Round played = roundRepository.findById(first.getId()).orElseThrow(AssertionError::new);
+
+        //The rounds are only archived once their side effects are delivered
+        assertEquals(0, archiveService.getHandsOfRoom(roomId, 0, Long.MAX_VALUE, 0, 10).size());
+        archiveService.archiveRounds();
+        assertTrue(roundRepository.existsById(first.getId()));
+        outboxService.dispatch();
+        assertTrue(archiveService.archiveRounds() >= 2);
+
+        assertFalse(roundRepository.existsById(first.getId()));
+        assertFalse(roundRepository.existsById(second.getId()));
+        assertTrue(roundRepository.existsById(current.getId()));
+        assertEquals(3, roomService.getRoom(roomId).getPlayersInRoom().size());
+        assertNotNull(roundService.getPlayerToAct(current.getId()));
+
+        List<ArchivedHand> hands = archiveService.getHandsOfRoom(roomId, 0, Long.MAX_VALUE, 0, 10);
+        assertEquals(2, hands.size());
+        assertEquals(second.getId(), hands.get(0).getRoundId());
+        ArchivedHand hand = hands.get(1);
+        assertEquals(first.getId(), hand.getRoundId());
+        assertEquals(played.getPot(), hand.getPot());
+        assertEquals(played.getButton(), hand.getButton());
+        assertEquals(played.getCards().stream().map(card -> card.type).collect(toList()), hand.getBoard());
+        assertEquals(played.getActs().size(), hand.getActs().size());
+        for (int i = 0; i < hand.getActs().size(); i++) {
+            ArchivedAct act = hand.getActs().get(i);
+            assertEquals(played.getActs().get(i).getPlayer().getUserId(), act.getUserId());
+            assertEquals(played.getActs().get(i).getType(), act.getType());
+            assertEquals(played.getActs().get(i).getBet(), act.getBet());
+            assertEquals(played.getActs().get(i).getTimestamp().withNano(0), act.getTimestamp().withNano(0));
+        }
+        //The players moved on to the next rounds, the hand keeps the seats and the cards they were dealt
+        assertDealt(dealt, hand);
+        assertDealt(dealtSecond, hands.get(0));
+        assertTrue(archivedRoundRepository.findById(first.getId()).orElseThrow(AssertionError::new).getHand().length < 128);
+    }
+
+    @Test
+    public void archiveIsSearchedByUserAndTime() throws RoomException, RoundException {
+        Round first = roomService.startNewRoundForRoom(roomId);
+        Set<String> blinds = first.getActs().stream().map(act -> act.getPlayer().getUserId()).collect(toSet());
+        String button = dealtPlayers(first).keySet().stream()
+                .filter(userId -> !blinds.contains(userId))
+                .findAny().orElseThrow(AssertionError::new);
+        roomService.startNewRoundForRoom(roomId);
+        outboxService.dispatch();
+        archiveService.archiveRounds();
+
+        //The player on the button was dealt in, but did not act before the round was archived
+        List<ArchivedHand> hands = archiveService.getHandsOfUser(button, 0, Long.MAX_VALUE, 0, 100).stream()
+                .filter(hand -> hand.getRoomId() == roomId)
+                .collect(toList());
+        assertEquals(1, hands.size());
+        assertEquals(first.getId(), hands.get(0).getRoundId());
+        assertEquals(first.getStartedAt(), hands.get(0).getPlayedAt());
+        for (CardType card : hands.get(0).getBoard()) assertNotNull(card);
+
+        assertTrue(archiveService.getHandsOfRoom(roomId, first.getStartedAt() + 1, Long.MAX_VALUE, 0, 10).isEmpty());
+        assertTrue(archiveService.getHandsOfRoom(roomId, 0, first.getStartedAt(), 0, 10).isEmpty());
+        assertTrue(archiveService.getHandsOfUser("Nobody", 0, Long.MAX_VALUE, 0, 10).isEmpty());
+    }
+
+    /**
+     * @return The seats and hole cards of the players of a round that was just started, by user id.
+     */
+    private static Map<String, ArchivedPlayer> dealtPlayers(Round round) {
+        return round.getPlayersInRound().stream().collect(toMap(Player::getUserId, player -> new ArchivedPlayer(
+                player.getUserId(), player.getSeatNumber(), player.getFirstCard().type, player.getSecondCard().type, null)));
+    }
+
+    private static void assertDealt(Map<String, ArchivedPlayer> dealt, ArchivedHand hand) {
+        assertEquals(dealt.keySet(), hand.getPlayers().stream().map(ArchivedPlayer::getUserId).collect(toSet()));
+        for (ArchivedPlayer player : hand.getPlayers()) {
+            ArchivedPlayer expected = dealt.get(player.getUserId());
+            assertEquals(expected.getSeatNumber(), player.getSeatNumber());
+            assertEquals(expected.getFirstCard(), player.getFirstCard());
+            assertEquals(expected.getSecondCard(), player.getSecondCard());
+        }
+    }
+}
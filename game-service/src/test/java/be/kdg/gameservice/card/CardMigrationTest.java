@@ -0,0 +1,167 @@
+package be.kdg.gameservice.card;
+
+import be.kdg.gameservice.archive.service.api.ArchiveService;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+/**
+ * The legacy card table and join columns are created by the test, a fresh schema no longer has them.
+ * Rounds can be archived right after they finished, the archiver only runs when the test calls it.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(UserServiceStubConfig.class)
+@TestPropertySource(properties = {"archive.min-age=0", "archive.interval=3600000"})
+public class CardMigrationTest {
+    @Autowired
+    private CardMigration cardMigration;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private RoundRepository roundRepository;
+    @Autowired
+    private LiveRoundStore liveRounds;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    private int roomId;
+
+    @Before
+    public void setup() throws RoomException {
+        roomId = roomService.addRoom("Card room", new GameRules()).getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        jdbcTemplate.execute("drop table if exists " + table("card"));
+        jdbcTemplate.execute("alter table " + table("player") + " drop column if exists first_card");
+        jdbcTemplate.execute("alter table " + table("player") + " drop column if exists second_card");
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void cardsArePackedInOrder() {
+        List<Card> cards = Arrays.asList(new Card(CardType.ACE_OF_SPADES), new Card(CardType.TWO_OF_HEARTS),
+                new Card(CardType.KING_OF_CLUBS), new Card(CardType.TWO_OF_HEARTS));
+
+        assertEquals(cards, PackedCards.unpack(PackedCards.pack(cards)));
+        assertEquals(PackedCards.EMPTY, PackedCards.pack(Collections.emptyList()));
+        assertTrue(PackedCards.unpack(PackedCards.EMPTY).isEmpty());
+    }
+
+    @Test
+    public void storedRoundKeepsItsCards() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        liveRounds.flushRoom(roomId);
+
+        Round stored = roundRepository.findById(round.getId()).orElseThrow(AssertionError::new);
+        assertEquals(round.getCards(), stored.getCards());
+        assertEquals(round.getBoard(), stored.getBoard());
+        for (Player player : stored.getPlayersInRound()) {
+            Player dealt = round.getPlayersInRound().stream().filter(p -> p.getId() == player.getId()).findFirst().orElseThrow(AssertionError::new);
+            assertEquals(dealt.getFirstCard(), player.getFirstCard());
+            assertEquals(dealt.getSecondCard(), player.getSecondCard());
+        }
+    }
+
+    @Test
+    public void cardRowsAreMovedToTheirColumns() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        liveRounds.flushRoom(roomId);
+
+        storeAsCardRows(round);
+        cardMigration.migrate();
+        cardMigration.migrate();
+
+        Round migrated = roundRepository.findById(round.getId()).orElseThrow(AssertionError::new);
+        assertEquals(round.getCards(), migrated.getCards());
+        for (Player player : round.getPlayersInRound()) {
+            Player stored = migrated.getPlayersInRound().stream().filter(p -> p.getId() == player.getId()).findFirst().orElseThrow(AssertionError::new);
+            assertEquals(player.getFirstCard(), stored.getFirstCard());
+            assertEquals(player.getSecondCard(), stored.getSecondCard());
+        }
+    }
+
+    @Test
+    public void migratedRoundCanBeArchived() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        roomService.startNewRoundForRoom(roomId);
+        liveRounds.flushRoom(roomId);
+        outboxService.dispatch();
+
+        storeAsCardRows(round);
+        cardMigration.migrate();
+        assertEquals(0, (int) jdbcTemplate.queryForObject("select count(*) from " + table("card") + " where round_id is not null", Integer.class));
+
+        archiveService.archiveRounds();
+        assertFalse(roundRepository.existsById(round.getId()));
+        assertEquals(round.getCards().stream().map(card -> card.type).collect(toList()),
+                archiveService.getHandsOfRoom(roomId, 0, Long.MAX_VALUE, 0, 10).stream()
+                        .filter(hand -> hand.getRoundId() == round.getId()).findFirst().orElseThrow(AssertionError::new).getBoard());
+    }
+
+    /**
+     * Puts a round back the way it was stored before the cards became columns. The board cards reference
+     * the round, the players reference their hole cards.
+     */
+    private void storeAsCardRows(Round round) {
+        jdbcTemplate.execute("create table " + table("card") + " (id integer primary key, type integer, round_id integer references "
+                + table("round") + " (id))");
+        jdbcTemplate.execute("alter table " + table("player") + " add column first_card integer");
+        jdbcTemplate.execute("alter table " + table("player") + " add column second_card integer");
+        int cardId = 1;
+        for (Card card : round.getCards()) {
+            jdbcTemplate.update("insert into " + table("card") + " values (?, ?, ?)", cardId++, card.type.ordinal(), round.getId());
+        }
+        for (Player player : round.getPlayersInRound()) {
+            jdbcTemplate.update("insert into " + table("card") + " values (?, ?, null)", cardId, player.getFirstCard().type.ordinal());
+            jdbcTemplate.update("insert into " + table("card") + " values (?, ?, null)", cardId + 1, player.getSecondCard().type.ordinal());
+            jdbcTemplate.update("update " + table("player") + " set first_card = ?, second_card = ?, first_card_type = null, second_card_type = null where id = ?",
+                    cardId, cardId + 1, player.getId());
+            cardId += 2;
+        }
+        jdbcTemplate.update("update " + table("round") + " set board = 0 where id = ?", round.getId());
+    }
+
+    private String table(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+}
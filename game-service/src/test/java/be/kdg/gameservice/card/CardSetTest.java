@@ -0,0 +1,51 @@
+package be.kdg.gameservice.card;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public final class CardSetTest {
+    @Test
+    public void fullDeck() {
+        assertEquals(52, CardSet.size(CardSet.FULL_DECK));
+        assertEquals(Arrays.asList(CardType.values()), CardSet.toCardTypes(CardSet.FULL_DECK));
+    }
+
+    @Test
+    public void suitMask() {
+        for (CardType type : CardType.values()) {
+            long set = CardSet.of(type);
+            int rankBit = 1 << type.getRank().ordinal();
+            for (Suit suit : Suit.values())
+                assertEquals(suit == type.getSuit() ? rankBit : 0, CardSet.suitMask(set, suit));
+            assertEquals(rankBit, CardSet.rankMask(set));
+            assertEquals(type, CardSet.getCardType(type.ordinal()));
+        }
+    }
+
+    @Test
+    public void convertCards() {
+        long set = CardSet.of(Arrays.asList(new Card(CardType.ACE_OF_SPADES), null, new Card(CardType.TWO_OF_CLUBS)));
+        assertEquals(2, CardSet.size(set));
+        assertTrue(CardSet.contains(set, CardType.ACE_OF_SPADES));
+        assertFalse(CardSet.contains(set, CardType.ACE_OF_HEARTS));
+        assertEquals(Arrays.asList(CardType.TWO_OF_CLUBS, CardType.ACE_OF_SPADES),
+                CardSet.toCards(set).stream().map(c -> c.type).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void combineSets() {
+        long first = CardSet.of(CardType.KING_OF_HEARTS, CardType.QUEEN_OF_HEARTS);
+        long second = CardSet.with(CardSet.EMPTY, CardType.KING_OF_HEARTS);
+        assertEquals(2, CardSet.size(CardSet.union(first, second)));
+        assertEquals(3, CardSet.size(CardSet.with(first, CardType.JACK_OF_HEARTS)));
+    }
+}
@@ -0,0 +1,69 @@
+package be.kdg.gameservice.cluster.model;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public final class ConsistentHashRingTest {
+    private static final int ROOMS = 100_000;
+    private static final int VIRTUAL_NODES = 160;
+
+    @Test
+    public void roomsAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("node-1", "node-2", "node-3", "node-4"), VIRTUAL_NODES);
+        Map<String, Integer> rooms = new HashMap<>();
+        for (int roomId = 1; roomId <= ROOMS; roomId++) rooms.merge(ring.getOwner(roomId), 1, Integer::sum);
+
+        assertEquals(4, rooms.size());
+        for (int count : rooms.values()) assertEquals(ROOMS / 4.0, count, ROOMS / 4.0 * 0.2);
+    }
+
+    @Test
+    public void onlyTheRoomsOfAJoiningNodeMove() {
+        ConsistentHashRing before = new ConsistentHashRing(Arrays.asList("node-1", "node-2", "node-3"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(Arrays.asList("node-1", "node-2", "node-3", "node-4"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            if (before.getOwner(roomId).equals(after.getOwner(roomId))) continue;
+            assertEquals("node-4", after.getOwner(roomId));
+            moved++;
+        }
+        assertEquals(ROOMS / 4.0, moved, ROOMS / 4.0 * 0.2);
+    }
+
+    @Test
+    public void onlyTheRoomsOfALeavingNodeMove() {
+        ConsistentHashRing before = new ConsistentHashRing(Arrays.asList("node-1", "node-2", "node-3"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(Arrays.asList("node-1", "node-3"), VIRTUAL_NODES);
+
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            String owner = before.getOwner(roomId);
+            if (!owner.equals("node-2")) assertEquals(owner, after.getOwner(roomId));
+            else assertNotEquals("node-2", after.getOwner(roomId));
+        }
+    }
+
+    @Test
+    public void sameNodesBuildTheSameRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("node-2", "node-1"), VIRTUAL_NODES);
+        ConsistentHashRing other = new ConsistentHashRing(Arrays.asList("node-1", "node-2"), VIRTUAL_NODES);
+        for (int roomId = 1; roomId <= 1000; roomId++) assertEquals(ring.getOwner(roomId), other.getOwner(roomId));
+
+        ConsistentHashRing single = new ConsistentHashRing(Collections.singletonList("node-1"), VIRTUAL_NODES);
+        assertEquals("node-1", single.getOwner(Integer.MIN_VALUE));
+        assertEquals("node-1", single.getOwner(Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptyRingHasNoOwner() {
+        new ConsistentHashRing(Collections.emptyList(), VIRTUAL_NODES).getOwner(1);
+    }
+}
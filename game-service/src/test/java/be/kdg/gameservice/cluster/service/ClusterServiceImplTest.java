@@ -0,0 +1,159 @@
+package be.kdg.gameservice.cluster.service;
+
+import be.kdg.gameservice.cluster.controller.RoomChannelInterceptor;
+import be.kdg.gameservice.cluster.exception.RoomNotOwnedException;
+import be.kdg.gameservice.cluster.model.ConsistentHashRing;
+import be.kdg.gameservice.cluster.service.api.ClusterService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This node is node-1 of a cluster with node-2, which is never probed: the test decides when node-2 joins or leaves.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(UserServiceStubConfig.class)
+@TestPropertySource(properties = {
+        "cluster.node-id=node-1",
+        "cluster.nodes=node-1=http://localhost:5001,node-2=http://localhost:5002",
+        "cluster.virtual-nodes=160",
+        "cluster.health-interval=3600000"})
+public class ClusterServiceImplTest {
+    @Autowired
+    private ClusterService clusterService;
+    @Autowired
+    private RoomChannelInterceptor roomChannelInterceptor;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private LiveRoundStore liveRounds;
+
+    private final ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("node-1", "node-2"), 160);
+    private final List<Integer> roomIds = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        clusterService.nodeJoined("node-2");
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        clusterService.nodeJoined("node-2");
+        for (int roomId : roomIds) roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void roomsAreOwnedByTheRing() throws RoomException {
+        int localRoom = addRoom("node-1");
+        int remoteRoom = addRoom("node-2");
+
+        assertTrue(clusterService.isClustered());
+        assertTrue(clusterService.isLocal(localRoom));
+        assertFalse(clusterService.isLocal(remoteRoom));
+        assertEquals("http://localhost:5002", clusterService.getOwner(remoteRoom).getUrl());
+        assertTrue(clusterService.isLeader());
+
+        try {
+            clusterService.checkLocal(remoteRoom);
+            fail("A room of another node should not be served here.");
+        } catch (RoomNotOwnedException e) {
+            assertEquals(remoteRoom, e.getRoomId());
+            assertEquals("node-2", e.getOwner().getId());
+        }
+    }
+
+    @Test
+    public void roomsOfALeavingNodeMoveHere() throws RoomException {
+        int remoteRoom = addRoom("node-2");
+        clusterService.nodeLeft("node-2");
+
+        assertTrue(clusterService.isLocal(remoteRoom));
+        assertEquals(1, clusterService.getLiveNodes().size());
+
+        //This node never leaves its own cluster
+        clusterService.nodeLeft("node-1");
+        assertEquals("node-1", clusterService.getLiveNodes().get(0).getId());
+    }
+
+    @Test
+    public void roundsOfAJoiningNodeAreReleased() throws RoomException, RoundException {
+        int localRoom = addRoom("node-1");
+        int remoteRoom = addRoom("node-2");
+        clusterService.nodeLeft("node-2");
+
+        Round localRound = roomService.startNewRoundForRoom(localRoom);
+        roomService.startNewRoundForRoom(remoteRoom);
+        assertTrue(liveRounds.getCurrentRound(remoteRoom).isPresent());
+
+        clusterService.nodeJoined("node-2");
+        assertFalse(liveRounds.getCurrentRound(remoteRoom).isPresent());
+        assertSame(localRound, liveRounds.getCurrentRound(localRoom).orElse(null));
+    }
+
+    @Test
+    public void subscriptionsToRoomsOfOtherNodesAreRefused() throws RoomException {
+        int localRoom = addRoom("node-1");
+        int remoteRoom = addRoom("node-2");
+
+        Message<?> local = subscribe("/room/receive-round/" + localRoom);
+        assertSame(local, roomChannelInterceptor.preSend(local, null));
+        Message<?> lobby = subscribe("/room/receive-room/");
+        assertSame(lobby, roomChannelInterceptor.preSend(lobby, null));
+
+        try {
+            roomChannelInterceptor.preSend(subscribe("/chatroom/receive/" + remoteRoom), null);
+            fail("A subscription to a room of another node should be refused.");
+        } catch (MessageDeliveryException e) {
+            assertTrue(e.getMessage().contains("http://localhost:5002"));
+        }
+    }
+
+    /**
+     * Adds rooms until one is owned by the node when both nodes are up.
+     */
+    private int addRoom(String owner) throws RoomException {
+        while (true) {
+            int roomId = roomService.addRoom("Cluster room", new GameRules()).getId();
+            playerService.joinRoom(roomId, "Maarten");
+            playerService.joinRoom(roomId, "Remi");
+            roomIds.add(roomId);
+            if (ring.getOwner(roomId).equals(owner)) return roomId;
+        }
+    }
+
+    private static Message<?> subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("1");
+        accessor.setSessionId("1");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
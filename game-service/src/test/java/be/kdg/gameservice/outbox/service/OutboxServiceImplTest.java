@@ -0,0 +1,185 @@
+package be.kdg.gameservice.outbox.service;
+
+import be.kdg.gameservice.outbox.model.OutboxMessage;
+import be.kdg.gameservice.outbox.model.OutboxType;
+import be.kdg.gameservice.outbox.persistence.OutboxRepository;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.replay.service.api.ReplayService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActOutcome;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStub;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+/**
+ * The messages are only delivered when the test dispatches them, failed deliveries can be retried right away.
+ * The live rounds are only written when the test flushes them.
+ * The user service is replaced by a stub that can be taken down.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(UserServiceStubConfig.class)
+@TestPropertySource(properties = {"outbox.retry-delay=0", "outbox.dispatch-interval=3600000", "live-rounds.flush-interval=3600000"})
+public class OutboxServiceImplTest {
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private RoundService roundService;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private LiveRoundStore liveRounds;
+    @Autowired
+    private UserServiceStub userServiceStub;
+    @Autowired
+    private ReplayService replayService;
+
+    private int roomId;
+
+    @Before
+    public void setup() throws RoomException {
+        Room room = roomService.addRoom("Outbox room", new GameRules());
+        roomId = room.getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        playerService.joinRoom(roomId, "Dirk");
+        outboxService.dispatch();
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        userServiceStub.setAvailable(true);
+        userServiceStub.clearUnknownUsers();
+        outboxService.dispatch();
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void sideEffectsAreWrittenWithTheRound() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        assertEquals(1, getMessages(round.getId(), OutboxType.GAMES_PLAYED).size());
+        assertEquals(3, getMessages(round.getId(), OutboxType.GAMES_PLAYED).get(0).getUserIds().size());
+
+        //The win is written together with the acts of the round
+        foldRound(round);
+        assertTrue(getMessages(round.getId(), OutboxType.WIN).isEmpty());
+        liveRounds.flush();
+        assertEquals(1, getMessages(round.getId(), OutboxType.WIN).size());
+        assertEquals(1, getMessages(round.getId(), OutboxType.WINNER_ANNOUNCEMENT).size());
+
+        Round next = roomService.startNewRoundForRoom(roomId);
+        assertEquals(1, getMessages(round.getId(), OutboxType.REPLAY).size());
+        assertEquals(3, getMessages(round.getId(), OutboxType.REPLAY).get(0).getUserIds().size());
+        assertEquals(1, getMessages(next.getId(), OutboxType.GAMES_PLAYED).size());
+
+        int wins = userServiceStub.getWins();
+        int gamesPlayed = userServiceStub.getGamesPlayed();
+        assertTrue(outboxService.dispatch() >= 5);
+        assertEquals(wins + 1, userServiceStub.getWins());
+        assertEquals(gamesPlayed + 6, userServiceStub.getGamesPlayed());
+        assertTrue(getMessages(round.getId(), null).isEmpty());
+        assertEquals(0, outboxService.dispatch());
+
+        //The replays are made for the players of the round, who play in the next round by now
+        for (String userId : new String[]{"Maarten", "Remi", "Dirk"}) {
+            assertEquals(1, replayService.getReplays(userId).stream().filter(r -> r.getRoundNumber() == round.getId()).count());
+        }
+    }
+
+    @Test
+    public void retryWhenUserServiceIsDown() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        int gamesPlayed = userServiceStub.getGamesPlayed();
+
+        userServiceStub.setAvailable(false);
+        outboxService.dispatch();
+        List<OutboxMessage> messages = getMessages(round.getId(), OutboxType.GAMES_PLAYED);
+        assertEquals(1, messages.size());
+        assertEquals(1, messages.get(0).getAttempts());
+        assertEquals(gamesPlayed, userServiceStub.getGamesPlayed());
+
+        userServiceStub.setAvailable(true);
+        userServiceStub.clearUnknownUsers();
+        outboxService.dispatch();
+        assertTrue(getMessages(round.getId(), OutboxType.GAMES_PLAYED).isEmpty());
+        assertEquals(gamesPlayed + 3, userServiceStub.getGamesPlayed());
+    }
+
+    @Test
+    public void failingEventsDoNotHoldBackTheBatch() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        String winner = foldRound(round);
+        liveRounds.flush();
+        int wins = userServiceStub.getWins();
+        int gamesPlayed = userServiceStub.getGamesPlayed();
+
+        //The games played of every player fail, the win of the winner is applied on its own
+        userServiceStub.addUnknownUser(winner.equals("Dirk") ? "Remi" : "Dirk");
+        outboxService.dispatch();
+        assertEquals(wins + 1, userServiceStub.getWins());
+        assertEquals(gamesPlayed, userServiceStub.getGamesPlayed());
+        assertTrue(getMessages(round.getId(), OutboxType.WIN).isEmpty());
+        List<OutboxMessage> failed = getMessages(round.getId(), OutboxType.GAMES_PLAYED);
+        assertEquals(1, failed.size());
+        assertEquals(1, failed.get(0).getAttempts());
+
+        userServiceStub.clearUnknownUsers();
+        outboxService.dispatch();
+        assertTrue(getMessages(round.getId(), OutboxType.GAMES_PLAYED).isEmpty());
+        assertEquals(gamesPlayed + 3, userServiceStub.getGamesPlayed());
+    }
+
+    @Test(expected = RoundException.class)
+    public void noActsAfterWinner() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        foldRound(round);
+        roundService.playAct(round.getId(), roundService.getPlayerToAct(round.getId()), ActType.CHECK, Phase.PRE_FLOP, 0, false);
+    }
+
+    /**
+     * Lets every player but one fold.
+     *
+     * @return The user id of the winner.
+     */
+    private String foldRound(Round round) throws RoundException {
+        ActOutcome outcome;
+        do {
+            String userId = roundService.getPlayerToAct(round.getId());
+            outcome = roundService.playAct(round.getId(), userId, ActType.FOLD, round.getCurrentPhase(), 0, false);
+        } while (!outcome.getWinner().isPresent());
+        return outcome.getWinner().get().getUserId();
+    }
+
+    private List<OutboxMessage> getMessages(int roundId, OutboxType type) {
+        return outboxRepository.findAll().stream()
+                .filter(m -> m.getRoundId() == roundId && (type == null || m.getType() == type))
+                .collect(toList());
+    }
+}
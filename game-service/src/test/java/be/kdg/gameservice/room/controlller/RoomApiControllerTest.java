@@ -80,7 +80,7 @@ public class RoomApiControllerTest extends UtilTesting {
     public void addPrivateRoom() throws Exception {
         int privateRoomSize = privateRoomService.getPrivateRooms(testableUserId).size();
 
-        PrivateRoomDTO privateRoomDTO = new PrivateRoomDTO(0, "test private room", new GameRules(), new ArrayList<>(), new ArrayList<>());
+        PrivateRoomDTO privateRoomDTO = new PrivateRoomDTO(0, "test private room", new GameRules(), new ArrayList<>(), 0, new ArrayList<>());
         String json = new Gson().toJson(privateRoomDTO);
 
         testMockMvc("/rooms/private",json, mockMvc, RequestType.POST);
@@ -6,6 +6,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @SpringBootTest
 @RunWith(SpringRunner.class)
@@ -20,7 +21,7 @@ public final class RoomTest {
         assertEquals(room.getGameRules().getBigBlind(), 16);
         assertEquals(room.getGameRules().getMinLevel(), 1);
         assertEquals(room.getGameRules().getMaxLevel(), 50);
-        assertEquals(room.getRounds().size(), 0);
+        assertNull(room.getCurrentRound());
         assertEquals(room.getPlayersInRoom().size(), 0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package be.kdg.gameservice.room.model;
+
+import be.kdg.gameservice.round.model.ActType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public final class SeatRingTest {
+    private final Player first = new Player(2000, "1", 1);
+    private final Player third = new Player(2000, "3", 3);
+    private final Player sixth = new Player(2000, "6", 6);
+
+    @Test
+    public void nextActiveWrapsAround() {
+        SeatRing seats = new SeatRing(Arrays.asList(sixth, first, third));
+        assertSame(first, seats.getNextActive(0));
+        assertSame(third, seats.getNextActive(1));
+        assertSame(sixth, seats.getNextActive(4));
+        assertSame(first, seats.getNextActive(6));
+
+        seats.setFolded(first, true);
+        assertSame(third, seats.getNextActive(6));
+        assertEquals(2, seats.getActiveCount());
+
+        seats.setFolded(third, true);
+        seats.setFolded(sixth, true);
+        assertNull(seats.getNextActive(0));
+    }
+
+    @Test
+    public void foldedPlayersFromLastAct() {
+        third.setLastAct(ActType.FOLD);
+        SeatRing seats = new SeatRing(Arrays.asList(first, third, sixth));
+        assertSame(sixth, seats.getNextActive(1));
+        assertEquals(3, seats.getOccupiedCount());
+    }
+
+    @Test
+    public void firstEmptySeat() {
+        Room room = new Room("Seats");
+        assertEquals(1, room.getFirstEmptySeat());
+        room.addPlayer(first);
+        room.addPlayer(third);
+        assertEquals(2, room.getFirstEmptySeat());
+        room.addPlayer(new Player(2000, "2", 2));
+        assertEquals(4, room.getFirstEmptySeat());
+        room.removePlayer(first);
+        assertEquals(1, room.getFirstEmptySeat());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void seatTaken() {
+        new SeatRing(Arrays.asList(first, new Player(2000, "other", 1)));
+    }
+}
@@ -0,0 +1,193 @@
+package be.kdg.gameservice.room.service;
+
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.LobbyRoom;
+import be.kdg.gameservice.room.model.RoomType;
+import be.kdg.gameservice.room.service.api.LobbyService;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.PrivateRoomService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The lobby is only read from the database when the test calls it.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(UserServiceStubConfig.class)
+@TestPropertySource(properties = {"lobby.refresh-interval=3600000", "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class LobbyServiceImplTest {
+    @Autowired
+    private LobbyService lobbyService;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PrivateRoomService privateRoomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private RoundService roundService;
+    @Autowired
+    private LiveRoundStore liveRounds;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Integer> roomIds = new ArrayList<>();
+
+    @After
+    public void cleanup() throws RoomException {
+        for (int roomId : roomIds) roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void joinsAndLeavesChangeThePlayerCount() throws RoomException, RoundException {
+        int roomId = addRoom("Lobby room");
+        assertEquals(0, getLobbyRoom(roomId).getPlayerCount());
+
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        assertEquals(2, getLobbyRoom(roomId).getPlayerCount());
+
+        playerService.leaveRoom(roomId, "Remi");
+        LobbyRoom room = getLobbyRoom(roomId);
+        assertEquals(1, room.getPlayerCount());
+        assertEquals("Lobby room", room.getName());
+        assertEquals(RoomType.PUBLIC, room.getType());
+        assertNull(room.getCurrentPhase());
+    }
+
+    @Test
+    public void roundsShowTheirPhase() throws RoomException, RoundException {
+        int roomId = addRoom("Lobby round room");
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        playerService.joinRoom(roomId, "Dirk");
+
+        Round round = roomService.startNewRoundForRoom(roomId);
+        assertEquals(Phase.PRE_FLOP, getLobbyRoom(roomId).getCurrentPhase());
+
+        roundService.playAct(round.getId(), roundService.getPlayerToAct(round.getId()), ActType.CALL, Phase.PRE_FLOP, 20, false);
+        roundService.playAct(round.getId(), roundService.getPlayerToAct(round.getId()), ActType.CALL, Phase.PRE_FLOP, 10, false);
+        assertEquals(Phase.FLOP, getLobbyRoom(roomId).getCurrentPhase());
+
+        //The live round is not written yet, the phase of this node is kept over the one in the database
+        lobbyService.refresh();
+        assertEquals(Phase.FLOP, getLobbyRoom(roomId).getCurrentPhase());
+        liveRounds.flush();
+        lobbyService.refresh();
+        assertEquals(Phase.FLOP, getLobbyRoom(roomId).getCurrentPhase());
+        assertEquals(3, getLobbyRoom(roomId).getPlayerCount());
+    }
+
+    @Test
+    public void privateRoomsAreListedApart() throws RoomException {
+        int publicRoomId = addRoom("Lobby public room");
+        int privateRoomId = privateRoomService.addPrivateRoom("Maarten", new GameRules(), "Lobby private room").getId();
+        roomIds.add(privateRoomId);
+
+        assertTrue(lobbyService.getRooms(RoomType.PUBLIC).stream().anyMatch(room -> room.getId() == publicRoomId));
+        assertTrue(lobbyService.getRooms(RoomType.PUBLIC).stream().noneMatch(room -> room.getId() == privateRoomId));
+        assertTrue(lobbyService.getRooms(RoomType.PRIVATE).stream().anyMatch(room -> room.getId() == privateRoomId));
+
+        lobbyService.refresh();
+        assertEquals(RoomType.PRIVATE, getLobbyRoom(privateRoomId).getType());
+        assertEquals(RoomType.PUBLIC, getLobbyRoom(publicRoomId).getType());
+    }
+
+    @Test
+    public void privateRoomsAreFilteredOnOwnerAndWhiteList() throws RoomException {
+        int roomId = privateRoomService.addPrivateRoom("Maarten", new GameRules(), "Lobby whitelisted room").getId();
+        roomIds.add(roomId);
+        privateRoomService.addUserToWhiteList(roomId, "Remi");
+
+        assertTrue(containsRoom(lobbyService.getPrivateRooms("Maarten"), roomId));
+        assertTrue(containsRoom(lobbyService.getPrivateRooms("Remi"), roomId));
+        assertFalse(containsRoom(lobbyService.getPrivateRooms("Dirk"), roomId));
+        assertTrue(containsRoom(lobbyService.getPrivateRoomsOfOwner("Maarten"), roomId));
+        assertFalse(containsRoom(lobbyService.getPrivateRoomsOfOwner("Remi"), roomId));
+
+        lobbyService.refresh();
+        assertTrue(containsRoom(lobbyService.getPrivateRooms("Remi"), roomId));
+        assertTrue(containsRoom(lobbyService.getPrivateRoomsOfOwner("Maarten"), roomId));
+        assertEquals("Maarten", getLobbyRoom(roomId).getOwnerId());
+
+        privateRoomService.removeUserFromWhiteList(roomId, "Remi");
+        assertFalse(containsRoom(lobbyService.getPrivateRooms("Remi"), roomId));
+        lobbyService.refresh();
+        assertFalse(containsRoom(lobbyService.getPrivateRooms("Remi"), roomId));
+        assertTrue(containsRoom(lobbyService.getPrivateRooms("Maarten"), roomId));
+    }
+
+    @Test
+    public void deletedRoomsLeaveTheLobby() throws RoomException {
+        int roomId = addRoom("Lobby deleted room");
+        assertNotNull(getLobbyRoom(roomId));
+
+        roomService.deleteRoom(roomId);
+        roomIds.remove((Integer) roomId);
+        assertNull(getLobbyRoom(roomId));
+        lobbyService.refresh();
+        assertNull(getLobbyRoom(roomId));
+    }
+
+    @Test
+    public void refreshDoesNotLoadRoomsOrRounds() throws RoomException, RoundException {
+        int roomId = addRoom("Lobby refreshed room");
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        roomService.startNewRoundForRoom(roomId);
+        liveRounds.flush();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        lobbyService.refresh();
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(RoomType.values().length + 1, statistics.getPrepareStatementCount());
+        assertEquals(2, getLobbyRoom(roomId).getPlayerCount());
+        assertEquals(Phase.PRE_FLOP, getLobbyRoom(roomId).getCurrentPhase());
+    }
+
+    private int addRoom(String name) {
+        int roomId = roomService.addRoom(name, new GameRules()).getId();
+        roomIds.add(roomId);
+        return roomId;
+    }
+
+    private static boolean containsRoom(List<LobbyRoom> rooms, int roomId) {
+        return rooms.stream().anyMatch(room -> room.getId() == roomId);
+    }
+
+    private LobbyRoom getLobbyRoom(int roomId) {
+        for (RoomType type : RoomType.values()) {
+            for (LobbyRoom room : lobbyService.getRooms(type)) {
+                if (room.getId() == roomId) return room;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+package be.kdg.gameservice.room.service;
+
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+/**
+ * Hibernate counts the entities it loads, so the test can tell how many rounds are loaded with a room.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class RoundHistoryTest {
+    private static final int ROUNDS = 7;
+
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private RoundRepository roundRepository;
+    @Autowired
+    private LiveRoundStore liveRounds;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private int roomId;
+    private final List<Integer> roundIds = new ArrayList<>();
+
+    @Before
+    public void setup() throws RoomException, RoundException {
+        Room room = roomService.addRoom("History room", new GameRules());
+        roomId = room.getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        for (int i = 0; i < ROUNDS; i++) roundIds.add(roomService.startNewRoundForRoom(roomId).getId());
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void roomIsLoadedWithOnlyItsCurrentRound() throws RoomException {
+        liveRounds.flushRoom(roomId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Room room = roomService.getRoom(roomId);
+        assertEquals(roundIds.get(ROUNDS - 1).intValue(), room.getCurrentRound().getId());
+        assertFalse(room.getCurrentRound().isFinished());
+        assertEquals(1, statistics.getEntityStatistics(Round.class.getName()).getLoadCount());
+    }
+
+    @Test
+    public void pastRoundsArePaged() {
+        List<Round> firstPage = roomService.getPastRounds(roomId, 0, 4);
+        assertEquals(roundIds.subList(2, 6), reversed(firstPage));
+        assertTrue(firstPage.stream().allMatch(Round::isFinished));
+        assertEquals(roundIds.subList(0, 2), reversed(roomService.getPastRounds(roomId, 1, 4)));
+        assertTrue(roomService.getPastRounds(roomId, 2, 4).isEmpty());
+    }
+
+    @Test
+    public void roundsAreDeletedWithTheirRoom() throws RoomException, RoundException {
+        Room room = roomService.addRoom("Short lived room", new GameRules());
+        playerService.joinRoom(room.getId(), "Dirk");
+        playerService.joinRoom(room.getId(), "Remi");
+        int firstRound = roomService.startNewRoundForRoom(room.getId()).getId();
+        int secondRound = roomService.startNewRoundForRoom(room.getId()).getId();
+
+        roomService.deleteRoom(room.getId());
+        assertFalse(roundRepository.existsById(firstRound));
+        assertFalse(roundRepository.existsById(secondRound));
+        assertTrue(roundRepository.existsById(roundIds.get(0)));
+    }
+
+    private static List<Integer> reversed(List<Round> rounds) {
+        List<Integer> ids = rounds.stream().map(Round::getId).collect(toList());
+        Collections.reverse(ids);
+        return ids;
+    }
+}
@@ -1,11 +1,15 @@
 package be.kdg.gameservice.round.model;
 
+import be.kdg.gameservice.card.CardType;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import static org.junit.Assert.assertEquals;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -14,4 +18,23 @@ public final class DeckTest {
     public void cardCount() {
        assertEquals(52, new Deck().getNumberOfCards());
     }
+
+    @Test
+    public void dealEveryCardOnce() {
+        Deck deck = Deck.forThread();
+        Set<CardType> dealt = EnumSet.noneOf(CardType.class);
+        while (deck.getNumberOfCards() > 0) assertTrue(dealt.add(deck.getCard()));
+        assertEquals(52, dealt.size());
+    }
+
+    @Test
+    public void reuseDeckOfThread() {
+        Deck deck = Deck.forThread();
+        deck.getCard();
+        deck.getCard();
+        assertEquals(50, deck.getNumberOfCards());
+
+        assertSame(deck, Deck.forThread());
+        assertEquals(52, deck.getNumberOfCards());
+    }
 }
@@ -8,6 +8,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -27,5 +28,24 @@ public final class HandTest {
         hand.setCards(cards);
 
         hand.generateCardRanks();
+        assertEquals(HandType.FULL_HOUSE, hand.getHandType());
+        assertEquals(Arrays.asList(9, 9, 9, 12, 12), hand.getCardRankValue());
+    }
+
+    @Test
+    public void testCompareKickers() {
+        Hand kingKicker = new Hand();
+        kingKicker.setCards(Arrays.asList(new Card(CardType.ACE_OF_CLUBS), new Card(CardType.ACE_OF_DIAMONDS),
+                new Card(CardType.KING_OF_HEARTS), new Card(CardType.FOUR_OF_SPADES), new Card(CardType.TWO_OF_CLUBS)));
+        kingKicker.generateCardRanks();
+
+        Hand queenKicker = new Hand();
+        queenKicker.setCards(Arrays.asList(new Card(CardType.ACE_OF_HEARTS), new Card(CardType.ACE_OF_SPADES),
+                new Card(CardType.QUEEN_OF_HEARTS), new Card(CardType.JACK_OF_SPADES), new Card(CardType.TEN_OF_CLUBS)));
+        queenKicker.generateCardRanks();
+
+        assertTrue(kingKicker.compareTo(queenKicker) > 0);
+        assertTrue(queenKicker.compareTo(kingKicker) < 0);
+        assertEquals(0, kingKicker.compareTo(kingKicker));
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package be.kdg.gameservice.round.model;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public final class RoundTest {
+    private List<Player> players;
+    private Round round;
+
+    @Before
+    public void setup() {
+        players = new ArrayList<>(Arrays.asList(
+                new Player(2000, "1", 1), new Player(2000, "2", 2), new Player(2000, "3", 3)));
+        round = new Round(players, 0);
+    }
+
+    @Test
+    public void dealCards() {
+        assertEquals(5, round.getCards().size());
+        long dealt = round.getBoard();
+        for (Player player : players) {
+            assertEquals(2, CardSet.size(player.getHoleCards()));
+            dealt |= player.getHoleCards();
+        }
+        assertEquals(11, CardSet.size(dealt));
+    }
+
+    @Test
+    public void updateHandTypesPerPhase() {
+        assertEquals(HandType.BAD, players.get(0).getHandType());
+        assertEquals(CardSet.EMPTY, round.getVisibleBoard());
+
+        players.get(2).setLastAct(ActType.FOLD);
+        for (Phase phase : Arrays.asList(Phase.FLOP, Phase.TURN, Phase.RIVER)) {
+            round.nextPhase();
+            assertEquals(phase, round.getCurrentPhase());
+            assertEquals(phase.getVisibleCards(), CardSet.size(round.getVisibleBoard()));
+
+            for (Player player : players.subList(0, 2)) {
+                int strength = HandEvaluator.evaluate(round.getVisibleBoard() | player.getHoleCards());
+                assertEquals(HandEvaluator.getHandType(strength), player.getHandType());
+            }
+            assertEquals(HandType.BAD, players.get(2).getHandType());
+        }
+    }
+
+    @Test
+    public void bettingPerPhase() {
+        round.addAct(new Act(players.get(0), ActType.BET, Phase.PRE_FLOP, 10));
+        round.addAct(new Act(players.get(1), ActType.RAISE, Phase.PRE_FLOP, 20));
+        PhaseBetting betting = round.getBetting();
+        assertTrue(betting.isBetPlaced());
+        assertEquals(1, betting.getLastAggressorIndex());
+        assertEquals(20, betting.getCurrentBet());
+        assertEquals(2, betting.getPlayersToAct(3));
+
+        round.addAct(new Act(players.get(2), ActType.CALL, Phase.PRE_FLOP, 20));
+        round.addAct(new Act(players.get(0), ActType.CALL, Phase.PRE_FLOP, 10));
+        assertEquals(20, betting.getContribution("1"));
+        assertTrue(betting.isFinished(3));
+
+        //A new phase starts with an empty betting state
+        round.nextPhase();
+        assertFalse(round.getBetting().isBetPlaced());
+        assertEquals(0, round.getBetting().getCurrentBet());
+        for (Player player : players) round.addAct(new Act(player, ActType.CHECK, Phase.FLOP, 0));
+        assertTrue(round.getBetting().isFinished(3));
+
+        //A round loaded from the database builds the state of the current phase from its acts
+        Round copy = new Round(players, 0);
+        round.getActs().forEach(copy::addAct);
+        assertTrue(copy.getBetting().isBetPlaced());
+        assertEquals(0, copy.getBetting().getChecksAndFolds());
+        assertEquals(20, copy.getBetting().getContribution("3"));
+    }
+}
@@ -0,0 +1,41 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Equity;
+import be.kdg.gameservice.round.service.impl.EquityServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+/**
+ * With plenty of time, a pot that is small enough to be exact is always enumerated, however busy the machine is.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "equity.time-limit=60000")
+public class EquityEnumerationTest {
+    @Autowired
+    EquityServiceImpl equityService;
+
+    @Test
+    public void acesAgainstKings() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES),
+                CardSet.of(CardType.KING_OF_CLUBS, CardType.KING_OF_DIAMONDS)
+        };
+
+        Equity equity = equityService.calculateEquity(holeCards, CardSet.EMPTY);
+        assertTrue(equity.isExact());
+        assertEquals(1712304, equity.getSamples());
+        assertEquals(0.0, equity.getStandardError(), 1e-9);
+        assertEquals(0.82, equity.getEquity()[0], 0.01);
+        assertEquals(1.0, equity.getEquity()[0] + equity.getEquity()[1], 1e-9);
+    }
+}
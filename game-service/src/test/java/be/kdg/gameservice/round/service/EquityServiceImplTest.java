@@ -0,0 +1,185 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActOutcome;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Equity;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.model.ShowdownSnapshot;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.EquityServiceImpl;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class EquityServiceImplTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EquityServiceImplTest.class);
+
+    @Autowired
+    EquityServiceImpl equityService;
+    @Autowired
+    RoundService roundService;
+    @Autowired
+    RoomService roomService;
+    @Autowired
+    PlayerService playerService;
+
+    private Integer roomId;
+
+    @After
+    public void cleanup() throws RoomException {
+        if (roomId != null) roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void simulateFourWayPot() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES),
+                CardSet.of(CardType.KING_OF_CLUBS, CardType.KING_OF_DIAMONDS),
+                CardSet.of(CardType.QUEEN_OF_HEARTS, CardType.QUEEN_OF_SPADES),
+                CardSet.of(CardType.JACK_OF_CLUBS, CardType.JACK_OF_DIAMONDS)
+        };
+
+        Equity equity = equityService.calculateEquity(holeCards, CardSet.EMPTY);
+        assertFalse(equity.isExact());
+        assertTrue(equity.getSamples() > 0);
+        assertTrue(equity.getStandardError() > 0);
+        assertEquals(1.0, Arrays.stream(equity.getEquity()).sum(), 1e-9);
+        assertTrue(equity.getEquity()[0] > equity.getEquity()[3]);
+    }
+
+    @Test
+    public void exactTurn() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.KING_OF_HEARTS),
+                CardSet.of(CardType.NINE_OF_CLUBS, CardType.NINE_OF_DIAMONDS)
+        };
+        long board = CardSet.of(CardType.TWO_OF_HEARTS, CardType.NINE_OF_HEARTS, CardType.SIX_OF_SPADES,
+                CardType.FOUR_OF_CLUBS);
+
+        //The ace of hearts draws to the nut flush: 8 hearts are left, except the ones that pair the board
+        Equity equity = equityService.calculateExactEquity(holeCards, board);
+        assertEquals(44, equity.getSamples());
+        assertEquals(7.0 / 44, equity.getWin()[0], 1e-9);
+        assertEquals(37.0 / 44, equity.getWin()[1], 1e-9);
+    }
+
+    @Test
+    public void previewAllInTurn() throws RoundException {
+        List<Player> players = new ArrayList<>(Arrays.asList(
+                new Player(2000, "1", 1), new Player(2000, "2", 2), new Player(2000, "3", 3)));
+        Round round = new Round(players, 0);
+        round.nextPhase();
+        round.nextPhase();
+        assertFalse(ShowdownSnapshot.of(round).isPresent());
+
+        players.forEach(player -> player.setAllIn(true));
+        ShowdownSnapshot showdown = ShowdownSnapshot.of(round).get();
+        //Warm up, so the budget is not spent on compilation
+        for (int i = 0; i < 100; i++) equityService.previewShowdown(showdown);
+        Optional<Equity> preview = equityService.previewShowdown(showdown);
+
+        assertTrue(preview.isPresent());
+        assertTrue(preview.get().isExact());
+        assertEquals(42, preview.get().getSamples());
+        assertEquals(Arrays.asList("1", "2", "3"), preview.get().getUserIds());
+    }
+
+    @Test
+    public void splitPotOnBoard() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.TWO_OF_HEARTS, CardType.THREE_OF_SPADES),
+                CardSet.of(CardType.TWO_OF_CLUBS, CardType.THREE_OF_DIAMONDS)
+        };
+        long board = CardSet.of(CardType.TEN_OF_CLUBS, CardType.JACK_OF_HEARTS, CardType.QUEEN_OF_SPADES,
+                CardType.KING_OF_DIAMONDS, CardType.ACE_OF_CLUBS);
+
+        Equity equity = equityService.calculateEquity(holeCards, board);
+        assertEquals(1.0, equity.getTie()[0], 1e-9);
+        assertEquals(0.5, equity.getEquity()[1], 1e-9);
+        assertEquals(0.0, equity.getStandardError(), 1e-9);
+    }
+
+    /**
+     * The equity of a round gives away the hands of the opponents, so it is refused until they are shown.
+     */
+    @Test
+    public void roundEquityAfterShowdown() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(createRoom());
+        try {
+            equityService.calculateEquity(round.getId());
+            fail("The equity should not be known before the hands are shown.");
+        } catch (RoundException e) {
+            assertTrue(e.getMessage().contains("hands are shown"));
+        }
+
+        ActOutcome outcome = roundService.playAct(round.getId(), roundService.getPlayerToAct(round.getId()),
+                ActType.CALL, Phase.PRE_FLOP, 10, false);
+        while (!outcome.getWinner().isPresent())
+            outcome = roundService.playAct(round.getId(), outcome.getNextUserId(), ActType.CHECK, outcome.getPhase(), 0, false);
+
+        Equity equity = equityService.calculateEquity(round.getId());
+        assertTrue(equity.isExact());
+        assertEquals(1.0, Arrays.stream(equity.getEquity()).sum(), 1e-9);
+    }
+
+    private int createRoom() throws RoomException {
+        roomId = roomService.addRoom("Equity room", new GameRules()).getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        return roomId;
+    }
+
+    @Test(expected = RoundException.class)
+    public void duplicateCards() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES),
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.KING_OF_DIAMONDS)
+        };
+        equityService.calculateEquity(holeCards, CardSet.EMPTY);
+    }
+
+    /**
+     * Benchmark of the simulation, logs the number of simulated hands per second for a 4-way pot before the flop.
+     */
+    @Test
+    public void throughput() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.KING_OF_HEARTS),
+                CardSet.of(CardType.NINE_OF_CLUBS, CardType.NINE_OF_DIAMONDS),
+                CardSet.of(CardType.SEVEN_OF_SPADES, CardType.EIGHT_OF_SPADES),
+                CardSet.of(CardType.QUEEN_OF_CLUBS, CardType.JACK_OF_DIAMONDS)
+        };
+
+        //Warm up the evaluator and the workers before measuring
+        for (int i = 0; i < 5; i++) equityService.calculateEquity(holeCards, CardSet.EMPTY);
+        Equity equity = equityService.calculateEquity(holeCards, CardSet.EMPTY);
+
+        LOGGER.info(String.format("Simulated %d hands at %d hands/s, standard error %.5f",
+                equity.getSamples(), equity.getHandsPerSecond(), equity.getStandardError()));
+        assertFalse(equity.isExact());
+        assertTrue(equity.getHandsPerSecond() > 0);
+    }
+}
@@ -0,0 +1,40 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Equity;
+import be.kdg.gameservice.round.service.impl.EquityServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+/**
+ * Without any time, the enumeration of a pot that is small enough to be exact is given up for the sampling.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "equity.time-limit=0")
+public class EquityTimeLimitTest {
+    @Autowired
+    EquityServiceImpl equityService;
+
+    @Test
+    public void enumerationFallsBackToSampling() throws RoundException {
+        long[] holeCards = {
+                CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES),
+                CardSet.of(CardType.KING_OF_CLUBS, CardType.KING_OF_DIAMONDS)
+        };
+
+        Equity equity = equityService.calculateEquity(holeCards, CardSet.EMPTY);
+        assertFalse(equity.isExact());
+        assertTrue(equity.getSamples() > 0);
+        assertTrue(equity.getSamples() < 1712304);
+        assertEquals(1.0, equity.getEquity()[0] + equity.getEquity()[1], 1e-9);
+    }
+}
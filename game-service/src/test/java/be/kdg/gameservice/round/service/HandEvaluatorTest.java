@@ -0,0 +1,243 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.model.HandType;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Cross-checks the lookup table evaluator against the subset enumeration that was used before.
+ * The reference below follows that algorithm: determine the hand type of a 5-card subset,
+ * sort the ranks on frequency and then on value, and keep the best of all subsets.
+ * The only difference is that the wheel (A 2 3 4 5) is ranked as a five-high straight.
+ * <p>
+ * The sweep over every 7-card combination takes minutes, it only runs with -Dhand-evaluator.exhaustive=true:
+ * gradlew exhaustiveHandEvaluator. By default a seeded sample of 7-card hands is checked instead.
+ */
+public class HandEvaluatorTest {
+    private static final CardType[] TYPES = CardType.values();
+    private static final int SAMPLE_SIZE = 100_000;
+
+    @Test
+    public void everyFiveCardCombination() {
+        Map<HandType, Integer> counts = new EnumMap<>(HandType.class);
+        int[] hand = new int[5];
+
+        for (hand[0] = 0; hand[0] < 52; hand[0]++)
+            for (hand[1] = hand[0] + 1; hand[1] < 52; hand[1]++)
+                for (hand[2] = hand[1] + 1; hand[2] < 52; hand[2]++)
+                    for (hand[3] = hand[2] + 1; hand[3] < 52; hand[3]++)
+                        for (hand[4] = hand[3] + 1; hand[4] < 52; hand[4]++) {
+                            int expected = referenceStrength(hand);
+                            assertEquals(expected, HandEvaluator.evaluate(toSet(hand)));
+                            assertEquals(expected, HandEvaluator.evaluate(toCards(hand)));
+                            counts.merge(HandEvaluator.getHandType(expected), 1, Integer::sum);
+                        }
+
+        assertEquals(40, (int) counts.get(HandType.STRAIGHT_FLUSH));
+        assertEquals(624, (int) counts.get(HandType.FOUR_OF_A_KIND));
+        assertEquals(3744, (int) counts.get(HandType.FULL_HOUSE));
+        assertEquals(5108, (int) counts.get(HandType.FLUSH));
+        assertEquals(10200, (int) counts.get(HandType.STRAIGHT));
+        assertEquals(54912, (int) counts.get(HandType.THREE_OF_A_KIND));
+        assertEquals(123552, (int) counts.get(HandType.TWO_PAIR));
+        assertEquals(1098240, (int) counts.get(HandType.PAIR));
+        assertEquals(1302540, (int) counts.get(HandType.HIGH_CARD));
+    }
+
+    /**
+     * Random 7-card hands are compared with the best of their 21 subsets according to the reference,
+     * and with a partial hand that gets the cards street by street.
+     */
+    @Test
+    public void sampleOfSevenCardHands() {
+        Random random = new Random(Long.getLong("hand-evaluator.seed", 42));
+        int[] deck = new int[52];
+        for (int i = 0; i < deck.length; i++) deck[i] = i;
+        int[] hand = new int[7];
+        int[] subset = new int[5];
+
+        for (int sample = 0; sample < SAMPLE_SIZE; sample++) {
+            //The first cards of a partial shuffle
+            for (int i = 0; i < hand.length; i++) {
+                int index = i + random.nextInt(deck.length - i);
+                int card = deck[index];
+                deck[index] = deck[i];
+                deck[i] = card;
+                hand[i] = card;
+            }
+
+            int strength = HandEvaluator.evaluate(toSet(hand));
+            assertEquals(bestOfSubsets(hand, subset), strength);
+            assertEquals(strength, HandEvaluator.evaluate(toCards(hand)));
+            assertEquals(strength, streetByStreet(hand));
+        }
+    }
+
+    /**
+     * Every 7-card combination is scored and the hand types are checked against the known distribution.
+     * Every 1000th combination is also compared with the best of its 21 subsets according to the reference,
+     * and with a partial hand that gets the cards street by street.
+     */
+    @Test
+    public void everySevenCardCombination() {
+        assumeTrue(Boolean.getBoolean("hand-evaluator.exhaustive"));
+        long[] counts = new long[HandType.values().length];
+        int[] hand = new int[7];
+        int[] subset = new int[5];
+        long combination = 0;
+
+        for (hand[0] = 0; hand[0] < 52; hand[0]++)
+            for (hand[1] = hand[0] + 1; hand[1] < 52; hand[1]++)
+                for (hand[2] = hand[1] + 1; hand[2] < 52; hand[2]++)
+                    for (hand[3] = hand[2] + 1; hand[3] < 52; hand[3]++)
+                        for (hand[4] = hand[3] + 1; hand[4] < 52; hand[4]++) {
+                            long fiveCards = toSet(Arrays.copyOf(hand, 5));
+                            for (hand[5] = hand[4] + 1; hand[5] < 52; hand[5]++)
+                                for (hand[6] = hand[5] + 1; hand[6] < 52; hand[6]++) {
+                                    long cards = fiveCards | 1L << hand[5] | 1L << hand[6];
+                                    int strength = HandEvaluator.evaluate(cards);
+                                    counts[strength >>> HandEvaluator.CATEGORY_SHIFT]++;
+
+                                    if (combination++ % 1000 == 0) {
+                                        assertEquals(bestOfSubsets(hand, subset), strength);
+                                        assertEquals(strength, HandEvaluator.evaluate(toCards(hand)));
+                                        assertEquals(strength, streetByStreet(hand));
+                                    }
+                                }
+                        }
+
+        assertEquals(133784560, combination);
+        assertEquals(41584, counts[HandType.STRAIGHT_FLUSH.getScore()]);
+        assertEquals(224848, counts[HandType.FOUR_OF_A_KIND.getScore()]);
+        assertEquals(3473184, counts[HandType.FULL_HOUSE.getScore()]);
+        assertEquals(4047644, counts[HandType.FLUSH.getScore()]);
+        assertEquals(6180020, counts[HandType.STRAIGHT.getScore()]);
+        assertEquals(6461620, counts[HandType.THREE_OF_A_KIND.getScore()]);
+        assertEquals(31433400, counts[HandType.TWO_PAIR.getScore()]);
+        assertEquals(58627800, counts[HandType.PAIR.getScore()]);
+        assertEquals(23294460, counts[HandType.HIGH_CARD.getScore()]);
+    }
+
+    @Test
+    public void wheelIsLowestStraight() {
+        int wheel = HandEvaluator.evaluate(toCards(new int[]{
+                CardType.ACE_OF_CLUBS.ordinal(), CardType.TWO_OF_HEARTS.ordinal(), CardType.THREE_OF_SPADES.ordinal(),
+                CardType.FOUR_OF_CLUBS.ordinal(), CardType.FIVE_OF_DIAMONDS.ordinal()}));
+        int sixHigh = HandEvaluator.evaluate(toCards(new int[]{
+                CardType.SIX_OF_CLUBS.ordinal(), CardType.TWO_OF_HEARTS.ordinal(), CardType.THREE_OF_SPADES.ordinal(),
+                CardType.FOUR_OF_CLUBS.ordinal(), CardType.FIVE_OF_DIAMONDS.ordinal()}));
+
+        assertEquals(HandType.STRAIGHT, HandEvaluator.getHandType(wheel));
+        assertEquals(Arrays.asList(12, 3, 2, 1, 0), HandEvaluator.getRanks(wheel));
+        assertTrue(wheel < sixHigh);
+    }
+
+    /**
+     * @return The strength of a partial hand that gets the hole cards and the flop, then the turn and the river.
+     */
+    private static int streetByStreet(int[] hand) {
+        HandEvaluator.PartialHand partialHand = new HandEvaluator.PartialHand();
+        partialHand.add(toSet(Arrays.copyOf(hand, 5)));
+        partialHand.add(1L << hand[5]);
+        partialHand.add(1L << hand[6]);
+        return partialHand.evaluate();
+    }
+
+    /**
+     * @return The best reference strength of all 5-card subsets of the hand.
+     */
+    private int bestOfSubsets(int[] hand, int[] subset) {
+        int best = 0;
+        for (int skipFirst = 0; skipFirst < hand.length; skipFirst++) {
+            for (int skipSecond = skipFirst + 1; skipSecond < hand.length; skipSecond++) {
+                int index = 0;
+                for (int i = 0; i < hand.length; i++)
+                    if (i != skipFirst && i != skipSecond) subset[index++] = hand[i];
+                best = Math.max(best, referenceStrength(subset));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores exactly 5 cards the way the subset enumeration did.
+     *
+     * @param hand The ordinals of the cards.
+     * @return The hand type and the ranks sorted on frequency and value, packed like the evaluator does.
+     */
+    private int referenceStrength(int[] hand) {
+        int[] faceCount = new int[13];
+        int straight = 0;
+        int suits = 0;
+
+        for (int ordinal : hand) {
+            int face = 12 - TYPES[ordinal].getRank().ordinal();
+            straight |= 1 << face;
+            faceCount[face]++;
+            suits |= 1 << TYPES[ordinal].getSuit().ordinal();
+        }
+
+        while (straight % 2 == 0) straight >>= 1;
+        boolean hasStraight = straight == 0b11111 || straight == 0b1111000000001;
+        boolean hasFlush = (suits & (suits - 1)) == 0;
+
+        int total = 0;
+        boolean hasFour = false;
+        for (int count : faceCount) {
+            if (count == 4) hasFour = true;
+            else if (count == 3) total += 3;
+            else if (count == 2) total += 2;
+        }
+
+        HandType handType;
+        if (hasStraight && hasFlush) handType = HandType.STRAIGHT_FLUSH;
+        else if (hasFour) handType = HandType.FOUR_OF_A_KIND;
+        else if (total == 5) handType = HandType.FULL_HOUSE;
+        else if (hasFlush) handType = HandType.FLUSH;
+        else if (hasStraight) handType = HandType.STRAIGHT;
+        else if (total == 3) handType = HandType.THREE_OF_A_KIND;
+        else if (total == 4) handType = HandType.TWO_PAIR;
+        else if (total == 2) handType = HandType.PAIR;
+        else handType = HandType.HIGH_CARD;
+
+        //Sort on frequency and then on value, both descending
+        List<Integer> ranks = new ArrayList<>();
+        for (int ordinal : hand) ranks.add(TYPES[ordinal].getRank().ordinal());
+        ranks.sort((r1, r2) -> {
+            int frequencyCompare = Integer.compare(faceCount[12 - r2], faceCount[12 - r1]);
+            return frequencyCompare != 0 ? frequencyCompare : Integer.compare(r2, r1);
+        });
+
+        //The wheel is a five-high straight
+        if (hasStraight && ranks.get(0) == 12 && ranks.get(1) == 3) ranks.add(ranks.remove(0));
+
+        int strength = handType.getScore();
+        for (int rank : ranks) strength = strength << 4 | (rank + 1);
+        return strength;
+    }
+
+    private static long toSet(int[] hand) {
+        long cards = 0;
+        for (int ordinal : hand) cards |= 1L << ordinal;
+        return cards;
+    }
+
+    private static List<Card> toCards(int[] hand) {
+        List<Card> cards = new ArrayList<>(hand.length);
+        for (int ordinal : hand) cards.add(new Card(TYPES[ordinal]));
+        return cards;
+    }
+}
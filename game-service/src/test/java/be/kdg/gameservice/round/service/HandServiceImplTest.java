@@ -1,9 +1,12 @@
 package be.kdg.gameservice.round.service;
 
 import be.kdg.gameservice.card.Card;
+import be.kdg.gameservice.card.CardSet;
 import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.room.model.Player;
 import be.kdg.gameservice.round.model.Hand;
 import be.kdg.gameservice.round.model.HandType;
+import be.kdg.gameservice.round.model.Showdown;
 import be.kdg.gameservice.round.service.impl.HandServiceImpl;
 import org.junit.After;
 import org.junit.Before;
@@ -16,7 +19,9 @@ import org.springframework.test.context.junit4.SpringRunner;
 import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -123,7 +128,7 @@ public class HandServiceImplTest {
         addCard(CardType.ACE_OF_DIAMONDS);
         addCard(CardType.EIGHT_OF_HEARTS);
         addCard(CardType.FOUR_OF_DIAMONDS);
-        addCard(CardType.SIX_OF_DIAMONDS);
+        addCard(CardType.NINE_OF_DIAMONDS);
         addCard(CardType.THREE_OF_CLUBS);
         addCard(CardType.FIVE_OF_CLUBS);
 
@@ -192,4 +197,68 @@ public class HandServiceImplTest {
         assertEquals(hand.getHandType(), HandType.STRAIGHT_FLUSH);
         assertEquals(hand.getCardRankValue(), new ArrayList<>(Arrays.asList(12, 11, 10, 9, 8)));
     }
-}
\ No newline at end of file
+
+    private Player createPlayer(String userId, CardType firstCard, CardType secondCard) {
+        Player player = new Player(2000, userId, Integer.parseInt(userId));
+        player.setFirstCard(new Card(firstCard));
+        player.setSecondCard(new Card(secondCard));
+        return player;
+    }
+
+    @Test
+    public void determineShowdownWithSplitPot() {
+        long board = CardSet.of(CardType.TWO_OF_CLUBS, CardType.SEVEN_OF_DIAMONDS, CardType.NINE_OF_HEARTS,
+                CardType.JACK_OF_SPADES, CardType.KING_OF_CLUBS);
+        Player aceHigh = createPlayer("1", CardType.ACE_OF_HEARTS, CardType.FOUR_OF_CLUBS);
+        Player otherAceHigh = createPlayer("2", CardType.ACE_OF_DIAMONDS, CardType.THREE_OF_SPADES);
+        Player twoPair = createPlayer("3", CardType.KING_OF_HEARTS, CardType.NINE_OF_SPADES);
+        Player queenHigh = createPlayer("4", CardType.QUEEN_OF_HEARTS, CardType.EIGHT_OF_SPADES);
+
+        Showdown showdown = handService.determineShowdown(board, Arrays.asList(aceHigh, otherAceHigh, twoPair, queenHigh));
+        assertEquals(Arrays.asList(twoPair), showdown.getWinners());
+        assertEquals(Arrays.asList(aceHigh, otherAceHigh), showdown.getRanking().get(1));
+        assertEquals(Arrays.asList(queenHigh), showdown.getRanking().get(2));
+        assertEquals(HandType.TWO_PAIR, showdown.getHandType(2));
+        assertEquals(HandType.HIGH_CARD, showdown.getHandType(0));
+    }
+
+    @Test
+    public void splitPotOverTieGroups() {
+        long board = CardSet.of(CardType.TWO_OF_CLUBS, CardType.SEVEN_OF_DIAMONDS, CardType.NINE_OF_HEARTS,
+                CardType.JACK_OF_SPADES, CardType.KING_OF_CLUBS);
+        Player twoPair = createPlayer("1", CardType.KING_OF_HEARTS, CardType.NINE_OF_SPADES);
+        Player aceHigh = createPlayer("2", CardType.ACE_OF_HEARTS, CardType.FOUR_OF_CLUBS);
+        Player otherAceHigh = createPlayer("3", CardType.ACE_OF_DIAMONDS, CardType.THREE_OF_SPADES);
+        Player queenHigh = createPlayer("4", CardType.QUEEN_OF_HEARTS, CardType.EIGHT_OF_SPADES);
+        Showdown showdown = handService.determineShowdown(board, Arrays.asList(twoPair, aceHigh, otherAceHigh, queenHigh));
+
+        //The two pair is all-in for 100, the ace high hands split what is left, the folded player only paid in
+        Map<String, Integer> contributions = new HashMap<>();
+        contributions.put("1", 100);
+        contributions.put("2", 301);
+        contributions.put("3", 301);
+        contributions.put("4", 301);
+        contributions.put("5", 50);
+        Map<Player, Integer> winnings = showdown.splitPot(1053, contributions);
+
+        assertEquals(450, (int) winnings.get(twoPair));
+        assertEquals(302, (int) winnings.get(aceHigh));
+        assertEquals(301, (int) winnings.get(otherAceHigh));
+        assertFalse(winnings.containsKey(queenHigh));
+    }
+
+    @Test
+    public void determineShowdownMatchesSingleHands() {
+        long board = CardSet.of(CardType.TEN_OF_HEARTS, CardType.JACK_OF_HEARTS, CardType.QUEEN_OF_HEARTS,
+                CardType.TWO_OF_SPADES, CardType.TWO_OF_DIAMONDS);
+        Player flush = createPlayer("1", CardType.THREE_OF_HEARTS, CardType.FOUR_OF_HEARTS);
+        Player fullHouse = createPlayer("2", CardType.TWO_OF_HEARTS, CardType.QUEEN_OF_CLUBS);
+
+        Showdown showdown = handService.determineShowdown(board, Arrays.asList(flush, fullHouse));
+        assertEquals(Arrays.asList(fullHouse), showdown.getWinners());
+        for (int i = 0; i < showdown.getPlayers().size(); i++) {
+            Hand hand = handService.determineBestPossibleHand(board | showdown.getPlayers().get(i).getHoleCards());
+            assertEquals(hand.getStrength(), showdown.getStrength(i));
+        }
+    }
+}
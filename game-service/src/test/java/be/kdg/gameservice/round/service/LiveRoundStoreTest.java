@@ -0,0 +1,245 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.outbox.model.OutboxType;
+import be.kdg.gameservice.outbox.persistence.OutboxRepository;
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.persistence.RoundRepository;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The background writer is not scheduled in this test, the rounds are only written when the test flushes them.
+ * Every call commits its own transaction, like the calls of the controllers.
+ * A round whose write failed is written again by the next flush.
+ * The outbox is not delivered either, so the messages that are written with a round stay in the database.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = {"live-rounds.flush-interval=3600000", "live-rounds.retry-delay=0",
+        "outbox.dispatch-interval=3600000"})
+public class LiveRoundStoreTest {
+    @Autowired
+    private RoundService roundService;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private RoundRepository roundRepository;
+    @Autowired
+    private LiveRoundStore liveRounds;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    private int roomId;
+
+    @Before
+    public void setup() throws RoomException {
+        Room room = roomService.addRoom("Live room", new GameRules());
+        roomId = room.getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        playerService.joinRoom(roomId, "Dirk");
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void writeBehind() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        assertEquals(2, countActs(round.getId()));
+
+        roundService.saveAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+        assertSame(round, roomService.getCurrentRound(roomId));
+        assertEquals(3, round.getActs().size());
+        assertEquals(2, countActs(round.getId()));
+
+        liveRounds.flush();
+        assertEquals(3, countActs(round.getId()));
+        assertEquals(50, potInDatabase(round.getId()));
+
+        //Acts that were already written are not written a second time
+        roundService.saveAct(round.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        liveRounds.flush();
+        assertEquals(4, countActs(round.getId()));
+        assertEquals(60, potInDatabase(round.getId()));
+        assertEquals(Phase.FLOP, phaseInDatabase(round.getId()));
+    }
+
+    @Test
+    public void roomReadsLatestRound() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        roundService.saveAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+
+        Room room = roomService.getRoom(roomId);
+        assertEquals(3, room.getCurrentRound().getActs().size());
+        assertEquals(3, countActs(round.getId()));
+
+        //The next act loads the round again, with the changes of the room
+        roundService.saveAct(round.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        Round live = roomService.getCurrentRound(roomId);
+        assertNotSame(round, live);
+        assertEquals(4, live.getActs().size());
+    }
+
+    @Test
+    public void actJournal() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        roundService.saveAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+        liveRounds.flush();
+        roundService.saveAct(round.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        roundService.saveAct(round.getId(), "Dirk", ActType.CHECK, Phase.FLOP, 0, false);
+        assertEquals(2, round.getUnjournaledActs().size());
+        liveRounds.flush();
+        assertTrue(round.getUnjournaledActs().isEmpty());
+
+        List<Act> acts = transactionTemplate.execute(status -> new ArrayList<>(roundRepository.findById(round.getId()).get().getActs()));
+        assertEquals(5, acts.size());
+        for (int i = 0; i < acts.size(); i++) {
+            assertEquals(i, acts.get(i).getSequenceNumber());
+            assertEquals(round.getId(), acts.get(i).getRoundId());
+            assertEquals(round.getActs().get(i).getId(), acts.get(i).getId());
+        }
+
+        List<Act> sorted = new ArrayList<>(acts);
+        Collections.reverse(sorted);
+        Collections.sort(sorted);
+        assertEquals(acts, sorted);
+    }
+
+    /**
+     * Another writer, like a room operation of the node that took over the room, writes the round
+     * before the background writer wrote the last act. The act is merged into the newer round.
+     */
+    @Test
+    public void conflictingWriteKeepsActsAndOutbox() throws RoomException, RoundException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        liveRounds.flush();
+        roundService.saveAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+        outboxService.addReplays(round);
+
+        transactionTemplate.execute(status -> {
+            roundRepository.findById(round.getId()).get().getPlayersInRound().stream()
+                    .filter(player -> player.getUserId().equals("Dirk"))
+                    .forEach(player -> player.setInRoom(false));
+            return null;
+        });
+        liveRounds.flush();
+        assertEquals(3, countActs(round.getId()));
+        assertEquals(50, potInDatabase(round.getId()));
+        assertEquals(1, countOutbox(round.getId(), OutboxType.REPLAY));
+
+        //The newer round is live, with the act and the change of the other writer
+        Round live = roomService.getCurrentRound(roomId);
+        assertNotSame(round, live);
+        assertEquals(3, live.getActs().size());
+        assertEquals(1980, live.getPlayersInRound().stream()
+                .filter(player -> player.getUserId().equals("Maarten")).findAny().get().getChipCount());
+        assertFalse(live.getPlayersInRound().stream()
+                .filter(player -> player.getUserId().equals("Dirk")).findAny().get().isInRoom());
+        roundService.saveAct(round.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        liveRounds.flush();
+        assertEquals(4, countActs(round.getId()));
+        assertEquals(Phase.FLOP, phaseInDatabase(round.getId()));
+    }
+
+    @Test
+    public void failingRoundDoesNotHoldBackOthers() throws RoomException, RoundException {
+        int otherRoomId = roomService.addRoom("Other live room", new GameRules()).getId();
+        try {
+            playerService.joinRoom(otherRoomId, "Maarten");
+            playerService.joinRoom(otherRoomId, "Remi");
+            playerService.joinRoom(otherRoomId, "Dirk");
+            Round round = roomService.startNewRoundForRoom(roomId);
+            Round other = roomService.startNewRoundForRoom(otherRoomId);
+
+            //The database refuses the next write of the round, but not the writes of other rounds
+            jdbcTemplate.execute("alter table " + table("round") + " add constraint failing_round check (id <> " + round.getId() + " or pot < 40)");
+            try {
+                roundService.saveAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+                roundService.saveAct(other.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+                liveRounds.flush();
+                assertEquals(3, countActs(other.getId()));
+                assertEquals(2, countActs(round.getId()));
+                assertTrue(liveRounds.isQuarantined(round.getId()));
+                assertFalse(liveRounds.isQuarantined(other.getId()));
+
+                //The quarantined round is written on its own, the other rounds are still written together
+                roundService.saveAct(other.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+                liveRounds.flush();
+                assertEquals(4, countActs(other.getId()));
+                assertTrue(liveRounds.isQuarantined(round.getId()));
+                assertSame(round, roomService.getCurrentRound(roomId));
+            } finally {
+                jdbcTemplate.execute("alter table " + table("round") + " drop constraint failing_round");
+            }
+
+            liveRounds.flush();
+            assertFalse(liveRounds.isQuarantined(round.getId()));
+            assertEquals(3, countActs(round.getId()));
+            assertEquals(50, potInDatabase(round.getId()));
+        } finally {
+            roomService.deleteRoom(otherRoomId);
+        }
+    }
+
+    private int countActs(int roundId) {
+        return transactionTemplate.execute(status -> roundRepository.findById(roundId).get().getActs().size());
+    }
+
+    private long countOutbox(int roundId, OutboxType type) {
+        return outboxRepository.findAll().stream()
+                .filter(message -> message.getRoundId() == roundId && message.getType() == type)
+                .count();
+    }
+
+    private int potInDatabase(int roundId) {
+        return transactionTemplate.execute(status -> roundRepository.findById(roundId).get().getPot());
+    }
+
+    private Phase phaseInDatabase(int roundId) {
+        return transactionTemplate.execute(status -> roundRepository.findById(roundId).get().getCurrentPhase());
+    }
+
+    private String table(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+}
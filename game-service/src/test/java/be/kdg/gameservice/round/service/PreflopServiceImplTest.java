@@ -0,0 +1,75 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.card.CardSet;
+import be.kdg.gameservice.card.CardType;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.service.impl.PreflopServiceImpl;
+import be.kdg.gameservice.round.service.util.PreflopTable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class PreflopServiceImplTest {
+    @Autowired
+    PreflopServiceImpl preflopService;
+
+    @Test
+    public void everyClassOnce() {
+        Set<Integer> classes = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (int first = 0; first < 52; first++) {
+            for (int second = first + 1; second < 52; second++) {
+                int handClass = PreflopTable.getHandClass(1L << first | 1L << second);
+                classes.add(handClass);
+                names.add(PreflopTable.getName(handClass));
+                assertEquals(handClass, PreflopTable.getHandClass(PreflopTable.getHoleCards(handClass)));
+            }
+        }
+        assertEquals(PreflopTable.CLASS_COUNT, classes.size());
+        assertEquals(PreflopTable.CLASS_COUNT, names.size());
+    }
+
+    @Test
+    public void readWrittenTable() throws IOException {
+        double[] equities = new double[PreflopTable.CLASS_COUNT * PreflopTable.MAX_OPPONENTS];
+        for (int i = 0; i < equities.length; i++) equities[i] = (double) i / equities.length;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PreflopTable.fromEquities(equities).write(new DataOutputStream(bytes));
+        PreflopTable table = PreflopTable.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(equities[PreflopTable.MAX_OPPONENTS + 2], table.getEquity(1, 3), 0.0001);
+        assertEquals(PreflopTable.CLASS_COUNT, table.getRank(0, 1));
+        assertEquals(1, table.getRank(PreflopTable.CLASS_COUNT - 1, 1));
+    }
+
+    @Test
+    public void startingHands() throws RoundException {
+        long aces = CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES);
+        long sevenDeuce = CardSet.of(CardType.SEVEN_OF_CLUBS, CardType.TWO_OF_DIAMONDS);
+
+        assertEquals("AA", preflopService.getHandClass(aces));
+        assertEquals("72o", preflopService.getHandClass(sevenDeuce));
+        assertEquals("AKs", preflopService.getHandClass(CardSet.of(CardType.ACE_OF_CLUBS, CardType.KING_OF_CLUBS)));
+
+        assertEquals(0.85, preflopService.getEquity(aces, 1), 0.01);
+        assertEquals(1, preflopService.getRank(aces, 1));
+        assertTrue(preflopService.getEquity(aces, 8) < preflopService.getEquity(aces, 1));
+        assertTrue(preflopService.getRank(sevenDeuce, 1) > 160);
+    }
+
+    @Test(expected = RoundException.class)
+    public void tooManyOpponents() throws RoundException {
+        preflopService.getEquity(CardSet.of(CardType.ACE_OF_HEARTS, CardType.ACE_OF_SPADES), 9);
+    }
+}
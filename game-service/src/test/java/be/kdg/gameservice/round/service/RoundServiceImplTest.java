@@ -8,6 +8,7 @@ import be.kdg.gameservice.room.model.Room;
 import be.kdg.gameservice.room.service.api.PlayerService;
 import be.kdg.gameservice.room.service.api.RoomService;
 import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.ActOutcome;
 import be.kdg.gameservice.round.model.ActType;
 import be.kdg.gameservice.round.model.Phase;
 import be.kdg.gameservice.round.model.Round;
@@ -308,4 +309,35 @@ public class RoundServiceImplTest extends UtilTesting {
         roundService.distributeCoins(round.getId(), winner);
         assertEquals(coinSum, round.getActivePlayers().stream().mapToInt(p -> p.getChipCount()).sum());
     }
+
+    @Test
+    public void playActOutcome() throws RoomException, RoundException {
+        Room room = roomService.addRoom("Test room", new GameRules());
+        playerService.joinRoom(room.getId(), "Maarten");
+        playerService.joinRoom(room.getId(), "Remi");
+        playerService.joinRoom(room.getId(), "Dirk");
+        Round round = roomService.startNewRoundForRoom(room.getId());
+
+        ActOutcome outcome = roundService.playAct(round.getId(), "Maarten", ActType.CALL, Phase.PRE_FLOP, 20, false);
+        assertEquals(round.getId(), outcome.getRoundId());
+        assertEquals(Phase.PRE_FLOP, outcome.getRound().getCurrentPhase());
+        assertEquals(Phase.PRE_FLOP, outcome.getPhase());
+        assertFalse(outcome.getWinner().isPresent());
+        assertEquals("Remi", outcome.getNextUserId());
+
+        outcome = roundService.playAct(round.getId(), "Remi", ActType.CALL, Phase.PRE_FLOP, 10, false);
+        assertEquals(Phase.FLOP, outcome.getPhase());
+        assertEquals("Dirk", outcome.getNextUserId());
+
+        roundService.playAct(round.getId(), "Dirk", ActType.FOLD, Phase.FLOP, 0, false);
+        outcome = roundService.playAct(round.getId(), "Maarten", ActType.FOLD, Phase.FLOP, 0, false);
+        assertTrue(outcome.getWinner().isPresent());
+        assertEquals("Remi", outcome.getWinner().get().getUserId());
+        assertNull(outcome.getNextUserId());
+
+        //The pot goes to the last player, no chips are lost at the table
+        int startingChips = room.getGameRules().getStartingChips();
+        assertEquals(startingChips + 40, outcome.getWinner().get().getChipCount());
+        assertEquals(3 * startingChips, outcome.getRound().getPlayersInRound().stream().mapToInt(Player::getChipCount).sum());
+    }
 }
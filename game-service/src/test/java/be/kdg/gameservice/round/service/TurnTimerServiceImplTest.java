@@ -0,0 +1,99 @@
+package be.kdg.gameservice.round.service;
+
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Phase;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.api.TurnTimerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The room of this test has a play delay of 1 second, the turn clock ticks every 10 ms.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "turn-timer.tick=10")
+public class TurnTimerServiceImplTest {
+    @Autowired
+    private RoundService roundService;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    private int roomId;
+
+    @Before
+    public void setup() throws RoomException {
+        Room room = roomService.addRoom("Timer room", new GameRules(10, 20, 1, 2000, 6, 1, 50));
+        roomId = room.getId();
+        playerService.joinRoom(roomId, "Maarten");
+        playerService.joinRoom(roomId, "Remi");
+        playerService.joinRoom(roomId, "Dirk");
+    }
+
+    @After
+    public void cleanup() throws RoomException, InterruptedException {
+        //The broadcast of the last timeout arms the turn of the next player, it is cancelled with the room
+        long deadline = System.currentTimeMillis() + 1000;
+        while (turnTimerService.getPendingTurns() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void foldWhenTimeRunsOut() throws RoomException, RoundException, InterruptedException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        String playerToAct = roundService.getPlayerToAct(round.getId());
+        assertEquals(1, turnTimerService.getPendingTurns());
+
+        Act act = awaitAct(round.getId(), 3);
+        assertEquals(playerToAct, act.getPlayer().getUserId());
+        assertEquals(ActType.FOLD, act.getType());
+        assertEquals(0, act.getBet());
+    }
+
+    @Test
+    public void actInTime() throws RoomException, RoundException, InterruptedException {
+        Round round = roomService.startNewRoundForRoom(roomId);
+        String playerToAct = roundService.getPlayerToAct(round.getId());
+        roundService.playAct(round.getId(), playerToAct, ActType.CALL, Phase.PRE_FLOP, 20, false);
+        assertEquals(1, turnTimerService.getPendingTurns());
+
+        //The act replaced the turn of the first player, so the next timeout is the one of the second player
+        Act act = awaitAct(round.getId(), 4);
+        assertEquals(ActType.FOLD, act.getType());
+        assertNotEquals(playerToAct, act.getPlayer().getUserId());
+        assertFalse(roundService.playTimeout(round.getId(), playerToAct).isPresent());
+    }
+
+    private Act awaitAct(int roundId, int count) throws RoomException, RoundException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            List<Act> acts = roomService.getCurrentRound(roomId).getActs();
+            assertEquals(roundId, roomService.getCurrentRound(roomId).getId());
+            if (acts.size() >= count) return acts.get(count - 1);
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No timeout within 5 seconds");
+    }
+}
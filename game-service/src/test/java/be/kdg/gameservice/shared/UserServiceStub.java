@@ -0,0 +1,104 @@
+package be.kdg.gameservice.shared;
+
+import be.kdg.gameservice.room.controller.dto.UserDTO;
+import be.kdg.gameservice.shared.config.WebConfig;
+import be.kdg.gameservice.shared.dto.AuthDTO;
+import be.kdg.gameservice.shared.dto.GameEventDTO;
+import be.kdg.gameservice.shared.dto.GameEventResultDTO;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the user service, so the tests and the simulator do not wait on the network.
+ * Every user exists, with the user id as username, unless it is marked as unknown. Wins and games played
+ * are only counted, once per idempotency key like the user service does, and every event has its own result.
+ */
+public class UserServiceStub extends UserApiGateway {
+    private final AtomicInteger wins = new AtomicInteger();
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+    private final AtomicInteger userLookups = new AtomicInteger();
+    private final Set<String> handledEvents = ConcurrentHashMap.newKeySet();
+    private final Set<String> unknownUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean available = true;
+
+    public UserServiceStub(WebConfig webConfig, RestTemplate restTemplate) {
+        super(webConfig, restTemplate);
+    }
+
+    @Override
+    public List<GameEventResultDTO> sendGameEvents(List<GameEventDTO> gameEvents) {
+        if (!available) throw new ResourceAccessException("The user service stub is not available.");
+        List<GameEventResultDTO> results = new ArrayList<>();
+        for (GameEventDTO event : gameEvents) {
+            if (event.getUserIds().stream().anyMatch(unknownUsers::contains)) {
+                results.add(new GameEventResultDTO(event.getIdempotencyKey(), false, "User was not found in the database"));
+                continue;
+            }
+            results.add(new GameEventResultDTO(event.getIdempotencyKey(), true, null));
+            if (!handledEvents.add(event.getIdempotencyKey())) continue;
+            if (event.getType().equals("WIN")) wins.addAndGet(event.getUserIds().size());
+            else gamesPlayed.addAndGet(event.getUserIds().size());
+        }
+        return results;
+    }
+
+    @Override
+    public UserDTO getUser(String token, String id) {
+        return getUser(id);
+    }
+
+    @Override
+    public UserDTO getUser(String id) {
+        userLookups.incrementAndGet();
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setUsername(id);
+        return user;
+    }
+
+    @Override
+    public AuthDTO getMockToken() {
+        return new AuthDTO("simulator");
+    }
+
+    @Override
+    public UserDTO updateUser(String token, UserDTO userDto) {
+        return userDto;
+    }
+
+    /**
+     * @param available False to let the game events fail, like a user service that is down.
+     */
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    /**
+     * @param userId A user the events of which fail from now on, like a user that is not known to the user service.
+     */
+    public void addUnknownUser(String userId) {
+        unknownUsers.add(userId);
+    }
+
+    public void clearUnknownUsers() {
+        unknownUsers.clear();
+    }
+
+    public int getWins() {
+        return wins.get();
+    }
+
+    public int getGamesPlayed() {
+        return gamesPlayed.get();
+    }
+
+    public int getUserLookups() {
+        return userLookups.get();
+    }
+}
@@ -0,0 +1,19 @@
+package be.kdg.gameservice.shared;
+
+import be.kdg.gameservice.shared.config.WebConfig;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Replaces the user service with a local stub, for the tests that play rounds or deliver game events.
+ */
+@TestConfiguration
+public class UserServiceStubConfig {
+    @Bean
+    @Primary
+    public UserServiceStub userServiceStub(WebConfig webConfig, RestTemplate restTemplate) {
+        return new UserServiceStub(webConfig, restTemplate);
+    }
+}
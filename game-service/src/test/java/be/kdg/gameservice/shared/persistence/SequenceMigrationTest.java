@@ -0,0 +1,64 @@
+package be.kdg.gameservice.shared.persistence;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * The row of the test is inserted with an id far ahead of the sequence, like the rows that took their ids
+ * from the shared sequence before.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class SequenceMigrationTest {
+    private static final int TAKEN_ID = 1_000_000;
+
+    @Autowired
+    private SequenceMigration sequenceMigration;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @After
+    public void cleanup() {
+        jdbcTemplate.update("delete from " + table("game_rules") + " where id = ?", TAKEN_ID);
+    }
+
+    @Test
+    public void sequenceIsMovedPastTakenIds() {
+        jdbcTemplate.update("insert into " + table("game_rules") + " (id, big_blind, max_level, max_player_count, min_level,"
+                + " play_delay, small_blind, starting_chips) values (?, 20, 100, 6, 0, 0, 10, 1000)", TAKEN_ID);
+
+        sequenceMigration.migrate();
+        long next = nextValue(table("game_rules_seq"));
+        assertTrue(next - 50 >= TAKEN_ID);
+
+        //A sequence that is ahead already is left alone, no block of ids is taken from it
+        sequenceMigration.migrate();
+        assertEquals(next + 50, nextValue(table("game_rules_seq")));
+    }
+
+    private long nextValue(String sequence) {
+        String sql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceNextValString(sequence);
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private String table(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+}
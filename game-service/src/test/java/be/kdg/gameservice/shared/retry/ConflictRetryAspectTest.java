@@ -0,0 +1,70 @@
+package be.kdg.gameservice.shared.retry;
+
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class ConflictRetryAspectTest {
+    private static final int PLAYERS = 6;
+
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private PlayerService playerService;
+
+    private int roomId;
+
+    @Before
+    public void setup() {
+        Room room = roomService.addRoom("Crowded room", new GameRules(1, 2, 0, 2000, PLAYERS, 0, Integer.MAX_VALUE));
+        roomId = room.getId();
+    }
+
+    @After
+    public void cleanup() throws RoomException {
+        roomService.deleteRoom(roomId);
+    }
+
+    @Test
+    public void concurrentJoinsAreRetried() throws InterruptedException, ExecutionException, RoomException {
+        ExecutorService executor = Executors.newFixedThreadPool(PLAYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Player>> joins = new ArrayList<>();
+            for (int i = 0; i < PLAYERS; i++) {
+                String userId = "player-" + i;
+                joins.add(executor.submit(() -> {
+                    start.await();
+                    return playerService.joinRoom(roomId, userId);
+                }));
+            }
+            start.countDown();
+            for (Future<Player> join : joins) assertNotNull(join.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Room room = roomService.getRoom(roomId);
+        assertEquals(PLAYERS, room.getPlayersInRoom().size());
+        assertEquals(PLAYERS, room.getPlayersInRoom().stream().map(Player::getSeatNumber).collect(toSet()).size());
+    }
+}
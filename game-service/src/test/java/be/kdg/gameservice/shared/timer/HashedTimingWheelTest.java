@@ -0,0 +1,72 @@
+package be.kdg.gameservice.shared.timer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public final class HashedTimingWheelTest {
+    private final AtomicLong maxLag = new AtomicLong();
+    private HashedTimingWheel wheel;
+
+    @Before
+    public void setup() {
+        //A small wheel, so the timeouts of the tests go around it more than once
+        wheel = new HashedTimingWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8,
+                lag -> maxLag.accumulateAndGet(lag, Math::max));
+    }
+
+    @After
+    public void cleanup() {
+        wheel.close();
+    }
+
+    @Test
+    public void expiresInOrder() throws InterruptedException {
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+        wheel.schedule(() -> { expired.add(250); latch.countDown(); }, 250, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { expired.add(20); latch.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { expired.add(130); latch.countDown(); }, 130, TimeUnit.MILLISECONDS);
+        assertEquals(3, wheel.getPendingTimeouts());
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(20, (int) expired.get(0));
+        assertEquals(130, (int) expired.get(1));
+        assertEquals(250, (int) expired.get(2));
+        assertEquals(0, wheel.getPendingTimeouts());
+        assertTrue(maxLag.get() < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch expired = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = wheel.schedule(cancelled::countDown, 50, TimeUnit.MILLISECONDS);
+        HashedTimingWheel.Timeout other = wheel.schedule(expired::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(1, wheel.getPendingTimeouts());
+
+        assertTrue(expired.await(2, TimeUnit.SECONDS));
+        assertEquals(1, cancelled.getCount());
+        assertTrue(timeout.isCancelled());
+        assertTrue(other.isExpired());
+        assertFalse(other.cancel());
+    }
+}
@@ -0,0 +1,15 @@
+package be.kdg.gameservice.simulator;
+
+import be.kdg.gameservice.round.model.ActType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The act a bot wants to play.
+ */
+@Getter
+@AllArgsConstructor
+public final class BotDecision {
+    private final ActType type;
+    private final int bet;
+}
@@ -0,0 +1,91 @@
+package be.kdg.gameservice.simulator;
+
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.PhaseBetting;
+import be.kdg.gameservice.round.model.Round;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The strategies the simulator can seat. A bot only picks from the acts the round service offers,
+ * and never bets more chips than it has.
+ */
+public enum BotType {
+    /**
+     * Checks when it can, calls otherwise.
+     */
+    PASSIVE {
+        @Override
+        BotDecision decide(Round round, Player player, List<ActType> possibleActs, int bigBlind, Random random) {
+            if (possibleActs.contains(ActType.CHECK)) return new BotDecision(ActType.CHECK, 0);
+            return new BotDecision(ActType.CALL, toCall(round, player));
+        }
+    },
+
+    /**
+     * Checks when it can, folds otherwise.
+     */
+    FOLDING {
+        @Override
+        BotDecision decide(Round round, Player player, List<ActType> possibleActs, int bigBlind, Random random) {
+            if (possibleActs.contains(ActType.CHECK)) return new BotDecision(ActType.CHECK, 0);
+            return new BotDecision(ActType.FOLD, 0);
+        }
+    },
+
+    /**
+     * Bets or raises when it can, calls otherwise.
+     */
+    AGGRESSIVE {
+        @Override
+        BotDecision decide(Round round, Player player, List<ActType> possibleActs, int bigBlind, Random random) {
+            int raise = Math.min(toCall(round, player) + 2 * bigBlind, player.getChipCount());
+            if (possibleActs.contains(ActType.BET)) return new BotDecision(ActType.BET, Math.min(2 * bigBlind, player.getChipCount()));
+            if (possibleActs.contains(ActType.RAISE) && raise > toCall(round, player))
+                return new BotDecision(ActType.RAISE, raise);
+            return PASSIVE.decide(round, player, possibleActs, bigBlind, random);
+        }
+    },
+
+    /**
+     * Picks any of the possible acts, with a random bet of up to 4 big blinds.
+     */
+    RANDOM {
+        @Override
+        BotDecision decide(Round round, Player player, List<ActType> possibleActs, int bigBlind, Random random) {
+            ActType type = possibleActs.get(random.nextInt(possibleActs.size()));
+            int toCall = toCall(round, player);
+            switch (type) {
+                case BET:
+                    return new BotDecision(type, Math.min(bigBlind * (1 + random.nextInt(4)), player.getChipCount()));
+                case RAISE:
+                    return new BotDecision(type, Math.min(toCall + bigBlind * (1 + random.nextInt(4)), player.getChipCount()));
+                case CALL:
+                    return new BotDecision(type, toCall);
+                default:
+                    return new BotDecision(type, 0);
+            }
+        }
+    };
+
+    /**
+     * @param round        The round that is played.
+     * @param player       The player of the bot.
+     * @param possibleActs The acts the round service offers.
+     * @param bigBlind     The big blind of the room.
+     * @param random       The random generator of the table.
+     * @return The act the bot plays.
+     */
+    abstract BotDecision decide(Round round, Player player, List<ActType> possibleActs, int bigBlind, Random random);
+
+    /**
+     * @return The chips the player needs to put in to match the highest bet of the phase, at most all its chips.
+     */
+    private static int toCall(Round round, Player player) {
+        PhaseBetting betting = round.getBetting();
+        int toCall = Math.max(betting.getCurrentBet() - betting.getContribution(player.getUserId()), 0);
+        return Math.min(toCall, player.getChipCount());
+    }
+}
@@ -0,0 +1,80 @@
+package be.kdg.gameservice.simulator;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput, the latencies and the broken invariants of a simulation.
+ */
+@Getter
+public final class SimulationReport {
+    private final int hands;
+
+    /**
+     * The hands that ended because all players but one folded.
+     */
+    private final int foldedHands;
+
+    /**
+     * The hands that ended in a showdown where several players shared the best hand.
+     */
+    private final int splitPots;
+
+    /**
+     * The players that won a hand, every player that shared a split pot counts.
+     */
+    private final int wins;
+    private final int acts;
+    private final long elapsedNanos;
+    private final long statements;
+    private final List<String> violations;
+
+    /**
+     * The latency of every act in nanoseconds, sorted.
+     */
+    private final long[] latencies;
+
+    SimulationReport(int hands, int foldedHands, int splitPots, int wins, long elapsedNanos, long statements,
+                     long[] latencies, List<String> violations) {
+        this.hands = hands;
+        this.foldedHands = foldedHands;
+        this.splitPots = splitPots;
+        this.wins = wins;
+        this.acts = latencies.length;
+        this.elapsedNanos = elapsedNanos;
+        this.statements = statements;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+        this.violations = Collections.unmodifiableList(violations);
+    }
+
+    public double getHandsPerSecond() {
+        return hands / (elapsedNanos / 1e9);
+    }
+
+    public double getStatementsPerHand() {
+        return hands == 0 ? 0 : (double) statements / hands;
+    }
+
+    /**
+     * @param percentile A percentile between 0 and 100.
+     * @return The act latency at the percentile in microseconds, 0 if no acts were played.
+     */
+    public long getLatencyMicros(double percentile) {
+        if (latencies.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hands (%d folded, %d split), %d acts in %d ms: %.1f hands/s, %.1f statements/hand, "
+                        + "act latency p50 %d us, p90 %d us, p99 %d us, max %d us, %d violations",
+                hands, foldedHands, splitPots, acts, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getHandsPerSecond(), getStatementsPerHand(),
+                getLatencyMicros(50), getLatencyMicros(90), getLatencyMicros(99), getLatencyMicros(100), violations.size());
+    }
+}
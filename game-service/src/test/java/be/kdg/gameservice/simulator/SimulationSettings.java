@@ -0,0 +1,43 @@
+package be.kdg.gameservice.simulator;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the simulator plays: a number of tables in parallel, each with its own room, bots and random generator.
+ */
+@Getter
+@Setter
+public final class SimulationSettings {
+    /**
+     * The number of tables that are played at the same time, one thread per table.
+     */
+    private int tables = 4;
+
+    /**
+     * The number of hands every table plays. A table stops earlier when a bot can not pay the big blind anymore.
+     */
+    private int handsPerTable = 25;
+
+    /**
+     * The bots of every table, one per seat.
+     */
+    private List<BotType> bots = Arrays.asList(BotType.PASSIVE, BotType.AGGRESSIVE, BotType.RANDOM, BotType.RANDOM);
+
+    /**
+     * The seed of the random generators, table n uses seed + n.
+     */
+    private long seed = 42;
+
+    private int startingChips = 100_000;
+    private int smallBlind = 10;
+    private int bigBlind = 20;
+
+    /**
+     * A hand that takes more acts than this is reported as stuck.
+     */
+    private int maxActsPerHand = 500;
+}
@@ -0,0 +1,27 @@
+package be.kdg.gameservice.simulator;
+
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.shared.UserServiceStubConfig;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Provides the simulator, against the local stub of the user service.
+ */
+@TestConfiguration
+@Import(UserServiceStubConfig.class)
+public class SimulatorConfig {
+    @Bean
+    public TableSimulator tableSimulator(RoomService roomService, PlayerService playerService, RoundService roundService,
+                                         LiveRoundStore liveRounds, OutboxService outboxService,
+                                         EntityManagerFactory entityManagerFactory) {
+        return new TableSimulator(roomService, playerService, roundService, liveRounds, outboxService, entityManagerFactory);
+    }
+}
@@ -0,0 +1,247 @@
+package be.kdg.gameservice.simulator;
+
+import be.kdg.gameservice.outbox.service.api.OutboxService;
+import be.kdg.gameservice.room.exception.RoomException;
+import be.kdg.gameservice.room.model.GameRules;
+import be.kdg.gameservice.room.model.Player;
+import be.kdg.gameservice.room.model.Room;
+import be.kdg.gameservice.room.service.api.PlayerService;
+import be.kdg.gameservice.room.service.api.RoomService;
+import be.kdg.gameservice.round.exception.RoundException;
+import be.kdg.gameservice.round.model.Act;
+import be.kdg.gameservice.round.model.ActOutcome;
+import be.kdg.gameservice.round.model.ActType;
+import be.kdg.gameservice.round.model.Round;
+import be.kdg.gameservice.round.service.api.RoundService;
+import be.kdg.gameservice.round.service.impl.LiveRoundStore;
+import be.kdg.gameservice.round.service.util.HandEvaluator;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays complete hands in process with bots, through the same services and in the same order as the act endpoint:
+ * a round is started for the room, every act is played with {@link RoundService#playAct}
+ * and a new round is started when the previous one has a winner. The outbox is drained at the end of a run,
+ * so the wins and games played of every hand reach the user service.
+ * <p>
+ * Every table has its own room and random generator, so a run with the same seed and one table plays the same hands.
+ * Next to the throughput, every hand is checked: every act the round service offers must be accepted,
+ * the chips at the table must add up, the acts must be journaled in order and the winner must not have folded.
+ * The chips also add up after a hand that ended because all players but one folded, so its pot was paid out as well.
+ */
+@RequiredArgsConstructor
+public class TableSimulator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableSimulator.class);
+
+    private final RoomService roomService;
+    private final PlayerService playerService;
+    private final RoundService roundService;
+    private final LiveRoundStore liveRounds;
+    private final OutboxService outboxService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Plays all the tables of the settings at the same time and removes their rooms afterwards.
+     *
+     * @param settings What to play.
+     * @return The throughput, the latencies and the broken invariants of all the tables together.
+     */
+    public SimulationReport run(SimulationSettings settings) throws InterruptedException {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getTables());
+        List<Table> tables = new ArrayList<>();
+        for (int i = 0; i < settings.getTables(); i++) tables.add(new Table(settings, i));
+
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Table table : tables) futures.add(executor.submit(table::play));
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("A table stopped unexpectedly", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        liveRounds.flush();
+        long elapsed = System.nanoTime() - start;
+        int delivered = 0;
+        for (int batch = outboxService.dispatch(); batch > 0; batch = outboxService.dispatch()) delivered += batch;
+        LOGGER.info("Delivered " + delivered + " outbox messages");
+        //The statements of the side effects, like the replays, are part of the cost of a hand
+        long statements = statistics.getPrepareStatementCount() - statementsBefore;
+
+        int hands = 0;
+        int foldedHands = 0;
+        int splitPots = 0;
+        int wins = 0;
+        List<long[]> latencies = new ArrayList<>();
+        List<String> violations = new ArrayList<>();
+        for (Table table : tables) {
+            hands += table.hands;
+            foldedHands += table.foldedHands;
+            splitPots += table.splitPots;
+            wins += table.wins;
+            latencies.add(Arrays.copyOf(table.latencies, table.acts));
+            violations.addAll(table.violations);
+            table.close();
+        }
+        SimulationReport report = new SimulationReport(hands, foldedHands, splitPots, wins, elapsed, statements,
+                latencies.stream().flatMapToLong(Arrays::stream).toArray(), violations);
+        LOGGER.info("Simulation finished: " + report);
+        return report;
+    }
+
+    /**
+     * One room with bots that plays hands on its own thread.
+     */
+    private final class Table {
+        private final SimulationSettings settings;
+        private final String name;
+        private final Random random;
+        private final Map<String, BotType> bots = new HashMap<>();
+        private final List<String> violations = new ArrayList<>();
+        private long[] latencies = new long[1024];
+        private int acts;
+        private int hands;
+        private int foldedHands;
+        private int splitPots;
+        private int wins;
+        private int roomId = -1;
+
+        private Table(SimulationSettings settings, int number) {
+            this.settings = settings;
+            this.name = "Simulator table " + number;
+            this.random = new Random(settings.getSeed() + number);
+        }
+
+        private void play() {
+            try {
+                GameRules rules = new GameRules(settings.getSmallBlind(), settings.getBigBlind(), 0,
+                        settings.getStartingChips(), settings.getBots().size(), 0, Integer.MAX_VALUE);
+                Room room = roomService.addRoom(name, rules);
+                roomId = room.getId();
+                for (int i = 0; i < settings.getBots().size(); i++) {
+                    String userId = "bot-" + roomId + "-" + i;
+                    bots.put(userId, settings.getBots().get(i));
+                    playerService.joinRoom(roomId, userId);
+                }
+
+                int tableChips = settings.getStartingChips() * settings.getBots().size();
+                while (hands < settings.getHandsPerTable()) {
+                    if (!playHand(tableChips)) return;
+                    hands++;
+                }
+            } catch (RoomException | RoundException | RuntimeException e) {
+                violations.add(name + ": " + e.getMessage());
+                LOGGER.warn(name + " stopped after " + hands + " hands", e);
+            }
+        }
+
+        /**
+         * @return False if the table can not go on.
+         */
+        private boolean playHand(int tableChips) throws RoomException, RoundException {
+            Round round = roomService.startNewRoundForRoom(roomId);
+            check(chipsAtTable(round) + round.getPot() == tableChips, "chips went missing when the round started", round);
+
+            String userId = roundService.getPlayerToAct(round.getId());
+            for (int i = 0; i < settings.getMaxActsPerHand(); i++) {
+                Player player = getPlayer(round, userId);
+                List<ActType> possibleActs = roundService.getPossibleActs(round.getId());
+                BotDecision decision = bots.get(userId).decide(round, player, possibleActs, settings.getBigBlind(), random);
+
+                ActOutcome outcome;
+                long start = System.nanoTime();
+                try {
+                    outcome = roundService.playAct(round.getId(), userId, decision.getType(), round.getCurrentPhase(),
+                            decision.getBet(), decision.getBet() > 0 && decision.getBet() == player.getChipCount());
+                } catch (RoundException e) {
+                    return check(false, "the offered act " + decision.getType() + " was refused: " + e.getMessage(), round);
+                }
+                record(System.nanoTime() - start);
+
+                Optional<Player> winner = outcome.getWinner();
+                if (winner.isPresent()) {
+                    check(winner.get().getLastAct() != ActType.FOLD, "the winner folded", round);
+                    check(chipsAtTable(round) == tableChips, "the pot was not paid out exactly", round);
+                    if (round.getActivePlayers().size() == 1) foldedHands++;
+                    int winners = countWinners(round);
+                    if (winners > 1) splitPots++;
+                    wins += winners;
+                    checkJournal(round);
+                    return round.getPlayersInRound().stream().allMatch(p -> p.getChipCount() >= settings.getBigBlind());
+                }
+                userId = outcome.getNextUserId();
+            }
+            return check(false, "the hand did not end after " + settings.getMaxActsPerHand() + " acts", round);
+        }
+
+        /**
+         * @return The number of players that share the best hand of the players that did not fold.
+         */
+        private int countWinners(Round round) {
+            int[] strengths = round.getActivePlayers().stream()
+                    .mapToInt(p -> HandEvaluator.evaluate(round.getBoard() | p.getHoleCards()))
+                    .toArray();
+            int best = Arrays.stream(strengths).max().orElse(0);
+            return (int) Arrays.stream(strengths).filter(strength -> strength == best).count();
+        }
+
+        private void checkJournal(Round round) {
+            List<Act> journal = round.getActs();
+            for (int i = 0; i < journal.size(); i++) {
+                if (journal.get(i).getSequenceNumber() != i) {
+                    check(false, "act " + i + " has sequence number " + journal.get(i).getSequenceNumber(), round);
+                    return;
+                }
+            }
+        }
+
+        private boolean check(boolean invariant, String violation, Round round) {
+            if (!invariant) violations.add(name + ", round " + round.getId() + ": " + violation);
+            return invariant;
+        }
+
+        private void record(long latency) {
+            if (acts == latencies.length) latencies = Arrays.copyOf(latencies, acts * 2);
+            latencies[acts++] = latency;
+        }
+
+        private Player getPlayer(Round round, String userId) throws RoundException {
+            return round.getPlayersInRound().stream()
+                    .filter(p -> p.getUserId().equals(userId))
+                    .findAny()
+                    .orElseThrow(() -> new RoundException(TableSimulator.class, userId + " is not playing in the round."));
+        }
+
+        private int chipsAtTable(Round round) {
+            return round.getPlayersInRound().stream().mapToInt(Player::getChipCount).sum();
+        }
+
+        private void close() {
+            if (roomId == -1) return;
+            try {
+                roomService.deleteRoom(roomId);
+            } catch (RoomException e) {
+                LOGGER.warn("The room of " + name + " could not be removed", e);
+            }
+        }
+    }
+}
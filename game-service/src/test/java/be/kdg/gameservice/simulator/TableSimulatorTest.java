@@ -0,0 +1,63 @@
+package be.kdg.gameservice.simulator;
+
+import be.kdg.gameservice.shared.UserServiceStub;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the simulator as a randomized correctness check. For a throughput run, pass more hands and tables:
+ * gradlew simulate -Phands=1000 -Ptables=8
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Import(SimulatorConfig.class)
+public class TableSimulatorTest {
+    @Autowired
+    private TableSimulator tableSimulator;
+    @Autowired
+    private UserServiceStub userServiceStub;
+
+    @Test
+    public void playHands() throws InterruptedException {
+        SimulationSettings settings = new SimulationSettings();
+        settings.setHandsPerTable(Integer.getInteger("simulator.hands", settings.getHandsPerTable()));
+        settings.setTables(Integer.getInteger("simulator.tables", settings.getTables()));
+        settings.setSeed(Long.getLong("simulator.seed", settings.getSeed()));
+
+        int winsBefore = userServiceStub.getWins();
+        SimulationReport report = tableSimulator.run(settings);
+
+        assertEquals(report.getViolations().toString(), 0, report.getViolations().size());
+        assertTrue(report.getHands() > 0);
+        assertTrue(report.getWins() >= report.getHands() + report.getSplitPots());
+        assertEquals(report.getWins(), userServiceStub.getWins() - winsBefore);
+        assertTrue(report.getLatencyMicros(50) <= report.getLatencyMicros(99));
+    }
+
+    /**
+     * The folding bots always face a bet of the aggressive bot, so every hand ends with one player left.
+     */
+    @Test
+    public void foldedHandsPayTheLastPlayer() throws InterruptedException {
+        SimulationSettings settings = new SimulationSettings();
+        settings.setTables(1);
+        settings.setHandsPerTable(10);
+        settings.setBots(Arrays.asList(BotType.AGGRESSIVE, BotType.FOLDING, BotType.FOLDING));
+
+        int winsBefore = userServiceStub.getWins();
+        SimulationReport report = tableSimulator.run(settings);
+
+        assertEquals(report.getViolations().toString(), 0, report.getViolations().size());
+        assertEquals(10, report.getHands());
+        assertEquals(report.getHands(), report.getFoldedHands());
+        assertEquals(report.getHands(), userServiceStub.getWins() - winsBefore);
+    }
+}
@@ -15,4 +15,5 @@ public class Room {
     private String name;
     private GameRules gameRules;
     private List<Player> playersInRoom;
+    private int playerCount;
 }
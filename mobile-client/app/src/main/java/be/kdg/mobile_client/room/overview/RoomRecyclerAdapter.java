@@ -50,7 +50,7 @@ public class RoomRecyclerAdapter extends RecyclerView.Adapter<RoomRecyclerAdapte
         this.isPublic = isPublic;
         this.roomService = roomService;
         this.rooms = rooms.stream()
-                .filter((room -> room.getPlayersInRoom().size() < room.getGameRules().getMaxPlayerCount()))
+                .filter((room -> room.getPlayerCount() < room.getGameRules().getMaxPlayerCount()))
                 .filter(room -> room.getGameRules().getMaxLevel() > user.getLevel())
                 .collect(Collectors.toList());
     }
@@ -83,7 +83,7 @@ public class RoomRecyclerAdapter extends RecyclerView.Adapter<RoomRecyclerAdapte
         holder.tvBuyIn.setText(String.format(Locale.ENGLISH, "Buy-in: %d", room.getGameRules().getStartingChips()));
         holder.tvBlinds.setText(String.format(Locale.ENGLISH, "%d/%d", room.getGameRules().getSmallBlind(), room.getGameRules().getBigBlind()));
         holder.tvTimer.setText(String.format(Locale.ENGLISH, "%ds", room.getGameRules().getPlayDelay()));
-        holder.tvCap.setText(String.format(Locale.ENGLISH, "%d/%d", room.getPlayersInRoom().size(), room.getGameRules().getMaxPlayerCount()));
+        holder.tvCap.setText(String.format(Locale.ENGLISH, "%d/%d", room.getPlayerCount(), room.getGameRules().getMaxPlayerCount()));
 
         placeImage(R.drawable.coins, holder.ivCoin);
         placeImage(R.drawable.timer, holder.ivTimer);
@@ -121,7 +121,7 @@ public class RoomRecyclerAdapter extends RecyclerView.Adapter<RoomRecyclerAdapte
             holder.roomCard.setEnabled(false);
             if (room.getGameRules().getStartingChips() > myself.getChips()) {
                 Toast.makeText(ctx, ctx.getString(R.string.you_dont_have_enough_chips), Toast.LENGTH_LONG).show();
-            } else if (room.getPlayersInRoom().size() >= room.getGameRules().getMaxPlayerCount()) {
+            } else if (room.getPlayerCount() >= room.getGameRules().getMaxPlayerCount()) {
                 Toast.makeText(ctx, ctx.getString(R.string.room_is_full), Toast.LENGTH_LONG).show();
             } else {
                 Intent intent = new Intent(ctx, RoomActivity.class);
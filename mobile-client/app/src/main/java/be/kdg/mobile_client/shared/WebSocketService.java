@@ -7,32 +7,50 @@ import com.google.gson.Gson;
 import io.reactivex.Flowable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.functions.Function;
+import io.reactivex.processors.BehaviorProcessor;
 import io.reactivex.schedulers.Schedulers;
 import ua.naiksoftware.stomp.Stomp;
 import ua.naiksoftware.stomp.StompClient;
+import ua.naiksoftware.stomp.dto.StompCommand;
 import ua.naiksoftware.stomp.dto.StompMessage;
+import ua.naiksoftware.stomp.pathmatcher.SimplePathMatcher;
 
 /**
  * All websocket traffic is handled here.
+ * A node of the game service that does not serve a room refuses it with an error frame that names the owner,
+ * the connection is then made to the owner and the watched topics subscribe again there.
  */
 public class WebSocketService {
     private static final String STARTED_LISTENING_ON = "Started listening on: ";
     private static final String UPDATE = "Update: ";
     private static final String RECEIVED = " received: ";
+    private static final String MOVED_TO = "Room served by: ";
+    private static final String ROOM_OWNER_URL_HEADER = "room-owner-url";
+    private final BehaviorProcessor<StompClient> stompClients = BehaviorProcessor.create();
     private StompClient stompClient;
     private final String TAG = "WebSocketService";
     private static final int WEBSOCKET_HEARTBEAT_MS = 10000;
 
     public void connect() {
         if (stompClient == null) {
-            stompClient = Stomp.over(Stomp.ConnectionProvider.OKHTTP, UrlService.WEBSOCKET_URL);
-            stompClient.withClientHeartbeat(WEBSOCKET_HEARTBEAT_MS).withServerHeartbeat(WEBSOCKET_HEARTBEAT_MS);
-            stompClient.connect();
+            connect(UrlService.WEBSOCKET_URL);
         }
     }
 
+    private synchronized void connect(String url) {
+        if (stompClient != null) {
+            stompClient.disconnect();
+        }
+        SimplePathMatcher pathMatcher = new SimplePathMatcher();
+        stompClient = Stomp.over(Stomp.ConnectionProvider.OKHTTP, url);
+        stompClient.setPathMatcher((path, msg) -> StompCommand.ERROR.equals(msg.getStompCommand()) || pathMatcher.matches(path, msg));
+        stompClient.withClientHeartbeat(WEBSOCKET_HEARTBEAT_MS).withServerHeartbeat(WEBSOCKET_HEARTBEAT_MS);
+        stompClient.connect();
+        stompClients.onNext(stompClient);
+    }
+
     public <T> Flowable<T> watch(String url, Class<T> clazz) {
-        return stompClient.topic(url)
+        return stompClients.switchMap(client -> client.topic(url).filter(msg -> !isRefused(client, msg)))
                 .map(parseWithGsonInto(clazz))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
@@ -47,6 +65,19 @@ public class WebSocketService {
                 .subscribe();
     }
 
+    /**
+     * An error frame of the current connection that names the owner of the room moves the connection to the owner.
+     */
+    private synchronized boolean isRefused(StompClient client, StompMessage msg) {
+        if (!StompCommand.ERROR.equals(msg.getStompCommand())) return false;
+        String ownerUrl = msg.findHeader(ROOM_OWNER_URL_HEADER);
+        if (client == stompClient && ownerUrl != null) {
+            Log.i(TAG, MOVED_TO + ownerUrl);
+            connect(ownerUrl.replaceFirst("^http", "ws") + "/connect/websocket");
+        }
+        return true;
+    }
+
     private <T> Function<StompMessage, T> parseWithGsonInto(Class<T> clazz) {
         return msg -> new Gson().fromJson(msg.getPayload(), clazz);
     }
@@ -140,7 +140,7 @@ public class NotificationApiController extends BaseController {
      */
     @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_ADMIN')")
     @DeleteMapping("/user/notification/{notificationId}")
-    public synchronized ResponseEntity<Void> deleteNotification(@PathVariable int notificationId, OAuth2Authentication authentication) throws NotificationException, UserException {
+    public ResponseEntity<Void> deleteNotification(@PathVariable int notificationId, OAuth2Authentication authentication) throws NotificationException, UserException {
         logIncomingCall("sendPublicNotification");
         String userId = getUserId(authentication);
         notificationService.deleteNotification(userId, notificationId);
@@ -5,6 +5,7 @@ import be.kdg.userservice.notification.model.Notification;
 import be.kdg.userservice.notification.model.NotificationType;
 import be.kdg.userservice.notification.persistence.NotificationRepository;
 import be.kdg.userservice.notification.service.api.NotificationService;
+import be.kdg.userservice.shared.retry.RetryOnConflict;
 import be.kdg.userservice.user.exception.UserException;
 import be.kdg.userservice.user.model.User;
 import be.kdg.userservice.user.service.api.UserService;
@@ -24,9 +25,11 @@ import static java.util.stream.Collectors.toList;
 /**
  * This class is used to manage everything that has something to do with notifications.
  * Some of this methods will be called from a web-socket, others form a normal api.
+ * The notifications are stored on the user, so a change is retried when the user was changed at the same time.
  */
 @Service
 @Transactional
+@RetryOnConflict
 @RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationServiceImpl.class);
@@ -5,6 +5,7 @@ import be.kdg.userservice.shared.dto.ErrorDto;
 import be.kdg.userservice.user.exception.UserException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -29,4 +30,13 @@ public class ExceptionHandler extends ResponseEntityExceptionHandler {
         LOGGER.error(ex.getMessage());
         return new ResponseEntity<>(new ErrorDto("error", ex.getMessage()), HttpStatus.NOT_FOUND);
     }
+
+    /**
+     * A user that was changed by someone else since it was read, the client reads it again and retries.
+     */
+    @org.springframework.web.bind.annotation.ExceptionHandler(value = ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorDto> handleConflictExceptions(Exception ex) {
+        LOGGER.warn(ex.getMessage());
+        return new ResponseEntity<>(new ErrorDto("conflict", ex.getMessage()), HttpStatus.CONFLICT);
+    }
 }
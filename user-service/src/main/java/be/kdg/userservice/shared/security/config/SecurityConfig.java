@@ -61,6 +61,6 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     public void configure(WebSecurity web) {
         web
                 .ignoring()
-                .antMatchers("/resources/**", "/static/**", "/css/**", "/js/**", "/images/**", "/h2-console/**", "/connect/**").antMatchers(HttpMethod.POST, "/api/user", "/api/sociallogin", "/api/user/win", "/api/user/gamesplayed");
+                .antMatchers("/resources/**", "/static/**", "/css/**", "/js/**", "/images/**", "/h2-console/**", "/connect/**").antMatchers(HttpMethod.POST, "/api/user", "/api/sociallogin", "/api/user/win", "/api/user/gamesplayed", "/api/user/game-events");
     }
 }
@@ -6,6 +6,8 @@ import be.kdg.userservice.shared.dto.TokenDto;
 import be.kdg.userservice.shared.security.model.CustomUserDetails;
 import be.kdg.userservice.user.controller.dto.AuthDto;
 import be.kdg.userservice.user.controller.dto.FriendDto;
+import be.kdg.userservice.user.controller.dto.GameEventDto;
+import be.kdg.userservice.user.controller.dto.GameEventResultDto;
 import be.kdg.userservice.user.controller.dto.SocialUserDto;
 import be.kdg.userservice.user.controller.dto.UserDto;
 import be.kdg.userservice.user.exception.UserException;
@@ -278,11 +280,35 @@ public class UserApiController extends BaseController {
         return new ResponseEntity(HttpStatus.OK);
     }
 
+    /**
+     * This api applies a batch of round results from the game service.
+     * Every event carries an idempotency key, events that were already applied are skipped,
+     * so the game service can safely send a batch again when it did not get an answer.
+     * Every event is applied in its own transaction: an event that fails, for instance for an unknown user,
+     * does not keep the other events of the batch from being applied.
+     *
+     * @return Status code 200 with the result of every event, so the game service only retries the events that failed.
+     */
+    @PostMapping("/user/game-events")
+    public ResponseEntity<List<GameEventResultDto>> addGameEvents(@Valid @RequestBody List<GameEventDto> gameEvents) {
+        logIncomingCall("addGameEvents");
+        List<GameEventResultDto> results = new ArrayList<>(gameEvents.size());
+        for (GameEventDto event : gameEvents) {
+            try {
+                userService.handleGameEvent(event.getIdempotencyKey(), event.getType(), event.getUserIds());
+                results.add(new GameEventResultDto(event.getIdempotencyKey(), true, null));
+            } catch (RuntimeException e) {
+                results.add(new GameEventResultDto(event.getIdempotencyKey(), false, e.getMessage()));
+            }
+        }
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     /**
      * Rest endpoint that creates a user and returns a CREATED status code.
      */
     @PostMapping("/sociallogin")
-    public synchronized ResponseEntity<TokenDto> socialLogin(@Valid @RequestBody SocialUserDto socialUserDto) throws UserException {
+    public ResponseEntity<TokenDto> socialLogin(@Valid @RequestBody SocialUserDto socialUserDto) throws UserException {
         logIncomingCall("socialLogin");
         User userIn = modelMapper.map(socialUserDto, User.class);
         User userOut = userService.checkSocialUser(userIn);
@@ -0,0 +1,17 @@
+package be.kdg.userservice.user.controller.dto;
+
+import be.kdg.userservice.user.model.GameEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameEventDto {
+    private String idempotencyKey;
+    private GameEventType type;
+    private List<String> userIds;
+}
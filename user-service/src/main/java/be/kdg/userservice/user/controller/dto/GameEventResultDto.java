@@ -0,0 +1,14 @@
+package be.kdg.userservice.user.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameEventResultDto {
+    private String idempotencyKey;
+    private boolean handled;
+    private String error;
+}
@@ -9,6 +9,7 @@ import lombok.Data;
 @Data
 public class UserDto {
     private String id;
+    private Integer version;
     private String username;
     private String firstname;
     private String lastname;
@@ -0,0 +1,16 @@
+package be.kdg.userservice.user.model;
+
+/**
+ * The results of a round of poker that the game service reports.
+ */
+public enum GameEventType {
+    /**
+     * The users won a round.
+     */
+    WIN,
+
+    /**
+     * The users played a round.
+     */
+    GAMES_PLAYED
+}
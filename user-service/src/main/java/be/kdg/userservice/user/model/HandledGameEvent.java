@@ -0,0 +1,28 @@
+package be.kdg.userservice.user.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * The idempotency key of a game event that was applied.
+ * The game service retries an event until it is acknowledged, an event that was already applied is skipped.
+ */
+@Entity
+@Table(name = "tb_handled_game_event")
+@Getter
+@NoArgsConstructor
+public class HandledGameEvent {
+    @Id
+    private String idempotencyKey;
+    private LocalDateTime handledAt;
+
+    public HandledGameEvent(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+        this.handledAt = LocalDateTime.now();
+    }
+}
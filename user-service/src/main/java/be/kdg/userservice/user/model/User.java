@@ -28,6 +28,14 @@ public class User {
     @GeneratedValue(generator = "uuid-gen")
     @GenericGenerator(name = "uuid-gen", strategy = "uuid2")
     private String id;
+
+    /**
+     * The version of the user, raised by every write. A write of an older version fails,
+     * so concurrent changes to the chips or the friends of a user can not overwrite each other.
+     */
+    @Version
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
     private String username;
     private String firstname;
     private String lastname;
@@ -35,6 +43,7 @@ public class User {
     private String email;
     private int enabled;
     private byte[] profilePictureBinary;
+    @Column(unique = true)
     private String socialId;
     private String profilePictureSocial;
     private String provider;
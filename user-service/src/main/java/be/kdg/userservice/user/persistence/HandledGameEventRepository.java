@@ -0,0 +1,9 @@
+package be.kdg.userservice.user.persistence;
+
+import be.kdg.userservice.user.model.HandledGameEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HandledGameEventRepository extends JpaRepository<HandledGameEvent, String> {
+}
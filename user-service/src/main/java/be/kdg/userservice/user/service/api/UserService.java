@@ -2,6 +2,7 @@ package be.kdg.userservice.user.service.api;
 
 import be.kdg.userservice.user.exception.UserException;
 import be.kdg.userservice.user.model.Friend;
+import be.kdg.userservice.user.model.GameEventType;
 import be.kdg.userservice.user.model.User;
 import be.kdg.userservice.user.model.UserRole;
 
@@ -35,4 +36,6 @@ public interface UserService {
     User addWin(String id);
 
     void addGamesPlayed(List<String> ids);
+
+    boolean handleGameEvent(String idempotencyKey, GameEventType type, List<String> ids);
 }
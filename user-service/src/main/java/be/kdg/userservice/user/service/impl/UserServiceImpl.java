@@ -1,16 +1,23 @@
 package be.kdg.userservice.user.service.impl;
 
+import be.kdg.userservice.shared.retry.RetryOnConflict;
 import be.kdg.userservice.shared.security.model.CustomUserDetails;
 import be.kdg.userservice.user.exception.UserException;
 import be.kdg.userservice.user.model.Friend;
+import be.kdg.userservice.user.model.GameEventType;
+import be.kdg.userservice.user.model.HandledGameEvent;
 import be.kdg.userservice.user.model.User;
 import be.kdg.userservice.user.model.UserRole;
+import be.kdg.userservice.user.persistence.HandledGameEventRepository;
 import be.kdg.userservice.user.persistence.UserRepository;
 import be.kdg.userservice.user.persistence.UserRoleRepository;
 import be.kdg.userservice.user.service.api.UserService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,6 +34,8 @@ import static java.util.stream.Collectors.toList;
 
 /**
  * Class that handles all user related tasks.
+ * The changes that are made on behalf of the system, like experience and friends, are retried when another
+ * change of the same user came first. The changes a client made to a user it read before are not retried.
  */
 @RequiredArgsConstructor
 @Transactional
@@ -35,6 +44,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserServiceImpl.class);
     private final UserRepository userRepository;
     private final UserRoleRepository userRoleRepository;
+    private final HandledGameEventRepository handledGameEventRepository;
     private final PasswordEncoder passwordEncoder;
 
     /**
@@ -132,12 +142,15 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @param user The user that needs to be updated.
      * @return The changed user.
      * @throws UserException Thrown if the username if already found or if the user was not found
+     * @throws ObjectOptimisticLockingFailureException Thrown if the user was changed since it was read.
      */
     @Override
-    public synchronized User changeUser(User user) throws UserException {
+    public User changeUser(User user) throws UserException {
         //Get data
         User userToUpdate = userRepository.findById(user.getId())
                 .orElseThrow(() -> new UserException(UserServiceImpl.class, "User not found"));
+        if (user.getVersion() != null && !user.getVersion().equals(userToUpdate.getVersion()))
+            throw new ObjectOptimisticLockingFailureException(User.class, user.getId());
         Optional<User> optionalUserCheck = userRepository.findByUsername(user.getUsername());
 
         if (optionalUserCheck.isPresent() && !optionalUserCheck.get().getUsername().equals(user.getUsername()))
@@ -164,8 +177,9 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @return The updated user.
      * @throws UserException Thrown if the user was not found.
      */
+    @RetryOnConflict
     @Override
-    public synchronized User addFriend(String userId, Friend friend) throws UserException {
+    public User addFriend(String userId, Friend friend) throws UserException {
         //Get data
         User userToUpdate = findUserById(userId);
 
@@ -182,8 +196,9 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @return The updated user.
      * @throws UserException Thrown if the user was not found.
      */
+    @RetryOnConflict
     @Override
-    public synchronized User deleteFriend(String userId, String userIdOfFriend) throws UserException {
+    public User deleteFriend(String userId, String userIdOfFriend) throws UserException {
         //Get data
         User userToUpdate = findUserById(userId);
         Friend friendToDelete = userToUpdate.getFriends().stream()
@@ -203,6 +218,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @return The updated user.
      * @throws UserException Thrown if the user was not found in the database
      */
+    @RetryOnConflict
     @Override
     public User changePassword(User user) throws UserException {
         User dbUser = userRepository.findByUsername(user.getUsername())
@@ -214,10 +230,13 @@ public class UserServiceImpl implements UserDetailsService, UserService {
 
     /**
      * Checks if a user is a social user.
+     * Two first logins of the same social user at once can not both create it, the social id is unique:
+     * the login that lost is retried and finds the user the other one created.
      *
      * @param user The user that the checks needs to happen on
      * @return The social user if present.
      */
+    @RetryOnConflict({ConcurrencyFailureException.class, DataIntegrityViolationException.class})
     @Override
     public User checkSocialUser(User user) {
         Optional<User> dbUser = userRepository.findBySocialId(user.getSocialId());
@@ -266,8 +285,9 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @return The user with the new xp and/or level
      * @throws UsernameNotFoundException Thrown if the user was not found in the database.
      */
+    @RetryOnConflict
     @Override
-    public synchronized User addExperience(String id, int xp) throws UsernameNotFoundException {
+    public User addExperience(String id, int xp) throws UsernameNotFoundException {
         //Get data;
         User user = findUserById(id);
         user.setXpTillNext(user.getXpTillNext() + xp);
@@ -293,6 +313,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      * @param userId The id of the user that needs to be updated.
      * @return The user with one win extra.
      */
+    @RetryOnConflict
     @Override
     public User addWin(String userId) {
         //Get data
@@ -309,6 +330,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      *
      * @param ids The ids thtat need to be opdated
      */
+    @RetryOnConflict
     @Override
     public void addGamesPlayed(List<String> ids) {
         LOGGER.info("Adding +1 game played to " + ids.size() + " users.");
@@ -323,6 +345,35 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         });
     }
 
+    /**
+     * Applies a result of a round that is reported by the game service, at most once per idempotency key.
+     * The key is stored in the same transaction as the users, so a retried event is skipped.
+     *
+     * @param idempotencyKey The key of the event, unique per event.
+     * @param type           The type of event.
+     * @param ids            The ids of the users the event is about.
+     * @return False if the event was already applied before.
+     */
+    @RetryOnConflict({ConcurrencyFailureException.class, DataIntegrityViolationException.class})
+    @Override
+    public boolean handleGameEvent(String idempotencyKey, GameEventType type, List<String> ids) {
+        if (handledGameEventRepository.existsById(idempotencyKey)) {
+            LOGGER.info("Skipping game event " + idempotencyKey + ", it was already handled.");
+            return false;
+        }
+
+        switch (type) {
+            case WIN:
+                ids.forEach(this::addWin);
+                break;
+            case GAMES_PLAYED:
+                addGamesPlayed(ids);
+                break;
+        }
+        handledGameEventRepository.save(new HandledGameEvent(idempotencyKey));
+        return true;
+    }
+
     /**
      * Saves a user to the database.
      *
@@ -0,0 +1,122 @@
+package be.kdg.userservice.shared.retry;
+
+import be.kdg.userservice.user.model.Friend;
+import be.kdg.userservice.user.model.User;
+import be.kdg.userservice.user.persistence.UserRepository;
+import be.kdg.userservice.user.persistence.UserRoleRepository;
+import be.kdg.userservice.user.service.api.UserService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+/**
+ * The changes run at the same time in their own transactions, so the tests do not run in a transaction themselves.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class ConflictRetryAspectTest {
+    private static final int THREADS = 4;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    private final List<String> userIds = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        User user = new User();
+        user.setUsername("crowded");
+        userIds.add(userRepository.save(user).getId());
+    }
+
+    @After
+    public void cleanup() {
+        for (String userId : userIds) {
+            userRoleRepository.findByUserId(userId).ifPresent(userRoleRepository::delete);
+            userRepository.deleteById(userId);
+        }
+    }
+
+    @Test
+    public void concurrentChangesAreRetried() throws InterruptedException, ExecutionException {
+        String userId = userIds.get(0);
+        runAtOnce(i -> userService.addFriend(userId, new Friend("friend-" + i)));
+        runAtOnce(i -> userService.addExperience(userId, 1));
+
+        User user = userRepository.findById(userId).orElseThrow(AssertionError::new);
+        assertEquals(THREADS, user.getFriends().stream().map(Friend::getUserId).collect(toSet()).size());
+        assertEquals(THREADS, user.getXpTillNext());
+    }
+
+    @Test
+    public void concurrentFirstSocialLoginsCreateOneUser() throws InterruptedException, ExecutionException {
+        List<User> users = runAtOnce(i -> {
+            User user = new User();
+            user.setUsername("social");
+            user.setSocialId("social-crowded");
+            return userService.checkSocialUser(user);
+        });
+
+        assertEquals(1, users.stream().map(User::getId).collect(toSet()).size());
+        User user = userRepository.findBySocialId("social-crowded").orElseThrow(AssertionError::new);
+        userIds.add(user.getId());
+        assertEquals(users.get(0).getId(), user.getId());
+        assertTrue(userRoleRepository.findByUserId(user.getId()).isPresent());
+    }
+
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    public void changeOfAnOlderVersionFails() throws Exception {
+        User read = userRepository.findById(userIds.get(0)).orElseThrow(AssertionError::new);
+        userService.addExperience(read.getId(), 1);
+
+        read.setFirstname("stale");
+        userService.changeUser(read);
+    }
+
+    /**
+     * Starts a call on every thread at the same moment.
+     *
+     * @return The results of the calls, in the order of their index.
+     */
+    private <T> List<T> runAtOnce(Call<T> call) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.run(index);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T run(int index) throws Exception;
+    }
+}
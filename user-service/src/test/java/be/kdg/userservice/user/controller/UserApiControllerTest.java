@@ -0,0 +1,86 @@
+package be.kdg.userservice.user.controller;
+
+import be.kdg.userservice.UtilTesting;
+import be.kdg.userservice.user.controller.dto.GameEventDto;
+import be.kdg.userservice.user.model.GameEventType;
+import be.kdg.userservice.user.model.User;
+import be.kdg.userservice.user.persistence.HandledGameEventRepository;
+import be.kdg.userservice.user.persistence.UserRepository;
+import be.kdg.userservice.user.persistence.UserRoleRepository;
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.transaction.Transactional;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Transactional
+public class UserApiControllerTest extends UtilTesting {
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+    @Autowired
+    private HandledGameEventRepository handledGameEventRepository;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        provideTestingData(userRepository, userRoleRepository);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    /**
+     * The game service retries a batch of game events until it is acknowledged,
+     * so the same idempotency keys can arrive more than once. They are applied once.
+     */
+    @Test
+    public void addGameEventsTwice() throws Exception {
+        User winner = userRepository.findById(testableUserId1).orElseThrow(Exception::new);
+        User loser = userRepository.findById(testableUserId2).orElseThrow(Exception::new);
+        int wins = winner.getWins();
+        int gamesPlayedWinner = winner.getGamesPlayed();
+        int gamesPlayedLoser = loser.getGamesPlayed();
+
+        List<GameEventDto> events = Arrays.asList(
+                new GameEventDto("games-played-round-1", GameEventType.GAMES_PLAYED, Arrays.asList(testableUserId1, testableUserId2)),
+                new GameEventDto("win-round-1", GameEventType.WIN, Collections.singletonList(testableUserId1)));
+        String body = new Gson().toJson(events);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/user/game-events")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].handled").value(true))
+                    .andExpect(jsonPath("$[1].handled").value(true));
+        }
+
+        winner = userRepository.findById(testableUserId1).orElseThrow(Exception::new);
+        loser = userRepository.findById(testableUserId2).orElseThrow(Exception::new);
+        assertEquals(wins + 1, winner.getWins());
+        assertEquals(gamesPlayedWinner + 1, winner.getGamesPlayed());
+        assertEquals(gamesPlayedLoser + 1, loser.getGamesPlayed());
+        assertTrue(handledGameEventRepository.existsById("win-round-1"));
+        assertTrue(handledGameEventRepository.existsById("games-played-round-1"));
+    }
+}
@@ -59,8 +59,8 @@ export class ActionbarComponent implements OnInit, OnDestroy {
    * Subscribes to the act channel. All played acts will now be received here.
    */
   initializeGameConnection() {
-    this.ws = this.websocketService.connectGameService();
-    this.ws.connect({}, (frame) => {
+    this.ws = this.websocketService.connectGameService(this.room.id, (ws) => {
+      this.ws = ws;
       this.ws.subscribe('/room/receive-act/' + this.room.id, (message) => {
         if (message) {
           this.currentAct = JSON.parse(message.body) as Act;
@@ -41,8 +41,8 @@ export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
   }
 
   initializeChatConnection() {
-    this.ws = this.websocketService.connectGameService();
-    this.ws.connect({}, (frame) => {
+    this.ws = this.websocketService.connectGameService(this.roomId, (ws) => {
+      this.ws = ws;
       this.ws.subscribe('/chatroom/receive/' + this.roomId, (message) => {
         if (message) {
           this.messages.push(JSON.parse(message.body));
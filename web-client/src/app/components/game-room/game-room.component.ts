@@ -76,8 +76,8 @@ export class GameRoomComponent implements OnInit, OnDestroy {
    * Subscribes to the winner channel. Every time someone wins it is received here.
    */
   initializeWebSocketConnection() {
-    this.ws = this.websocketService.connectGameService();
-    this.ws.connect({}, (frame) => {
+    this.ws = this.websocketService.connectGameService(this.room.id, (ws) => {
+      this.ws = ws;
       this.ws.subscribe('/room/receive-room/' + this.room.id, (message) => {
         if (message) {
           this.room = JSON.parse(message.body) as Room;
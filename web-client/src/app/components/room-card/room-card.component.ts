@@ -45,7 +45,7 @@ export class RoomCardComponent {
   }
 
   isFull(): boolean {
-    return this.room.playersInRoom.length >= this.room.gameRules.maxPlayerCount;
+    return this.room.playerCount >= this.room.gameRules.maxPlayerCount;
   }
 
   determineRouterLink() {
@@ -8,7 +8,6 @@ import {NotifierModule} from 'angular-notifier';
 import {customNotifierOptions} from '../../notifierOptions';
 import {RoomCardComponent} from '../room-card/room-card.component';
 import {AngularFontAwesomeModule} from 'angular-font-awesome';
-import {WhiteListedUser} from '../../model/whiteListedUser';
 
 describe('RoomsOverviewComponent', () => {
   let component: RoomsOverviewComponent;
@@ -32,13 +31,9 @@ describe('RoomsOverviewComponent', () => {
   });
 
   it('isInWhiteList should work', () => {
-    const user1: WhiteListedUser = new WhiteListedUser();
-    user1.userId = '123';
-    const user2: WhiteListedUser = new WhiteListedUser();
-    user2.userId = '456';
-    const userArray = [user1, user2];
+    const userIds = ['123', '456'];
 
-    expect(component.isInWhiteList('123', userArray)).toBeTruthy();
-    expect(component.isInWhiteList('124', userArray)).toBeFalsy();
+    expect(component.isInWhiteList('123', userIds)).toBeTruthy();
+    expect(component.isInWhiteList('124', userIds)).toBeFalsy();
   });
 });
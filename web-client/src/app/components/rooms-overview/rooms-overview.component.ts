@@ -5,7 +5,6 @@ import {UserService} from '../../services/user.service';
 import {PrivateRoom} from '../../model/privateRoom';
 import {User} from '../../model/user';
 import {animate, state, style, transition, trigger} from '@angular/animations';
-import {WhiteListedUser} from '../../model/whiteListedUser';
 import {Notification} from '../../model/notification';
 import {NotificationType} from '../../model/notificationType';
 import {RoomService} from '../../services/room.service';
@@ -76,40 +75,35 @@ export class RoomsOverviewComponent implements OnInit {
       this.curRoom = room;
     }
 
-    this.whiteListedUsers = this.users.filter(user => this.isInWhiteList(user.id, this.curRoom.whiteListedUsers));
-    this.nonWhiteListedUsers = this.users.filter(user => !this.isInWhiteList(user.id, this.curRoom.whiteListedUsers))
+    this.whiteListedUsers = this.users.filter(user => this.isInWhiteList(user.id, this.curRoom.whiteListedUserIds));
+    this.nonWhiteListedUsers = this.users.filter(user => !this.isInWhiteList(user.id, this.curRoom.whiteListedUserIds))
       .filter(user => this.myself.friends.filter(friend => friend.userId === user.id).length === 1);
   }
 
   addToWhiteList(user: User) {
     this.toggleWhiteListedUser(user, true);
-    this.roomService.addToWhiteList(this.curRoom.id, user.id).subscribe(room => {
-      this.curRoom = room;
-      this.refreshData();
-    });
+    this.roomService.addToWhiteList(this.curRoom.id, user.id).subscribe(() => this.refreshData());
     this.notifyUser(user, true);
   }
 
   deleteFromWhiteList(user: User) {
     this.toggleWhiteListedUser(user, false);
-    this.roomService.deleteFromWhiteList(this.curRoom.id, user.id).subscribe(room => {
-      this.curRoom = room;
-      this.refreshData();
-    });
+    this.roomService.deleteFromWhiteList(this.curRoom.id, user.id).subscribe(() => this.refreshData());
     this.notifyUser(user, false);
   }
 
-  isInWhiteList(userId: string, whiteListedUsers: WhiteListedUser[]) {
-    for (let i = 0; i < whiteListedUsers.length; i++) {
-      if (whiteListedUsers[i].userId === userId) {
-        return true;
-      }
-    }
-    return false;
+  isInWhiteList(userId: string, whiteListedUserIds: string[]) {
+    return whiteListedUserIds.indexOf(userId) !== -1;
   }
 
+  /**
+   * The lists are served from the lobby, the current room is taken from the new list so its whitelist is up to date.
+   */
   private refreshData() {
-    this.roomService.getPrivateRoomsFromOwner().subscribe(rooms => this.rooms = rooms);
+    this.roomService.getPrivateRoomsFromOwner().subscribe(rooms => {
+      this.rooms = rooms;
+      this.curRoom = rooms.find(room => room.id === this.curRoom.id) || this.curRoom;
+    });
   }
 
   private getUsers() {
@@ -7,8 +7,11 @@ export class PrivateRoom {
   name: string;
   gameRules: GameRules;
   playersInRoom: Player[];
+  playerCount: number;
   ownerUserId: string;
   whiteListedUsers: WhiteListedUser[];
+  ownerId: string;
+  whiteListedUserIds: string[];
 
   static create() {
     return {
@@ -16,8 +19,11 @@ export class PrivateRoom {
       name: 'test room',
       gameRules: undefined,
       playersInRoom: [Player.create()],
+      playerCount: 1,
       ownerUserId: '',
-      whitelistedUsers: [WhiteListedUser.create()]
+      whitelistedUsers: [WhiteListedUser.create()],
+      ownerId: '',
+      whiteListedUserIds: ['']
     };
   }
 }
@@ -6,13 +6,15 @@ export class Room {
   name: string;
   gameRules: GameRules;
   playersInRoom: Player[];
+  playerCount: number;
 
   static create() {
     return {
       id: 0,
       name: '',
       gameRules: GameRules.create(),
-      playersInRoom: [Player.create()]
+      playersInRoom: [Player.create()],
+      playerCount: 1
     };
   }
 }
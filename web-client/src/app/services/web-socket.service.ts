@@ -8,6 +8,7 @@ import * as Stomp from 'stompjs';
 export class WebSocketService {
   private readonly userServiceWsUrl: string;
   private readonly gameServiceWsUrl: string;
+  private readonly roomOwnerWsUrls = new Map<number, string>();
 
   constructor(private urlService: UrlService) {
     this.userServiceWsUrl = this.urlService.userServiceWebSocketUrl;
@@ -21,10 +22,21 @@ export class WebSocketService {
     return ws;
   }
 
-  connectGameService() {
-    const socket = new WebSocket(this.gameServiceWsUrl);
+  /**
+   * Connects to the node of the game service that serves the room and calls onConnect with the connected client.
+   * Another node refuses the room with an error frame that names the owner, the connection is then made there.
+   */
+  connectGameService(roomId: number, onConnect: (ws: any) => void) {
+    const socket = new WebSocket(this.roomOwnerWsUrls.get(roomId) || this.gameServiceWsUrl);
     const ws = Stomp.over(socket);
     ws.debug = null;
+    ws.connect({}, () => onConnect(ws), (error) => {
+      const ownerUrl = error && error.headers && error.headers['room-owner-url'];
+      if (ownerUrl) {
+        this.roomOwnerWsUrls.set(roomId, ownerUrl.replace(/^http/, 'ws') + '/connect/websocket');
+        this.connectGameService(roomId, onConnect);
+      }
+    });
     return ws;
   }
 }